@@ -0,0 +1,223 @@
+package at.archistar.crypto;
+
+import at.archistar.crypto.data.ReconstructionResult;
+import at.archistar.crypto.data.Share;
+
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Asynchronous wrapper around a CryptoEngine.</p>
+ *
+ * <p>All operations are executed upon a caller-supplied executor and return a
+ * CompletableFuture, this allows callers to overlap secret-sharing with (network)
+ * I/O. Any executor can be used, i.e. a dedicated fixed thread pool to isolate
+ * archistar-smc from the rest of the application or (on Java 21+) an executor
+ * created by Executors.newVirtualThreadPerTaskExecutor().</p>
+ *
+ * <p>Only <i>maxInFlight</i> operations are handed to the executor at any
+ * time. Submitting never blocks the caller (so it is safe to submit from
+ * within the executor or a dependent stage): when the limit is reached, new
+ * operations are queued and handed to the executor as soon as a running
+ * operation has finished. At most <i>maxQueued</i> operations wait for a
+ * slot, further submissions fail right away: the returned future completes
+ * exceptionally with a RejectedExecutionException, so that callers can back
+ * off instead of piling up work (and memory).</p>
+ */
+public class AsyncCryptoEngine {
+
+    /** default number of operations that may wait for a free slot */
+    public static final int DEFAULT_MAX_QUEUED = 1024;
+
+    private final CryptoEngine engine;
+
+    private final Executor executor;
+
+    private final Semaphore inFlight;
+
+    private final Queue<Job<?>> pending = new ConcurrentLinkedQueue<>();
+
+    /** accepted operations that have not finished yet (queued or in flight) */
+    private final AtomicInteger accepted = new AtomicInteger();
+
+    private final int maxInFlight;
+
+    private final int maxQueued;
+
+    /**
+     * create a new asynchronous engine (with a queue of DEFAULT_MAX_QUEUED operations)
+     *
+     * @param engine the engine that will perform the actual work
+     * @param executor the executor upon which all operations will be run
+     * @param maxInFlight maximum number of concurrently submitted operations
+     */
+    public AsyncCryptoEngine(CryptoEngine engine, Executor executor, int maxInFlight) {
+        this(engine, executor, maxInFlight, DEFAULT_MAX_QUEUED);
+    }
+
+    /**
+     * create a new asynchronous engine
+     *
+     * @param engine the engine that will perform the actual work
+     * @param executor the executor upon which all operations will be run
+     * @param maxInFlight maximum number of concurrently submitted operations
+     * @param maxQueued maximum number of operations waiting for a free slot
+     */
+    public AsyncCryptoEngine(CryptoEngine engine, Executor executor, int maxInFlight, int maxQueued) {
+        if (maxInFlight < 1) {
+            throw new IllegalArgumentException("maxInFlight must be at least 1");
+        }
+        if (maxQueued < 0) {
+            throw new IllegalArgumentException("maxQueued must not be negative");
+        }
+        this.engine = engine;
+        this.executor = executor;
+        this.maxInFlight = maxInFlight;
+        this.maxQueued = maxQueued;
+        this.inFlight = new Semaphore(maxInFlight);
+    }
+
+    /**
+     * split up data in shares
+     *
+     * @param data the original data that should be split up
+     * @return the future array of shares
+     */
+    public CompletableFuture<Share[]> share(byte[] data) {
+        return submit(() -> engine.share(data));
+    }
+
+    /**
+     * reconstruct the original data from given shares
+     *
+     * @param shares the split up data (should be a minimum of k shares)
+     * @return the future reconstruction result
+     */
+    public CompletableFuture<ReconstructionResult> reconstruct(Share[] shares) {
+        return submit(() -> engine.reconstruct(shares));
+    }
+
+    /**
+     * reconstruct a part of the original data from the given partial shares
+     *
+     * @param shares the split up data (should be a minimum of k shares)
+     * @param start the starting position relative to the original data
+     * @return the future reconstruction result
+     */
+    public CompletableFuture<ReconstructionResult> reconstructPartial(Share[] shares, long start) {
+        return submit(() -> engine.reconstructPartial(shares, start));
+    }
+
+    /**
+     * recover missing shares
+     *
+     * @param shares the shares from which to recover
+     * @return the future recovered/changed shares, completes exceptionally
+     *         with a ReconstructionException if recovery was not possible
+     */
+    public CompletableFuture<Share[]> recover(Share[] shares) {
+        return submit(() -> engine.recover(shares));
+    }
+
+    /**
+     * @return the number of operations handed to the executor but not yet finished
+     */
+    public int getInFlight() {
+        return maxInFlight - inFlight.availablePermits();
+    }
+
+    /**
+     * @return the number of submitted operations waiting for a free slot
+     */
+    public int getQueued() {
+        return pending.size();
+    }
+
+    /**
+     * @return the wrapped (synchronous) engine
+     */
+    public CryptoEngine getEngine() {
+        return engine;
+    }
+
+    private <T> CompletableFuture<T> submit(Callable<T> task) {
+        final Job<T> job = new Job<>(task);
+        if (accepted.incrementAndGet() > maxInFlight + maxQueued) {
+            accepted.decrementAndGet();
+            job.result.completeExceptionally(new RejectedExecutionException("more than " + maxQueued + " operations are queued"));
+            return job.result;
+        }
+        pending.add(job);
+        dispatch();
+        return job.result;
+    }
+
+    /**
+     * hand queued jobs to the executor while there are free slots. Finished
+     * jobs call this again, so a job queued while all slots were taken is
+     * picked up by whichever happens last: its own dispatch or the release
+     */
+    private void dispatch() {
+        while (!pending.isEmpty() && inFlight.tryAcquire()) {
+            final Job<?> job = pending.poll();
+            if (job == null) {
+                inFlight.release();
+                continue;
+            }
+
+            try {
+                executor.execute(job);
+            } catch (RejectedExecutionException e) {
+                inFlight.release();
+                accepted.decrementAndGet();
+                job.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    private final class Job<T> implements Runnable {
+
+        private final Callable<T> task;
+
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Job(Callable<T> task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            T value = null;
+            Throwable error = null;
+            try {
+                value = task.call();
+            } catch (Throwable e) {
+                error = e;
+            }
+
+            try {
+                /* free the slot before completing, so that dependent stages see it */
+                inFlight.release();
+                accepted.decrementAndGet();
+                dispatch();
+            } finally {
+                if (error == null) {
+                    result.complete(value);
+                } else {
+                    result.completeExceptionally(error);
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Async(" + engine + ", maxInFlight=" + maxInFlight + ", maxQueued=" + maxQueued + ")";
+    }
+}
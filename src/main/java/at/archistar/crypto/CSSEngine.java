@@ -3,6 +3,11 @@ package at.archistar.crypto;
 import at.archistar.crypto.data.*;
 import at.archistar.crypto.decode.DecoderFactory;
 import at.archistar.crypto.decode.ErasureDecoderFactory;
+import at.archistar.crypto.digest.BCBlake2bFingerprintHelper;
+import at.archistar.crypto.digest.FingerprintHelper;
+import at.archistar.crypto.digest.JavaFingerprintHelper;
+import at.archistar.crypto.digest.TreeFingerprintHelper;
+import at.archistar.crypto.execution.ExecutionPolicy;
 import at.archistar.crypto.random.BCDigestRandomSource;
 import at.archistar.crypto.random.RandomSource;
 import at.archistar.crypto.secretsharing.KrawczykCSS;
@@ -11,7 +16,6 @@ import at.archistar.crypto.secretsharing.WeakSecurityException;
 import at.archistar.crypto.symmetric.ChaCha20Encryptor;
 import at.archistar.crypto.symmetric.Encryptor;
 
-import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -32,7 +36,13 @@ public class CSSEngine implements CryptoEngine {
 
     private final KrawczykCSS engine;
 
-    private final MessageDigest digest;
+    private final ExecutionPolicy policy;
+
+    /** the fingerprint algorithm used for new shares */
+    private final CSSShare.FingerprintAlgorithm fingerprintAlgorithm;
+
+    /** all known fingerprint algorithms, existing shares might use any of them */
+    private final Map<CSSShare.FingerprintAlgorithm, FingerprintHelper> fingerprinters;
 
     /**
      * initialize the crypto engine
@@ -59,39 +69,101 @@ public class CSSEngine implements CryptoEngine {
         DecoderFactory decoderFactory = new ErasureDecoderFactory();
         Encryptor cryptor = new ChaCha20Encryptor();
         this.engine = new KrawczykCSS(n, k, rng, cryptor, decoderFactory);
-        try {
-            this.digest = MessageDigest.getInstance("SHA-256");
-        } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
-        }
+        this.policy = ExecutionPolicy.defaultPolicy();
+        this.fingerprintAlgorithm = CSSShare.FingerprintAlgorithm.SHA256;
+        this.fingerprinters = createFingerprinters(policy);
     }
 
     CSSEngine(int n, int k, RandomSource rng, byte[] key) throws WeakSecurityException, InvalidParametersException {
+        this(n, k, rng, key, ExecutionPolicy.defaultPolicy());
+    }
+
+    /**
+     * Create a new CSS Engine.
+     *
+     * @param n total number of shares
+     * @param k minimum count of shares needed to recreate the original data
+     * @param rng random number generator to be used
+     * @param key if not null, generated keys will be encrypted with this key
+     * @param policy how (parallel) work should be executed
+     * @throws WeakSecurityException if the k/n selection is insecure
+     * @throws InvalidParametersException if the key's length is wrong
+     */
+    CSSEngine(int n, int k, RandomSource rng, byte[] key, ExecutionPolicy policy) throws WeakSecurityException, InvalidParametersException {
+        this(n, k, rng, key, policy, KrawczykShare.DispersalType.RABIN);
+    }
+
+    /**
+     * Create a new CSS Engine.
+     *
+     * @param n total number of shares
+     * @param k minimum count of shares needed to recreate the original data
+     * @param rng random number generator to be used
+     * @param key if not null, generated keys will be encrypted with this key
+     * @param policy how (parallel) work should be executed
+     * @param dispersal the algorithm used for dispersing the encrypted data
+     * @throws WeakSecurityException if the k/n selection is insecure
+     * @throws InvalidParametersException if the key's length is wrong
+     */
+    CSSEngine(int n, int k, RandomSource rng, byte[] key, ExecutionPolicy policy,
+              KrawczykShare.DispersalType dispersal) throws WeakSecurityException, InvalidParametersException {
+        this(n, k, rng, key, policy, dispersal, CSSShare.FingerprintAlgorithm.SHA256);
+    }
+
+    /**
+     * Create a new CSS Engine.
+     *
+     * @param n total number of shares
+     * @param k minimum count of shares needed to recreate the original data
+     * @param rng random number generator to be used
+     * @param key if not null, generated keys will be encrypted with this key
+     * @param policy how (parallel) work should be executed
+     * @param dispersal the algorithm used for dispersing the encrypted data
+     * @param fingerprintAlgorithm the hash function used for fingerprinting new shares
+     * @throws WeakSecurityException if the k/n selection is insecure
+     * @throws InvalidParametersException if the key's length is wrong
+     */
+    CSSEngine(int n, int k, RandomSource rng, byte[] key, ExecutionPolicy policy,
+              KrawczykShare.DispersalType dispersal,
+              CSSShare.FingerprintAlgorithm fingerprintAlgorithm) throws WeakSecurityException, InvalidParametersException {
         this.n = n;
         this.k = k;
         DecoderFactory decoderFactory = new ErasureDecoderFactory();
         Encryptor cryptor = new ChaCha20Encryptor();
-        this.engine = new KrawczykCSS(n, k, rng, cryptor, decoderFactory, key);
+        this.engine = new KrawczykCSS(n, k, rng, cryptor, decoderFactory, key, policy, dispersal);
+        this.policy = policy;
+        this.fingerprintAlgorithm = fingerprintAlgorithm;
+        this.fingerprinters = createFingerprinters(policy);
+    }
+
+    private static Map<CSSShare.FingerprintAlgorithm, FingerprintHelper> createFingerprinters(ExecutionPolicy policy) {
+        final Map<CSSShare.FingerprintAlgorithm, FingerprintHelper> res = new EnumMap<>(CSSShare.FingerprintAlgorithm.class);
         try {
-            this.digest = MessageDigest.getInstance("SHA-256");
+            res.put(CSSShare.FingerprintAlgorithm.SHA256, new JavaFingerprintHelper("SHA-256"));
         } catch (NoSuchAlgorithmException e) {
-            throw new RuntimeException(e);
+            throw new RuntimeException("impossible: SHA-256 is always available", e);
         }
+        res.put(CSSShare.FingerprintAlgorithm.BLAKE2B, new BCBlake2bFingerprintHelper());
+        res.put(CSSShare.FingerprintAlgorithm.BLAKE2B_TREE, new TreeFingerprintHelper(policy));
+        return res;
     }
 
     @Override
     public CSSShare[] share(byte[] data) {
         final KrawczykShare[] raw = engine.share(data);
         final CSSShare[] res = new CSSShare[n];
+        final FingerprintHelper fingerprinter = fingerprinters.get(fingerprintAlgorithm);
+        final List<byte[]> digests = policy.map(Arrays.asList(raw), (long) data.length,
+                s -> fingerprinter.fingerprint(s.getYValues()));
         final Map<Byte, byte[]> fingerprints = new HashMap<>();
 
-        for (KrawczykShare share : raw) {
-            fingerprints.put(share.getId(), digest.digest(share.getYValues()));
+        for (int i = 0; i < raw.length; i++) {
+            fingerprints.put(raw[i].getId(), digests.get(i));
         }
 
         for (int i = 0; i < res.length; i++) {
             try {
-                res[i] = new CSSShare(raw[i], fingerprints);
+                res[i] = new CSSShare(raw[i], fingerprints, fingerprintAlgorithm);
             } catch (InvalidParametersException e) {
                 throw new RuntimeException("Should not be possible: " + e);
             }
@@ -117,17 +189,42 @@ public class CSSEngine implements CryptoEngine {
         }
     }
 
+    /**
+     * Splits the shares into validated and non-validated shares. A share is
+     * valid if the fingerprint of its body is confirmed by at least k shares
+     * (using the same fingerprint algorithm).
+     *
+     * Every share body is hashed exactly once (in parallel for large shares,
+     * each thread uses its own digest), afterwards only the n*n fingerprint
+     * comparisons are performed.
+     */
     private Map<Boolean, List<CSSShare>> partition(Share[] shares) {
-        return Arrays.stream(shares)
-                .map(s -> (CSSShare) s)
-                .collect(Collectors.partitioningBy(
-                        s -> Arrays.stream(shares)
-                                .map(s0 -> (CSSShare) s0)
-                                .filter(s0 -> Arrays.equals(
-                                        digest.digest(s.getYValues()),
-                                        (s0.getFingerprints().get(s.getId()))))
-                                .count() >= k)
-                );
+        final List<CSSShare> css = Arrays.stream(shares).map(s -> (CSSShare) s).collect(Collectors.toList());
+        final long length = css.stream().mapToLong(s -> s.getYValues().length).sum();
+        final List<byte[]> digests = policy.map(css, length,
+                s -> fingerprinters.get(s.getFingerprintAlgorithm()).fingerprint(s.getYValues()));
+
+        /* confirmed[i][j]: the fingerprints stored within share j match the body of share i */
+        final boolean[][] confirmed = new boolean[css.size()][css.size()];
+        for (int i = 0; i < css.size(); i++) {
+            final Byte id = css.get(i).getId();
+            for (int j = 0; j < css.size(); j++) {
+                confirmed[i][j] = css.get(i).getFingerprintAlgorithm() == css.get(j).getFingerprintAlgorithm()
+                        && Arrays.equals(digests.get(i), css.get(j).getFingerprints().get(id));
+            }
+        }
+
+        final Map<Boolean, List<CSSShare>> result = new HashMap<>();
+        result.put(Boolean.TRUE, new ArrayList<>());
+        result.put(Boolean.FALSE, new ArrayList<>());
+        for (int i = 0; i < css.size(); i++) {
+            int count = 0;
+            for (boolean c : confirmed[i]) {
+                count += c ? 1 : 0;
+            }
+            result.get(count >= k).add(css.get(i));
+        }
+        return result;
     }
 
     @Override
@@ -153,7 +250,95 @@ public class CSSEngine implements CryptoEngine {
         CSSShare[] res = new CSSShare[recovered.length];
         for (int i = 0; i < recovered.length; i++) {
             try {
-                res[i] = new CSSShare(recovered[i], valid[0].getFingerprints());
+                res[i] = new CSSShare(recovered[i], valid[0].getFingerprints(), valid[0].getFingerprintAlgorithm());
+            } catch (InvalidParametersException e) {
+                throw new ReconstructionException(e.getMessage());
+            }
+        }
+        return res;
+    }
+
+    /**
+     * <p>Replaces the original bytes [offset, offset + newBytes.length) without
+     * re-sharing the whole object (see KrawczykCSS.update). The patched bodies
+     * are fingerprinted again, so the resulting shares validate as before.</p>
+     *
+     * <p>As every share stores the fingerprints of all shares, all n shares
+     * are needed (and have to be valid, use recover first otherwise).</p>
+     *
+     * @param shares all n current shares
+     * @param offset the position of the first replaced byte within the original data
+     * @param newBytes the new bytes
+     * @return the updated shares
+     * @throws ReconstructionException if the shares cannot be updated
+     */
+    public CSSShare[] update(Share[] shares, long offset, byte[] newBytes) throws ReconstructionException {
+        final KrawczykShare[] current = validContent(shares);
+        return patch(current, engine.update(current, offset, newBytes));
+    }
+
+    /**
+     * Appends bytes to the original data (see update).
+     *
+     * @param shares all n current shares
+     * @param newBytes the appended bytes
+     * @return the updated shares
+     * @throws ReconstructionException if the shares cannot be updated
+     */
+    public CSSShare[] append(Share[] shares, byte[] newBytes) throws ReconstructionException {
+        final KrawczykShare[] current = validContent(shares);
+        return patch(current, engine.append(current, newBytes));
+    }
+
+    /**
+     * @return the content of all n (validated) shares, without fingerprints
+     *         and ordered by their x-value
+     */
+    private KrawczykShare[] validContent(Share[] shares) throws ReconstructionException {
+        if (!Arrays.stream(shares).allMatch(s -> s instanceof CSSShare)) {
+            throw new ReconstructionException("Not all shares are CSS Shares");
+        }
+        final List<CSSShare> valid = partition(shares).get(Boolean.TRUE);
+        final KrawczykShare[] result = new KrawczykShare[n];
+        for (CSSShare s : valid) {
+            if (s.getX() >= 1 && s.getX() <= n) {
+                result[s.getX() - 1] = s;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (result[i] == null) {
+                throw new ReconstructionException("Updating needs all " + n + " valid shares, share " + (i + 1) + " is missing");
+            }
+            try {
+                result[i] = new KrawczykShare(result[i].getId(), result[i].getYValues(), result[i].getOriginalLength(),
+                        result[i].getEncAlgorithm(), result[i].getKey(), result[i].getDispersal());
+            } catch (InvalidParametersException e) {
+                throw new ReconstructionException(e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    private CSSShare[] patch(KrawczykShare[] shares, SharePatch[] patches) throws ReconstructionException {
+        final List<byte[]> bodies = new ArrayList<>(n);
+        for (SharePatch p : patches) {
+            bodies.add(p.apply(shares[p.getId() - 1].getYValues()));
+        }
+
+        final FingerprintHelper fingerprinter = fingerprinters.get(fingerprintAlgorithm);
+        final long length = bodies.stream().mapToLong(b -> b.length).sum();
+        final List<byte[]> digests = policy.map(bodies, length, fingerprinter::fingerprint);
+        final Map<Byte, byte[]> fingerprints = new HashMap<>();
+        for (int i = 0; i < patches.length; i++) {
+            fingerprints.put(patches[i].getId(), digests.get(i));
+        }
+
+        final CSSShare[] res = new CSSShare[patches.length];
+        for (int i = 0; i < patches.length; i++) {
+            final KrawczykShare old = shares[patches[i].getId() - 1];
+            try {
+                res[i] = new CSSShare(old.getId(), bodies.get(i), fingerprints, patches[i].getOriginalLength(),
+                        old.getEncAlgorithm(), old.getKey(), old.getDispersal(), fingerprintAlgorithm);
             } catch (InvalidParametersException e) {
                 throw new ReconstructionException(e.getMessage());
             }
@@ -161,8 +346,13 @@ public class CSSEngine implements CryptoEngine {
         return res;
     }
 
+    @Override
+    public ExecutionPolicy getExecutionPolicy() {
+        return policy;
+    }
+
     @Override
     public String toString() {
-        return "CSS(" + k + "/" + n + ")";
+        return "CSS(" + k + "/" + n + ", " + fingerprintAlgorithm + ")";
     }
 }
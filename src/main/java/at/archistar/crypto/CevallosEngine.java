@@ -0,0 +1,189 @@
+package at.archistar.crypto;
+
+import at.archistar.crypto.data.*;
+import at.archistar.crypto.decode.DecoderFactory;
+import at.archistar.crypto.decode.ErasureDecoderFactory;
+import at.archistar.crypto.execution.ExecutionPolicy;
+import at.archistar.crypto.informationchecking.CevallosUSRSS;
+import at.archistar.crypto.mac.BCShortenedMacHelperFactory;
+import at.archistar.crypto.random.BCDigestRandomSource;
+import at.archistar.crypto.random.RandomSource;
+import at.archistar.crypto.secretsharing.ReconstructionException;
+import at.archistar.crypto.secretsharing.ShamirPSS;
+import at.archistar.crypto.secretsharing.WeakSecurityException;
+
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * <p>A CryptoEngine combining ITS Shamir secret-sharing with Cevallos
+ * information checking.</p>
+ *
+ * <p>Compared to the PSSEngine the tags are considerably shorter: their
+ * length is computed by CevallosUSRSS.computeTagLength from the data length
+ * and t = k - 1, the macs are created by BCShortenedMacHelperFactory. The
+ * price is a more expensive reconstruction phase and the restriction
+ * n/3 &lt;= t &lt; n/2.</p>
+ */
+public class CevallosEngine implements CryptoEngine {
+
+    /** our ITS Shamir secret-sharing scheme */
+    private final ShamirPSS sharing;
+
+    private final RandomSource rng;
+
+    private final ExecutionPolicy policy;
+
+    /** how many shares should be generated */
+    private final int n;
+
+    /** minimum amount of shares needed to reconstruct original data */
+    private final int k;
+
+    /**
+     * initialize the crypto engine
+     *
+     * @param n total number of shares
+     * @param k minimum count of shares needed to recreate the original data
+     * @throws WeakSecurityException if the k/n selection is insecure
+     */
+    CevallosEngine(int n, int k) throws NoSuchAlgorithmException, WeakSecurityException {
+        this(n, k, new BCDigestRandomSource());
+    }
+
+    /**
+     * initialize the crypto engine
+     *
+     * @param n total number of shares
+     * @param k minimum count of shares needed to recreate the original data
+     * @param rng random number generator to be used
+     * @throws WeakSecurityException if the k/n selection is insecure
+     */
+    CevallosEngine(int n, int k, RandomSource rng) throws WeakSecurityException {
+        this(n, k, rng, ExecutionPolicy.defaultPolicy());
+    }
+
+    /**
+     * initialize the crypto engine
+     *
+     * @param n total number of shares
+     * @param k minimum count of shares needed to recreate the original data
+     * @param rng random number generator to be used
+     * @param policy how (parallel) work should be executed
+     * @throws WeakSecurityException if the k/n selection is insecure
+     */
+    CevallosEngine(int n, int k, RandomSource rng, ExecutionPolicy policy) throws WeakSecurityException {
+        if (!((k - 1) * 3 >= n && (k - 1) * 2 < n)) {
+            throw new WeakSecurityException("this scheme only works when n/3 <= t < n/2 (where t = k-1)");
+        }
+
+        DecoderFactory decoderFactory = new ErasureDecoderFactory();
+
+        this.rng = rng;
+        this.policy = policy;
+        this.sharing = new ShamirPSS(n, k, rng, decoderFactory, policy);
+        this.n = n;
+        this.k = k;
+    }
+
+    /**
+     * the tag length depends upon the data length (in bit, computed as long so
+     * that it cannot overflow), so the information checking scheme is created
+     * per operation
+     */
+    private CevallosUSRSS createIC(int dataLength) {
+        try {
+            return new CevallosUSRSS(n, k, BCShortenedMacHelperFactory.createShortTag(k - 1, 8L * Math.max(1, dataLength)), rng);
+        } catch (NoSuchAlgorithmException | WeakSecurityException e) {
+            throw new RuntimeException("impossible: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public PSSShare[] share(byte[] data) {
+        PSSShare[] res = new PSSShare[n];
+        if (data == null) {
+            data = new byte[0];
+        }
+        byte[][] output = new byte[n][data.length];
+        sharing.share(output, data);
+        try {
+            for (int i = 0; i < n; i++) {
+                res[i] = new PSSShare((byte) (i + 1), output[i], new HashMap<>(), new HashMap<>(),
+                        InformationCheckingShare.ICType.CEVALLOS);
+            }
+            createIC(data.length).createTags(res);
+            return res;
+        } catch (InvalidParametersException ex) {
+            throw new RuntimeException("impossible: share failed: " + ex.getMessage());
+        }
+    }
+
+    private static boolean allCevallosShares(Share[] shares) {
+        return Arrays.stream(shares).allMatch(s -> s instanceof PSSShare
+                && ((PSSShare) s).getICType() == InformationCheckingShare.ICType.CEVALLOS);
+    }
+
+    @Override
+    public ReconstructionResult reconstruct(Share[] shares) {
+        if (!allCevallosShares(shares)) {
+            return new ReconstructionResult(Collections.singletonList("Not all shares are Cevallos PSS Shares"));
+        }
+        if (shares.length == 0) {
+            return new ReconstructionResult(Collections.singletonList("No shares given"));
+        }
+        PSSShare[] pss = Arrays.stream(shares).map(s -> (PSSShare) s).toArray(PSSShare[]::new);
+
+        /* tags were created for the original length, (corrupted) shares might differ */
+        int length = Arrays.stream(pss)
+                .collect(Collectors.groupingBy(s -> s.getYValues().length, Collectors.counting()))
+                .entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(0);
+
+        Map<Boolean, List<InformationCheckingShare>> partitioned = createIC(length).checkShares(pss);
+        InformationCheckingShare[] valid = partitioned.get(Boolean.TRUE).toArray(new InformationCheckingShare[partitioned.get(Boolean.TRUE).size()]);
+        List<String> errors = partitioned.get(Boolean.FALSE).stream()
+                .map(s -> "Could not validate " + s).collect(Collectors.toList());
+        try {
+            return new ReconstructionResult(sharing.reconstruct(valid), errors);
+        } catch (ReconstructionException e) {
+            errors.add(e.getMessage());
+            return new ReconstructionResult(errors);
+        }
+    }
+
+    @Override
+    public ReconstructionResult reconstructPartial(Share[] shares, long start) {
+        if (!allCevallosShares(shares)) {
+            return new ReconstructionResult(Collections.singletonList("Not all shares are Cevallos PSS Shares"));
+        }
+        String warning = "*** WARNING: Partial reconstruction -- no Information Checking is performed";
+        System.err.println(warning);
+        try {
+            return new ReconstructionResult(sharing.reconstructPartial(shares, start),
+                    Collections.singletonList(warning));
+        } catch (ReconstructionException e) {
+            return new ReconstructionResult(Collections.singletonList(e.getMessage()));
+        }
+    }
+
+    @Override
+    public PSSShare[] recover(Share[] shares) throws ReconstructionException {
+        ReconstructionResult res = reconstruct(shares);
+        if (res.isOkay()) {
+            return share(res.getData());
+        } else {
+            throw new ReconstructionException(res.getErrors().stream().reduce((s1, s2) -> s1 + "\n" + s2).orElse(""));
+        }
+    }
+
+    @Override
+    public ExecutionPolicy getExecutionPolicy() {
+        return policy;
+    }
+
+    @Override
+    public String toString() {
+        return "Cevallos(" + k + "/" + n + ")";
+    }
+}
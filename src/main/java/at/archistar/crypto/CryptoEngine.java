@@ -2,8 +2,13 @@ package at.archistar.crypto;
 
 import at.archistar.crypto.data.ReconstructionResult;
 import at.archistar.crypto.data.Share;
+import at.archistar.crypto.execution.ExecutionPolicy;
 import at.archistar.crypto.secretsharing.ReconstructionException;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
 /**
  * <p>This is the preferred interface for users of archistar-smc. Its implementations
  * combine all needed parts (secret-sharing, information-checking, decoder, etc.)
@@ -35,6 +40,22 @@ import at.archistar.crypto.secretsharing.ReconstructionException;
  * lost, too, and cannot be recovered; therefore they have to be regenerated and used
  * to generate new MACs, so the existing shares are changed); in this case, the method
  * will return a full set of shares</p>
+ *
+ * <p>Workloads consisting of many small objects can use <i>shareBatch</i> and
+ * <i>reconstructBatch</i>: those process the objects in parallel (using the
+ * engine's ExecutionPolicy), every object is still shared or reconstructed on
+ * its own. All engines within archistar-smc can be used concurrently from
+ * multiple threads. Users that want to avoid allocating n shares per object
+ * can pack objects with GeometricSecretSharing.shareSlab and reconstructSlab
+ * (without information checking).</p>
+ *
+ * <p>Files (of arbitrary size) can be shared with <i>share(Path, Path[])</i>
+ * and reconstructed with <i>reconstruct(Path[], Path)</i>. Those map the
+ * files into memory and process them segment by segment, so they never have
+ * to fit into the heap.</p>
+ *
+ * <p>How (and if) work is parallelized is determined by the engine's
+ * ExecutionPolicy which can be passed on to CryptoEngineFactory.</p>
  */
 public interface CryptoEngine {
 
@@ -75,4 +96,65 @@ public interface CryptoEngine {
      * @return the recovered/changed shares
      */
     Share[] recover(Share[] shares) throws ReconstructionException;
+
+    /**
+     * split up multiple objects at once (in parallel, but every object
+     * is shared on its own)
+     *
+     * @param data the original objects that should be split up
+     * @return one array of shares per object (in the same order as data)
+     */
+    default List<Share[]> shareBatch(List<byte[]> data) {
+        return getExecutionPolicy().map(data, this::share);
+    }
+
+    /**
+     * reconstruct multiple objects at once (in parallel, but every object
+     * is reconstructed on its own)
+     *
+     * @param shares one set of shares per object
+     * @return one result per object (in the same order as shares)
+     */
+    default List<ReconstructionResult> reconstructBatch(List<Share[]> shares) {
+        return getExecutionPolicy().map(shares, this::reconstruct);
+    }
+
+    /**
+     * split up a file into share files (one per participant)
+     *
+     * The file is shared in independent segments, every share file
+     * contains the serialized shares (including their metadata) of all
+     * segments for one participant (see docs/serialized.md).
+     *
+     * @param input the file that should be split up
+     * @param outputs the share files to create (one per share)
+     * @throws IOException if a file could not be read or written
+     */
+    default void share(Path input, Path[] outputs) throws IOException {
+        MappedFileSharing.share(this, input, outputs, MappedFileSharing.DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * reconstruct a file from share files created by share(Path, Path[])
+     *
+     * Unreadable share files are skipped. The reconstructed data is written
+     * to output, the result's data is thus always empty and its errors
+     * contain all problems found. The output file is only replaced if the
+     * whole file could be reconstructed.
+     *
+     * @param inputs the share files (should be a minimum of k files)
+     * @param output the file that should contain the original data
+     * @return the reconstruction's result (without data)
+     * @throws IOException if the output file could not be written
+     */
+    default ReconstructionResult reconstruct(Path[] inputs, Path output) throws IOException {
+        return MappedFileSharing.reconstruct(this, inputs, output);
+    }
+
+    /**
+     * @return the policy used for executing (parallel) work
+     */
+    default ExecutionPolicy getExecutionPolicy() {
+        return ExecutionPolicy.defaultPolicy();
+    }
 }
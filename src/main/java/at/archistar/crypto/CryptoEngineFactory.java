@@ -1,10 +1,15 @@
 package at.archistar.crypto;
 
+import at.archistar.crypto.compression.CompressionStage;
+import at.archistar.crypto.data.CSSShare;
 import at.archistar.crypto.data.InvalidParametersException;
+import at.archistar.crypto.data.KrawczykShare;
+import at.archistar.crypto.execution.ExecutionPolicy;
 import at.archistar.crypto.random.RandomSource;
 import at.archistar.crypto.secretsharing.WeakSecurityException;
 
 import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.Executor;
 
 /**
  * @author florian
@@ -34,6 +39,33 @@ public class CryptoEngineFactory {
         return new CSSEngine(n, k, rng, key);
     }
 
+    /**
+     * Computational Secure Secret Sharing with Fingerprinting (custom Random Number Generator
+     * and ExecutionPolicy; key may be null)
+     */
+    public static CSSEngine getCSSEngine(int n, int k, RandomSource rng, byte[] key, ExecutionPolicy policy) throws WeakSecurityException, InvalidParametersException {
+        return new CSSEngine(n, k, rng, key, policy);
+    }
+
+    /**
+     * Computational Secure Secret Sharing with Fingerprinting (custom Random Number Generator,
+     * ExecutionPolicy and dispersal algorithm for the encrypted data; key may be null)
+     */
+    public static CSSEngine getCSSEngine(int n, int k, RandomSource rng, byte[] key, ExecutionPolicy policy,
+                                         KrawczykShare.DispersalType dispersal) throws WeakSecurityException, InvalidParametersException {
+        return new CSSEngine(n, k, rng, key, policy, dispersal);
+    }
+
+    /**
+     * Computational Secure Secret Sharing with Fingerprinting (custom Random Number Generator,
+     * ExecutionPolicy, dispersal algorithm and fingerprint hash function; key may be null)
+     */
+    public static CSSEngine getCSSEngine(int n, int k, RandomSource rng, byte[] key, ExecutionPolicy policy,
+                                         KrawczykShare.DispersalType dispersal,
+                                         CSSShare.FingerprintAlgorithm fingerprintAlgorithm) throws WeakSecurityException, InvalidParametersException {
+        return new CSSEngine(n, k, rng, key, policy, dispersal, fingerprintAlgorithm);
+    }
+
     /**
      * Perfect Secret Sharing with Information Checking
      */
@@ -48,6 +80,43 @@ public class CryptoEngineFactory {
         return new PSSEngine(n, k, rng);
     }
 
+    /**
+     * Perfect Secret Sharing with Information Checking (custom Random Number Generator and ExecutionPolicy)
+     */
+    public static PSSEngine getPSSEngine(int n, int k, RandomSource rng, ExecutionPolicy policy) throws WeakSecurityException, NoSuchAlgorithmException {
+        return new PSSEngine(n, k, rng, policy);
+    }
+
+    /**
+     * Perfect Secret Sharing with Information Checking (custom Random Number Generator and ExecutionPolicy;
+     * compressible data is compressed before sharing)
+     */
+    public static PSSEngine getPSSEngine(int n, int k, RandomSource rng, ExecutionPolicy policy,
+                                         CompressionStage compression) throws WeakSecurityException, NoSuchAlgorithmException {
+        return new PSSEngine(n, k, rng, policy, compression);
+    }
+
+    /**
+     * Perfect Secret Sharing with Cevallos Information Checking (short tags, n/3 &lt;= k-1 &lt; n/2)
+     */
+    public static CevallosEngine getCevallosEngine(int n, int k) throws WeakSecurityException, NoSuchAlgorithmException {
+        return new CevallosEngine(n, k);
+    }
+
+    /**
+     * Perfect Secret Sharing with Cevallos Information Checking (custom Random Number Generator)
+     */
+    public static CevallosEngine getCevallosEngine(int n, int k, RandomSource rng) throws WeakSecurityException {
+        return new CevallosEngine(n, k, rng);
+    }
+
+    /**
+     * Perfect Secret Sharing with Cevallos Information Checking (custom Random Number Generator and ExecutionPolicy)
+     */
+    public static CevallosEngine getCevallosEngine(int n, int k, RandomSource rng, ExecutionPolicy policy) throws WeakSecurityException {
+        return new CevallosEngine(n, k, rng, policy);
+    }
+
     /**
      * Krawczyk Secret Sharing (CSS without Fingerprinting)
      */
@@ -70,6 +139,42 @@ public class CryptoEngineFactory {
         return new KrawczykEngine(n, k, rng, key);
     }
 
+    /**
+     * Krawczyk Secret Sharing (CSS without Fingerprinting; custom Random Number Generator
+     * and ExecutionPolicy; key may be null)
+     */
+    public static KrawczykEngine getKrawczykEngine(int n, int k, RandomSource rng, byte[] key, ExecutionPolicy policy) throws WeakSecurityException, InvalidParametersException {
+        return new KrawczykEngine(n, k, rng, key, policy);
+    }
+
+    /**
+     * Krawczyk Secret Sharing (CSS without Fingerprinting; custom Random Number Generator,
+     * ExecutionPolicy and dispersal algorithm for the encrypted data; key may be null)
+     */
+    public static KrawczykEngine getKrawczykEngine(int n, int k, RandomSource rng, byte[] key, ExecutionPolicy policy,
+                                                   KrawczykShare.DispersalType dispersal) throws WeakSecurityException, InvalidParametersException {
+        return new KrawczykEngine(n, k, rng, key, policy, dispersal);
+    }
+
+    /**
+     * Krawczyk Secret Sharing (CSS without Fingerprinting; custom Random Number Generator,
+     * ExecutionPolicy and dispersal algorithm; compressible data is compressed before encryption)
+     */
+    public static KrawczykEngine getKrawczykEngine(int n, int k, RandomSource rng, byte[] key, ExecutionPolicy policy,
+                                                   KrawczykShare.DispersalType dispersal,
+                                                   CompressionStage compression) throws WeakSecurityException, InvalidParametersException {
+        return new KrawczykEngine(n, k, rng, key, policy, dispersal, compression);
+    }
+
+    /**
+     * Krawczyk Secret Sharing with convergent keys (the encryption key is derived from the
+     * content and the tenant secret, so identical objects produce identical content shares)
+     */
+    public static KrawczykEngine getConvergentKrawczykEngine(int n, int k, RandomSource rng, byte[] tenantKey,
+                                                             ExecutionPolicy policy) throws WeakSecurityException, InvalidParametersException {
+        return new KrawczykEngine(n, k, rng, tenantKey, policy, KrawczykShare.DispersalType.RABIN, null, true);
+    }
+
     /**
      * Shamir Secret Sharing (PSS without Information Checking)
      */
@@ -83,4 +188,34 @@ public class CryptoEngineFactory {
     public static ShamirEngine getShamirEngine(int n, int k, RandomSource rng) throws WeakSecurityException {
         return new ShamirEngine(n, k, rng);
     }
+
+    /**
+     * Shamir Secret Sharing (PSS without Information Checking; custom Random Number Generator and ExecutionPolicy)
+     */
+    public static ShamirEngine getShamirEngine(int n, int k, RandomSource rng, ExecutionPolicy policy) throws WeakSecurityException {
+        return new ShamirEngine(n, k, rng, policy);
+    }
+
+    /**
+     * Packed (ramp) Shamir Secret Sharing (up to t shares reveal nothing; shares are k-t times
+     * smaller than plain Shamir shares, t = k-1 is plain Shamir)
+     */
+    public static ShamirEngine getShamirEngine(int n, int k, int t, RandomSource rng, ExecutionPolicy policy) throws WeakSecurityException {
+        return new ShamirEngine(n, k, t, rng, policy);
+    }
+
+    /**
+     * Asynchronous wrapper around an existing engine (runs upon the given executor)
+     */
+    public static AsyncCryptoEngine getAsyncEngine(CryptoEngine engine, Executor executor, int maxInFlight) {
+        return new AsyncCryptoEngine(engine, executor, maxInFlight);
+    }
+
+    /**
+     * Asynchronous wrapper around an existing engine (runs upon the given executor,
+     * rejects operations once maxQueued operations are waiting)
+     */
+    public static AsyncCryptoEngine getAsyncEngine(CryptoEngine engine, Executor executor, int maxInFlight, int maxQueued) {
+        return new AsyncCryptoEngine(engine, executor, maxInFlight, maxQueued);
+    }
 }
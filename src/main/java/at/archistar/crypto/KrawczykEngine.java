@@ -1,10 +1,13 @@
 package at.archistar.crypto;
 
+import at.archistar.crypto.compression.CompressionStage;
 import at.archistar.crypto.data.InvalidParametersException;
+import at.archistar.crypto.data.KrawczykShare;
 import at.archistar.crypto.data.ReconstructionResult;
 import at.archistar.crypto.data.Share;
 import at.archistar.crypto.decode.DecoderFactory;
 import at.archistar.crypto.decode.ErasureDecoderFactory;
+import at.archistar.crypto.execution.ExecutionPolicy;
 import at.archistar.crypto.random.BCDigestRandomSource;
 import at.archistar.crypto.random.RandomSource;
 import at.archistar.crypto.secretsharing.KrawczykCSS;
@@ -13,6 +16,7 @@ import at.archistar.crypto.secretsharing.WeakSecurityException;
 import at.archistar.crypto.symmetric.ChaCha20Encryptor;
 import at.archistar.crypto.symmetric.Encryptor;
 
+import java.io.IOException;
 import java.util.Collections;
 
 public class KrawczykEngine implements CryptoEngine {
@@ -20,6 +24,10 @@ public class KrawczykEngine implements CryptoEngine {
     private final int k;
     private final int n;
     private final KrawczykCSS engine;
+    private final ExecutionPolicy policy;
+
+    /** compresses the data before encryption, null if disabled */
+    private final CompressionStage compression;
 
     public KrawczykEngine(int n, int k) throws WeakSecurityException {
         this(n, k, new BCDigestRandomSource());
@@ -31,26 +39,126 @@ public class KrawczykEngine implements CryptoEngine {
         DecoderFactory decoderFactory = new ErasureDecoderFactory();
         Encryptor cryptor = new ChaCha20Encryptor();
         engine = new KrawczykCSS(n, k, rng, cryptor, decoderFactory);
+        policy = ExecutionPolicy.defaultPolicy();
+        compression = null;
     }
 
     public KrawczykEngine(int n, int k, RandomSource rng, byte[] additionalKey) throws InvalidParametersException, WeakSecurityException {
+        this(n, k, rng, additionalKey, ExecutionPolicy.defaultPolicy());
+    }
+
+    public KrawczykEngine(int n, int k, RandomSource rng, byte[] additionalKey, ExecutionPolicy policy) throws InvalidParametersException, WeakSecurityException {
+        this(n, k, rng, additionalKey, policy, KrawczykShare.DispersalType.RABIN);
+    }
+
+    public KrawczykEngine(int n, int k, RandomSource rng, byte[] additionalKey, ExecutionPolicy policy,
+                          KrawczykShare.DispersalType dispersal) throws InvalidParametersException, WeakSecurityException {
+        this(n, k, rng, additionalKey, policy, dispersal, null);
+    }
+
+    /**
+     * create an engine which compresses (compressible) data before encrypting it
+     *
+     * @param compression the compression stage, null disables compression
+     */
+    public KrawczykEngine(int n, int k, RandomSource rng, byte[] additionalKey, ExecutionPolicy policy,
+                          KrawczykShare.DispersalType dispersal, CompressionStage compression) throws InvalidParametersException, WeakSecurityException {
+        this(n, k, rng, additionalKey, policy, dispersal, compression, false);
+    }
+
+    /**
+     * create an engine which optionally derives the encryption keys from the content
+     * (see KrawczykCSS), identical objects then yield identical content shares
+     *
+     * @param additionalKey the tenant secret (needed for convergent mode)
+     * @param compression the compression stage, null disables compression
+     * @param convergent derive the encryption keys from the content
+     */
+    public KrawczykEngine(int n, int k, RandomSource rng, byte[] additionalKey, ExecutionPolicy policy,
+                          KrawczykShare.DispersalType dispersal, CompressionStage compression,
+                          boolean convergent) throws InvalidParametersException, WeakSecurityException {
         this.n = n;
         this.k = k;
         DecoderFactory decoderFactory = new ErasureDecoderFactory();
         Encryptor cryptor = new ChaCha20Encryptor();
-        engine = new KrawczykCSS(n, k, rng, cryptor, decoderFactory, additionalKey);
+        engine = new KrawczykCSS(n, k, rng, cryptor, decoderFactory, additionalKey, policy, dispersal, convergent);
+        this.policy = policy;
+        this.compression = compression;
     }
 
     @Override
     public Share[] share(byte[] data) {
-        return engine.share(data);
+        if (data == null) {
+            data = new byte[0];
+        }
+        if (compression == null) {
+            return engine.share(data);
+        }
+
+        final CompressionStage.CompressedData compressed = compression.compress(data);
+        return withCompression(engine.share(compressed.getData()), compressed.getCodecId(), data.length);
+    }
+
+    /**
+     * @return the given shares, marked as containing data compressed with the given codec
+     */
+    private static KrawczykShare[] withCompression(KrawczykShare[] shares, int codecId, int uncompressedLength) {
+        if (codecId == CompressionStage.NONE) {
+            return shares;
+        }
+        final KrawczykShare[] result = new KrawczykShare[shares.length];
+        try {
+            for (int i = 0; i < shares.length; i++) {
+                final KrawczykShare s = shares[i];
+                result[i] = new KrawczykShare(s.getId(), s.getYValues(), s.getOriginalLength(), s.getEncAlgorithm(),
+                        s.getKey(), s.getDispersal(), codecId, uncompressedLength, s.getContentId());
+            }
+        } catch (InvalidParametersException e) {
+            throw new RuntimeException("impossible: share was valid before", e);
+        }
+        return result;
+    }
+
+    /**
+     * @return the compression codec of the shares (NONE if uncompressed)
+     * @throws ReconstructionException if the shares do not agree upon the codec
+     */
+    private static int compressionOf(Share[] shares) throws ReconstructionException {
+        int codecId = -1;
+        for (Share s : shares) {
+            final int c = s instanceof KrawczykShare ? ((KrawczykShare) s).getCompression() : CompressionStage.NONE;
+            if (codecId != -1 && c != codecId) {
+                throw new ReconstructionException("Shares use different compression codecs");
+            }
+            codecId = c;
+        }
+        return Math.max(codecId, CompressionStage.NONE);
+    }
+
+    /**
+     * @return the length of the shared data before compression
+     * @throws ReconstructionException if the (compressed) shares do not agree upon it
+     */
+    private static int uncompressedLengthOf(Share[] shares) throws ReconstructionException {
+        final int length = ((KrawczykShare) shares[0]).getUncompressedLength();
+        for (Share s : shares) {
+            if (((KrawczykShare) s).getUncompressedLength() != length) {
+                throw new ReconstructionException("Shares have different uncompressed lengths");
+            }
+        }
+        return length;
     }
 
     @Override
     public ReconstructionResult reconstruct(Share[] shares) {
         try {
-            return new ReconstructionResult(engine.reconstruct(shares));
-        } catch (ReconstructionException e) {
+            final int codecId = compressionOf(shares);
+            if (codecId == CompressionStage.NONE) {
+                return new ReconstructionResult(engine.reconstruct(shares));
+            }
+            final int length = uncompressedLengthOf(shares);
+            return new ReconstructionResult(CompressionStage.decompress(codecId, engine.reconstruct(shares), length));
+        } catch (ReconstructionException | IOException e) {
             return new ReconstructionResult(Collections.singletonList(e.toString()));
         }
     }
@@ -58,6 +166,9 @@ public class KrawczykEngine implements CryptoEngine {
     @Override
     public ReconstructionResult reconstructPartial(Share[] shares, long start) {
         try {
+            if (compressionOf(shares) != CompressionStage.NONE) {
+                throw new ReconstructionException("Partial reconstruction of compressed data is not possible");
+            }
             return new ReconstructionResult(engine.reconstructPartial(shares, start));
         } catch (ReconstructionException e) {
             return new ReconstructionResult(Collections.singletonList(e.toString()));
@@ -66,11 +177,20 @@ public class KrawczykEngine implements CryptoEngine {
 
     @Override
     public Share[] recover(Share[] shares) throws ReconstructionException {
-        return engine.recover(shares);
+        final int codecId = compressionOf(shares);
+        if (codecId == CompressionStage.NONE) {
+            return engine.recover(shares);
+        }
+        return withCompression(engine.recover(shares), codecId, uncompressedLengthOf(shares));
+    }
+
+    @Override
+    public ExecutionPolicy getExecutionPolicy() {
+        return policy;
     }
 
     @Override
     public String toString() {
-        return "Krawczyk(" + k + "/" + n + ")";
+        return "Krawczyk(" + k + "/" + n + (compression == null ? "" : ", " + compression.getCodec()) + ")";
     }
 }
@@ -0,0 +1,362 @@
+package at.archistar.crypto;
+
+import at.archistar.crypto.data.BrokenShare;
+import at.archistar.crypto.data.ReconstructionResult;
+import at.archistar.crypto.data.Share;
+import at.archistar.crypto.data.ShareFactory;
+import at.archistar.crypto.secretsharing.ReconstructionException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * <p>Shares files of arbitrary size through memory-mapped I/O (see
+ * CryptoEngine.share(Path, Path[]) and CryptoEngine.reconstruct(Path[], Path)).</p>
+ *
+ * <p>The input is split into segments that are shared independently by the
+ * engine. Segments are mapped from the input file, shared in groups (in
+ * parallel according to the engine's ExecutionPolicy) and the resulting
+ * records are put into mapped regions of the share files. As engines work
+ * upon byte arrays, every segment of a group and its shares are held within
+ * the heap while the group is processed, so the heap usage is about
+ * GROUP_SIZE * segmentSize * (n + 1) (with an expansion factor for schemes
+ * producing large shares) -- it never depends upon the file size. The share
+ * file format is described within docs/serialized.md.</p>
+ *
+ * <p>Reconstruction writes to a temporary file next to the output file which
+ * replaces the output only if all segments were reconstructed.</p>
+ */
+final class MappedFileSharing {
+
+    /** default size of a segment (bytes of the original file) */
+    static final int DEFAULT_SEGMENT_SIZE = 4 * 1024 * 1024;
+
+    /** number of segments processed at once */
+    private static final int GROUP_SIZE = 8;
+
+    /** "ASMC" */
+    private static final int MAGIC = 0x41534d43;
+
+    private static final int VERSION = 1;
+
+    /** magic, version, original length, segment size, segment count */
+    private static final int HEADER_LENGTH = 4 + 4 + 8 + 4 + 8;
+
+    private MappedFileSharing() {
+    }
+
+    private static final class Header {
+        private final long originalLength;
+        private final int segmentSize;
+        private final long segmentCount;
+
+        private Header(long originalLength, int segmentSize) {
+            this.originalLength = originalLength;
+            this.segmentSize = segmentSize;
+            this.segmentCount = (originalLength + segmentSize - 1) / segmentSize;
+        }
+
+        private int segmentLength(long segment) {
+            return (int) Math.min(segmentSize, originalLength - segment * segmentSize);
+        }
+
+        private ByteBuffer write() {
+            ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH);
+            buf.putInt(MAGIC).putInt(VERSION).putLong(originalLength).putInt(segmentSize).putLong(segmentCount);
+            buf.flip();
+            return buf;
+        }
+
+        private static Header read(FileChannel in) throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(HEADER_LENGTH);
+            readFully(in, buf, 0);
+            if (buf.getInt() != MAGIC || buf.getInt() != VERSION) {
+                throw new IOException("not an archistar share file");
+            }
+            final long originalLength = buf.getLong();
+            final int segmentSize = buf.getInt();
+            if (segmentSize <= 0 || originalLength < 0) {
+                throw new IOException("corrupted share file header");
+            }
+            Header header = new Header(originalLength, segmentSize);
+            if (buf.getLong() != header.segmentCount) {
+                throw new IOException("corrupted share file header");
+            }
+            return header;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Header)) {
+                return false;
+            }
+            Header h = (Header) o;
+            return originalLength == h.originalLength && segmentSize == h.segmentSize;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(originalLength) * 31 + segmentSize;
+        }
+    }
+
+    private static void readFully(FileChannel in, ByteBuffer buf, long position) throws IOException {
+        while (buf.hasRemaining()) {
+            if (in.read(buf, position + buf.position()) < 0) {
+                throw new IOException("unexpected end of share file");
+            }
+        }
+        buf.flip();
+    }
+
+    /** a record consists of: int metadata length, metadata, int data length, data */
+    private static byte[] encodeRecordHeader(Share share) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        DataOutputStream sout = new DataOutputStream(out);
+        Map<String, String> metaData = share.getMetaData();
+        sout.writeInt(metaData.size());
+        for (Map.Entry<String, String> e : metaData.entrySet()) {
+            sout.writeUTF(e.getKey());
+            sout.writeUTF(e.getValue());
+        }
+        return out.toByteArray();
+    }
+
+    static void share(CryptoEngine engine, Path input, Path[] outputs, int segmentSize) throws IOException {
+        if (segmentSize <= 0) {
+            throw new IllegalArgumentException("segment size must be positive");
+        }
+        FileChannel[] out = new FileChannel[outputs.length];
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ)) {
+            for (int i = 0; i < outputs.length; i++) {
+                out[i] = FileChannel.open(outputs[i], StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+
+            final Header header = new Header(in.size(), segmentSize);
+            final long[] position = new long[outputs.length];
+            for (int i = 0; i < outputs.length; i++) {
+                out[i].write(header.write(), 0);
+                position[i] = HEADER_LENGTH;
+            }
+
+            for (long group = 0; group < header.segmentCount; group += GROUP_SIZE) {
+                List<byte[]> segments = new ArrayList<>();
+                for (long s = group; s < Math.min(header.segmentCount, group + GROUP_SIZE); s++) {
+                    MappedByteBuffer mapped = in.map(FileChannel.MapMode.READ_ONLY, s * segmentSize, header.segmentLength(s));
+                    byte[] segment = new byte[header.segmentLength(s)];
+                    mapped.get(segment);
+                    segments.add(segment);
+                }
+
+                List<Share[]> shared = engine.shareBatch(segments);
+                if (shared.get(0).length != outputs.length) {
+                    throw new IllegalArgumentException("engine creates " + shared.get(0).length
+                            + " shares but " + outputs.length + " outputs were given");
+                }
+
+                try {
+                    engine.getExecutionPolicy().map(participants(outputs.length), i -> {
+                        try {
+                            position[i] += writeRecords(out[i], position[i], shared, i);
+                            return i;
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+
+            for (FileChannel c : out) {
+                c.force(true);
+            }
+        } finally {
+            for (FileChannel c : out) {
+                if (c != null) {
+                    c.close();
+                }
+            }
+        }
+    }
+
+    private static List<Integer> participants(int n) {
+        return IntStream.range(0, n).boxed().collect(Collectors.toList());
+    }
+
+    private static long writeRecords(FileChannel out, long position, List<Share[]> shared, int participant) throws IOException {
+        List<byte[]> headers = new ArrayList<>(shared.size());
+        List<byte[]> bodies = new ArrayList<>(shared.size());
+        long total = 0;
+        for (Share[] shares : shared) {
+            byte[] header = encodeRecordHeader(shares[participant]);
+            byte[] body = shares[participant].getSerializedData();
+            headers.add(header);
+            bodies.add(body);
+            total += 4 + header.length + 4 + body.length;
+        }
+
+        MappedByteBuffer mapped = out.map(FileChannel.MapMode.READ_WRITE, position, total);
+        for (int s = 0; s < headers.size(); s++) {
+            mapped.putInt(headers.get(s).length).put(headers.get(s));
+            mapped.putInt(bodies.get(s).length).put(bodies.get(s));
+        }
+        mapped.force();
+        return total;
+    }
+
+    /** a share file which is read record by record */
+    private static final class ShareReader {
+        private final FileChannel in;
+        private final Header header;
+        private long position = HEADER_LENGTH;
+
+        private ShareReader(FileChannel in, Header header) {
+            this.in = in;
+            this.header = header;
+        }
+
+        private int readInt() throws IOException {
+            ByteBuffer buf = ByteBuffer.allocate(4);
+            readFully(in, buf, position);
+            position += 4;
+            return buf.getInt();
+        }
+
+        private byte[] readBlock(int length) throws IOException {
+            if (length < 0 || position + length > in.size()) {
+                throw new IOException("unexpected end of share file");
+            }
+            byte[] result = new byte[length];
+            in.map(FileChannel.MapMode.READ_ONLY, position, length).get(result);
+            position += length;
+            return result;
+        }
+
+        private Share next() throws IOException {
+            DataInputStream meta = new DataInputStream(new ByteArrayInputStream(readBlock(readInt())));
+            Map<String, String> metaData = new HashMap<>();
+            for (int count = meta.readInt(); count > 0; count--) {
+                metaData.put(meta.readUTF(), meta.readUTF());
+            }
+            return ShareFactory.deserialize(readBlock(readInt()), metaData);
+        }
+    }
+
+    static ReconstructionResult reconstruct(CryptoEngine engine, Path[] inputs, Path output) throws IOException {
+        final Set<String> errors = new LinkedHashSet<>();
+        final List<FileChannel> channels = new ArrayList<>();
+        Path temporary = null;
+        try {
+            /* open all readable share files, use the header most of them agree upon */
+            List<ShareReader> readers = new ArrayList<>();
+            for (Path p : inputs) {
+                try {
+                    FileChannel c = FileChannel.open(p, StandardOpenOption.READ);
+                    channels.add(c);
+                    readers.add(new ShareReader(c, Header.read(c)));
+                } catch (IOException e) {
+                    errors.add(p + ": " + e.getMessage());
+                }
+            }
+            Header header = readers.stream().collect(Collectors.groupingBy(r -> r.header, Collectors.counting()))
+                    .entrySet().stream().max(Map.Entry.comparingByValue()).map(Map.Entry::getKey).orElse(null);
+            if (header == null) {
+                errors.add("no readable share files");
+                return new ReconstructionResult(new ArrayList<>(errors));
+            }
+            for (ShareReader r : readers) {
+                if (!r.header.equals(header)) {
+                    errors.add("share file with inconsistent header ignored");
+                }
+            }
+            readers.removeIf(r -> !r.header.equals(header));
+
+            final Path parent = output.toAbsolutePath().getParent();
+            temporary = Files.createTempFile(parent, output.getFileName().toString(), ".partial");
+            try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+                for (long group = 0; group < header.segmentCount; group += GROUP_SIZE) {
+                    final long end = Math.min(header.segmentCount, group + GROUP_SIZE);
+
+                    List<Share[]> segments = new ArrayList<>();
+                    for (long s = group; s < end; s++) {
+                        List<Share> shares = new ArrayList<>();
+                        for (ShareReader r : readers) {
+                            try {
+                                Share share = r.next();
+                                if (share instanceof BrokenShare) {
+                                    errors.add("broken share within segment " + s + ": " + share);
+                                } else {
+                                    shares.add(share);
+                                }
+                            } catch (IOException e) {
+                                errors.add("share file ignored: " + e.getMessage());
+                                r.position = Long.MAX_VALUE;
+                            }
+                        }
+                        readers.removeIf(r -> r.position == Long.MAX_VALUE);
+                        segments.add(shares.toArray(new Share[shares.size()]));
+                    }
+
+                    List<ReconstructionResult> results = engine.reconstructBatch(segments);
+                    for (int i = 0; i < results.size(); i++) {
+                        final long s = group + i;
+                        ReconstructionResult result = results.get(i);
+                        errors.addAll(result.getErrors());
+                        if (!result.isOkay()) {
+                            errors.add("could not reconstruct segment " + s);
+                            return new ReconstructionResult(new ArrayList<>(errors));
+                        }
+                        byte[] data = result.getData();
+                        if (data.length != header.segmentLength(s)) {
+                            errors.add("segment " + s + " has an unexpected length");
+                            return new ReconstructionResult(new ArrayList<>(errors));
+                        }
+                        if (data.length > 0) {
+                            MappedByteBuffer mapped = out.map(FileChannel.MapMode.READ_WRITE, s * header.segmentSize, data.length);
+                            mapped.put(data);
+                            mapped.force();
+                        }
+                    }
+                }
+
+                /* the output must be on disk before it replaces the old file */
+                out.force(true);
+            }
+            Files.move(temporary, output, StandardCopyOption.REPLACE_EXISTING);
+            temporary = null;
+            return new ReconstructionResult(new byte[0], new ArrayList<>(errors));
+        } catch (ReconstructionException e) {
+            throw new RuntimeException("impossible: result was checked before", e);
+        } finally {
+            for (FileChannel c : channels) {
+                c.close();
+            }
+            if (temporary != null) {
+                /* never leave a partially reconstructed file behind */
+                Files.deleteIfExists(temporary);
+            }
+        }
+    }
+}
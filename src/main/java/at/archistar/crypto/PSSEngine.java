@@ -1,8 +1,10 @@
 package at.archistar.crypto;
 
+import at.archistar.crypto.compression.CompressionStage;
 import at.archistar.crypto.data.*;
 import at.archistar.crypto.decode.DecoderFactory;
 import at.archistar.crypto.decode.ErasureDecoderFactory;
+import at.archistar.crypto.execution.ExecutionPolicy;
 import at.archistar.crypto.informationchecking.RabinBenOrRSS;
 import at.archistar.crypto.mac.BCPoly1305MacHelper;
 import at.archistar.crypto.mac.MacHelper;
@@ -12,6 +14,7 @@ import at.archistar.crypto.secretsharing.ReconstructionException;
 import at.archistar.crypto.secretsharing.ShamirPSS;
 import at.archistar.crypto.secretsharing.WeakSecurityException;
 
+import java.io.IOException;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -29,12 +32,17 @@ public class PSSEngine implements CryptoEngine {
 
     private final RabinBenOrRSS ic;
 
+    private final ExecutionPolicy policy;
+
     /** how many shares should be generated */
     private final int n;
 
     /** minimum amount of shares needed to reconstruct original data */
     private final int k;
 
+    /** compresses the data before sharing, null if disabled */
+    private final CompressionStage compression;
+
     /**
      * initialize the crypto engine
      *
@@ -55,13 +63,42 @@ public class PSSEngine implements CryptoEngine {
      * @throws WeakSecurityException if the k/n selection is insecure
      */
     PSSEngine(int n, int k, RandomSource rng) throws NoSuchAlgorithmException, WeakSecurityException {
+        this(n, k, rng, ExecutionPolicy.defaultPolicy());
+    }
+
+    /**
+     * Create a new Shamir Engine.
+     *
+     * @param n total number of shares
+     * @param k minimum count of shares needed to recreate the original data
+     * @param rng random number generator to be used
+     * @param policy how (parallel) work should be executed
+     * @throws WeakSecurityException if the k/n selection is insecure
+     */
+    PSSEngine(int n, int k, RandomSource rng, ExecutionPolicy policy) throws NoSuchAlgorithmException, WeakSecurityException {
+        this(n, k, rng, policy, null);
+    }
+
+    /**
+     * Create a new Shamir Engine which compresses (compressible) data before sharing it.
+     *
+     * @param n total number of shares
+     * @param k minimum count of shares needed to recreate the original data
+     * @param rng random number generator to be used
+     * @param policy how (parallel) work should be executed
+     * @param compression the compression stage, null disables compression
+     * @throws WeakSecurityException if the k/n selection is insecure
+     */
+    PSSEngine(int n, int k, RandomSource rng, ExecutionPolicy policy, CompressionStage compression) throws NoSuchAlgorithmException, WeakSecurityException {
         DecoderFactory decoderFactory = new ErasureDecoderFactory();
         MacHelper mac = new BCPoly1305MacHelper();
 
-        this.sharing = new ShamirPSS(n, k, rng, decoderFactory);
+        this.policy = policy;
+        this.sharing = new ShamirPSS(n, k, rng, decoderFactory, policy);
         this.ic = new RabinBenOrRSS(k, mac, rng);
         this.n = n;
         this.k = k;
+        this.compression = compression;
     }
 
     @Override
@@ -70,11 +107,19 @@ public class PSSEngine implements CryptoEngine {
         if (data == null) {
             data = new byte[0];
         }
+        int codecId = CompressionStage.NONE;
+        final int uncompressedLength = data.length;
+        if (compression != null) {
+            CompressionStage.CompressedData compressed = compression.compress(data);
+            codecId = compressed.getCodecId();
+            data = compressed.getData();
+        }
         byte[][] output = new byte[n][data.length];
         sharing.share(output, data);
         try {
             for (int i = 0; i < n; i++) {
-                res[i] = new PSSShare((byte) (i+1), output[i], new HashMap<>(), new HashMap<>());
+                res[i] = new PSSShare((byte) (i+1), output[i], new HashMap<>(), new HashMap<>(),
+                        InformationCheckingShare.ICType.RABIN_BEN_OR, codecId, uncompressedLength);
             }
             ic.createTags(res);
             return res;
@@ -94,8 +139,9 @@ public class PSSEngine implements CryptoEngine {
         List<String> errors = partitioned.get(Boolean.FALSE).stream()
                 .map(s -> "Could not validate " + s).collect(Collectors.toList());
         try {
-            return new ReconstructionResult(sharing.reconstruct(valid), errors);
-        } catch (ReconstructionException e) {
+            return new ReconstructionResult(CompressionStage.decompress(compressionOf(valid), sharing.reconstruct(valid),
+                    uncompressedLengthOf(valid)), errors);
+        } catch (ReconstructionException | IOException e) {
             errors.add(e.getMessage());
             return new ReconstructionResult(errors);
         }
@@ -106,6 +152,9 @@ public class PSSEngine implements CryptoEngine {
         if (!Arrays.stream(shares).allMatch(s -> s instanceof PSSShare)) {
             return new ReconstructionResult(Collections.singletonList("Not all shares are PSS Shares"));
         }
+        if (Arrays.stream(shares).anyMatch(s -> ((PSSShare) s).getCompression() != CompressionStage.NONE)) {
+            return new ReconstructionResult(Collections.singletonList("Partial reconstruction of compressed data is not possible"));
+        }
         String warning = "*** WARNING: Partial reconstruction -- no Information Checking is performed";
         System.err.println(warning);
         try {
@@ -116,6 +165,30 @@ public class PSSEngine implements CryptoEngine {
         }
     }
 
+    /**
+     * @return the compression codec of the (validated) shares
+     * @throws ReconstructionException if the shares do not agree upon the codec
+     */
+    private static int compressionOf(InformationCheckingShare[] shares) throws ReconstructionException {
+        Set<Integer> codecs = Arrays.stream(shares).map(s -> ((PSSShare) s).getCompression()).collect(Collectors.toSet());
+        if (codecs.size() > 1) {
+            throw new ReconstructionException("Shares use different compression codecs");
+        }
+        return codecs.stream().findFirst().orElse(CompressionStage.NONE);
+    }
+
+    /**
+     * @return the length of the (validated) shares' data before compression
+     * @throws ReconstructionException if the shares do not agree upon it
+     */
+    private static int uncompressedLengthOf(InformationCheckingShare[] shares) throws ReconstructionException {
+        Set<Integer> lengths = Arrays.stream(shares).map(s -> ((PSSShare) s).getUncompressedLength()).collect(Collectors.toSet());
+        if (lengths.size() > 1) {
+            throw new ReconstructionException("Shares have different uncompressed lengths");
+        }
+        return lengths.stream().findFirst().orElse(0);
+    }
+
     @Override
     public PSSShare[] recover(Share[] shares) throws ReconstructionException {
         ReconstructionResult res = reconstruct(shares);
@@ -126,8 +199,13 @@ public class PSSEngine implements CryptoEngine {
         }
     }
 
+    @Override
+    public ExecutionPolicy getExecutionPolicy() {
+        return policy;
+    }
+
     @Override
     public String toString() {
-        return "PSS(" + k + "/" + n + ")";
+        return "PSS(" + k + "/" + n + (compression == null ? "" : ", " + compression.getCodec()) + ")";
     }
 }
@@ -4,8 +4,11 @@ import at.archistar.crypto.data.ReconstructionResult;
 import at.archistar.crypto.data.Share;
 import at.archistar.crypto.decode.DecoderFactory;
 import at.archistar.crypto.decode.ErasureDecoderFactory;
+import at.archistar.crypto.execution.ExecutionPolicy;
 import at.archistar.crypto.random.BCDigestRandomSource;
 import at.archistar.crypto.random.RandomSource;
+import at.archistar.crypto.secretsharing.GeometricSecretSharing;
+import at.archistar.crypto.secretsharing.PackedShamirPSS;
 import at.archistar.crypto.secretsharing.ReconstructionException;
 import at.archistar.crypto.secretsharing.ShamirPSS;
 import at.archistar.crypto.secretsharing.WeakSecurityException;
@@ -16,17 +19,44 @@ public class ShamirEngine implements CryptoEngine {
 
     private final int n;
     private final int k;
-    private final ShamirPSS engine;
+    private final int t;
+    private final GeometricSecretSharing engine;
+    private final ExecutionPolicy policy;
 
     public ShamirEngine(int n, int k) throws WeakSecurityException {
         this(n, k, new BCDigestRandomSource());
     }
 
     public ShamirEngine(int n, int k, RandomSource rng) throws WeakSecurityException {
+        this(n, k, rng, ExecutionPolicy.defaultPolicy());
+    }
+
+    public ShamirEngine(int n, int k, RandomSource rng, ExecutionPolicy policy) throws WeakSecurityException {
+        this(n, k, k - 1, rng, policy);
+    }
+
+    /**
+     * create a (packed) Shamir engine with a configurable privacy threshold
+     *
+     * @param n the number of shares to create
+     * @param k the minimum number of shares required for reconstruction
+     * @param t up to t shares do not reveal anything about the secret (0 &lt; t &lt; k),
+     *          every share byte holds k-t secret bytes. t = k-1 is plain Shamir.
+     * @param rng the source of randomness
+     * @param policy how encoding/decoding work should be executed
+     * @throws WeakSecurityException if the parameters are not secure
+     */
+    public ShamirEngine(int n, int k, int t, RandomSource rng, ExecutionPolicy policy) throws WeakSecurityException {
         this.n = n;
         this.k = k;
+        this.t = t;
         DecoderFactory decoderFactory = new ErasureDecoderFactory();
-        engine = new ShamirPSS(n, k, rng, decoderFactory);
+        if (t == k - 1) {
+            engine = new ShamirPSS(n, k, rng, decoderFactory, policy);
+        } else {
+            engine = new PackedShamirPSS(n, k, t, rng, decoderFactory, policy);
+        }
+        this.policy = policy;
     }
 
     @Override
@@ -57,8 +87,13 @@ public class ShamirEngine implements CryptoEngine {
         return engine.recover(shares);
     }
 
+    @Override
+    public ExecutionPolicy getExecutionPolicy() {
+        return policy;
+    }
+
     @Override
     public String toString() {
-        return "Shamir(" + k + "/" + n + ")";
+        return t == k - 1 ? "Shamir(" + k + "/" + n + ")" : "PackedShamir(" + k + "/" + n + ", t=" + t + ")";
     }
 }
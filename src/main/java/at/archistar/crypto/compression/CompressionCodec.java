@@ -0,0 +1,33 @@
+package at.archistar.crypto.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * <p>A (streaming) compression algorithm.</p>
+ *
+ * <p>Codecs are identified by a small integer which is stored within the
+ * shares' metadata, see CompressionStage.forId for the known codecs.</p>
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return the codec's id (0 is reserved for uncompressed data)
+     */
+    int getId();
+
+    /**
+     * @param out where the compressed data should be written to
+     * @return a stream compressing everything written to it (closing it closes out)
+     * @throws IOException if the underlying stream fails
+     */
+    OutputStream compress(OutputStream out) throws IOException;
+
+    /**
+     * @param in the compressed data
+     * @return a stream yielding the decompressed data (closing it closes in)
+     * @throws IOException if the underlying stream fails
+     */
+    InputStream decompress(InputStream in) throws IOException;
+}
@@ -0,0 +1,211 @@
+package at.archistar.crypto.compression;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * <p>Optional compression of the data before it is encrypted and/or shared.</p>
+ *
+ * <p>Compressing the data reduces the size of all shares (and the work needed
+ * to create them) proportionally. Data which does not compress (i.e. already
+ * compressed media or encrypted data) is passed on unchanged: before the whole
+ * data is compressed, a sample consisting of a few slices spread over the data
+ * is compressed and the stage is skipped if it does not shrink sufficiently.</p>
+ *
+ * <p>The used codec's id (NONE for skipped compression) and the original
+ * length have to be stored alongside the shares so the data can be
+ * decompressed after reconstruction. Decompression never inflates the data
+ * beyond the stored length, so forged compressed data cannot exhaust the
+ * memory.</p>
+ */
+public class CompressionStage {
+
+    /** codec id for uncompressed data */
+    public static final int NONE = 0;
+
+    /** data shorter than this is never compressed */
+    private static final int MIN_LENGTH = 256;
+
+    /** size of a single slice of the sample */
+    private static final int SLICE_SIZE = 4 * 1024;
+
+    /** number of slices that make up the sample */
+    private static final int SLICES = 4;
+
+    private final CompressionCodec codec;
+
+    /** maximum ratio (compressed / original size) of the sample that is accepted */
+    private final double maxRatio;
+
+    /**
+     * create a new compression stage, data is only compressed if it shrinks by at least 10%
+     *
+     * @param codec the codec to use
+     */
+    public CompressionStage(CompressionCodec codec) {
+        this(codec, 0.9);
+    }
+
+    /**
+     * create a new compression stage
+     *
+     * @param codec the codec to use
+     * @param maxRatio compression is skipped if the sample's compressed size
+     *                 exceeds this fraction of its original size (0 &lt; maxRatio &lt;= 1)
+     */
+    public CompressionStage(CompressionCodec codec, double maxRatio) {
+        if (maxRatio <= 0 || maxRatio > 1) {
+            throw new IllegalArgumentException("maxRatio must be within (0, 1]");
+        }
+        this.codec = codec;
+        this.maxRatio = maxRatio;
+    }
+
+    /**
+     * @param id a codec id (as stored within share metadata)
+     * @return the matching codec
+     * @throws IOException if the codec is unknown
+     */
+    public static CompressionCodec forId(int id) throws IOException {
+        switch (id) {
+            case DeflateCodec.ID:
+                return new DeflateCodec();
+            case FastLZCodec.ID:
+                return new FastLZCodec();
+            default:
+                throw new IOException("unknown compression codec: " + id);
+        }
+    }
+
+    /**
+     * @return the codec used for compressible data
+     */
+    public CompressionCodec getCodec() {
+        return codec;
+    }
+
+    private static byte[] compress(CompressionCodec codec, byte[] data, int offset, int length) {
+        final ByteArrayOutputStream result = new ByteArrayOutputStream(length / 2 + 64);
+        try (OutputStream out = codec.compress(result)) {
+            out.write(data, offset, length);
+        } catch (IOException e) {
+            throw new UncheckedIOException("impossible: in-memory compression failed", e);
+        }
+        return result.toByteArray();
+    }
+
+    /**
+     * @return true if a sample of the data shrinks enough
+     */
+    boolean isCompressible(byte[] data) {
+        if (data.length < MIN_LENGTH) {
+            return false;
+        }
+        if (data.length <= SLICES * SLICE_SIZE) {
+            /* the sample would be the data itself */
+            return true;
+        }
+
+        final byte[] sample = new byte[SLICES * SLICE_SIZE];
+        final long stride = (data.length - SLICE_SIZE) / (SLICES - 1);
+        for (int i = 0; i < SLICES; i++) {
+            System.arraycopy(data, (int) (i * stride), sample, i * SLICE_SIZE, SLICE_SIZE);
+        }
+        return compress(codec, sample, 0, sample.length).length <= sample.length * maxRatio;
+    }
+
+    /**
+     * compress the data (if it is compressible)
+     *
+     * @param data the data
+     * @return the compressed data and the used codec id
+     */
+    public CompressedData compress(byte[] data) {
+        if (isCompressible(data)) {
+            final byte[] compressed = compress(codec, data, 0, data.length);
+            if (compressed.length <= data.length * maxRatio) {
+                return new CompressedData(codec.getId(), compressed);
+            }
+        }
+        return new CompressedData(NONE, data);
+    }
+
+    /**
+     * decompress data, at most length bytes are inflated
+     *
+     * @param codecId the codec id stored alongside the data
+     * @param data the (compressed) data
+     * @param length the length of the original data (as stored alongside the data)
+     * @return the original data
+     * @throws IOException if the codec is unknown, the data is corrupted or
+     *         does not decompress to exactly length bytes
+     */
+    public static byte[] decompress(int codecId, byte[] data, int length) throws IOException {
+        if (codecId == NONE) {
+            return data;
+        }
+        if (length < 0) {
+            throw new IOException("invalid uncompressed length: " + length);
+        }
+
+        /* grow with the actual output instead of trusting length for the allocation */
+        final ByteArrayOutputStream result = new ByteArrayOutputStream((int) Math.min(length, 2L * data.length + 64));
+        try (InputStream in = forId(codecId).decompress(new ByteArrayInputStream(data))) {
+            final byte[] buf = new byte[16 * 1024];
+            int read;
+            while ((read = in.read(buf, 0, (int) Math.min(buf.length, length + 1L - result.size()))) > 0) {
+                result.write(buf, 0, read);
+                if (result.size() > length) {
+                    throw new IOException("data decompresses to more than " + length + " bytes");
+                }
+            }
+        } catch (IOException e) {
+            throw new IOException("could not decompress data: " + e.getMessage(), e);
+        }
+        if (result.size() != length) {
+            throw new IOException("data decompresses to " + result.size() + " instead of " + length + " bytes");
+        }
+        return result.toByteArray();
+    }
+
+    @Override
+    public String toString() {
+        return "CompressionStage(" + codec + ", " + maxRatio + ")";
+    }
+
+    /**
+     * the output of the compression stage
+     */
+    public static final class CompressedData {
+
+        private final int codecId;
+
+        private final byte[] data;
+
+        private CompressedData(int codecId, byte[] data) {
+            this.codecId = codecId;
+            this.data = data;
+        }
+
+        /**
+         * @return the id of the used codec (NONE if the data was not compressed)
+         */
+        public int getCodecId() {
+            return codecId;
+        }
+
+        /**
+         * @return the (compressed) data
+         */
+        @SuppressFBWarnings("EI_EXPOSE_REP")
+        public byte[] getData() {
+            return data;
+        }
+    }
+}
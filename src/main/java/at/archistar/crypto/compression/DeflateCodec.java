@@ -0,0 +1,69 @@
+package at.archistar.crypto.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * zlib/deflate compression (java.util.zip)
+ */
+public class DeflateCodec implements CompressionCodec {
+
+    /** codec id within the share metadata */
+    public static final int ID = 1;
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final int level;
+
+    /**
+     * create a codec with the default compression level
+     */
+    public DeflateCodec() {
+        this(Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param level the compression level (0-9, or Deflater.DEFAULT_COMPRESSION)
+     */
+    public DeflateCodec(int level) {
+        if ((level < 0 || level > 9) && level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("invalid compression level: " + level);
+        }
+        this.level = level;
+    }
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) {
+        final Deflater deflater = new Deflater(level);
+        /* a custom deflater is not released by DeflaterOutputStream itself */
+        return new DeflaterOutputStream(out, deflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    deflater.end();
+                }
+            }
+        };
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) {
+        return new InflaterInputStream(in);
+    }
+
+    @Override
+    public String toString() {
+        return "Deflate(" + level + ")";
+    }
+}
@@ -0,0 +1,376 @@
+package at.archistar.crypto.compression;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * <p>A fast LZ77 codec (in the spirit of LZ4), implemented in pure Java.</p>
+ *
+ * <p>It trades compression ratio for speed: matches are found through a single
+ * hash table of 4-byte sequences without any chaining and the search skips
+ * ahead faster the longer no match was found, so incompressible data passes
+ * through quickly.</p>
+ *
+ * <p>The stream consists of blocks of up to 64KiB original data. Every block
+ * starts with a 4-byte header: the payload's length, its highest bit marks
+ * blocks that are stored uncompressed. A zero header ends the stream.
+ * Compressed payloads consist of sequences of: a token (high nibble: literal
+ * count, low nibble: match length - 4, 15 means that additional length bytes
+ * follow, each of them is added until one is not 255), the literals, a 2-byte
+ * little-endian match offset and additional match length bytes. The last
+ * sequence of a block consists of literals only.</p>
+ */
+public class FastLZCodec implements CompressionCodec {
+
+    /** codec id within the share metadata */
+    public static final int ID = 2;
+
+    static final int BLOCK_SIZE = 64 * 1024;
+
+    private static final int MIN_MATCH = 4;
+
+    private static final int MAX_OFFSET = 65535;
+
+    private static final int HASH_LOG = 14;
+
+    /** header flag of uncompressed blocks */
+    private static final int STORED = 0x80000000;
+
+    /** worst case size of a compressed block (it is stored instead anyway) */
+    private static final int MAX_COMPRESSED = BLOCK_SIZE + BLOCK_SIZE / 255 + 16;
+
+    @Override
+    public int getId() {
+        return ID;
+    }
+
+    @Override
+    public OutputStream compress(OutputStream out) {
+        return new FastLZOutputStream(out);
+    }
+
+    @Override
+    public InputStream decompress(InputStream in) {
+        return new FastLZInputStream(in);
+    }
+
+    @Override
+    public String toString() {
+        return "FastLZ";
+    }
+
+    private static int readInt(byte[] data, int pos) {
+        return (data[pos] & 0xff) | (data[pos + 1] & 0xff) << 8 | (data[pos + 2] & 0xff) << 16 | data[pos + 3] << 24;
+    }
+
+    private static int hash(int sequence) {
+        return (sequence * -1640531535) >>> (32 - HASH_LOG);
+    }
+
+    private static int writeLength(byte[] dst, int pos, int length) {
+        while (length >= 255) {
+            dst[pos++] = (byte) 255;
+            length -= 255;
+        }
+        dst[pos++] = (byte) length;
+        return pos;
+    }
+
+    private static int writeLiterals(byte[] dst, int pos, int token, byte[] src, int from, int count) {
+        dst[pos++] = (byte) ((Math.min(count, 15) << 4) | token);
+        if (count >= 15) {
+            pos = writeLength(dst, pos, count - 15);
+        }
+        System.arraycopy(src, from, dst, pos, count);
+        return pos + count;
+    }
+
+    /**
+     * compress a single block
+     *
+     * @param src the block's data
+     * @param length the block's length (at most BLOCK_SIZE)
+     * @param dst output buffer (at least MAX_COMPRESSED bytes)
+     * @param table hash table (1 &lt;&lt; HASH_LOG entries)
+     * @return the compressed length
+     */
+    static int compressBlock(byte[] src, int length, byte[] dst, int[] table) {
+        Arrays.fill(table, -1);
+        final int limit = length - MIN_MATCH;
+        int anchor = 0;
+        int pos = 0;
+        int out = 0;
+
+        while (pos <= limit) {
+            final int sequence = readInt(src, pos);
+            final int h = hash(sequence);
+            final int ref = table[h];
+            table[h] = pos;
+
+            if (ref < 0 || pos - ref > MAX_OFFSET || readInt(src, ref) != sequence) {
+                /* skip faster through data without matches */
+                pos += 1 + ((pos - anchor) >>> 6);
+                continue;
+            }
+
+            int matchLength = MIN_MATCH;
+            while (pos + matchLength < length && src[ref + matchLength] == src[pos + matchLength]) {
+                matchLength++;
+            }
+
+            final int extra = matchLength - MIN_MATCH;
+            out = writeLiterals(dst, out, Math.min(extra, 15), src, anchor, pos - anchor);
+            dst[out++] = (byte) (pos - ref);
+            dst[out++] = (byte) ((pos - ref) >>> 8);
+            if (extra >= 15) {
+                out = writeLength(dst, out, extra - 15);
+            }
+
+            pos += matchLength;
+            anchor = pos;
+        }
+
+        return writeLiterals(dst, out, 0, src, anchor, length - anchor);
+    }
+
+    private static int readLength(byte[] src, int pos, int end, int[] length) throws IOException {
+        int b;
+        do {
+            if (pos >= end) {
+                throw new IOException("corrupted FastLZ block: truncated length");
+            }
+            b = src[pos++] & 0xff;
+            length[0] += b;
+        } while (b == 255);
+        return pos;
+    }
+
+    /**
+     * decompress a single block
+     *
+     * @param src the compressed block
+     * @param length length of the compressed block
+     * @param dst output buffer (BLOCK_SIZE bytes)
+     * @return the decompressed length
+     * @throws IOException if the block is corrupted
+     */
+    static int decompressBlock(byte[] src, int length, byte[] dst) throws IOException {
+        final int[] extended = new int[1];
+        int pos = 0;
+        int out = 0;
+
+        while (pos < length) {
+            final int token = src[pos++] & 0xff;
+
+            extended[0] = token >>> 4;
+            if (extended[0] == 15) {
+                pos = readLength(src, pos, length, extended);
+            }
+            final int literals = extended[0];
+            if (literals > length - pos || literals > dst.length - out) {
+                throw new IOException("corrupted FastLZ block: literals out of bounds");
+            }
+            System.arraycopy(src, pos, dst, out, literals);
+            pos += literals;
+            out += literals;
+
+            if (pos == length) {
+                break;
+            }
+
+            if (pos + 2 > length) {
+                throw new IOException("corrupted FastLZ block: truncated offset");
+            }
+            final int offset = (src[pos] & 0xff) | (src[pos + 1] & 0xff) << 8;
+            pos += 2;
+            extended[0] = token & 0x0f;
+            if (extended[0] == 15) {
+                pos = readLength(src, pos, length, extended);
+            }
+            final int matchLength = extended[0] + MIN_MATCH;
+            if (offset == 0 || offset > out || matchLength > dst.length - out) {
+                throw new IOException("corrupted FastLZ block: match out of bounds");
+            }
+
+            if (offset >= matchLength) {
+                System.arraycopy(dst, out - offset, dst, out, matchLength);
+                out += matchLength;
+            } else {
+                /* overlapping copy (repeated pattern) */
+                for (int i = 0; i < matchLength; i++, out++) {
+                    dst[out] = dst[out - offset];
+                }
+            }
+        }
+        return out;
+    }
+
+    private static final class FastLZOutputStream extends OutputStream {
+
+        private final DataOutputStream out;
+
+        private final byte[] block = new byte[BLOCK_SIZE];
+
+        private final byte[] compressed = new byte[MAX_COMPRESSED];
+
+        private final int[] table = new int[1 << HASH_LOG];
+
+        private int position = 0;
+
+        private boolean closed = false;
+
+        private FastLZOutputStream(OutputStream out) {
+            this.out = new DataOutputStream(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (position == BLOCK_SIZE) {
+                writeBlock();
+            }
+            block[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (position == BLOCK_SIZE) {
+                    writeBlock();
+                }
+                final int count = Math.min(len, BLOCK_SIZE - position);
+                System.arraycopy(b, off, block, position, count);
+                position += count;
+                off += count;
+                len -= count;
+            }
+        }
+
+        private void writeBlock() throws IOException {
+            if (position == 0) {
+                return;
+            }
+            final int length = compressBlock(block, position, compressed, table);
+            if (length < position) {
+                out.writeInt(length);
+                out.write(compressed, 0, length);
+            } else {
+                out.writeInt(STORED | position);
+                out.write(block, 0, position);
+            }
+            position = 0;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writeBlock();
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            try {
+                writeBlock();
+                out.writeInt(0);
+            } finally {
+                out.close();
+            }
+        }
+    }
+
+    private static final class FastLZInputStream extends InputStream {
+
+        private final DataInputStream in;
+
+        private final byte[] block = new byte[BLOCK_SIZE];
+
+        private byte[] compressed = new byte[0];
+
+        private int position = 0;
+
+        private int limit = 0;
+
+        private boolean finished = false;
+
+        private FastLZInputStream(InputStream in) {
+            this.in = new DataInputStream(in);
+        }
+
+        /** @return false at the end of the stream */
+        private boolean fill() throws IOException {
+            while (position == limit) {
+                if (finished) {
+                    return false;
+                }
+
+                final int header;
+                try {
+                    header = in.readInt();
+                } catch (EOFException e) {
+                    throw new IOException("truncated FastLZ stream", e);
+                }
+                final int length = header & ~STORED;
+                if (header == 0) {
+                    finished = true;
+                    return false;
+                }
+
+                if ((header & STORED) != 0) {
+                    if (length > BLOCK_SIZE) {
+                        throw new IOException("corrupted FastLZ stream: block too large");
+                    }
+                    in.readFully(block, 0, length);
+                    limit = length;
+                } else {
+                    if (length > MAX_COMPRESSED) {
+                        throw new IOException("corrupted FastLZ stream: block too large");
+                    }
+                    if (compressed.length < length) {
+                        compressed = new byte[MAX_COMPRESSED];
+                    }
+                    in.readFully(compressed, 0, length);
+                    limit = decompressBlock(compressed, length, block);
+                }
+                position = 0;
+            }
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return fill() ? block[position++] & 0xff : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!fill()) {
+                return -1;
+            }
+            final int count = Math.min(len, limit - position);
+            System.arraycopy(block, position, b, off, count);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public int available() {
+            return limit - position;
+        }
+
+        @Override
+        public void close() throws IOException {
+            in.close();
+        }
+    }
+}
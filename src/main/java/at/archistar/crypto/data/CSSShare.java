@@ -5,6 +5,8 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 
@@ -13,27 +15,74 @@ import java.util.Objects;
  */
 public class CSSShare extends KrawczykShare {
 
-    /** sha-256 hashes of all shares */
+    /** the hash function used for fingerprinting the shares */
+    public enum FingerprintAlgorithm {
+        /** SHA-256 */
+        SHA256,
+        /** BLAKE2b-256 */
+        BLAKE2B,
+        /** BLAKE2b-256 based tree hash, see digest/TreeFingerprintHelper */
+        BLAKE2B_TREE
+    }
+
+    /** hashes of all shares */
     private final Map<Byte, byte[]> fingerprints;
 
+    private final FingerprintAlgorithm fingerprintAlgorithm;
+
     /**
      * A CSS Share (Krawczyk with fingerprinting)
      */
     @SuppressFBWarnings("EI_EXPOSE_REP2")
     public CSSShare(byte id, byte[] body, Map<Byte, byte[]> fingerprints, int originalLength, int encAlgorithm, byte[] encKey) throws InvalidParametersException {
-        super(id, body, originalLength, encAlgorithm, encKey);
+        this(id, body, fingerprints, originalLength, encAlgorithm, encKey, DispersalType.RABIN);
+    }
+
+    /**
+     * A CSS Share (Krawczyk with fingerprinting)
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public CSSShare(byte id, byte[] body, Map<Byte, byte[]> fingerprints, int originalLength, int encAlgorithm,
+                    byte[] encKey, DispersalType dispersal) throws InvalidParametersException {
+        this(id, body, fingerprints, originalLength, encAlgorithm, encKey, dispersal, FingerprintAlgorithm.SHA256);
+    }
+
+    /**
+     * A CSS Share (Krawczyk with fingerprinting)
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public CSSShare(byte id, byte[] body, Map<Byte, byte[]> fingerprints, int originalLength, int encAlgorithm,
+                    byte[] encKey, DispersalType dispersal, FingerprintAlgorithm fingerprintAlgorithm) throws InvalidParametersException {
+        super(id, body, originalLength, encAlgorithm, encKey, dispersal);
         this.fingerprints = fingerprints;
+        this.fingerprintAlgorithm = fingerprintAlgorithm;
     }
 
     public CSSShare(KrawczykShare source, Map<Byte, byte[]> fingerprints) throws InvalidParametersException {
-        super(source.getId(), source.getYValues(), source.getOriginalLength(), source.getEncAlgorithm(), source.getKey());
+        this(source, fingerprints, FingerprintAlgorithm.SHA256);
+    }
+
+    public CSSShare(KrawczykShare source, Map<Byte, byte[]> fingerprints, FingerprintAlgorithm fingerprintAlgorithm) throws InvalidParametersException {
+        super(source.getId(), source.getYValues(), source.getOriginalLength(), source.getEncAlgorithm(), source.getKey(), source.getDispersal());
         this.fingerprints = fingerprints;
+        this.fingerprintAlgorithm = fingerprintAlgorithm;
     }
 
     public Map<Byte, byte[]> getFingerprints() {
         return this.fingerprints;
     }
 
+    public FingerprintAlgorithm getFingerprintAlgorithm() {
+        return fingerprintAlgorithm;
+    }
+
+    @Override
+    public HashMap<String, String> getMetaData() {
+        HashMap<String, String> res = super.getMetaData();
+        res.put("archistar-css-fingerprint", Integer.toString(fingerprintAlgorithm.ordinal()));
+        return res;
+    }
+
     @Override
     @SuppressFBWarnings("EI_EXPOSE_REP")
     public byte[] getSerializedData() throws IOException {
@@ -60,7 +109,23 @@ public class CSSShare extends KrawczykShare {
         if (o == null || getClass() != o.getClass()) return false;
         if (!super.equals(o)) return false;
         CSSShare cssShare = (CSSShare) o;
-        return Objects.equals(fingerprints, cssShare.fingerprints);
+        return fingerprintsEqual(fingerprints, cssShare.fingerprints) && fingerprintAlgorithm == cssShare.fingerprintAlgorithm;
+    }
+
+    /* the map's values are arrays, so Map.equals would only compare their identity */
+    private static boolean fingerprintsEqual(Map<Byte, byte[]> a, Map<Byte, byte[]> b) {
+        if (a == null || b == null) {
+            return a == b;
+        }
+        if (!a.keySet().equals(b.keySet())) {
+            return false;
+        }
+        for (Map.Entry<Byte, byte[]> e : a.entrySet()) {
+            if (!Arrays.equals(e.getValue(), b.get(e.getKey()))) {
+                return false;
+            }
+        }
+        return true;
     }
 
     @Override
@@ -70,11 +135,12 @@ public class CSSShare extends KrawczykShare {
                 ", body.length=" + body.length +
                 ", originalLength=" + getOriginalLength() +
                 ", encAlgorithm=" + getEncAlgorithm() +
+                ", fingerprint=" + fingerprintAlgorithm +
                 '}';
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), fingerprints);
+        return Objects.hash(super.hashCode(), fingerprints == null ? null : fingerprints.keySet(), fingerprintAlgorithm);
     }
 }
@@ -0,0 +1,30 @@
+package at.archistar.crypto.data;
+
+/**
+ * A share created by the Cauchy Reed-Solomon (bit-matrix) variant of Rabin IDS.
+ * As the systematic shares, shares 1..k contain plain stripes of the original
+ * data, but the parity shares are computed upon packets instead of bytes.
+ */
+public class CauchyRabinShare extends RabinShare {
+
+    /**
+     * A Cauchy Rabin share
+     */
+    public CauchyRabinShare(byte id, byte[] body, int originalLength) throws InvalidParametersException {
+        super(id, body, originalLength);
+    }
+
+    @Override
+    public String getShareType() {
+        return "RABIN_CAUCHY";
+    }
+
+    @Override
+    public String toString() {
+        return "CauchyRabinShare{" +
+                "x=" + getId() +
+                ", body.length=" + getYValues().length +
+                ", originalLength=" + getOriginalLength() +
+                '}';
+    }
+}
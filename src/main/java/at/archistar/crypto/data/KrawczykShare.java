@@ -13,6 +13,16 @@ import java.util.Objects;
  */
 public class KrawczykShare implements Share {
 
+    /**
+     * which algorithms can be used for dispersing the encrypted data?
+     */
+    public enum DispersalType {
+        /** (non-systematic) RabinIDS */
+        RABIN,
+        /** Cauchy Reed-Solomon, see CauchyRabinIDS */
+        CAUCHY
+    }
+
     private final byte id;
 
     final byte[] body;
@@ -26,11 +36,49 @@ public class KrawczykShare implements Share {
     /** key used for the encryption step */
     private final byte[] encKey;
 
+    /** algorithm used for dispersing the encrypted data */
+    private final DispersalType dispersal;
+
+    /** codec used to compress the data before encryption (0: uncompressed) */
+    private final int compression;
+
+    /** length of the data before compression (only used if compression is set) */
+    private final int uncompressedLength;
+
+    /** id of the (convergently encrypted) content, null if the key was random */
+    private final byte[] contentId;
+
     /**
      * A Raw Krawczyk Share
      */
-    @SuppressFBWarnings("EI_EXPOSE_REP2")
     public KrawczykShare(byte id, byte[] body, int originalLength, int encAlgorithm, byte[] encKey) throws InvalidParametersException {
+        this(id, body, originalLength, encAlgorithm, encKey, DispersalType.RABIN);
+    }
+
+    /**
+     * A Raw Krawczyk Share
+     */
+    public KrawczykShare(byte id, byte[] body, int originalLength, int encAlgorithm, byte[] encKey,
+                         DispersalType dispersal) throws InvalidParametersException {
+        this(id, body, originalLength, encAlgorithm, encKey, dispersal, 0, 0);
+    }
+
+    /**
+     * A Raw Krawczyk Share of compressed data (originalLength is the compressed length,
+     * uncompressedLength the length of the data before compression)
+     */
+    public KrawczykShare(byte id, byte[] body, int originalLength, int encAlgorithm, byte[] encKey,
+                         DispersalType dispersal, int compression, int uncompressedLength) throws InvalidParametersException {
+        this(id, body, originalLength, encAlgorithm, encKey, dispersal, compression, uncompressedLength, null);
+    }
+
+    /**
+     * A Raw Krawczyk Share, contentId is set for convergently encrypted content (null otherwise)
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public KrawczykShare(byte id, byte[] body, int originalLength, int encAlgorithm, byte[] encKey,
+                         DispersalType dispersal, int compression, int uncompressedLength,
+                         byte[] contentId) throws InvalidParametersException {
         if (id == 0) {
             throw new InvalidParametersException("X must not be 0");
         }
@@ -42,9 +90,16 @@ public class KrawczykShare implements Share {
         if (encAlgorithm <= 0) {
             throw new InvalidParametersException("invalid algorithm");
         }
+        if (compression != 0 && uncompressedLength < 0) {
+            throw new InvalidParametersException("invalid uncompressed length");
+        }
         this.originalLength = originalLength;
         this.encAlgorithm = encAlgorithm;
         this.encKey = encKey;
+        this.dispersal = dispersal;
+        this.compression = compression;
+        this.uncompressedLength = compression == 0 ? 0 : uncompressedLength;
+        this.contentId = contentId;
     }
 
     @Override
@@ -75,6 +130,14 @@ public class KrawczykShare implements Share {
         res.put("archistar-original-length", Integer.toString(originalLength));
         res.put("archistar-krawczyk-algorithm", Integer.toString(encAlgorithm));
         res.put("archistar-krawczyk-key", Base64.toBase64String(encKey));
+        res.put("archistar-krawczyk-dispersal", Integer.toString(dispersal.ordinal()));
+        if (compression != 0) {
+            res.put("archistar-compression", Integer.toString(compression));
+            res.put("archistar-uncompressed-length", Integer.toString(uncompressedLength));
+        }
+        if (contentId != null) {
+            res.put("archistar-krawczyk-content-id", Base64.toBase64String(contentId));
+        }
         return res;
     }
 
@@ -92,6 +155,36 @@ public class KrawczykShare implements Share {
         return encAlgorithm;
     }
 
+    /**
+     * @return the algorithm used for dispersing the encrypted data
+     */
+    public DispersalType getDispersal() {
+        return dispersal;
+    }
+
+    /**
+     * @return the codec used to compress the data (0 if it was not compressed)
+     */
+    public int getCompression() {
+        return compression;
+    }
+
+    /**
+     * @return the length of the data before compression (0 if it was not compressed)
+     */
+    public int getUncompressedLength() {
+        return uncompressedLength;
+    }
+
+    /**
+     * @return the id of the content (the same for identical objects of a tenant), null
+     *         if the content was not encrypted convergently
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public byte[] getContentId() {
+        return contentId;
+    }
+
     /**
      * @return the key used to encrypt the data
      */
@@ -118,12 +211,17 @@ public class KrawczykShare implements Share {
         return id == that.id &&
                 originalLength == that.originalLength &&
                 encAlgorithm == that.encAlgorithm &&
+                dispersal == that.dispersal &&
+                compression == that.compression &&
+                uncompressedLength == that.uncompressedLength &&
                 Arrays.equals(body, that.body) &&
+                Arrays.equals(contentId, that.contentId) &&
                 Arrays.equals(encKey, that.encKey);
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(id, body, originalLength, encAlgorithm, encKey);
+        return Objects.hash(id, body, originalLength, encAlgorithm, encKey, dispersal, compression, uncompressedLength,
+                contentId);
     }
 }
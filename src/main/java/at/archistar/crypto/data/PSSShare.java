@@ -21,20 +21,50 @@ public class PSSShare extends ShamirShare implements InformationCheckingShare {
 
     private final ICType ICType;
 
+    /** codec used to compress the data before sharing (0: uncompressed) */
+    private final int compression;
+
+    /** length of the data before compression (only used if compression is set) */
+    private final int uncompressedLength;
+
     /**
      * A PSS Share (Shamir + Rabin-Ben-Or Information Checking)
      */
     public PSSShare(byte id, byte[] body, Map<Byte, byte[]> macKeys, Map<Byte, byte[]> macs) throws InvalidParametersException {
+        this(id, body, macKeys, macs, RABIN_BEN_OR);
+    }
+
+    /**
+     * A PSS Share (Shamir + the given Information Checking)
+     */
+    public PSSShare(byte id, byte[] body, Map<Byte, byte[]> macKeys, Map<Byte, byte[]> macs, ICType icType) throws InvalidParametersException {
+        this(id, body, macKeys, macs, icType, 0, 0);
+    }
+
+    /**
+     * A PSS Share of compressed data (uncompressedLength is the length of the data before compression)
+     */
+    public PSSShare(byte id, byte[] body, Map<Byte, byte[]> macKeys, Map<Byte, byte[]> macs, ICType icType,
+                    int compression, int uncompressedLength) throws InvalidParametersException {
         super(id, body);
+        if (compression != 0 && uncompressedLength < 0) {
+            throw new InvalidParametersException("invalid uncompressed length");
+        }
         this.macKeys = macKeys;
         this.macs = macs;
-        this.ICType = RABIN_BEN_OR;
+        this.ICType = icType;
+        this.compression = compression;
+        this.uncompressedLength = compression == 0 ? 0 : uncompressedLength;
     }
 
     @Override
     public HashMap<String, String> getMetaData() {
         HashMap<String, String> res = super.getCommonMetaData();
         res.put("archistar-ic-type", Integer.toString(ICType.ordinal()));
+        if (compression != 0) {
+            res.put("archistar-compression", Integer.toString(compression));
+            res.put("archistar-uncompressed-length", Integer.toString(uncompressedLength));
+        }
         return res;
     }
 
@@ -75,13 +105,28 @@ public class PSSShare extends ShamirShare implements InformationCheckingShare {
         return ICType;
     }
 
+    /**
+     * @return the codec used to compress the data (0 if it was not compressed)
+     */
+    public int getCompression() {
+        return compression;
+    }
+
+    /**
+     * @return the length of the data before compression (0 if it was not compressed)
+     */
+    public int getUncompressedLength() {
+        return uncompressedLength;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         if (!super.equals(o)) return false;
         PSSShare pssShare = (PSSShare) o;
-        return ICType == pssShare.ICType;
+        return ICType == pssShare.ICType && compression == pssShare.compression
+                && uncompressedLength == pssShare.uncompressedLength;
     }
 
     @Override
@@ -95,6 +140,6 @@ public class PSSShare extends ShamirShare implements InformationCheckingShare {
 
     @Override
     public int hashCode() {
-        return Objects.hash(super.hashCode(), macKeys, macs, ICType);
+        return Objects.hash(super.hashCode(), macKeys, macs, ICType, compression, uncompressedLength);
     }
 }
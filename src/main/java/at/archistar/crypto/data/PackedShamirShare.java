@@ -0,0 +1,30 @@
+package at.archistar.crypto.data;
+
+/**
+ * A share created by packed (ramp) Shamir secret sharing. Every byte of the
+ * body encodes multiple secret bytes, so the original length is needed to
+ * strip the padding of the last polynomial.
+ */
+public class PackedShamirShare extends RabinShare {
+
+    /**
+     * A packed Shamir share
+     */
+    public PackedShamirShare(byte id, byte[] body, int originalLength) throws InvalidParametersException {
+        super(id, body, originalLength);
+    }
+
+    @Override
+    public String getShareType() {
+        return "SHAMIR_PACKED";
+    }
+
+    @Override
+    public String toString() {
+        return "PackedShamirShare{" +
+                "x=" + getId() +
+                ", body.length=" + getYValues().length +
+                ", originalLength=" + getOriginalLength() +
+                '}';
+    }
+}
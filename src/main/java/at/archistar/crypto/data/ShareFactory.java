@@ -82,6 +82,39 @@ public class ShareFactory {
 
                     return new RabinShare(id, data, originalLengthRabin);
 
+                case "RABIN_SYSTEMATIC":
+                    if (data.length > length) {
+                        return new BrokenShare("Received more data than expected");
+                    }
+                    final String olsS = metaData.get("archistar-original-length");
+                    if (olsS == null) {
+                        return new BrokenShare("Invalid Rabin share. No \"original-length\" datum found");
+                    }
+
+                    return new SystematicRabinShare(id, data, Integer.parseInt(olsS));
+
+                case "SHAMIR_PACKED":
+                    if (data.length > length) {
+                        return new BrokenShare("Received more data than expected");
+                    }
+                    final String olpS = metaData.get("archistar-original-length");
+                    if (olpS == null) {
+                        return new BrokenShare("Invalid packed Shamir share. No \"original-length\" datum found");
+                    }
+
+                    return new PackedShamirShare(id, data, Integer.parseInt(olpS));
+
+                case "RABIN_CAUCHY":
+                    if (data.length > length) {
+                        return new BrokenShare("Received more data than expected");
+                    }
+                    final String olcS = metaData.get("archistar-original-length");
+                    if (olcS == null) {
+                        return new BrokenShare("Invalid Rabin share. No \"original-length\" datum found");
+                    }
+
+                    return new CauchyRabinShare(id, data, Integer.parseInt(olcS));
+
                 case "KRAWCZYK":
                     if (data.length > length) {
                         return new BrokenShare("Received more data than expected");
@@ -104,16 +137,18 @@ public class ShareFactory {
                     }
                     final byte[] encKey = Base64.decode(encKeyS);
 
-                    return new KrawczykShare(id, data, originalLengthKrawczyk, encAlgorithm, encKey);
+                    return new KrawczykShare(id, data, originalLengthKrawczyk, encAlgorithm, encKey,
+                            parseDispersalType(metaData.get("archistar-krawczyk-dispersal")),
+                            compression(metaData), uncompressedLength(metaData),
+                            parseContentId(metaData.get("archistar-krawczyk-content-id")));
 
                 case "PSS":
                     /* information checking type */
                     final String icS = metaData.get("archistar-ic-type");
                     if (icS == null) {
                         return new BrokenShare("Invalid share. No \"ic-type\" datum found");
-                    } else if (parseICType(icS) != InformationCheckingShare.ICType.RABIN_BEN_OR) {
-                        return new BrokenShare("Information checking with PSS must be RABIN_BEN_OR");
                     }
+                    final InformationCheckingShare.ICType icType = parseICType(icS);
 
                     byte[] body;
 
@@ -138,7 +173,8 @@ public class ShareFactory {
                         checkForEOF(is);
                     }
 
-                    return new PSSShare(id, body, macKeys, macs);
+                    return new PSSShare(id, body, macKeys, macs, icType,
+                            compression(metaData), uncompressedLength(metaData));
 
                 case "CSS":
 
@@ -178,7 +214,9 @@ public class ShareFactory {
                         checkForEOF(is);
                     }
 
-                    return new CSSShare(id, body, fingerprints, originalLengthCSS, encAlgorithmCSS, encKeyCSS);
+                    return new CSSShare(id, body, fingerprints, originalLengthCSS, encAlgorithmCSS, encKeyCSS,
+                            parseDispersalType(metaData.get("archistar-krawczyk-dispersal")),
+                            parseFingerprintAlgorithm(metaData.get("archistar-css-fingerprint")));
 
                 default:
                     return new BrokenShare("Unknown share type: " + sT);
@@ -209,6 +247,73 @@ public class ShareFactory {
         return macs;
     }
 
+    /* shares created before the dispersal type was introduced always used RabinIDS */
+    private static KrawczykShare.DispersalType parseDispersalType(String s) throws InvalidParametersException {
+        if (s == null) {
+            return KrawczykShare.DispersalType.RABIN;
+        }
+        int idx = Integer.parseInt(s);
+        if (idx >= 0 && idx < KrawczykShare.DispersalType.values().length) {
+            return KrawczykShare.DispersalType.values()[idx];
+        } else {
+            throw new InvalidParametersException("unknown dispersal type");
+        }
+    }
+
+    private static int compression(Map<String, String> metaData) throws InvalidParametersException {
+        return parseCompression(metaData.get("archistar-compression"));
+    }
+
+    /**
+     * the uncompressed length is needed (and only stored) for compressed data,
+     * it limits how far the data is inflated during decompression
+     */
+    private static int uncompressedLength(Map<String, String> metaData) throws InvalidParametersException {
+        if (compression(metaData) == 0) {
+            return 0;
+        }
+        final String s = metaData.get("archistar-uncompressed-length");
+        if (s == null) {
+            throw new InvalidParametersException("compressed share without uncompressed length");
+        }
+        try {
+            final int length = Integer.parseInt(s);
+            if (length < 0) {
+                throw new InvalidParametersException("invalid uncompressed length");
+            }
+            return length;
+        } catch (NumberFormatException e) {
+            throw new InvalidParametersException("invalid uncompressed length");
+        }
+    }
+
+    private static int parseCompression(String s) throws InvalidParametersException {
+        if (s == null) {
+            return 0;
+        }
+        int id = Integer.parseInt(s);
+        if (id < 0) {
+            throw new InvalidParametersException("unknown compression codec");
+        }
+        return id;
+    }
+
+    private static byte[] parseContentId(String s) {
+        return s == null ? null : Base64.decode(s);
+    }
+
+    private static CSSShare.FingerprintAlgorithm parseFingerprintAlgorithm(String s) throws InvalidParametersException {
+        if (s == null) {
+            return CSSShare.FingerprintAlgorithm.SHA256;
+        }
+        int idx = Integer.parseInt(s);
+        if (idx >= 0 && idx < CSSShare.FingerprintAlgorithm.values().length) {
+            return CSSShare.FingerprintAlgorithm.values()[idx];
+        } else {
+            throw new InvalidParametersException("unknown fingerprint algorithm");
+        }
+    }
+
     private static InformationCheckingShare.ICType parseICType(String s) throws InvalidParametersException {
         int idx = Integer.parseInt(s);
         if (idx >= 0 && idx < InformationCheckingShare.ICType.values().length) {
@@ -0,0 +1,97 @@
+package at.archistar.crypto.data;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.util.Arrays;
+
+/**
+ * <p>The changes to a single share's body caused by an update (or append) of
+ * the original data.</p>
+ *
+ * <p>Only the bytes starting at offset are replaced, everything before (and
+ * after) them stays the same. Shares grow if the data was appended to, so the
+ * patch also carries the new original length.</p>
+ */
+public class SharePatch {
+
+    private final byte id;
+
+    private final int offset;
+
+    private final byte[] data;
+
+    private final int originalLength;
+
+    /**
+     * create a new patch
+     *
+     * @param id the x-value of the patched share
+     * @param offset the first byte of the share's body that is replaced
+     * @param data the new bytes
+     * @param originalLength the original length after the update
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public SharePatch(byte id, int offset, byte[] data, int originalLength) {
+        if (offset < 0) {
+            throw new IllegalArgumentException("offset must not be negative");
+        }
+        this.id = id;
+        this.offset = offset;
+        this.data = data;
+        this.originalLength = originalLength;
+    }
+
+    /**
+     * @return the x-value of the patched share
+     */
+    public byte getId() {
+        return id;
+    }
+
+    /**
+     * @return the first byte of the share's body that is replaced
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the new bytes
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public byte[] getData() {
+        return data;
+    }
+
+    /**
+     * @return the original length after the update
+     */
+    public int getOriginalLength() {
+        return originalLength;
+    }
+
+    /**
+     * apply this patch to (a copy of) a share's body
+     *
+     * @param body the body before the update
+     * @return the body after the update (grown if needed)
+     */
+    public byte[] apply(byte[] body) {
+        if (offset > body.length) {
+            throw new IllegalArgumentException("patch starts after the end of the body");
+        }
+        final byte[] result = Arrays.copyOf(body, Math.max(body.length, offset + data.length));
+        System.arraycopy(data, 0, result, offset, data.length);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SharePatch{" +
+                "x=" + id +
+                ", offset=" + offset +
+                ", data.length=" + data.length +
+                ", originalLength=" + originalLength +
+                '}';
+    }
+}
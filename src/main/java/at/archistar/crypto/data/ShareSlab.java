@@ -0,0 +1,86 @@
+package at.archistar.crypto.data;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * Multiple shared objects packed into one contiguous buffer per participant.
+ *
+ * The encoded data of object <i>i</i> for participant <i>x</i> can be found
+ * within getSlab(x) starting at getOffset(i) with getLength(i) bytes. This
+ * allows users that store many small objects to upload/write one buffer per
+ * participant instead of one buffer per share.
+ */
+public class ShareSlab {
+
+    private final int[] xValues;
+
+    private final byte[][] slabs;
+
+    /** start of each object within the slabs; one additional end marker */
+    private final int[] offsets;
+
+    private final int[] originalLengths;
+
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public ShareSlab(int[] xValues, byte[][] slabs, int[] offsets, int[] originalLengths) {
+        this.xValues = xValues;
+        this.slabs = slabs;
+        this.offsets = offsets;
+        this.originalLengths = originalLengths;
+    }
+
+    /**
+     * @return how many objects are stored within this slab
+     */
+    public int size() {
+        return originalLengths.length;
+    }
+
+    /**
+     * @return for how many participants slabs are stored
+     */
+    public int getParticipants() {
+        return xValues.length;
+    }
+
+    /**
+     * @param participant the participant's index (0..n-1)
+     * @return the participant's x-value (share id)
+     */
+    public int getX(int participant) {
+        return xValues[participant];
+    }
+
+    /**
+     * @param participant the participant's index (0..n-1)
+     * @return all encoded data for the given participant
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public byte[] getSlab(int participant) {
+        return slabs[participant];
+    }
+
+    /**
+     * @param object index of the shared object
+     * @return start of the object's encoded data within each slab
+     */
+    public int getOffset(int object) {
+        return offsets[object];
+    }
+
+    /**
+     * @param object index of the shared object
+     * @return length of the object's encoded data within each slab
+     */
+    public int getLength(int object) {
+        return offsets[object + 1] - offsets[object];
+    }
+
+    /**
+     * @param object index of the shared object
+     * @return length of the original (unshared) object
+     */
+    public int getOriginalLength(int object) {
+        return originalLengths[object];
+    }
+}
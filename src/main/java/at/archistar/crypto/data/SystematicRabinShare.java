@@ -0,0 +1,31 @@
+package at.archistar.crypto.data;
+
+/**
+ * A share created by the systematic Reed-Solomon variant of Rabin IDS. Shares
+ * 1..k contain plain stripes of the original data, shares k+1..n contain parity
+ * data. This cannot be decoded by the (non-systematic) RabinIDS, so it carries
+ * its own share type.
+ */
+public class SystematicRabinShare extends RabinShare {
+
+    /**
+     * A systematic Rabin share
+     */
+    public SystematicRabinShare(byte id, byte[] body, int originalLength) throws InvalidParametersException {
+        super(id, body, originalLength);
+    }
+
+    @Override
+    public String getShareType() {
+        return "RABIN_SYSTEMATIC";
+    }
+
+    @Override
+    public String toString() {
+        return "SystematicRabinShare{" +
+                "x=" + getId() +
+                ", body.length=" + getYValues().length +
+                ", originalLength=" + getOriginalLength() +
+                '}';
+    }
+}
@@ -0,0 +1,145 @@
+package at.archistar.crypto.decode;
+
+import at.archistar.crypto.math.gf256.GF256;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * <p>Error-correcting decoder that runs at (almost) erasure-decoding speed as
+ * long as there are no errors.</p>
+ *
+ * <p>Every column is first decoded from the first k points through an
+ * {@link ErasureDecoder}. All remaining points must then lie on the same
+ * polynomial, this is checked by predicting their values from the first k
+ * points (using precomputed Lagrange coefficients) and comparing them with the
+ * given values. Only if this syndrome check fails, the column is decoded again
+ * through a {@link BerlekampWelchDecoder}.</p>
+ *
+ * <p>The erasure decoder and the check tables are immutable and can be shared
+ * (see {@link AdaptiveDecoderFactory}); the Berlekamp-Welch fallback is not
+ * thread-safe and is created lazily per AdaptiveDecoder instance.</p>
+ */
+public class AdaptiveDecoder implements Decoder {
+
+    private final int[] x;
+
+    private final int k;
+
+    private final ErasureDecoder erasure;
+
+    /** check[i][j][y]: contribution of the j-th point with value y to the prediction of point k+i */
+    private final int[][][] check;
+
+    private BerlekampWelchDecoder fallback;
+
+    private long fallbacks;
+
+    /**
+     * create a new adaptive decoder
+     *
+     * @param xValues the known xValues (the first k are used for erasure decoding)
+     * @param k how many elements will be expected for reconstruction
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public AdaptiveDecoder(final int[] xValues, final int k) {
+        this.x = xValues;
+        this.k = k;
+        this.erasure = new ErasureDecoder(xValues, k);
+        this.check = new int[xValues.length - k][k][256];
+
+        for (int i = 0; i < check.length; i++) {
+            for (int j = 0; j < k; j++) {
+                final int coefficient = lagrangeCoefficient(j, xValues[k + i]);
+                for (int y = 0; y < 256; y++) {
+                    check[i][j][y] = GF256.mult(coefficient, y);
+                }
+            }
+        }
+    }
+
+    /**
+     * create a new decoder sharing the immutable parts of the given one
+     *
+     * @param prototype the decoder to copy
+     */
+    AdaptiveDecoder(AdaptiveDecoder prototype) {
+        this.x = prototype.x;
+        this.k = prototype.k;
+        this.erasure = prototype.erasure;
+        this.check = prototype.check;
+    }
+
+    /**
+     * evaluate the a-th Lagrange basis polynomial (for the first k x-values) at xi
+     */
+    private int lagrangeCoefficient(int a, int xi) {
+        int numerator = 1;
+        int denominator = 1;
+
+        for (int b = 0; b < k; b++) {
+            if (b != a) {
+                numerator = GF256.mult(numerator, GF256.sub(xi, x[b]));
+                denominator = GF256.mult(denominator, GF256.sub(x[a], x[b]));
+            }
+        }
+        return GF256.div(numerator, denominator);
+    }
+
+    @Override
+    public int[] decode(final int[] y, final int errors) throws UnsolvableException {
+        if (x.length != y.length) {
+            throw new UnsolvableException("Number of x-values does not equal number of y-values!");
+        }
+
+        if (errors > (x.length - k) / 2) {
+            throw new UnsolvableException("too many errors for this decoder (f=" + (x.length - k) / 2 + ", errors=" + errors + ")");
+        }
+
+        return decodeUnsafe(new int[k], y, errors);
+    }
+
+    @Override
+    public int[] decodeUnsafe(final int[] target, final int[] y, final int errors) throws UnsolvableException {
+        if (isConsistent(y)) {
+            return decodeErasure(target, y);
+        }
+
+        fallbacks++;
+        if (fallback == null) {
+            fallback = new BerlekampWelchDecoder(x, k);
+        }
+        return fallback.decodeUnsafe(target, y, errors);
+    }
+
+    /**
+     * @param y the given y-values
+     * @return true if all points lie upon the polynomial defined by the first k points
+     */
+    boolean isConsistent(final int[] y) {
+        for (int i = 0; i < check.length; i++) {
+            final int[][] tables = check[i];
+            int predicted = 0;
+            for (int j = 0; j < k; j++) {
+                predicted ^= tables[j][y[j]];
+            }
+            if (predicted != y[k + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * decode from the first k points without any check
+     */
+    int[] decodeErasure(final int[] target, final int[] y) throws UnsolvableException {
+        return erasure.decodeUnsafe(target, y, 0);
+    }
+
+    /**
+     * @return how many columns failed the syndrome check and had to be decoded
+     *         by the Berlekamp-Welch fallback
+     */
+    public long getFallbackCount() {
+        return fallbacks;
+    }
+}
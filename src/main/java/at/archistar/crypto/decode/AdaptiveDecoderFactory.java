@@ -0,0 +1,49 @@
+package at.archistar.crypto.decode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Factory for creating AdaptiveDecoders
+ *
+ * The erasure matrix and the syndrome check tables only depend upon the
+ * x-values, this factory caches them for the most recently used share subsets.
+ * Every created decoder gets its own (lazily created) Berlekamp-Welch fallback.
+ */
+public class AdaptiveDecoderFactory implements DecoderFactory {
+
+    /** how many decoders (i.e. distinct share subsets) should be cached */
+    private static final int CACHE_SIZE = 64;
+
+    private final Map<String, AdaptiveDecoder> cache = Collections.synchronizedMap(
+            new LinkedHashMap<String, AdaptiveDecoder>(CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AdaptiveDecoder> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    /**
+     * create a new decoder
+     *
+     * @param xValues our known xValues
+     * @param k size of the to-be-solved matrix
+     * @return the created decoder
+     */
+    @Override
+    public Decoder createDecoder(final int[] xValues, final int k) {
+        return createAdaptiveDecoder(xValues, k);
+    }
+
+    AdaptiveDecoder createAdaptiveDecoder(final int[] xValues, final int k) {
+        final String key = k + ":" + Arrays.toString(xValues);
+        return new AdaptiveDecoder(cache.computeIfAbsent(key, ignored -> new AdaptiveDecoder(xValues.clone(), k)));
+    }
+
+    @Override
+    public boolean correctsErrors() {
+        return true;
+    }
+}
@@ -1,24 +1,33 @@
 package at.archistar.crypto.decode;
 
 import at.archistar.crypto.math.gf256.GF256;
-import at.archistar.crypto.math.gf256.GF256Matrix;
-import java.util.Arrays;
+import at.archistar.crypto.math.gf256.GF256ByteMatrix;
+import at.archistar.crypto.math.gf256.GF256Polynomial;
 
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
-import at.archistar.crypto.math.gf256.GF256PolyHelper;
-
 /**
  * Reconstructs a polynomial from the given xy-pairs using the
  * <a href="http://en.wikipedia.org/wiki/Berlekamp–Welch_algorithm">Berlekamp-Welch algorithm</a>.<br>
  * This algorithm tolerates up to <i>(n - k) / 2</i> errors (wrong points) when reconstructing the polynomial.
  */
 public class BerlekampWelchDecoder implements Decoder {
-    private final int[][] matrix;
     private final int[] x;
     private final int f; // max number of allowed errors
     private final int k; // (degree+1), number of reconstructed elements
 
+    /** powers[i][j] = x_i^j (for j <= n) */
+    private final int[][] powers;
+
+    /* preallocated work space, reused for every solve */
+    private final GF256ByteMatrix system;
+    private final int[] rhs;
+    private final int[] solution;
+    private final GF256Polynomial q;
+    private final GF256Polynomial e;
+    private final int[] eCoefficients;
+    private final GF256Polynomial quotient;
+
     /**
      * Constructor
      */
@@ -31,31 +40,22 @@ public class BerlekampWelchDecoder implements Decoder {
         this.f = (n - k) / 2;
         this.x = xValues;
 
-        /* prepare the Q(x) part of the matrix */
-        this.matrix = new int[n][n];
-
-        /* how many should be correct? */
-        final int t = x.length - f;
+        this.powers = new int[n][n + 1];
         for (int i = 0; i < n; i++) {
-            for (int j = 0; j < t; j++) {
-                matrix[i][j] = GF256.pow(x[i], j);
+            powers[i][0] = 1;
+            for (int j = 1; j <= n; j++) {
+                powers[i][j] = GF256.mult(powers[i][j - 1], x[i]);
             }
         }
-    }
 
-    /**
-     * Prepares the <i>E(x)</i> part of the matrix (the not constant part). Must be done for every solve.
-     *
-     * @param y the y-coordinates to use for preparation
-     */
-    private void prepareEx(int[] y) {
-        final int t = y.length - f;
-
-        for (int i = 0; i < y.length; i++) {
-            for (int j = t; j < y.length; j++) {
-                matrix[i][j] = GF256.mult(y[i], GF256.pow(x[i], j - t));
-            }
-        }
+        this.system = new GF256ByteMatrix(n, n);
+        this.rhs = new int[n];
+        this.solution = new int[n];
+        this.q = new GF256Polynomial(n - f);
+        this.e = new GF256Polynomial(f + 1);
+        this.eCoefficients = new int[f + 1];
+        this.eCoefficients[f] = 1;
+        this.quotient = new GF256Polynomial(n);
     }
 
     @Override
@@ -74,64 +74,43 @@ public class BerlekampWelchDecoder implements Decoder {
         return decodeUnsafe(ret, y, errors);
     }
 
-    private static int getDegree(int[] coefficients) {
-        final int d = coefficients.length - 1;
-
-        if (coefficients.length == 0 || coefficients[d] == 0) {
-            return -1;
-        } else {
-            return d;
-        }
-    }
-
     /**
-     * Constructs the vector which will be multiplied with the decode-matrix.
-     *
-     * @param x the x-values
-     * @param y the corresponding y-values
-     * @param length the length of the resulting vector (in case some rows have been eliminated)
-     * @return the vector which then can be multiplied with the result-matrix to compute the coefficients
+     * Solves Q(x_i) = y_i * E(x_i) for all points where Q has t = n - f and the
+     * monic E has f + 1 coefficients. Afterwards P = Q / E.
      */
-    private int[] buildMultVector(final int x[], final int y[], final int length) {
-        final int[] res = new int[length];
-
-        for (int i = 0; i < length; i++) {
-            res[i] = GF256.mult(GF256.pow(x[i], f), y[i]);
-        }
-
-        return res;
-    }
-
     @Override
     public int[] decodeUnsafe(final int[] ret, final int[] y, final int errors) throws UnsolvableException {
+        final int n = y.length;
+        final int t = n - f;
 
-        /* finish preparation of the decode-matrix */
-        prepareEx(y);
-
-        GF256Matrix decodeMatrix = new GF256Matrix(matrix).inverseElimDepRows();
-        int[] coeffs = decodeMatrix.rightMultiply(buildMultVector(x, y, decodeMatrix.getNumRows())); // compute the coefficients
+        /* fill the (preallocated) system: [x_i^j | y_i * x_i^j] * [Q | E] = y_i * x_i^f */
+        for (int i = 0; i < n; i++) {
+            final int[] p = powers[i];
+            for (int j = 0; j < t; j++) {
+                system.set(i, j, p[j]);
+            }
+            for (int j = t; j < n; j++) {
+                system.set(i, j, GF256.mult(y[i], p[j - t]));
+            }
+            rhs[i] = GF256.mult(p[f], y[i]);
+        }
 
-        coeffs = Arrays.copyOf(coeffs, y.length + 1); // fill 0s for eliminated rows
-        coeffs[coeffs.length - 1] = 1; // add 1 to coeffs since E(x) = e_0 + e_1*x + ... + x^f
+        if (system.solveInPlace(rhs, solution) < 0) {
+            throw new UnsolvableException("Berlekamp-Welch system has no solution");
+        }
 
-        /* construct Q(x) and E(x) */
-        int[] q = Arrays.copyOfRange(coeffs, 0, coeffs.length - (f + 1));
-        int[] e = Arrays.copyOfRange(coeffs, coeffs.length - (f + 1), coeffs.length);
+        /* construct Q(x) and E(x) = e_0 + e_1*x + ... + x^f (in preallocated workspaces) */
+        q.set(solution, 0, t);
+        System.arraycopy(solution, t, eCoefficients, 0, f);
+        e.set(eCoefficients, 0, f + 1);
 
-        int[][] divRes = GF256PolyHelper.polyDiv(q, e);
+        q.divide(e, quotient, q);
 
-        if (getDegree(divRes[1]) > 0) { // if there is a remainder, reconstruction failed
+        if (!q.isZero()) { // if there is a remainder, reconstruction failed
             throw new UnsolvableException("There was a remainder during Berlekamp-Welch decoding");
         }
 
-        for (int i = 0; i < k; i++) {
-            if (i < divRes[0].length) {
-                ret[i] = divRes[0][i];
-            } else {
-                ret[i] = 0;
-            }
-        }
-
+        quotient.copyInto(ret);
         return ret;
     }
 }
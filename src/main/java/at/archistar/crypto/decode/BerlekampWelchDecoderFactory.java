@@ -2,6 +2,10 @@ package at.archistar.crypto.decode;
 
 /**
  * Factory for creating BerlekampWelchDecoders
+ *
+ * Reconstruction passes only k shares to these decoders (see
+ * DecoderFactory.correctsErrors), use AdaptiveDecoderFactory to correct
+ * errors with all available shares.
  */
 public class BerlekampWelchDecoderFactory implements DecoderFactory {
 
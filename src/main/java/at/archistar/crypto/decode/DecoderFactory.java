@@ -20,4 +20,16 @@ public interface DecoderFactory {
      * @return a new Decoder for the given xValues
      */
     Decoder createDecoder(final int[] xValues, final int k);
+
+    /**
+     * Decides which shares are passed to the decoders during reconstruction:
+     * by default only k of them (pure erasure decoding). Factories returning
+     * true get all distinct shares and are asked to correct up to
+     * (shares - k) / 2 errors per column.
+     *
+     * @return true if the created decoders should correct errors
+     */
+    default boolean correctsErrors() {
+        return false;
+    }
 }
@@ -0,0 +1,34 @@
+package at.archistar.crypto.decode;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+/**
+ * The decoded data together with a per-share error report
+ */
+public class DecodingResult {
+
+    private final byte[] data;
+
+    private final ErrorReport report;
+
+    /**
+     * create a new result
+     *
+     * @param data the decoded data
+     * @param report the errors found while decoding
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public DecodingResult(byte[] data, ErrorReport report) {
+        this.data = data;
+        this.report = report;
+    }
+
+    @SuppressFBWarnings("EI_EXPOSE_REP")
+    public byte[] getData() {
+        return data;
+    }
+
+    public ErrorReport getErrorReport() {
+        return report;
+    }
+}
@@ -1,7 +1,7 @@
 package at.archistar.crypto.decode;
 
 import at.archistar.crypto.math.gf256.GF256;
-import at.archistar.crypto.math.gf256.GF256Matrix;
+import at.archistar.crypto.math.gf256.GF256ByteMatrix;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 
 /**
@@ -11,10 +11,13 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
  */
 public class ErasureDecoder implements Decoder {
 
-    private final GF256Matrix matrix;
+    private final GF256ByteMatrix matrix;
 
     private final int k;
 
+    /** true if the x-values were not distinct, i.e. the system is not solvable */
+    private final boolean singular;
+
     /**
      * create a new ErasureDecoder
      *
@@ -25,15 +28,18 @@ public class ErasureDecoder implements Decoder {
 
         this.k = k;
 
-        final int[][] matrixX = new int[k][k];
+        final GF256ByteMatrix vandermonde = new GF256ByteMatrix(k, k);
 
         for (int i = 0; i < k; i++) {
+            int power = 1;
             for (int j = 0; j < k; j++) {
-                matrixX[i][j] = GF256.pow(xValues[i], j);
+                vandermonde.set(i, j, power);
+                power = GF256.mult(power, xValues[i]);
             }
         }
 
-        matrix = new GF256Matrix(matrixX).inverse();
+        matrix = new GF256ByteMatrix(k, k);
+        singular = !vandermonde.invertInto(matrix, new GF256ByteMatrix(k, k));
     }
 
     /**
@@ -49,16 +55,15 @@ public class ErasureDecoder implements Decoder {
             throw new UnsolvableException("Erasuredecoder cannot fix errors");
         }
 
-        if (matrix.getNumRows() != y.length) {
+        if (matrix.getRows() != y.length) {
             throw new UnsolvableException("Different Lengths");
         }
 
-
-        if (k > matrix.getNumRows()) {
-            throw new UnsolvableException("Seems to be a Configuraiton error");
+        if (singular) {
+            throw new UnsolvableException("x-values are not distinct");
         }
 
-        return matrix.rightMultiply(y);
+        return matrix.rightMultiplyInto(new int[k], y);
     }
 
     /**
@@ -69,6 +74,9 @@ public class ErasureDecoder implements Decoder {
      */
     @Override
     public int[] decodeUnsafe(final int[] target, final int[] y, final int errorCount) throws UnsolvableException {
+        if (singular) {
+            throw new UnsolvableException("x-values are not distinct");
+        }
         return matrix.rightMultiplyInto(target, y);
     }
 }
@@ -1,10 +1,30 @@
 package at.archistar.crypto.decode;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
 /**
  * Factory for creating ErasureDecoders
+ *
+ * ErasureDecoders are immutable after creation (and thus can be shared between
+ * threads), this factory caches the most recently used ones so that the k*k
+ * matrix inversion is not performed for every reconstructed object.
  */
 public class ErasureDecoderFactory implements DecoderFactory {
 
+    /** how many decoders (i.e. distinct share subsets) should be cached */
+    private static final int CACHE_SIZE = 64;
+
+    private final Map<String, Decoder> cache = Collections.synchronizedMap(
+            new LinkedHashMap<String, Decoder>(CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, Decoder> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
     /**
      * create a new decoder
      *
@@ -14,6 +34,7 @@ public class ErasureDecoderFactory implements DecoderFactory {
      */
     @Override
     public Decoder createDecoder(final int[] xValues, final int k) {
-        return new ErasureDecoder(xValues, k);
+        final String key = k + ":" + Arrays.toString(Arrays.copyOf(xValues, k));
+        return cache.computeIfAbsent(key, ignored -> new ErasureDecoder(xValues, k));
     }
 }
@@ -0,0 +1,167 @@
+package at.archistar.crypto.decode;
+
+import at.archistar.crypto.math.gf256.GF256;
+
+import java.util.Arrays;
+
+/**
+ * <p>Error-correcting decoder for bulk data that identifies faulty shares.</p>
+ *
+ * <p>Corruption of stored data typically affects whole shares, not single
+ * bytes. This decoder thus keeps a per-stripe (i.e. per decoder instance) set
+ * of faulty shares: every column is checked and erasure-decoded (see
+ * {@link AdaptiveDecoder}) using only the shares that are not known to be
+ * faulty. If a column fails the check, its error locator is computed through
+ * {@link GaoDecoder}, the located shares are marked as faulty and excluded
+ * from all following columns.</p>
+ *
+ * <p>Instances are not thread-safe, use one decoder per stripe.</p>
+ */
+public class ErrorLocatingDecoder implements ErrorReportingDecoder {
+
+    private final int[] x;
+
+    private final int k;
+
+    private final GaoDecoder gao;
+
+    private final AdaptiveDecoderFactory subsets;
+
+    private final boolean[] faulty;
+
+    /** indices of all shares that are not known to be faulty */
+    private int[] good;
+
+    /** decoder for the good shares, null if too few of them are left for checking */
+    private AdaptiveDecoder current;
+
+    private final int[] scratch;
+
+    private final long[] errorCounts;
+
+    private long located;
+
+    ErrorLocatingDecoder(int[] xValues, int k, GaoDecoder gao, AdaptiveDecoderFactory subsets) {
+        this.x = xValues;
+        this.k = k;
+        this.gao = gao;
+        this.subsets = subsets;
+        this.faulty = new boolean[xValues.length];
+        this.scratch = new int[xValues.length];
+        this.errorCounts = new long[xValues.length];
+        this.good = new int[xValues.length];
+        for (int i = 0; i < good.length; i++) {
+            good[i] = i;
+        }
+        this.current = subsets.createAdaptiveDecoder(xValues, k);
+    }
+
+    /**
+     * create a new decoder
+     *
+     * @param xValues the known xValues
+     * @param k (degree+1)/count of the decoded elements
+     */
+    public ErrorLocatingDecoder(int[] xValues, int k) {
+        this(xValues.clone(), k, new GaoDecoder(xValues.clone(), k), new AdaptiveDecoderFactory());
+    }
+
+    @Override
+    public int[] decode(final int[] y, final int errors) throws UnsolvableException {
+        if (x.length != y.length) {
+            throw new UnsolvableException("Number of x-values does not equal number of y-values!");
+        }
+        return decodeUnsafe(new int[k], y, errors);
+    }
+
+    @Override
+    public int[] decodeUnsafe(final int[] target, final int[] y, final int errors) throws UnsolvableException {
+        if (current != null) {
+            for (int i = 0; i < good.length; i++) {
+                scratch[i] = y[good[i]];
+            }
+            if (current.isConsistent(scratch)) {
+                current.decodeErasure(target, scratch);
+                countExcludedErrors(target, y);
+                return target;
+            }
+        }
+
+        located++;
+        final int[] errorPositions = gao.locateErrors(target, y);
+        for (int p : errorPositions) {
+            errorCounts[p]++;
+        }
+        if (errorPositions.length > 0) {
+            markFaulty(errorPositions);
+        }
+        return target;
+    }
+
+    /**
+     * shares that are excluded from decoding are still checked against the
+     * decoded polynomial so that their corrupted columns can be counted
+     */
+    private void countExcludedErrors(final int[] coefficients, final int[] y) {
+        if (good.length == x.length) {
+            return;
+        }
+        for (int i = 0; i < x.length; i++) {
+            if (faulty[i] && GF256.evaluateAt(coefficients, x[i]) != y[i]) {
+                errorCounts[i]++;
+            }
+        }
+    }
+
+    private void markFaulty(int[] positions) {
+        for (int p : positions) {
+            faulty[p] = true;
+        }
+
+        int count = 0;
+        final int[] tmp = new int[x.length];
+        for (int i = 0; i < x.length; i++) {
+            if (!faulty[i]) {
+                tmp[count++] = i;
+            }
+        }
+        good = Arrays.copyOf(tmp, count);
+
+        if (good.length > k) {
+            final int[] xs = new int[good.length];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = x[good[i]];
+            }
+            current = subsets.createAdaptiveDecoder(xs, k);
+        } else {
+            /* no redundancy left for checking, locate errors for every column */
+            current = null;
+        }
+    }
+
+    /**
+     * @return the x-values of all shares that were found to be faulty
+     */
+    public int[] getFaultyShares() {
+        int count = 0;
+        final int[] res = new int[x.length];
+        for (int i = 0; i < x.length; i++) {
+            if (faulty[i]) {
+                res[count++] = x[i];
+            }
+        }
+        return Arrays.copyOf(res, count);
+    }
+
+    @Override
+    public long[] getErrorCounts() {
+        return errorCounts.clone();
+    }
+
+    /**
+     * @return how many columns needed error location
+     */
+    public long getLocatedColumns() {
+        return located;
+    }
+}
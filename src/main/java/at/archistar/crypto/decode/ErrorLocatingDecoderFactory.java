@@ -0,0 +1,48 @@
+package at.archistar.crypto.decode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Factory for creating ErrorLocatingDecoders
+ *
+ * The Gao decoders (and the erasure/check tables of all share subsets) only
+ * depend upon the x-values and are cached. Every created decoder has its own
+ * set of faulty shares.
+ */
+public class ErrorLocatingDecoderFactory implements DecoderFactory {
+
+    /** how many decoders (i.e. distinct share subsets) should be cached */
+    private static final int CACHE_SIZE = 64;
+
+    private final Map<String, GaoDecoder> cache = Collections.synchronizedMap(
+            new LinkedHashMap<String, GaoDecoder>(CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, GaoDecoder> eldest) {
+                    return size() > CACHE_SIZE;
+                }
+            });
+
+    private final AdaptiveDecoderFactory subsets = new AdaptiveDecoderFactory();
+
+    /**
+     * create a new decoder
+     *
+     * @param xValues our known xValues
+     * @param k size of the to-be-solved matrix
+     * @return the created decoder
+     */
+    @Override
+    public ErrorLocatingDecoder createDecoder(final int[] xValues, final int k) {
+        final int[] xs = xValues.clone();
+        final String key = k + ":" + Arrays.toString(xs);
+        return new ErrorLocatingDecoder(xs, k, cache.computeIfAbsent(key, ignored -> new GaoDecoder(xs, k)), subsets);
+    }
+
+    @Override
+    public boolean correctsErrors() {
+        return true;
+    }
+}
@@ -0,0 +1,80 @@
+package at.archistar.crypto.decode;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Per-share summary of the errors found while decoding.
+ *
+ * Only error-reporting decoders (see {@link ErrorReportingDecoder}) check
+ * the shares, for all other decoders the report is empty and
+ * {@link #isChecked()} returns false.
+ */
+public class ErrorReport {
+
+    private final int[] shareIds;
+
+    private final long[] corruptedColumns;
+
+    private final boolean checked;
+
+    /**
+     * create a new report
+     *
+     * @param shareIds the ids of all shares used for decoding
+     * @param corruptedColumns per share: number of columns in which it was erroneous
+     * @param checked were the shares checked at all?
+     */
+    public ErrorReport(int[] shareIds, long[] corruptedColumns, boolean checked) {
+        this.shareIds = shareIds.clone();
+        this.corruptedColumns = corruptedColumns.clone();
+        this.checked = checked;
+    }
+
+    /**
+     * @return true if the shares were checked for errors during decoding
+     */
+    public boolean isChecked() {
+        return checked;
+    }
+
+    /**
+     * @param shareId the share's id
+     * @return the number of columns in which the given share was erroneous
+     */
+    public long getCorruptedColumns(int shareId) {
+        for (int i = 0; i < shareIds.length; i++) {
+            if (shareIds[i] == shareId) {
+                return corruptedColumns[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * @return number of corrupted columns for all used shares (by share id)
+     */
+    public Map<Integer, Long> getCorruptedColumns() {
+        final Map<Integer, Long> res = new LinkedHashMap<>();
+        for (int i = 0; i < shareIds.length; i++) {
+            res.put(shareIds[i], corruptedColumns[i]);
+        }
+        return Collections.unmodifiableMap(res);
+    }
+
+    /**
+     * @return the ids of all shares with at least one corrupted column
+     */
+    public int[] getFaultyShares() {
+        return Arrays.stream(shareIds)
+                .filter(id -> getCorruptedColumns(id) > 0)
+                .toArray();
+    }
+
+    @Override
+    public String toString() {
+        return "ErrorReport{checked=" + checked + ", corruptedColumns=" + getCorruptedColumns() + '}';
+    }
+}
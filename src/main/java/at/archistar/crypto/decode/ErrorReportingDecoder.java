@@ -0,0 +1,13 @@
+package at.archistar.crypto.decode;
+
+/**
+ * A decoder that keeps track of erroneous points while decoding
+ */
+public interface ErrorReportingDecoder extends Decoder {
+
+    /**
+     * @return per x-value (in the order given upon creation): the number of
+     *         decoded columns in which this point was erroneous
+     */
+    long[] getErrorCounts();
+}
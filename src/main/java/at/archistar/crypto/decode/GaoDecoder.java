@@ -0,0 +1,191 @@
+package at.archistar.crypto.decode;
+
+import at.archistar.crypto.math.gf256.GF256;
+import at.archistar.crypto.math.gf256.GF256Polynomial;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+
+import java.util.Arrays;
+
+/**
+ * <p>Reconstructs a polynomial from the given xy-pairs using Gao's algorithm
+ * (S. Gao, "A New Algorithm for Decoding Reed-Solomon Codes", 2002).</p>
+ *
+ * <p>The y-values are interpolated into g1, afterwards the extended Euclidean
+ * algorithm is run upon g0 = prod(X - x_i) and g1 until the remainder's degree
+ * drops below (n+k)/2. The remainder divided by the Bezout coefficient v is
+ * the decoded polynomial, the roots of v (the error locator) are the x-values
+ * of the erroneous points. Like Berlekamp-Welch this tolerates up to
+ * <i>(n - k) / 2</i> errors but additionally identifies the faulty points.
+ * Syndrome-based decoders (Berlekamp-Massey) are not applicable as the
+ * x-values are arbitrary share ids, not consecutive powers of a generator.</p>
+ *
+ * <p>Everything depending upon the x-values only (g0 and the Lagrange basis
+ * polynomials) is precomputed. The per-column Euclid runs in place upon
+ * {@link GF256Polynomial} workspaces (one set per thread), so decoding a
+ * column does not allocate. Instances are thread-safe.</p>
+ */
+public class GaoDecoder implements Decoder {
+
+    private final int[] x;
+
+    private final int k;
+
+    /** prod(X - x_i), never modified */
+    private final GF256Polynomial g0;
+
+    /** basis[i]: coefficients of the i-th Lagrange basis polynomial */
+    private final int[][] basis;
+
+    private final ThreadLocal<Workspace> workspaces;
+
+    /** the polynomials used while decoding a single column */
+    private static final class Workspace {
+
+        private final int[] g1;
+
+        private final int[] positions;
+
+        private GF256Polynomial rPrev;
+
+        private GF256Polynomial r;
+
+        private GF256Polynomial vPrev;
+
+        private GF256Polynomial v;
+
+        private final GF256Polynomial q;
+
+        private final GF256Polynomial product;
+
+        private Workspace(int n) {
+            this.g1 = new int[n];
+            this.positions = new int[n];
+            this.rPrev = new GF256Polynomial(n + 1);
+            this.r = new GF256Polynomial(n + 1);
+            this.vPrev = new GF256Polynomial(n + 1);
+            this.v = new GF256Polynomial(n + 1);
+            this.q = new GF256Polynomial(n + 1);
+            this.product = new GF256Polynomial(n + 1);
+        }
+    }
+
+    /**
+     * create a new decoder
+     *
+     * @param xValues the known xValues
+     * @param k (degree+1)/count of the decoded elements
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public GaoDecoder(final int[] xValues, final int k) {
+        final int n = xValues.length;
+        this.x = xValues;
+        this.k = k;
+
+        this.g0 = new GF256Polynomial(n + 1).setConstant(1);
+        for (int xi : xValues) {
+            g0.multiplyByLinear(xi);
+        }
+
+        this.basis = new int[n][n];
+        for (int i = 0; i < n; i++) {
+            /* g0 / (X - x_i) through synthetic division */
+            final int[] numerator = basis[i];
+            int carry = 0;
+            for (int d = n; d > 0; d--) {
+                carry = GF256.add(g0.get(d), GF256.mult(carry, x[i]));
+                numerator[d - 1] = carry;
+            }
+
+            final int scale = GF256.inverse(GF256.evaluateAt(numerator, x[i]));
+            for (int d = 0; d < n; d++) {
+                numerator[d] = GF256.mult(numerator[d], scale);
+            }
+        }
+        this.workspaces = ThreadLocal.withInitial(() -> new Workspace(n));
+    }
+
+    @Override
+    public int[] decode(final int[] y, final int errors) throws UnsolvableException {
+        if (x.length != y.length) {
+            throw new UnsolvableException("Number of x-values does not equal number of y-values!");
+        }
+
+        if (errors > (x.length - k) / 2) {
+            throw new UnsolvableException("too many errors for this decoder (f=" + (x.length - k) / 2 + ", errors=" + errors + ")");
+        }
+
+        return decodeUnsafe(new int[k], y, errors);
+    }
+
+    @Override
+    public int[] decodeUnsafe(final int[] target, final int[] y, final int errors) throws UnsolvableException {
+        locateErrors(target, y);
+        return target;
+    }
+
+    /**
+     * Decode the given y-values and identify the erroneous ones
+     *
+     * @param target output buffer for the k coefficients
+     * @param y the y-values (same order as the x-values)
+     * @return the indices (into the x-values) of all erroneous points
+     * @throws UnsolvableException if there were too many errors
+     */
+    public int[] locateErrors(final int[] target, final int[] y) throws UnsolvableException {
+        final int n = x.length;
+        final Workspace w = workspaces.get();
+
+        /* interpolate g1 */
+        final int[] g1 = w.g1;
+        Arrays.fill(g1, 0);
+        for (int i = 0; i < n; i++) {
+            if (y[i] != 0) {
+                final int[] b = basis[i];
+                for (int d = 0; d < n; d++) {
+                    g1[d] ^= GF256.mult(b[d], y[i]);
+                }
+            }
+        }
+
+        /* partial extended euclid, the remainders and Bezout coefficients are swapped in place */
+        final int threshold = (n + k) / 2;
+        w.rPrev.set(g0);
+        w.r.set(g1, 0, n);
+        w.vPrev.clear();
+        w.v.setConstant(1);
+        while (w.r.degree() >= threshold) {
+            w.rPrev.divide(w.r, w.q, w.rPrev);
+            final GF256Polynomial remainder = w.rPrev;
+            w.rPrev = w.r;
+            w.r = remainder;
+
+            w.vPrev.add(w.product.multiply(w.q, w.v));
+            final GF256Polynomial vNext = w.vPrev;
+            w.vPrev = w.v;
+            w.v = vNext;
+        }
+
+        /* f = r / v, rPrev is not needed anymore and receives the remainder */
+        w.r.divide(w.v, w.q, w.rPrev);
+        if (!w.rPrev.isZero() || w.q.degree() >= k) {
+            throw new UnsolvableException("too many errors for Gao decoding");
+        }
+
+        for (int i = 0; i < k; i++) {
+            target[i] = w.q.get(i);
+        }
+
+        int count = 0;
+        final int[] positions = w.positions;
+        for (int i = 0; i < n; i++) {
+            if (w.v.evaluate(x[i]) == 0) {
+                positions[count++] = i;
+            }
+        }
+        if (count != w.v.degree()) {
+            /* the error locator must split into distinct roots at the x-values */
+            throw new UnsolvableException("too many errors for Gao decoding");
+        }
+        return Arrays.copyOf(positions, count);
+    }
+}
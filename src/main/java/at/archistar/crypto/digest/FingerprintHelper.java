@@ -0,0 +1,23 @@
+package at.archistar.crypto.digest;
+
+/**
+ * Helper used for computing the fingerprints of (CSS) shares
+ *
+ * Implementations must be thread-safe, i.e. fingerprints of multiple shares
+ * may be computed concurrently.
+ */
+public interface FingerprintHelper {
+
+    /**
+     * Compute the fingerprint of the given data
+     *
+     * @param data the data that should be fingerprinted
+     * @return the fingerprint
+     */
+    byte[] fingerprint(byte[] data);
+
+    /**
+     * @return the length of the produced fingerprints (in bytes)
+     */
+    int getLength();
+}
@@ -0,0 +1,50 @@
+package at.archistar.crypto.digest;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * computes fingerprints through Java's MessageDigest (i.e. SHA-256)
+ */
+public class JavaFingerprintHelper implements FingerprintHelper {
+
+    private final String algorithm;
+
+    private final int length;
+
+    /** MessageDigest is not thread-safe, so every thread gets its own instance */
+    private final ThreadLocal<MessageDigest> digest;
+
+    /**
+     * Constructor
+     *
+     * @param algorithm the digest algorithm to use (for example <i>SHA-256</i>)
+     * @throws NoSuchAlgorithmException thrown if the given algorithm is not supported
+     */
+    public JavaFingerprintHelper(String algorithm) throws NoSuchAlgorithmException {
+        this.algorithm = algorithm;
+        this.length = MessageDigest.getInstance(algorithm).getDigestLength();
+        this.digest = ThreadLocal.withInitial(() -> {
+            try {
+                return MessageDigest.getInstance(algorithm);
+            } catch (NoSuchAlgorithmException e) {
+                throw new RuntimeException("impossible: algorithm was available before", e);
+            }
+        });
+    }
+
+    @Override
+    public byte[] fingerprint(byte[] data) {
+        return digest.get().digest(data);
+    }
+
+    @Override
+    public int getLength() {
+        return length;
+    }
+
+    @Override
+    public String toString() {
+        return "JavaFingerprintHelper(" + algorithm + ")";
+    }
+}
@@ -0,0 +1,90 @@
+package at.archistar.crypto.digest;
+
+import at.archistar.crypto.execution.ExecutionPolicy;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
+import org.bouncycastle.util.Pack;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Parallel tree hash based upon BLAKE2b-256.</p>
+ *
+ * <p>The data is split into chunks of CHUNK_SIZE bytes which are hashed
+ * independently (and thus concurrently through the supplied execution policy).
+ * The fingerprint is the hash of the data's length and all chunk hashes. Leaf
+ * and root hashes use different BLAKE2b personalizations so that they cannot be
+ * confused with each other.</p>
+ *
+ * <p>As the chunk size is part of the fingerprint's definition, it is fixed.</p>
+ */
+public class TreeFingerprintHelper implements FingerprintHelper {
+
+    /** size of the independently hashed chunks */
+    public static final int CHUNK_SIZE = 64 * 1024;
+
+    private static final int LENGTH = 32;
+
+    private static final byte[] LEAF = personalization("archistar-leaf");
+
+    private static final byte[] ROOT = personalization("archistar-root");
+
+    private final ExecutionPolicy policy;
+
+    /** digests are not thread-safe, so every thread gets its own instances */
+    private final ThreadLocal<Blake2bDigest> leaf = ThreadLocal.withInitial(() -> new Blake2bDigest(null, LENGTH, null, LEAF));
+
+    private final ThreadLocal<Blake2bDigest> root = ThreadLocal.withInitial(() -> new Blake2bDigest(null, LENGTH, null, ROOT));
+
+    /**
+     * Constructor
+     *
+     * @param policy how the chunks should be hashed (in parallel)
+     */
+    public TreeFingerprintHelper(ExecutionPolicy policy) {
+        this.policy = policy;
+    }
+
+    private static byte[] personalization(String name) {
+        return Arrays.copyOf(name.getBytes(StandardCharsets.US_ASCII), 16);
+    }
+
+    @Override
+    public byte[] fingerprint(byte[] data) {
+        final int chunks = Math.max(1, (data.length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        final List<Integer> indices = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            indices.add(i);
+        }
+
+        final List<byte[]> leaves = policy.map(indices, i -> {
+            final Blake2bDigest d = leaf.get();
+            final int from = i * CHUNK_SIZE;
+            final byte[] result = new byte[LENGTH];
+            d.update(data, from, Math.min(CHUNK_SIZE, data.length - from));
+            d.doFinal(result, 0);
+            return result;
+        });
+
+        final Blake2bDigest d = root.get();
+        final byte[] result = new byte[LENGTH];
+        d.update(Pack.longToBigEndian(data.length), 0, 8);
+        for (byte[] l : leaves) {
+            d.update(l, 0, l.length);
+        }
+        d.doFinal(result, 0);
+        return result;
+    }
+
+    @Override
+    public int getLength() {
+        return LENGTH;
+    }
+
+    @Override
+    public String toString() {
+        return "TreeFingerprintHelper(BLAKE2b-256, chunk=" + CHUNK_SIZE + ", " + policy + ")";
+    }
+}
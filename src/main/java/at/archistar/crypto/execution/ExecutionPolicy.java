@@ -0,0 +1,113 @@
+package at.archistar.crypto.execution;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+
+/**
+ * <p>Describes how (and where) the work of secret-sharing algorithms and
+ * crypto engines is executed.</p>
+ *
+ * <p>Most of the algorithms work upon <i>n</i> participants times <i>m</i> data
+ * columns. An execution policy is free to split this work into ranges of
+ * columns per participant and to execute those ranges concurrently. Policies
+ * will skip parallel execution for small inputs (below a configurable
+ * threshold) as the overhead would outweigh any gains.</p>
+ *
+ * <p>Available policies are: sequential execution, a fork-join pool (the
+ * common pool or a dedicated one) or a fixed thread pool.</p>
+ */
+public interface ExecutionPolicy {
+
+    /** default number of columns processed by one task */
+    int DEFAULT_SPLIT_SIZE = 64 * 1024;
+
+    /** inputs with less columns than this are processed sequentially */
+    int DEFAULT_THRESHOLD = 16 * 1024;
+
+    /**
+     * A part of the overall work: a range of data columns of a single participant
+     */
+    @FunctionalInterface
+    interface RangeTask {
+
+        /**
+         * @param participant the participant's index (0..participants-1)
+         * @param from first column (inclusive)
+         * @param to last column (exclusive)
+         */
+        void run(int participant, int from, int to);
+    }
+
+    /**
+     * Performs task for all participants over all columns. Returns after all
+     * work has been done. Runtime exceptions thrown by the task are passed on
+     * to the caller.
+     *
+     * @param participants number of participants
+     * @param length number of columns (per participant)
+     * @param task the work to be done
+     */
+    void run(int participants, int length, RangeTask task);
+
+    /**
+     * Applies f to all elements of the input list (potentially in parallel)
+     *
+     * @param input the input elements
+     * @param f the function to apply
+     * @param <T> input type
+     * @param <R> output type
+     * @return the results (in the same order as the input)
+     */
+    <T, R> List<R> map(List<T> input, Function<? super T, ? extends R> f);
+
+    /**
+     * Like map, but small inputs are processed sequentially: length is the
+     * overall amount of work (e.g. the number of bytes processed by f for all
+     * elements) and is compared to the policy's threshold.
+     *
+     * @param input the input elements
+     * @param length the overall amount of work
+     * @param f the function to apply
+     * @param <T> input type
+     * @param <R> output type
+     * @return the results (in the same order as the input)
+     */
+    default <T, R> List<R> map(List<T> input, long length, Function<? super T, ? extends R> f) {
+        return map(input, f);
+    }
+
+    /**
+     * @return a policy that executes everything within the calling thread
+     */
+    static ExecutionPolicy sequential() {
+        return SequentialExecutionPolicy.INSTANCE;
+    }
+
+    /**
+     * @param pool the fork-join pool to use
+     * @param splitSize number of columns processed by one task
+     * @param threshold inputs with less columns are processed sequentially
+     * @return a policy that executes upon the given fork-join pool
+     */
+    static ExecutionPolicy forkJoin(ForkJoinPool pool, int splitSize, int threshold) {
+        return new ForkJoinExecutionPolicy(pool, splitSize, threshold);
+    }
+
+    /**
+     * @param threads the number of (daemon) threads to create
+     * @param splitSize number of columns processed by one task
+     * @param threshold inputs with less columns are processed sequentially
+     * @return a policy that executes upon a new, dedicated fixed thread pool
+     */
+    static ExecutionPolicy fixedPool(int threads, int splitSize, int threshold) {
+        return new ThreadPoolExecutionPolicy(threads, splitSize, threshold);
+    }
+
+    /**
+     * @return the default policy: the common fork-join pool with default settings
+     */
+    static ExecutionPolicy defaultPolicy() {
+        return ForkJoinExecutionPolicy.COMMON;
+    }
+}
@@ -0,0 +1,57 @@
+package at.archistar.crypto.execution;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Execute tasks upon a fork-join pool (recursively splitting the task range)
+ */
+class ForkJoinExecutionPolicy extends SplittingExecutionPolicy {
+
+    static final ForkJoinExecutionPolicy COMMON = new ForkJoinExecutionPolicy(ForkJoinPool.commonPool(), DEFAULT_SPLIT_SIZE, DEFAULT_THRESHOLD);
+
+    private final ForkJoinPool pool;
+
+    ForkJoinExecutionPolicy(ForkJoinPool pool, int splitSize, int threshold) {
+        super(splitSize, threshold);
+        this.pool = pool;
+    }
+
+    @Override
+    protected void execute(int count, IntConsumer task) {
+        pool.invoke(new RangeAction(task, 0, count));
+    }
+
+    private static final class RangeAction extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final IntConsumer task;
+        private final int from;
+        private final int to;
+
+        RangeAction(IntConsumer task, int from, int to) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= 1) {
+                if (to > from) {
+                    task.accept(from);
+                }
+            } else {
+                final int middle = (from + to) >>> 1;
+                invokeAll(new RangeAction(task, from, middle), new RangeAction(task, middle, to));
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "ForkJoin(parallelism=" + pool.getParallelism() + ", split=" + splitSize + ", threshold=" + threshold + ")";
+    }
+}
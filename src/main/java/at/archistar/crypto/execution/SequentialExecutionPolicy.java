@@ -0,0 +1,37 @@
+package at.archistar.crypto.execution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Execute everything within the calling thread
+ */
+class SequentialExecutionPolicy implements ExecutionPolicy {
+
+    static final SequentialExecutionPolicy INSTANCE = new SequentialExecutionPolicy();
+
+    private SequentialExecutionPolicy() {
+    }
+
+    @Override
+    public void run(int participants, int length, RangeTask task) {
+        for (int p = 0; p < participants; p++) {
+            task.run(p, 0, length);
+        }
+    }
+
+    @Override
+    public <T, R> List<R> map(List<T> input, Function<? super T, ? extends R> f) {
+        List<R> result = new ArrayList<>(input.size());
+        for (T t : input) {
+            result.add(f.apply(t));
+        }
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "Sequential()";
+    }
+}
@@ -0,0 +1,75 @@
+package at.archistar.crypto.execution;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * Base class for parallel policies: splits the work into tasks of at most
+ * splitSize columns and lets the sub-class decide how to execute them.
+ */
+abstract class SplittingExecutionPolicy implements ExecutionPolicy {
+
+    /** number of columns processed by one task */
+    protected final int splitSize;
+
+    /** inputs with less columns than this are processed sequentially */
+    protected final int threshold;
+
+    SplittingExecutionPolicy(int splitSize, int threshold) {
+        if (splitSize < 1) {
+            throw new IllegalArgumentException("splitSize must be at least 1");
+        }
+        this.splitSize = splitSize;
+        this.threshold = threshold;
+    }
+
+    /**
+     * execute task(0) .. task(count-1), return after all of them are finished
+     *
+     * @param count the number of tasks
+     * @param task the task to be executed
+     */
+    protected abstract void execute(int count, IntConsumer task);
+
+    @Override
+    public void run(int participants, int length, RangeTask task) {
+        if (participants <= 0 || length <= 0) {
+            return;
+        }
+        if (length < threshold || (participants <= 1 && length <= splitSize)) {
+            ExecutionPolicy.sequential().run(participants, length, task);
+            return;
+        }
+
+        final int splits = (length + splitSize - 1) / splitSize;
+        execute(participants * splits, i -> {
+            final int from = (i % splits) * splitSize;
+            task.run(i / splits, from, Math.min(length, from + splitSize));
+        });
+    }
+
+    @Override
+    public <T, R> List<R> map(List<T> input, Function<? super T, ? extends R> f) {
+        if (input.size() <= 1) {
+            return ExecutionPolicy.sequential().map(input, f);
+        }
+
+        final Object[] result = new Object[input.size()];
+        execute(input.size(), i -> result[i] = f.apply(input.get(i)));
+
+        @SuppressWarnings("unchecked")
+        List<R> list = new ArrayList<>((List<R>) Arrays.asList(result));
+        return list;
+    }
+
+    @Override
+    public <T, R> List<R> map(List<T> input, long length, Function<? super T, ? extends R> f) {
+        if (length < threshold) {
+            return ExecutionPolicy.sequential().map(input, f);
+        }
+        return map(input, f);
+    }
+}
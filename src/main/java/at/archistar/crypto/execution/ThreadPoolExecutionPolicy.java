@@ -0,0 +1,94 @@
+package at.archistar.crypto.execution;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>Execute tasks upon a dedicated fixed thread pool.</p>
+ *
+ * <p>The calling thread takes part in the work: tasks are taken from a shared
+ * counter by the caller and by helpers submitted to the pool. This way nested
+ * calls (i.e. a batch operation whose single operations are parallelized
+ * themselves) can never dead-lock on a saturated pool.</p>
+ */
+class ThreadPoolExecutionPolicy extends SplittingExecutionPolicy {
+
+    private final ExecutorService pool;
+
+    private final int threads;
+
+    ThreadPoolExecutionPolicy(int threads, int splitSize, int threshold) {
+        super(splitSize, threshold);
+        if (threads < 1) {
+            throw new IllegalArgumentException("at least one thread is needed");
+        }
+        this.threads = threads;
+
+        final AtomicInteger counter = new AtomicInteger();
+        this.pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "archistar-smc-" + counter.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    @Override
+    protected void execute(int count, IntConsumer task) {
+        final AtomicInteger next = new AtomicInteger();
+        final AtomicInteger done = new AtomicInteger();
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+
+        final Runnable worker = () -> {
+            int i;
+            while ((i = next.getAndIncrement()) < count) {
+                try {
+                    if (error.get() == null) {
+                        task.accept(i);
+                    }
+                } catch (Throwable e) {
+                    /* errors are passed on to the calling thread, too (and never kill the worker) */
+                    error.compareAndSet(null, e);
+                } finally {
+                    if (done.incrementAndGet() == count) {
+                        synchronized (done) {
+                            done.notifyAll();
+                        }
+                    }
+                }
+            }
+        };
+
+        for (int i = Math.min(threads, count - 1); i > 0; i--) {
+            pool.execute(worker);
+        }
+        worker.run();
+
+        synchronized (done) {
+            while (done.get() < count) {
+                try {
+                    done.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("interrupted while waiting for tasks", e);
+                }
+            }
+        }
+
+        final Throwable e = error.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        } else if (e != null) {
+            throw new IllegalStateException("task failed", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "FixedPool(threads=" + threads + ", split=" + splitSize + ", threshold=" + threshold + ")";
+    }
+}
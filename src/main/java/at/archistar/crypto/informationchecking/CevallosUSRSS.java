@@ -37,7 +37,7 @@ public class CevallosUSRSS extends RabinBenOrRSS {
 
         this.n = n;
 
-        if (!((k - 1) * 3 >= n) && ((k - 1) * 2 < n)) {
+        if (!((k - 1) * 3 >= n && (k - 1) * 2 < n)) {
             throw new WeakSecurityException("this scheme only works when n/3 <= t < n/2 (where t = k-1)");
         }
 
@@ -53,7 +53,25 @@ public class CevallosUSRSS extends RabinBenOrRSS {
      * @return the amount of bytes the MAC-tags should have
      */
     public static int computeTagLength(int m, int t, int e) {
-        int tagLengthBit = log2(t + 1) + log2(m) + 2 / (t + 1) * e + log2(e);
+        return computeTagLength((long) m, t, e);
+    }
+
+    /**
+     * Computes the required MAC-tag-length to achieve a security of <i>e</i> bits
+     * (for messages of more than 2^31 bit).
+     *
+     * @param m the length of the message in bit (empty messages are treated
+     *          like messages of a single bit)
+     * @param t amount of "defective" shares
+     * @param e the security constant in bit
+     * @return the amount of bytes the MAC-tags should have
+     */
+    public static int computeTagLength(long m, int t, int e) {
+        if (m < 0) {
+            throw new IllegalArgumentException("the message length must not be negative");
+        }
+        m = Math.max(1, m);
+        int tagLengthBit = log2(t + 1) + (63 - Long.numberOfLeadingZeros(m)) + 2 * e / (t + 1) + log2(e);
         return tagLengthBit / 8;
     }
 
@@ -71,6 +89,11 @@ public class CevallosUSRSS extends RabinBenOrRSS {
         return 31 - Integer.numberOfLeadingZeros(n);
     }
 
+    @Override
+    protected InformationCheckingShare.ICType getICType() {
+        return InformationCheckingShare.ICType.CEVALLOS;
+    }
+
     private int getAcceptedCount(InformationCheckingShare s1, InformationCheckingShare[] shares, boolean[][] accepts) {
 
         int counter = 0;
@@ -94,6 +117,8 @@ public class CevallosUSRSS extends RabinBenOrRSS {
 
         Queue<Integer> queue = new LinkedList<>();
         List<InformationCheckingShare> valid = new LinkedList<>();
+        List<Integer> rejected = new LinkedList<>();
+        Map<Integer, InformationCheckingShare> byId = new HashMap<>();
 
         // accepts[i][j] = true means participant j accepts i
         boolean[][] accepts = new boolean[n + 1][n + 1];
@@ -101,6 +126,7 @@ public class CevallosUSRSS extends RabinBenOrRSS {
 
         for (InformationCheckingShare s1 : cshares) {
 
+            byId.put((int) s1.getId(), s1);
             a[s1.getId()] += getAcceptedCount(s1, cshares, accepts);
 
             if (a[s1.getId()] < k) {
@@ -112,6 +138,7 @@ public class CevallosUSRSS extends RabinBenOrRSS {
 
         while (valid.size() >= k && !queue.isEmpty()) {
             int s1id = queue.poll();
+            rejected.add(s1id);
             for (Iterator<InformationCheckingShare> it = valid.iterator(); it.hasNext(); ) {
                 InformationCheckingShare s2 = it.next();
                 if (accepts[s2.getId()][s1id]) {
@@ -126,7 +153,8 @@ public class CevallosUSRSS extends RabinBenOrRSS {
 
         Map<Boolean, List<InformationCheckingShare>> res = new HashMap<>();
         res.put(Boolean.TRUE, valid);
-        res.put(Boolean.FALSE, queue.stream().map(i -> cshares[i]).collect(Collectors.toList()));
+        rejected.addAll(queue);
+        res.put(Boolean.FALSE, rejected.stream().map(byId::get).collect(Collectors.toList()));
 
         return res;
     }
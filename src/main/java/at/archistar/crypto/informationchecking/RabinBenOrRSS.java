@@ -36,18 +36,33 @@ public class RabinBenOrRSS implements InformationChecking {
         this.k = k;
     }
 
+    /**
+     * @return the information checking type of the shares this scheme creates tags for
+     */
+    protected InformationCheckingShare.ICType getICType() {
+        return InformationCheckingShare.ICType.RABIN_BEN_OR;
+    }
+
     @Override
     public InformationCheckingShare[] createTags(InformationCheckingShare[] rboshares) throws InvalidParametersException {
         /* compute and add the corresponding tags */
         for (InformationCheckingShare share1 : rboshares) {
-            if (share1.getICType() != InformationCheckingShare.ICType.RABIN_BEN_OR) {
-                throw new InvalidParametersException("Share is not a Rabin-Ben-Or IC Share");
+            if (share1.getICType() != getICType()) {
+                throw new InvalidParametersException("Share is not a " + getICType() + " IC Share");
+            }
+
+            /* fetch all keys for this share at once (and lock the rng while doing so) */
+            final int keySize = this.mac.keySize();
+            final byte[] keys = new byte[keySize * rboshares.length];
+            synchronized (rng) {
+                rng.fillBytes(keys);
             }
 
+            int pos = 0;
             for (InformationCheckingShare share2 : rboshares) {
                 try {
-                    byte[] key = new byte[this.mac.keySize()];
-                    this.rng.fillBytes(key);
+                    byte[] key = Arrays.copyOfRange(keys, pos, pos + keySize);
+                    pos += keySize;
                     byte[] tag = this.mac.computeMAC(share1.getYValues(), key);
 
                     share1.getMacs().put(share2.getId(), tag);
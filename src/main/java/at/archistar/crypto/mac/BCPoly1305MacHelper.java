@@ -11,18 +11,18 @@ import org.bouncycastle.crypto.params.KeyParameter;
 
 /**
  * Use bouncy castle's poly1305 engine for creating macs
+ *
+ * A new (cheap) Poly1305 instance is used for every operation so that this
+ * helper can be shared between threads.
  */
 public class BCPoly1305MacHelper implements MacHelper {
 
-    private final Mac mac;
-
     /**
      * Constructor
      *
      * @throws NoSuchAlgorithmException thrown if the given algorithm is not supported
      */
     public BCPoly1305MacHelper() throws NoSuchAlgorithmException {
-        this.mac = new Poly1305();
     }
 
     /**
@@ -36,6 +36,7 @@ public class BCPoly1305MacHelper implements MacHelper {
     @Override
     public byte[] computeMAC(byte[] data, byte[] key) throws InvalidKeyException {
 
+        final Mac mac = new Poly1305();
         byte[] result = new byte[mac.getMacSize()];
 
         Poly1305KeyGenerator.clamp(key);
@@ -5,38 +5,59 @@ import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 
 /**
- * This is just part of a proof-of-concept of a key-shortener used for an
- * accurate implementation of the Cevallos-Scheme
+ * <p>Adapts a MAC to the tag length needed by an accurate implementation of
+ * the Cevallos-Scheme.</p>
+ *
+ * <p>The underlying MAC always gets a complete (random) key. Its tags are
+ * truncated to the needed length; if they are too short, tags computed with
+ * further independent keys are appended.</p>
  */
 public class BCShortenedMacHelper implements MacHelper {
 
     private final MacHelper mac;
 
+    /** the produced tag length */
     private final int keylength;
 
+    /** number of underlying tags (and keys) per tag */
+    private final int blocks;
+
     /**
      * Constructor
      *
      * @param mac the MAC algorithm to use (for example <i>SHA-256</i>)
-     * @param keylength the actually needed (input and output) keylength
+     * @param keylength the actually needed tag length (in byte)
      * @throws NoSuchAlgorithmException thrown if the given algorithm is not supported
      */
     public BCShortenedMacHelper(MacHelper mac, int keylength) throws NoSuchAlgorithmException {
         this.mac = mac;
         this.keylength = keylength;
+
+        final int macLength;
+        try {
+            macLength = mac.computeMAC(new byte[0], new byte[mac.keySize()]).length;
+        } catch (InvalidKeyException e) {
+            throw new NoSuchAlgorithmException("cannot determine the tag length of " + mac, e);
+        }
+        this.blocks = (keylength + macLength - 1) / macLength;
     }
 
     @Override
     public byte[] computeMAC(byte[] data, byte[] key) throws InvalidKeyException {
+        if (key == null || key.length < keySize()) {
+            throw new InvalidKeyException("key must be at least " + keySize() + " bytes long");
+        }
 
-        /* create the short key, padded with 0s */
-        byte[] shortKey = new byte[this.mac.keySize()];
-        Arrays.copyOfRange(key, 0, keylength);
-
-        byte[] result = mac.computeMAC(data, shortKey);
-
-        /* return only keys of a given length */
-        return Arrays.copyOfRange(result, 0, keylength);
+        final byte[] result = new byte[keylength];
+        for (int i = 0, pos = 0; i < blocks; i++) {
+            /* the underlying mac might modify (i.e. clamp) the key */
+            final byte[] blockKey = Arrays.copyOfRange(key, i * mac.keySize(), (i + 1) * mac.keySize());
+            final byte[] tag = mac.computeMAC(data, blockKey);
+            final int count = Math.min(tag.length, keylength - pos);
+            System.arraycopy(tag, 0, result, pos, count);
+            pos += count;
+        }
+        return result;
     }
 
     /**
@@ -52,26 +73,29 @@ public class BCShortenedMacHelper implements MacHelper {
     public boolean verifyMAC(byte[] data, byte[] tag, byte[] key) {
         boolean valid = false;
 
-        byte[] shortKey = new byte[this.mac.keySize()];
-        Arrays.copyOfRange(key, 0, keylength);
-
         try {
-            byte[] newTag = computeMAC(data, shortKey); // compute tag for the given parameters
-            byte[] shortTag = Arrays.copyOfRange(newTag, 0, keylength);
-            valid = Arrays.equals(tag, shortTag); // compare with original tag
+            byte[] newTag = computeMAC(data, key); // compute tag for the given parameters
+            valid = Arrays.equals(tag, newTag); // compare with original tag
         } catch (InvalidKeyException e) {
-            throw new RuntimeException("this should not happen");
+            return false;
         }
 
         return valid;
     }
 
     /**
-     * @return needed keylength (in byte) for this algorithm
+     * @return needed keylength (complete keys of the underlying mac, in byte) for this algorithm
      */
     @Override
     public int keySize() {
-        return this.keylength;
+        return blocks * mac.keySize();
+    }
+
+    /**
+     * @return the produced tag length (in byte)
+     */
+    public int getTagLength() {
+        return keylength;
     }
 
     /**
@@ -5,19 +5,40 @@ import at.archistar.crypto.informationchecking.CevallosUSRSS;
 import java.security.NoSuchAlgorithmException;
 
 /**
- * This is just part of a proof-of-concept of a key-shortener used for an
- * accurate implementation of the Cevallos-Scheme
+ * Creates the short-tag macs used for an accurate implementation of the
+ * Cevallos-Scheme
  */
 public class BCShortenedMacHelperFactory {
+
     /**
-     * create a new mac helper
+     * create a new mac helper that truncates Poly1305 tags to the length
+     * needed by the Cevallos-Scheme (every Poly1305 tag uses a full 32 byte key)
      *
-     * @param t ???
-     * @param dataLength the wished-for mac length
+     * @param t amount of "defective" shares
+     * @param dataLength length of the authenticated data (passed on to CevallosUSRSS.computeTagLength)
      * @return the to-be-used mac
      * @throws NoSuchAlgorithmException should not happen
      */
     public static BCShortenedMacHelper create(int t, int dataLength) throws NoSuchAlgorithmException {
         return new BCShortenedMacHelper(new BCPoly1305MacHelper(), CevallosUSRSS.computeTagLength(dataLength, t, CevallosUSRSS.E));
     }
+
+    /**
+     * create a new mac helper producing tags of the length needed by the
+     * Cevallos-Scheme. Tags of up to 8 bytes are computed by ShortTagPolyHash
+     * (with keys of at most twice the tag length), longer ones are truncated
+     * Poly1305 tags (see create).
+     *
+     * @param t amount of "defective" shares
+     * @param messageBits length of the authenticated data in bit
+     * @return the to-be-used mac
+     * @throws NoSuchAlgorithmException should not happen
+     */
+    public static MacHelper createShortTag(int t, long messageBits) throws NoSuchAlgorithmException {
+        final int tagLength = CevallosUSRSS.computeTagLength(messageBits, t, CevallosUSRSS.E);
+        if (tagLength <= ShortTagPolyHash.MAX_TAG_LENGTH) {
+            return new ShortTagPolyHash(tagLength);
+        }
+        return new BCShortenedMacHelper(new BCPoly1305MacHelper(), tagLength);
+    }
 }
@@ -1,81 +1,269 @@
 package at.archistar.crypto.mac;
 
-import at.archistar.crypto.math.gf256.GF256PolyHelper;
-
 import java.security.InvalidKeyException;
-import java.util.Arrays;
+import java.security.MessageDigest;
 
 /**
- * a very simple polynomial hash implementation for cevallos
+ * <p>A polynomial (universal) hash over GF(2^64) or GF(2^128), used as a
+ * one-time MAC for information checking.</p>
+ *
+ * <p>The key consists of the hash key H followed by a one-time pad of the
+ * same length. The data is split into 8/16-byte big-endian words m_1..m_l
+ * (the last one zero-padded) followed by a word holding the data's length in
+ * bits, the tag is m_1 * H^(l+1) + ... + len * H + pad. For a fresh key per
+ * message the forgery probability is at most (l + 1) / 2^64 (or 2^128).</p>
+ *
+ * <p>Multiplication by a fixed key power is table-driven (one 256-entry
+ * table per power, processing a byte per step). For longer data four words
+ * are processed per step with the precomputed powers H^4 .. H, which removes
+ * the dependency between consecutive multiplications of plain Horner's
+ * scheme.</p>
+ *
+ * <p>Field polynomials are x^64 + x^4 + x^3 + x + 1 and
+ * x^128 + x^7 + x^2 + x + 1, bit i of a word is the coefficient of x^i.</p>
  */
 public class PolyHash implements MacHelper {
 
+    /** number of words processed per step of the parallel Horner scheme */
+    private static final int LANES = 4;
+
+    /** minimum number of words before the additional key powers pay off */
+    private static final int PARALLEL_THRESHOLD = 64;
+
+    /** number of table entries needed by hash64 */
+    static final int TABLE_SIZE_64 = LANES * 256;
+
+    /** REDUCE[t] = t * x^w mod p(x) for the overflowing top byte t */
+    private static final long[] REDUCE64 = reductionTable(0x1BL);
+
+    private static final long[] REDUCE128 = reductionTable(0x87L);
+
     private final int keylength;
-    
+
+    /** per-thread multiplication tables (one block of 256 entries per power and 64-bit half) */
+    private final ThreadLocal<long[]> tables;
+
     /**
      * create a new hash
      *
-     * @param keylength output keylength
+     * @param keylength output keylength (8 for GF(2^64), 16 for GF(2^128))
      */
     public PolyHash(int keylength) {
+        if (keylength != 8 && keylength != 16) {
+            throw new IllegalArgumentException("only 8 and 16 byte tags are supported");
+        }
         this.keylength = keylength;
+        final int size = TABLE_SIZE_64 * (keylength / 8);
+        this.tables = ThreadLocal.withInitial(() -> new long[size]);
+    }
+
+    private static long[] reductionTable(long poly) {
+        final long[] table = new long[256];
+        for (int t = 0; t < 256; t++) {
+            long r = 0;
+            for (int i = 0; i < 8; i++) {
+                if ((t & (1 << i)) != 0) {
+                    r ^= poly << i;
+                }
+            }
+            table[t] = r;
+        }
+        return table;
+    }
+
+    static long readWord(byte[] data, int offset, int length) {
+        long result = 0;
+        for (int i = 0; i < 8; i++) {
+            result <<= 8;
+            if (i < length) {
+                result |= data[offset + i] & 0xff;
+            }
+        }
+        return result;
     }
 
-    private static int[] createIntArrayFromByte(byte[] a) {
-        int[] b = new int[a.length];
-        for (int i = 0; i < a.length; i++) {
-            b[i] = a[1] & 0xff;
+    static void writeWord(long value, byte[] target, int offset) {
+        for (int i = 7; i >= 0; i--) {
+            target[offset + i] = (byte) value;
+            value >>>= 8;
         }
-        return b;
+    }
+
+    /* GF(2^64) */
+
+    private static void buildTable64(long[] t, int base, long h) {
+        t[base] = 0;
+        t[base + 1] = h;
+        for (int i = 1; i < 8; i++) {
+            final long prev = t[base + (1 << (i - 1))];
+            t[base + (1 << i)] = (prev << 1) ^ ((prev >> 63) & 0x1BL);
+        }
+        for (int b = 3; b < 256; b++) {
+            final int high = Integer.highestOneBit(b);
+            if (high != b) {
+                t[base + b] = t[base + high] ^ t[base + (b ^ high)];
+            }
+        }
+    }
+
+    private static long mul64(long[] t, int base, long x) {
+        long z = 0;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            z = (z << 8) ^ REDUCE64[(int) (z >>> 56)] ^ t[base + ((int) (x >>> shift) & 0xff)];
+        }
+        return z;
     }
 
     /**
-     * Compute macs for the given data
+     * evaluates the (unmasked) hash polynomial over GF(2^64)
      *
-     * @param data for which data do we need the mac?
-     * @param key the key used for the macd tag that should be compared
-     * @return mac for data (with key)
-     * @throws InvalidKeyException
+     * @param t scratch space for the multiplication tables (at least TABLE_SIZE_64 entries)
+     * @param data the data to hash
+     * @param h the hash key
+     * @return m_1 * H^(l+1) + ... + len * H
      */
-    @Override
-    public byte[] computeMAC(byte[] data, byte[] key) throws InvalidKeyException {
+    static long hash64(long[] t, byte[] data, long h) {
+        final int words = (data.length + 7) / 8;
+        final int full = data.length / 8;
+        int pos = 0;
+        long acc = 0;
 
-        assert (this.keylength * 2 == key.length);
+        buildTable64(t, 0, h);
 
-        int b[] = createIntArrayFromByte(Arrays.copyOf(key, this.keylength));
+        if (full >= PARALLEL_THRESHOLD) {
+            for (int p = 1; p < LANES; p++) {
+                buildTable64(t, p * 256, mul64(t, 0, t[(p - 1) * 256 + 1]));
+            }
+            for (; pos + LANES <= full; pos += LANES) {
+                final int off = pos * 8;
+                acc = mul64(t, 768, acc ^ readWord(data, off, 8))
+                        ^ mul64(t, 512, readWord(data, off + 8, 8))
+                        ^ mul64(t, 256, readWord(data, off + 16, 8))
+                        ^ mul64(t, 0, readWord(data, off + 24, 8));
+            }
+        }
 
-        /* set a to be the other part of the key */
-        int[] a = createIntArrayFromByte(Arrays.copyOfRange(key, this.keylength, key.length));
+        for (; pos < words; pos++) {
+            final int off = pos * 8;
+            acc = mul64(t, 0, acc ^ readWord(data, off, Math.min(8, data.length - off)));
+        }
+        return mul64(t, 0, acc ^ (8L * data.length));
+    }
 
-        /* set result's bits to the first keylength elements */
-        int[] result = createIntArrayFromByte(Arrays.copyOf(data, this.keylength));
+    /* GF(2^128), the high half of power p is at 512 * p, the low half at 512 * p + 256 */
 
-        int rowCount = data.length / this.keylength;
+    private static void buildTable128(long[] t, int base, long hHi, long hLo) {
+        t[base] = 0;
+        t[base + 256] = 0;
+        t[base + 1] = hHi;
+        t[base + 257] = hLo;
+        for (int i = 1; i < 8; i++) {
+            final int prev = base + (1 << (i - 1));
+            final int cur = base + (1 << i);
+            t[cur] = (t[prev] << 1) | (t[prev + 256] >>> 63);
+            t[cur + 256] = (t[prev + 256] << 1) ^ ((t[prev] >> 63) & 0x87L);
+        }
+        for (int b = 3; b < 256; b++) {
+            final int high = Integer.highestOneBit(b);
+            if (high != b) {
+                t[base + b] = t[base + high] ^ t[base + (b ^ high)];
+                t[base + 256 + b] = t[base + 256 + high] ^ t[base + 256 + (b ^ high)];
+            }
+        }
+    }
 
-        /* reihenfolge innerhalb des arrays sollte ja wurscht sein */
-        for (int i = 1; i < rowCount; i++) {
-            int[] next = createIntArrayFromByte(Arrays.copyOfRange(data, i * this.keylength, (i + 1) * this.keylength));
-            result = GF256PolyHelper.multiply(result, GF256PolyHelper.add(b, next));
+    /**
+     * multiplies (xHi, xLo) with the power stored at base
+     *
+     * @return the product's high half, the low half is stored in out[0]
+     */
+    private static long mul128(long[] t, int base, long xHi, long xLo, long[] out) {
+        long zHi = 0;
+        long zLo = 0;
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            final int top = (int) (zHi >>> 56);
+            final int b = (int) (xHi >>> shift) & 0xff;
+            zHi = (zHi << 8) ^ (zLo >>> 56) ^ t[base + b];
+            zLo = (zLo << 8) ^ REDUCE128[top] ^ t[base + 256 + b];
         }
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            final int top = (int) (zHi >>> 56);
+            final int b = (int) (xLo >>> shift) & 0xff;
+            zHi = (zHi << 8) ^ (zLo >>> 56) ^ t[base + b];
+            zLo = (zLo << 8) ^ REDUCE128[top] ^ t[base + 256 + b];
+        }
+        out[0] = zLo;
+        return zHi;
+    }
 
-        /* add rest -> reihenfolge wurscht, sollt also funktionieren */
-        if (data.length % this.keylength != 0) {
-            int[] next = createIntArrayFromByte(Arrays.copyOfRange(data, rowCount * this.keylength, data.length));
+    private byte[] hash128(byte[] data, long hHi, long hLo, long padHi, long padLo) {
+        final long[] t = tables.get();
+        final long[] lo = new long[1];
+        final int words = (data.length + 15) / 16;
+        final int full = data.length / 16;
+        int pos = 0;
+        long accHi = 0;
+        long accLo = 0;
 
-            /* expand to keylength */
-            next = Arrays.copyOf(next, keylength);
-            result = GF256PolyHelper.add(result, next);
+        buildTable128(t, 0, hHi, hLo);
+
+        if (full >= PARALLEL_THRESHOLD) {
+            for (int p = 1; p < LANES; p++) {
+                final int prev = (p - 1) * 512;
+                final long hi = mul128(t, 0, t[prev + 1], t[prev + 257], lo);
+                buildTable128(t, p * 512, hi, lo[0]);
+            }
+            for (; pos + LANES <= full; pos += LANES) {
+                final int off = pos * 16;
+                long hi = mul128(t, 1536, accHi ^ readWord(data, off, 8), accLo ^ readWord(data, off + 8, 8), lo);
+                long l = lo[0];
+                hi ^= mul128(t, 1024, readWord(data, off + 16, 8), readWord(data, off + 24, 8), lo);
+                l ^= lo[0];
+                hi ^= mul128(t, 512, readWord(data, off + 32, 8), readWord(data, off + 40, 8), lo);
+                l ^= lo[0];
+                hi ^= mul128(t, 0, readWord(data, off + 48, 8), readWord(data, off + 56, 8), lo);
+                accHi = hi;
+                accLo = l ^ lo[0];
+            }
         }
 
-        /* add a */
-        result = GF256PolyHelper.add(result, a);
+        for (; pos < words; pos++) {
+            final int off = pos * 16;
+            final int remaining = data.length - off;
+            accHi = mul128(t, 0, accHi ^ readWord(data, off, Math.min(8, remaining)),
+                    accLo ^ (remaining > 8 ? readWord(data, off + 8, Math.min(8, remaining - 8)) : 0), lo);
+            accLo = lo[0];
+        }
+        accHi = mul128(t, 0, accHi, accLo ^ (8L * data.length), lo);
+        accLo = lo[0];
 
-        /* extract result into a byte[] array */
-        byte[] byteResult = new byte[this.keylength];
-        for (int i = 0; i < result.length; i++) {
-            byteResult[i] = (byte) result[i];
+        final byte[] result = new byte[16];
+        writeWord(accHi ^ padHi, result, 0);
+        writeWord(accLo ^ padLo, result, 8);
+        return result;
+    }
+
+    /**
+     * Compute macs for the given data
+     *
+     * @param data for which data do we need the mac?
+     * @param key the key used for the macd tag that should be compared
+     * @return mac for data (with key)
+     * @throws InvalidKeyException if the key does not have keySize() bytes
+     */
+    @Override
+    public byte[] computeMAC(byte[] data, byte[] key) throws InvalidKeyException {
+        if (key == null || key.length != keySize()) {
+            throw new InvalidKeyException("key must be " + keySize() + " bytes long");
+        }
+
+        if (keylength == 8) {
+            final byte[] result = new byte[8];
+            writeWord(hash64(tables.get(), data, readWord(key, 0, 8)) ^ readWord(key, 8, 8), result, 0);
+            return result;
+        } else {
+            return hash128(data, readWord(key, 0, 8), readWord(key, 8, 8), readWord(key, 16, 8), readWord(key, 24, 8));
         }
-        return byteResult;
     }
 
     /**
@@ -88,13 +276,10 @@ public class PolyHash implements MacHelper {
      */
     @Override
     public boolean verifyMAC(byte[] data, byte[] tag, byte[] key) {
-        boolean valid = false;
-
         try {
-            byte[] newTag = computeMAC(data, key); // compute tag for the given parameters
-            valid = Arrays.equals(tag, newTag); // compare with original tag
-        } finally {
-            return valid;
+            return MessageDigest.isEqual(tag, computeMAC(data, key));
+        } catch (InvalidKeyException e) {
+            return false;
         }
     }
 
@@ -107,7 +292,12 @@ public class PolyHash implements MacHelper {
      */
     @Override
     public int keySize() {
-        // a and b
+        // hash key and one-time pad
         return this.keylength * 2;
     }
+
+    @Override
+    public String toString() {
+        return "PolyHash(GF(2^" + (keylength * 8) + "))";
+    }
 }
@@ -0,0 +1,196 @@
+package at.archistar.crypto.mac;
+
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+
+/**
+ * <p>A one-time polynomial MAC producing short tags (up to 8 bytes), as needed
+ * for the Cevallos-Scheme.</p>
+ *
+ * <p>The hash is evaluated over GF(2^w) where w is the tag length rounded up to
+ * 8, 16, 32 or 64 bits: the data is split into w-bit big-endian words m_1..m_l
+ * (the last one zero-padded) followed by the data's length in bits (as 64 bit
+ * value, split into w-bit words), the hash is m_1 * H^d + ... + m_d * H for
+ * all d words. The tag consists of the hash's first tagLength bytes masked with
+ * a one-time pad. For a fresh key per message the forgery probability is at
+ * most d / 2^(8 * tagLength).</p>
+ *
+ * <p>The key consists of the hash key H (w bits) followed by the tagLength
+ * bytes of the pad, so keys are only as long as needed for the tag. For
+ * w = 64 this is exactly (a truncation of) {@link PolyHash} over GF(2^64).</p>
+ *
+ * <p>Field polynomials are x^8 + x^4 + x^3 + x + 1, x^16 + x^5 + x^3 + x + 1,
+ * x^32 + x^7 + x^3 + x^2 + 1 and x^64 + x^4 + x^3 + x + 1.</p>
+ */
+public class ShortTagPolyHash implements MacHelper {
+
+    /** longest supported tag (in byte) */
+    public static final int MAX_TAG_LENGTH = 8;
+
+    private final int tagLength;
+
+    /** field size w in byte */
+    private final int width;
+
+    /** w bits set */
+    private final long mask;
+
+    /** field polynomial without the x^w term */
+    private final long poly;
+
+    /** REDUCE[t] = t * x^w mod p(x) for the overflowing top byte t */
+    private final long[] reduce;
+
+    private final ThreadLocal<long[]> tables;
+
+    /**
+     * create a new hash
+     *
+     * @param tagLength the tag length in bytes (1 to MAX_TAG_LENGTH)
+     */
+    public ShortTagPolyHash(int tagLength) {
+        if (tagLength <= 0 || tagLength > MAX_TAG_LENGTH) {
+            throw new IllegalArgumentException("tag length must be within 1 and " + MAX_TAG_LENGTH);
+        }
+        this.tagLength = tagLength;
+        this.width = Integer.highestOneBit(tagLength) == tagLength ? tagLength : Integer.highestOneBit(tagLength) << 1;
+
+        switch (width) {
+            case 1:
+                poly = 0x1BL;
+                break;
+            case 2:
+                poly = 0x2BL;
+                break;
+            case 4:
+                poly = 0x8DL;
+                break;
+            default:
+                poly = 0x1BL;
+                break;
+        }
+        this.mask = width == 8 ? -1L : (1L << (8 * width)) - 1;
+        this.reduce = reductionTable();
+
+        final int size = width == 8 ? PolyHash.TABLE_SIZE_64 : 256;
+        this.tables = ThreadLocal.withInitial(() -> new long[size]);
+    }
+
+    /** multiply a by x modulo the field polynomial */
+    private long shift(long a) {
+        return ((a << 1) & mask) ^ ((a >>> (8 * width - 1)) & 1) * poly;
+    }
+
+    private long[] reductionTable() {
+        final long[] table = new long[256];
+        for (int t = 0; t < 256; t++) {
+            long r = t;
+            for (int i = 0; i < 8 * width; i++) {
+                r = shift(r);
+            }
+            table[t] = r;
+        }
+        return table;
+    }
+
+    private void buildTable(long[] t, long h) {
+        t[0] = 0;
+        t[1] = h;
+        for (int i = 1; i < 8; i++) {
+            t[1 << i] = shift(t[1 << (i - 1)]);
+        }
+        for (int b = 3; b < 256; b++) {
+            final int high = Integer.highestOneBit(b);
+            if (high != b) {
+                t[b] = t[high] ^ t[b ^ high];
+            }
+        }
+    }
+
+    private long mul(long[] t, long x) {
+        final int top = 8 * width - 8;
+        long z = 0;
+        for (int shift = top; shift >= 0; shift -= 8) {
+            z = ((z << 8) & mask) ^ reduce[(int) (z >>> top)] ^ t[(int) (x >>> shift) & 0xff];
+        }
+        return z;
+    }
+
+    private static long readWord(byte[] data, int offset, int width, int length) {
+        long result = 0;
+        for (int i = 0; i < width; i++) {
+            result <<= 8;
+            if (i < length) {
+                result |= data[offset + i] & 0xff;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return the (unmasked) hash, left-aligned within 64 bits
+     */
+    private long hash(long[] t, byte[] data, long h) {
+        if (width == 8) {
+            return PolyHash.hash64(t, data, h);
+        }
+
+        buildTable(t, h);
+        long acc = 0;
+        for (int off = 0; off < data.length; off += width) {
+            acc = mul(t, acc ^ readWord(data, off, width, data.length - off));
+        }
+
+        final long bits = 8L * data.length;
+        for (int shift = 64 - 8 * width; shift >= 0; shift -= 8 * width) {
+            acc = mul(t, acc ^ ((bits >>> shift) & mask));
+        }
+        return acc << (64 - 8 * width);
+    }
+
+    @Override
+    public byte[] computeMAC(byte[] data, byte[] key) throws InvalidKeyException {
+        if (key == null || key.length != keySize()) {
+            throw new InvalidKeyException("key must be " + keySize() + " bytes long");
+        }
+
+        final long h = readWord(key, 0, width, width);
+        final byte[] hash = new byte[8];
+        PolyHash.writeWord(hash(tables.get(), data, h), hash, 0);
+
+        final byte[] result = new byte[tagLength];
+        for (int i = 0; i < tagLength; i++) {
+            result[i] = (byte) (hash[i] ^ key[width + i]);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean verifyMAC(byte[] data, byte[] tag, byte[] key) {
+        try {
+            return MessageDigest.isEqual(tag, computeMAC(data, key));
+        } catch (InvalidKeyException e) {
+            return false;
+        }
+    }
+
+    /**
+     * @return needed keylength (hash key and pad, in byte) for this algorithm
+     */
+    @Override
+    public int keySize() {
+        return width + tagLength;
+    }
+
+    /**
+     * @return the produced tag length (in byte)
+     */
+    public int getTagLength() {
+        return tagLength;
+    }
+
+    @Override
+    public String toString() {
+        return "ShortTagPolyHash(GF(2^" + (8 * width) + "), " + (tagLength * 8) + " bit)";
+    }
+}
@@ -0,0 +1,147 @@
+package at.archistar.crypto.math.gf256;
+
+import java.util.BitSet;
+
+/**
+ * <p>A GF(256) matrix expanded into a binary (bit-)matrix, as used by Cauchy
+ * Reed-Solomon coding.</p>
+ *
+ * <p>Every GF(256) element e is expanded into an 8x8 bit-matrix M with
+ * M[r][c] = bit r of (e * 2^c). Data is processed in blocks: each block of a
+ * region consists of 8 packets of packetSize bytes, packet c takes the role of
+ * bit c of a GF(256) element. Multiplying a region with a GF(256) element thus
+ * becomes XOR-ing packets, no table lookups are needed at all.</p>
+ *
+ * <p>The XOR operations are scheduled upon creation: an output packet is either
+ * computed from scratch or derived from a previously computed output packet,
+ * whichever needs fewer XORs.</p>
+ */
+public class GF256BitMatrix {
+
+    private final int rows;
+
+    private final int cols;
+
+    private final int packetSize;
+
+    /** per output packet: index of an earlier output packet to start with (or -1) */
+    private final int[] base;
+
+    /** per output packet: input packets that have to be XOR-ed in */
+    private final int[][] sources;
+
+    /**
+     * create a new bit-matrix
+     *
+     * @param matrix the GF(256) matrix (rows x cols)
+     * @param packetSize size of a packet in bytes (a block has 8 packets)
+     */
+    public GF256BitMatrix(int[][] matrix, int packetSize) {
+        this.rows = matrix.length;
+        this.cols = rows == 0 ? 0 : matrix[0].length;
+        this.packetSize = packetSize;
+
+        final BitSet[] bits = new BitSet[rows * 8];
+        for (int i = 0; i < rows; i++) {
+            for (int r = 0; r < 8; r++) {
+                bits[i * 8 + r] = new BitSet(cols * 8);
+            }
+            for (int j = 0; j < cols; j++) {
+                for (int c = 0; c < 8; c++) {
+                    final int column = GF256.mult(matrix[i][j], 1 << c);
+                    for (int r = 0; r < 8; r++) {
+                        if ((column & (1 << r)) != 0) {
+                            bits[i * 8 + r].set(j * 8 + c);
+                        }
+                    }
+                }
+            }
+        }
+
+        this.base = new int[rows * 8];
+        this.sources = new int[rows * 8][];
+
+        for (int o = 0; o < bits.length; o++) {
+            int bestBase = -1;
+            BitSet best = bits[o];
+
+            for (int q = 0; q < o; q++) {
+                final BitSet diff = (BitSet) bits[q].clone();
+                diff.xor(bits[o]);
+                /* deriving from q costs one copy less than starting from scratch */
+                if (diff.cardinality() < best.cardinality() - 1) {
+                    bestBase = q;
+                    best = diff;
+                }
+            }
+
+            base[o] = bestBase;
+            sources[o] = best.stream().toArray();
+        }
+    }
+
+    /**
+     * @return the size of a block (8 packets) in bytes
+     */
+    public int getBlockSize() {
+        return 8 * packetSize;
+    }
+
+    /**
+     * @return the number of XOR operations (on packets) needed per block
+     */
+    public int getXorCount() {
+        int count = 0;
+        for (int o = 0; o < sources.length; o++) {
+            count += base[o] >= 0 ? sources[o].length : Math.max(0, sources[o].length - 1);
+        }
+        return count;
+    }
+
+    /**
+     * computes output = matrix * input for the blocks [from, to)
+     *
+     * @param input cols input regions
+     * @param output rows output regions
+     * @param from first block (inclusive)
+     * @param to last block (exclusive)
+     */
+    public void multiply(byte[][] input, byte[][] output, int from, int to) {
+        final int blockSize = getBlockSize();
+
+        for (int block = from; block < to; block++) {
+            final int offset = block * blockSize;
+
+            for (int o = 0; o < sources.length; o++) {
+                final byte[] out = output[o >> 3];
+                final int outPos = offset + (o & 7) * packetSize;
+                final int[] src = sources[o];
+                int s = 0;
+
+                if (base[o] >= 0) {
+                    System.arraycopy(output[base[o] >> 3], offset + (base[o] & 7) * packetSize, out, outPos, packetSize);
+                } else if (src.length > 0) {
+                    System.arraycopy(input[src[0] >> 3], offset + (src[0] & 7) * packetSize, out, outPos, packetSize);
+                    s = 1;
+                } else {
+                    for (int i = 0; i < packetSize; i++) {
+                        out[outPos + i] = 0;
+                    }
+                }
+
+                for (; s < src.length; s++) {
+                    final byte[] in = input[src[s] >> 3];
+                    final int inPos = offset + (src[s] & 7) * packetSize;
+                    for (int i = 0; i < packetSize; i++) {
+                        out[outPos + i] ^= in[inPos + i];
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "GF256BitMatrix(" + rows + "x" + cols + ", xors/block=" + getXorCount() + ")";
+    }
+}
@@ -0,0 +1,426 @@
+package at.archistar.crypto.math.gf256;
+
+import java.util.Arrays;
+
+/**
+ * <p>A GF(256) matrix stored as a flat, row-major byte array.</p>
+ *
+ * <p>In contrast to {@link GF256Matrix} no operation allocates memory: results
+ * are written into caller-supplied matrices/vectors and the elimination steps
+ * work upon caller-supplied scratch space, so that decoders can allocate
+ * everything once and reuse it for every column. Singular matrices are
+ * reported through return values, not through exceptions.</p>
+ *
+ * <p>Instances are not thread-safe.</p>
+ */
+public final class GF256ByteMatrix {
+
+    private final int rows;
+
+    private final int cols;
+
+    private final byte[] data;
+
+    /**
+     * create a new (zero) matrix
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     */
+    public GF256ByteMatrix(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.data = new byte[rows * cols];
+    }
+
+    /**
+     * @param matrix the matrix' elements (rows x cols)
+     * @return a new matrix containing the given elements
+     */
+    public static GF256ByteMatrix of(int[][] matrix) {
+        final int cols = matrix.length == 0 ? 0 : matrix[0].length;
+        final GF256ByteMatrix res = new GF256ByteMatrix(matrix.length, cols);
+        for (int i = 0; i < matrix.length; i++) {
+            for (int j = 0; j < cols; j++) {
+                res.set(i, j, matrix[i][j]);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * @param n the matrix' size
+     * @return a new n x n unit matrix
+     */
+    public static GF256ByteMatrix identity(int n) {
+        final GF256ByteMatrix res = new GF256ByteMatrix(n, n);
+        res.setIdentity();
+        return res;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getCols() {
+        return cols;
+    }
+
+    public int get(int row, int col) {
+        return data[row * cols + col] & 0xff;
+    }
+
+    public void set(int row, int col, int value) {
+        data[row * cols + col] = (byte) value;
+    }
+
+    /**
+     * overwrite this matrix with the unit matrix
+     */
+    public void setIdentity() {
+        Arrays.fill(data, (byte) 0);
+        for (int i = 0; i < Math.min(rows, cols); i++) {
+            data[i * cols + i] = 1;
+        }
+    }
+
+    /**
+     * overwrite this matrix with the contents of other (same dimensions)
+     *
+     * @param other the source matrix
+     */
+    public void copyFrom(GF256ByteMatrix other) {
+        checkDimensions(other, rows, cols);
+        System.arraycopy(other.data, 0, data, 0, data.length);
+    }
+
+    /**
+     * computes result = this * other
+     *
+     * @param other right-hand matrix (cols x m)
+     * @param result output matrix (rows x m), must not be this or other
+     * @return result
+     */
+    public GF256ByteMatrix multiplyInto(GF256ByteMatrix other, GF256ByteMatrix result) {
+        if (other.rows != cols) {
+            throw new ArithmeticException("when matrix is MxN, the other matrix must be NxO");
+        }
+        checkDimensions(result, rows, other.cols);
+
+        Arrays.fill(result.data, (byte) 0);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                final int a = data[i * cols + j] & 0xff;
+                if (a != 0) {
+                    multAndAdd(result.data, i * result.cols, other.data, j * other.cols, a, other.cols);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * multiply the matrix with the given vector, if the vector is longer than
+     * the matrix' column count the remaining elements are ignored
+     *
+     * @param result output buffer (at least as long as the matrix' row count)
+     * @param vec the vector
+     * @return result
+     */
+    public int[] rightMultiplyInto(int[] result, int[] vec) {
+        for (int i = 0, pos = 0; i < rows; i++) {
+            int tmp = 0;
+            for (int j = 0; j < cols; j++, pos++) {
+                tmp ^= GF256.mult(data[pos] & 0xff, vec[j]);
+            }
+            result[i] = tmp;
+        }
+        return result;
+    }
+
+    /**
+     * Gauss-Jordan inversion, this matrix stays unchanged
+     *
+     * @param result receives the inverse (same dimensions, must not be this)
+     * @param scratch work space (same dimensions), is overwritten
+     * @return false if the matrix is singular (result is undefined then)
+     */
+    public boolean invertInto(GF256ByteMatrix result, GF256ByteMatrix scratch) {
+        if (rows != cols) {
+            throw new ArithmeticException("only square matrices can be inverted");
+        }
+        scratch.copyFrom(this);
+        result.setIdentity();
+        return scratch.gaussJordan(result);
+    }
+
+    /**
+     * Gauss-Jordan inversion, afterwards this matrix contains its inverse
+     *
+     * @param scratch work space (same dimensions), is overwritten
+     * @return false if the matrix is singular (its content is undefined then)
+     */
+    public boolean invertInPlace(GF256ByteMatrix scratch) {
+        if (rows != cols) {
+            throw new ArithmeticException("only square matrices can be inverted");
+        }
+        checkDimensions(scratch, rows, cols);
+        scratch.setIdentity();
+        if (!gaussJordan(scratch)) {
+            return false;
+        }
+        copyFrom(scratch);
+        return true;
+    }
+
+    /**
+     * reduce this (square) matrix to the unit matrix, applying all row
+     * operations to other as well
+     */
+    private boolean gaussJordan(GF256ByteMatrix other) {
+        for (int c = 0; c < cols; c++) {
+            final int pivot = findPivot(c, c);
+            if (pivot < 0) {
+                return false;
+            }
+            swapRows(c, pivot);
+            other.swapRows(c, pivot);
+
+            final int inv = GF256.inverse(get(c, c));
+            scaleRow(c, inv);
+            other.scaleRow(c, inv);
+
+            for (int r = 0; r < rows; r++) {
+                final int coef = get(r, c);
+                if (r != c && coef != 0) {
+                    multAndAdd(data, r * cols, data, c * cols, coef, cols);
+                    multAndAdd(other.data, r * other.cols, other.data, c * other.cols, coef, other.cols);
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * <p>Solves this * solution = rhs through Gaussian elimination. The
+     * system does not need to be square or regular: free variables are set to
+     * zero, i.e. any solution is returned.</p>
+     *
+     * <p>This destroys the content of this matrix and of rhs.</p>
+     *
+     * @param rhs right-hand side (rows elements)
+     * @param solution receives the solution (cols elements)
+     * @return the matrix' rank or -1 if the system has no solution
+     */
+    public int solveInPlace(int[] rhs, int[] solution) {
+        int rank = 0;
+
+        for (int c = 0; c < cols && rank < rows; c++) {
+            final int pivot = findPivot(rank, c);
+            if (pivot < 0) {
+                continue;
+            }
+            swapRows(rank, pivot);
+            final int tmp = rhs[rank];
+            rhs[rank] = rhs[pivot];
+            rhs[pivot] = tmp;
+
+            final int inv = GF256.inverse(get(rank, c));
+            scaleRow(rank, inv);
+            rhs[rank] = GF256.mult(rhs[rank], inv);
+
+            for (int r = 0; r < rows; r++) {
+                final int coef = get(r, c);
+                if (r != rank && coef != 0) {
+                    multAndAdd(data, r * cols, data, rank * cols, coef, cols);
+                    rhs[r] ^= GF256.mult(rhs[rank], coef);
+                }
+            }
+            rank++;
+        }
+
+        /* remaining rows are all-zero, their right-hand side must be zero too */
+        for (int r = rank; r < rows; r++) {
+            if (rhs[r] != 0) {
+                return -1;
+            }
+        }
+
+        /* the matrix is in reduced row echelon form, the first non-zero element of each row is its pivot */
+        Arrays.fill(solution, 0, cols, 0);
+        for (int r = 0; r < rank; r++) {
+            int c = 0;
+            while (data[r * cols + c] == 0) {
+                c++;
+            }
+            solution[c] = rhs[r];
+        }
+        return rank;
+    }
+
+    /**
+     * LU-factorize this (square) matrix (with partial pivoting) for repeated
+     * solves with different right-hand sides, this matrix stays unchanged
+     *
+     * @return the factorization (check {@link LU#isSingular()})
+     */
+    public LU factorize() {
+        if (rows != cols) {
+            throw new ArithmeticException("only square matrices can be factorized");
+        }
+        return new LU(this);
+    }
+
+    private int findPivot(int fromRow, int col) {
+        for (int r = fromRow; r < rows; r++) {
+            if (data[r * cols + col] != 0) {
+                return r;
+            }
+        }
+        return -1;
+    }
+
+    private void swapRows(int a, int b) {
+        if (a != b) {
+            for (int i = 0, pa = a * cols, pb = b * cols; i < cols; i++, pa++, pb++) {
+                final byte tmp = data[pa];
+                data[pa] = data[pb];
+                data[pb] = tmp;
+            }
+        }
+    }
+
+    private void scaleRow(int row, int factor) {
+        for (int i = 0, pos = row * cols; i < cols; i++, pos++) {
+            data[pos] = (byte) GF256.mult(data[pos] & 0xff, factor);
+        }
+    }
+
+    /**
+     * target[targetPos..] += factor * source[sourcePos..]
+     */
+    private static void multAndAdd(byte[] target, int targetPos, byte[] source, int sourcePos, int factor, int length) {
+        for (int i = 0; i < length; i++) {
+            target[targetPos + i] ^= GF256.mult(source[sourcePos + i] & 0xff, factor);
+        }
+    }
+
+    private static void checkDimensions(GF256ByteMatrix m, int rows, int cols) {
+        if (m.rows != rows || m.cols != cols) {
+            throw new ArithmeticException("matrix dimensions do not match");
+        }
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder sb = new StringBuilder("GF256ByteMatrix(" + rows + "x" + cols + ")[");
+        for (int i = 0; i < rows; i++) {
+            sb.append(i == 0 ? "" : ", ").append('[');
+            for (int j = 0; j < cols; j++) {
+                sb.append(j == 0 ? "" : ", ").append(get(i, j));
+            }
+            sb.append(']');
+        }
+        return sb.append(']').toString();
+    }
+
+    /**
+     * LU factorization (P * A = L * U) of a square matrix
+     */
+    public static final class LU {
+
+        private final int n;
+
+        /** L (below the diagonal, unit diagonal implied) and U (diagonal and above) */
+        private final byte[] lu;
+
+        private final int[] permutation;
+
+        private final boolean singular;
+
+        private LU(GF256ByteMatrix a) {
+            this.n = a.rows;
+            this.lu = a.data.clone();
+            this.permutation = new int[n];
+            for (int i = 0; i < n; i++) {
+                permutation[i] = i;
+            }
+
+            boolean isSingular = false;
+            for (int c = 0; c < n && !isSingular; c++) {
+                int pivot = -1;
+                for (int r = c; r < n && pivot < 0; r++) {
+                    if (lu[r * n + c] != 0) {
+                        pivot = r;
+                    }
+                }
+                if (pivot < 0) {
+                    isSingular = true;
+                    continue;
+                }
+
+                if (pivot != c) {
+                    for (int i = 0; i < n; i++) {
+                        final byte tmp = lu[c * n + i];
+                        lu[c * n + i] = lu[pivot * n + i];
+                        lu[pivot * n + i] = tmp;
+                    }
+                    final int tmp = permutation[c];
+                    permutation[c] = permutation[pivot];
+                    permutation[pivot] = tmp;
+                }
+
+                final int inv = GF256.inverse(lu[c * n + c] & 0xff);
+                for (int r = c + 1; r < n; r++) {
+                    final int factor = GF256.mult(lu[r * n + c] & 0xff, inv);
+                    lu[r * n + c] = (byte) factor;
+                    if (factor != 0) {
+                        for (int i = c + 1; i < n; i++) {
+                            lu[r * n + i] ^= GF256.mult(lu[c * n + i] & 0xff, factor);
+                        }
+                    }
+                }
+            }
+            this.singular = isSingular;
+        }
+
+        /**
+         * @return true if the factorized matrix was singular (solve cannot be used)
+         */
+        public boolean isSingular() {
+            return singular;
+        }
+
+        /**
+         * solve A * x = b
+         *
+         * @param b the right-hand side (stays unchanged)
+         * @param x receives the solution (must not be b)
+         * @return x
+         */
+        public int[] solve(int[] b, int[] x) {
+            if (singular) {
+                throw new IllegalStateException("matrix is singular");
+            }
+
+            /* forward substitution (L has a unit diagonal) */
+            for (int r = 0; r < n; r++) {
+                int tmp = b[permutation[r]];
+                for (int c = 0; c < r; c++) {
+                    tmp ^= GF256.mult(lu[r * n + c] & 0xff, x[c]);
+                }
+                x[r] = tmp;
+            }
+
+            /* backward substitution */
+            for (int r = n - 1; r >= 0; r--) {
+                int tmp = x[r];
+                for (int c = r + 1; c < n; c++) {
+                    tmp ^= GF256.mult(lu[r * n + c] & 0xff, x[c]);
+                }
+                x[r] = GF256.div(tmp, lu[r * n + r] & 0xff);
+            }
+            return x;
+        }
+    }
+}
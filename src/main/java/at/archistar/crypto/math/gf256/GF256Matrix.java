@@ -6,6 +6,8 @@ import java.util.Arrays;
 
 /**
  * generic matrix implementation only depending upon a field
+ *
+ * (see GF256ByteMatrix for an allocation-free variant with flat storage)
  */
 public class GF256Matrix {
 
@@ -42,10 +44,21 @@ public class GF256Matrix {
         return result;
     }
 
+    /**
+     * multiply the matrix with the given vector (without allocating memory), if
+     * the vector is longer than the matrix' column count the remaining elements
+     * are ignored
+     *
+     * @param result output buffer (at least as long as the matrix' row count)
+     * @param vec the vector
+     * @return result
+     */
     public int[] rightMultiplyInto(int[] result, int[] vec) {
-        for (int i = 0; i < vec.length; i++) {
+        final int rows = matrix.length;
+        final int cols = rows == 0 ? 0 : matrix[0].length;
+        for (int i = 0; i < rows; i++) {
             int tmp = 0;
-            for (int j = 0; j < vec.length; j++) {
+            for (int j = 0; j < cols; j++) {
                 tmp = GF256.add(tmp, GF256.mult(matrix[i][j], vec[j]));
             }
             result[i] = tmp;
@@ -69,7 +82,7 @@ public class GF256Matrix {
         }
 
         if (!found && throwException) {
-            throw new RuntimeException("blub");
+            throw new ArithmeticException("matrix is singular");
         }
 
         return found;
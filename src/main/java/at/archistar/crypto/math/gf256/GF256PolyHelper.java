@@ -3,42 +3,35 @@ package at.archistar.crypto.math.gf256;
 import java.util.Arrays;
 
 /**
- * TODO: refactor or rewrite. But make it faster and more beautiful
+ * Polynomial arithmetic upon int[] coefficient arrays (lowest degree first),
+ * all operations allocate their results. Hot paths should use the
+ * allocation-free {@link GF256Polynomial} workspaces instead.
  */
 public class GF256PolyHelper {
 
     /**
      * divide polynom a with polynom f
      *
+     * (this allocates its results, see GF256Polynomial for the in-place variant)
+     *
      * @param a perform a/f
      * @param f perform a/f
      * @return the result
      */
     public static int[][] polyDiv(int a[], int f[]) {
-        int df = computeDegree(f);
-        int da = computeDegree(a) + 1;
+        final int df = computeDegree(f);
+        final int da = computeDegree(a);
         if (df == -1) {
             throw new ArithmeticException("Division by zero.");
         }
-        int[][] result = new int[2][];
-        result[0] = new int[1];
-        result[1] = new int[da];
-        int hc = headCoefficient(f);
-        hc = GF256.inverse(hc);
-        result[0][0] = 0;
-        System.arraycopy(a, 0, result[1], 0, result[1].length);
-        while (df <= computeDegree(result[1])) {
-            int[] q;
-            int[] coeff = new int[1];
-            coeff[0] = GF256.mult(headCoefficient(result[1]), hc);
-            q = multWithElement(f, coeff[0]);
-            int n = computeDegree(result[1]) - df;
-            q = multWithMonomial(q, n);
-            coeff = multWithMonomial(coeff, n);
-            result[0] = sub(coeff, result[0]);
-            result[1] = sub(q, result[1]);
-        }
-        return result;
+
+        final int quotientLength = Math.max(1, da - df + 1);
+        final GF256Polynomial remainder = new GF256Polynomial(da + 1).set(a, 0, da + 1);
+        final GF256Polynomial divisor = new GF256Polynomial(df + 1).set(f, 0, df + 1);
+        final GF256Polynomial quotient = new GF256Polynomial(quotientLength);
+        remainder.divide(divisor, quotient, remainder);
+
+        return new int[][]{quotient.copyInto(new int[quotientLength]), remainder.copyInto(new int[da + 1])};
     }
 
     private static int[] multWithMonomial(int[] a, int k) {
@@ -69,11 +62,6 @@ public class GF256PolyHelper {
         return result;
     }
 
-    private static int headCoefficient(int[] a) {
-        int degree = computeDegree(a);
-        return (degree == -1) ? 0 : a[degree];
-    }
-
     @SuppressWarnings("empty-statement")
     private static int computeDegree(int[] a) {
         int degree;
@@ -83,27 +71,6 @@ public class GF256PolyHelper {
         return degree;
     }
 
-    private static int[] sub(int[] a, int[] b) {
-        // TODO: optimize
-        //assert(a.length == b.length);
-        int[] result, addend;
-        if (a.length < b.length) {
-            result = new int[b.length];
-            System.arraycopy(b, 0, result, 0, b.length);
-            addend = a;
-        } else {
-            result = new int[a.length];
-            System.arraycopy(a, 0, result, 0, a.length);
-            addend = b;
-        }
-
-        for (int i = addend.length - 1; i >= 0; i--) {
-            result[i] = GF256.sub(result[i], addend[i]);
-        }
-
-        return result;
-    }
-
     /**
      * add two polynomials
      *
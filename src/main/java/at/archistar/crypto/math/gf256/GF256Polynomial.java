@@ -0,0 +1,331 @@
+package at.archistar.crypto.math.gf256;
+
+import java.util.Arrays;
+
+/**
+ * <p>A mutable polynomial over GF(256) backed by a preallocated buffer.</p>
+ *
+ * <p>This is the allocation-free counterpart to {@link GF256PolyHelper}: all
+ * operations write into caller-provided polynomials (workspaces) and the
+ * degree is tracked instead of being recomputed by scanning the coefficients.
+ * A decoder thus allocates its workspaces once and reuses them for every
+ * column. Coefficients are stored lowest degree first.</p>
+ *
+ * <p>Instances are not thread-safe.</p>
+ */
+public final class GF256Polynomial {
+
+    private final int[] coeffs;
+
+    /** degree of the polynomial, -1 for the zero polynomial */
+    private int degree;
+
+    /**
+     * create a new (zero) polynomial
+     *
+     * @param capacity the maximum number of coefficients (i.e. degree + 1)
+     */
+    public GF256Polynomial(int capacity) {
+        this.coeffs = new int[capacity];
+        this.degree = -1;
+    }
+
+    /**
+     * @return the maximum number of coefficients
+     */
+    public int capacity() {
+        return coeffs.length;
+    }
+
+    /**
+     * @return the degree (-1 for the zero polynomial)
+     */
+    public int degree() {
+        return degree;
+    }
+
+    public boolean isZero() {
+        return degree < 0;
+    }
+
+    /**
+     * @param i the coefficient's index
+     * @return the i-th coefficient (0 for i > degree)
+     */
+    public int get(int i) {
+        return i <= degree ? coeffs[i] : 0;
+    }
+
+    /**
+     * set to the zero polynomial
+     *
+     * @return this
+     */
+    public GF256Polynomial clear() {
+        Arrays.fill(coeffs, 0, degree + 1, 0);
+        degree = -1;
+        return this;
+    }
+
+    /**
+     * set to the constant polynomial c
+     *
+     * @param c the constant
+     * @return this
+     */
+    public GF256Polynomial setConstant(int c) {
+        clear();
+        coeffs[0] = c;
+        degree = c == 0 ? -1 : 0;
+        return this;
+    }
+
+    /**
+     * set to the given coefficients
+     *
+     * @param src the coefficients (lowest degree first)
+     * @param from index of the constant coefficient within src
+     * @param length number of coefficients
+     * @return this
+     */
+    public GF256Polynomial set(int[] src, int from, int length) {
+        if (length > coeffs.length) {
+            throw new ArithmeticException("polynomial exceeds capacity");
+        }
+        clear();
+        System.arraycopy(src, from, coeffs, 0, length);
+        degree = length - 1;
+        normalize();
+        return this;
+    }
+
+    /**
+     * set to a copy of other
+     *
+     * @param other the source polynomial
+     * @return this
+     */
+    public GF256Polynomial set(GF256Polynomial other) {
+        return set(other.coeffs, 0, other.degree + 1);
+    }
+
+    /**
+     * copy the coefficients into target (higher coefficients are set to 0)
+     *
+     * @param target the output buffer
+     * @return target
+     */
+    public int[] copyInto(int[] target) {
+        final int len = Math.min(target.length, degree + 1);
+        System.arraycopy(coeffs, 0, target, 0, len);
+        Arrays.fill(target, len, target.length, 0);
+        return target;
+    }
+
+    private void normalize() {
+        while (degree >= 0 && coeffs[degree] == 0) {
+            degree--;
+        }
+    }
+
+    /**
+     * evaluate the polynomial (Horner's scheme)
+     *
+     * @param x where to evaluate
+     * @return the polynomial's value at x
+     */
+    public int evaluate(int x) {
+        int result = 0;
+        for (int i = degree; i >= 0; i--) {
+            result = GF256.mult(result, x) ^ coeffs[i];
+        }
+        return result;
+    }
+
+    /**
+     * this += other
+     *
+     * @param other the added polynomial
+     * @return this
+     */
+    public GF256Polynomial add(GF256Polynomial other) {
+        if (other.degree >= coeffs.length) {
+            throw new ArithmeticException("polynomial exceeds capacity");
+        }
+        for (int i = 0; i <= other.degree; i++) {
+            coeffs[i] ^= other.coeffs[i];
+        }
+        if (other.degree >= degree) {
+            degree = other.degree;
+            normalize();
+        }
+        return this;
+    }
+
+    /**
+     * this += factor * other * X^shift
+     *
+     * @param other the added polynomial
+     * @param factor scalar factor
+     * @param shift power of X the product is multiplied with
+     * @return this
+     */
+    public GF256Polynomial addScaled(GF256Polynomial other, int factor, int shift) {
+        if (factor == 0 || other.degree < 0) {
+            return this;
+        }
+        if (other.degree + shift >= coeffs.length) {
+            throw new ArithmeticException("polynomial exceeds capacity");
+        }
+        for (int i = 0; i <= other.degree; i++) {
+            coeffs[i + shift] ^= GF256.mult(other.coeffs[i], factor);
+        }
+        if (other.degree + shift >= degree) {
+            degree = other.degree + shift;
+            normalize();
+        }
+        return this;
+    }
+
+    /**
+     * this = a * b (schoolbook multiplication)
+     *
+     * @param a first factor (must not be this)
+     * @param b second factor (must not be this)
+     * @return this
+     */
+    public GF256Polynomial multiply(GF256Polynomial a, GF256Polynomial b) {
+        clear();
+        if (a.degree < 0 || b.degree < 0) {
+            return this;
+        }
+        if (a.degree + b.degree >= coeffs.length) {
+            throw new ArithmeticException("polynomial exceeds capacity");
+        }
+        for (int i = 0; i <= a.degree; i++) {
+            final int ai = a.coeffs[i];
+            if (ai != 0) {
+                for (int j = 0; j <= b.degree; j++) {
+                    coeffs[i + j] ^= GF256.mult(ai, b.coeffs[j]);
+                }
+            }
+        }
+        degree = a.degree + b.degree;
+        normalize();
+        return this;
+    }
+
+    /**
+     * this = this * (X - root)
+     *
+     * @param root the new root
+     * @return this
+     */
+    public GF256Polynomial multiplyByLinear(int root) {
+        if (degree < 0) {
+            return this;
+        }
+        if (degree + 1 >= coeffs.length) {
+            throw new ArithmeticException("polynomial exceeds capacity");
+        }
+        coeffs[degree + 1] = coeffs[degree];
+        for (int i = degree; i > 0; i--) {
+            coeffs[i] = coeffs[i - 1] ^ GF256.mult(coeffs[i], root);
+        }
+        coeffs[0] = GF256.mult(coeffs[0], root);
+        degree++;
+        return this;
+    }
+
+    /**
+     * synthetic division (Horner's scheme) by (X - root)
+     *
+     * @param root the divisor's root
+     * @param quotient receives this / (X - root), must not be this
+     * @return the remainder (i.e. the polynomial's value at root)
+     */
+    public int divideByLinear(int root, GF256Polynomial quotient) {
+        quotient.clear();
+        if (degree <= 0) {
+            return degree < 0 ? 0 : coeffs[0];
+        }
+        if (degree > quotient.coeffs.length) {
+            throw new ArithmeticException("polynomial exceeds capacity");
+        }
+
+        int carry = 0;
+        for (int i = degree; i > 0; i--) {
+            carry = GF256.mult(carry, root) ^ coeffs[i];
+            quotient.coeffs[i - 1] = carry;
+        }
+        quotient.degree = degree - 1;
+        quotient.normalize();
+        return GF256.mult(carry, root) ^ coeffs[0];
+    }
+
+    /**
+     * polynomial long division: this = quotient * divisor + remainder
+     *
+     * Divisors of degree one are handled through synthetic division, monic
+     * divisors need no multiplications with the inverse leading coefficient.
+     *
+     * @param divisor the divisor (must not be zero)
+     * @param quotient receives the quotient (must not be this, divisor or remainder)
+     * @param remainder receives the remainder (may be this)
+     */
+    public void divide(GF256Polynomial divisor, GF256Polynomial quotient, GF256Polynomial remainder) {
+        if (divisor.degree < 0) {
+            throw new ArithmeticException("Division by zero.");
+        }
+
+        if (divisor.degree == 1 && remainder != this) {
+            final int lead = divisor.coeffs[1];
+            final int root = GF256.div(divisor.coeffs[0], lead);
+            remainder.setConstant(divideByLinear(root, quotient));
+            if (lead != 1) {
+                final int inv = GF256.inverse(lead);
+                for (int i = 0; i <= quotient.degree; i++) {
+                    quotient.coeffs[i] = GF256.mult(quotient.coeffs[i], inv);
+                }
+            }
+            return;
+        }
+
+        if (remainder != this) {
+            remainder.set(this);
+        }
+        quotient.clear();
+
+        final int db = divisor.degree;
+        final int lead = divisor.coeffs[db];
+        final int inv = lead == 1 ? 1 : GF256.inverse(lead);
+        final int[] r = remainder.coeffs;
+        final int[] b = divisor.coeffs;
+
+        if (remainder.degree >= db) {
+            if (remainder.degree - db >= quotient.coeffs.length) {
+                throw new ArithmeticException("polynomial exceeds capacity");
+            }
+            quotient.degree = remainder.degree - db;
+        }
+
+        for (int i = remainder.degree - db; i >= 0; i--) {
+            final int q = inv == 1 ? r[i + db] : GF256.mult(r[i + db], inv);
+            quotient.coeffs[i] = q;
+            if (q != 0) {
+                for (int j = 0; j <= db; j++) {
+                    r[i + j] ^= GF256.mult(b[j], q);
+                }
+            }
+        }
+
+        remainder.degree = Math.min(remainder.degree, db - 1);
+        remainder.normalize();
+        quotient.normalize();
+    }
+
+    @Override
+    public String toString() {
+        return "GF256Polynomial" + Arrays.toString(Arrays.copyOf(coeffs, degree + 1));
+    }
+}
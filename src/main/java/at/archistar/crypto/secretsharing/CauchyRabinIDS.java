@@ -0,0 +1,94 @@
+package at.archistar.crypto.secretsharing;
+
+import at.archistar.crypto.data.CauchyRabinShare;
+import at.archistar.crypto.data.InvalidParametersException;
+import at.archistar.crypto.data.RabinShare;
+import at.archistar.crypto.execution.ExecutionPolicy;
+import at.archistar.crypto.math.gf256.GF256BitMatrix;
+
+/**
+ * <p>Cauchy Reed-Solomon variant of the systematic Rabin IDS.</p>
+ *
+ * <p>Uses the same (normalized Cauchy) generator matrix as SystematicRabinIDS
+ * but expands all coefficients into 8x8 bit-matrices: a stripe is processed in
+ * blocks of 8 packets and encoding/decoding consists of XOR-ing packets only.
+ * The XOR operations are scheduled to minimize their count (see GF256BitMatrix).
+ * Stripes are padded to a multiple of the block size.</p>
+ *
+ * <p>For detailed information about this scheme, see: J. Blömer et al., "An
+ * XOR-Based Erasure-Resilient Coding Scheme" and J. Plank, L. Xu, "Optimizing
+ * Cauchy Reed-Solomon Codes for Fault-Tolerant Network Storage Applications".</p>
+ */
+public class CauchyRabinIDS extends SystematicRabinIDS {
+
+    /** packet size in bytes, a block consists of 8 packets */
+    private static final int PACKET_SIZE = 32;
+
+    private static final int BLOCK_SIZE = 8 * PACKET_SIZE;
+
+    /** the scheduled bit-matrix of all parity rows */
+    private final GF256BitMatrix encoder;
+
+    /**
+     * Constructor
+     *
+     * @param n the number of shares to create
+     * @param k the minimum number of shares required for reconstruction
+     * @throws WeakSecurityException thrown if this scheme is not secure enough for the given parameters
+     */
+    public CauchyRabinIDS(int n, int k) throws WeakSecurityException {
+        this(n, k, ExecutionPolicy.defaultPolicy());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param n the number of shares to create
+     * @param k the minimum number of shares required for reconstruction
+     * @param policy how encoding/decoding work should be executed
+     * @throws WeakSecurityException thrown if this scheme is not secure enough for the given parameters
+     */
+    public CauchyRabinIDS(int n, int k, ExecutionPolicy policy) throws WeakSecurityException {
+        super(n, k, policy);
+        this.encoder = new GF256BitMatrix(parity, PACKET_SIZE);
+    }
+
+    @Override
+    protected int stripeLength(int originalLength) {
+        final int length = super.stripeLength(originalLength);
+        return (length + BLOCK_SIZE - 1) / BLOCK_SIZE * BLOCK_SIZE;
+    }
+
+    @Override
+    protected void encode(int[] rows, byte[][] stripes, byte[][] out, int length) {
+        if (rows.length == parity.length) {
+            multiply(encoder, stripes, out, length);
+        } else {
+            final int[][] selected = new int[rows.length][];
+            for (int i = 0; i < rows.length; i++) {
+                selected[i] = parity[rows[i]];
+            }
+            multiply(new GF256BitMatrix(selected, PACKET_SIZE), stripes, out, length);
+        }
+    }
+
+    @Override
+    protected void decode(int[][] coefficients, byte[][] sources, byte[][] out, int length) {
+        multiply(new GF256BitMatrix(coefficients, PACKET_SIZE), sources, out, length);
+    }
+
+    private void multiply(GF256BitMatrix matrix, byte[][] input, byte[][] output, int length) {
+        /* all output rows of a block depend upon each other (scheduling), so only split by blocks */
+        policy.run(1, length / BLOCK_SIZE, (p, from, to) -> matrix.multiply(input, output, from, to));
+    }
+
+    @Override
+    protected RabinShare createShare(byte id, byte[] body, int originalLength) throws InvalidParametersException {
+        return new CauchyRabinShare(id, body, originalLength);
+    }
+
+    @Override
+    public String toString() {
+        return "CauchyRabinIDS(" + n + "/" + k + ")";
+    }
+}
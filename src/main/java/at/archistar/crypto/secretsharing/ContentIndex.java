@@ -0,0 +1,35 @@
+package at.archistar.crypto.secretsharing;
+
+import at.archistar.crypto.data.KrawczykShare;
+import at.archistar.crypto.data.Share;
+
+/**
+ * <p>Index of the share bodies which are already stored, used to deduplicate
+ * convergently encrypted Krawczyk shares (see KrawczykCSS).</p>
+ *
+ * <p>Identical objects (of the same tenant) share the same content id and
+ * participant i always receives the same body for it, so a body has to be
+ * uploaded only once per content id and participant. The per-object metadata
+ * (i.e. the key shares) still has to be stored for every object.</p>
+ */
+public interface ContentIndex {
+
+    /**
+     * @param contentId the content id (see KrawczykShare.getContentId)
+     * @param x the participant's x-value
+     * @return true if the body for the given content is already stored at the participant
+     */
+    boolean contains(byte[] contentId, int x);
+
+    /**
+     * @param share a freshly created share
+     * @return true if the share's body is already stored and needs not be uploaded again
+     */
+    default boolean containsBody(Share share) {
+        if (!(share instanceof KrawczykShare)) {
+            return false;
+        }
+        final byte[] contentId = ((KrawczykShare) share).getContentId();
+        return contentId != null && contains(contentId, share.getX());
+    }
+}
@@ -2,11 +2,24 @@ package at.archistar.crypto.secretsharing;
 
 import at.archistar.crypto.data.InvalidParametersException;
 import at.archistar.crypto.data.Share;
+import at.archistar.crypto.data.ShareSlab;
 import at.archistar.crypto.decode.Decoder;
 import at.archistar.crypto.decode.DecoderFactory;
+import at.archistar.crypto.decode.DecodingResult;
+import at.archistar.crypto.decode.ErrorReport;
+import at.archistar.crypto.decode.ErrorReportingDecoder;
 import at.archistar.crypto.decode.UnsolvableException;
+import at.archistar.crypto.execution.ExecutionPolicy;
 import at.archistar.crypto.math.gf256.GF256;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
 /**
  * <p>this contains basic functionality utilized by RabinIDS and ShamirPSS.</p>
  *
@@ -18,12 +31,29 @@ import at.archistar.crypto.math.gf256.GF256;
  * of degree k (so k (x,y) pairs will be needed to solve the equation) and fill
  * in [a0.. a_k] with data. By setting in random x-Values we calculate n (x,y)
  * pairs -- those are the shares that will be distributed between participants.</p>
+ *
+ * <p>Encoding and decoding work column-wise (one column per k-tuple of input
+ * data), the columns are distributed between threads by the configured
+ * ExecutionPolicy.</p>
  */
 public abstract class GeometricSecretSharing extends BaseSecretSharing {
 
     final int[][] mulTables;
     private final int[] xValues;
     final DecoderFactory decoderFactory;
+    final ExecutionPolicy policy;
+
+    /** how many transfer rows (i.e. distinct (present shares, missing share) pairs) should be cached */
+    private static final int TRANSFER_CACHE_SIZE = 64;
+
+    /** multiplication tables of the Lagrange coefficients used by regenerate */
+    private final Map<String, int[][]> transferCache = Collections.synchronizedMap(
+            new LinkedHashMap<String, int[][]>(TRANSFER_CACHE_SIZE, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, int[][]> eldest) {
+                    return size() > TRANSFER_CACHE_SIZE;
+                }
+            });
 
     /**
      * Constructor
@@ -34,8 +64,22 @@ public abstract class GeometricSecretSharing extends BaseSecretSharing {
      * @throws WeakSecurityException thrown if this scheme is not secure enough for the given parameters
      */
     public GeometricSecretSharing(int n, int k, DecoderFactory decoderFactory) throws WeakSecurityException {
+        this(n, k, decoderFactory, ExecutionPolicy.defaultPolicy());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param n the number of shares to create
+     * @param k the minimum number of shares required for reconstruction
+     * @param decoderFactory the solving algorithm to use for reconstructing the secret
+     * @param policy how encoding/decoding work should be executed
+     * @throws WeakSecurityException thrown if this scheme is not secure enough for the given parameters
+     */
+    public GeometricSecretSharing(int n, int k, DecoderFactory decoderFactory, ExecutionPolicy policy) throws WeakSecurityException {
         super(n, k);
         this.decoderFactory = decoderFactory;
+        this.policy = policy;
 
         xValues = new int[n];
         mulTables = new int[n][];
@@ -71,7 +115,73 @@ public abstract class GeometricSecretSharing extends BaseSecretSharing {
      * @param data the data to share secretly
      * @param output n buffers where the output will be stored
      */
-    public abstract void share(byte[][] output, byte[] data);
+    public void share(byte[][] output, byte[] data) {
+        share(output, 0, data);
+    }
+
+    /**
+     * Creates <i>n</i> secret shares for the given data where <i>k</i> shares are required for reconstruction.
+     *
+     * @param output n buffers where the output will be stored
+     * @param offset position within the output buffers where the encoded data should start
+     * @param data the data to share secretly
+     */
+    public abstract void share(byte[][] output, int offset, byte[] data);
+
+    /**
+     * Shares multiple objects into one contiguous slab per participant. This
+     * saves the per-object allocation of n output arrays (and n share objects)
+     * which dominates when sharing many small objects.
+     *
+     * @param data the objects to share
+     * @return the shared objects, packed into one buffer per participant
+     */
+    public ShareSlab shareSlab(List<byte[]> data) {
+        final int[] offsets = new int[data.size() + 1];
+        final int[] originalLengths = new int[data.size()];
+
+        for (int i = 0; i < data.size(); i++) {
+            originalLengths[i] = data.get(i) == null ? 0 : data.get(i).length;
+            offsets[i + 1] = offsets[i] + encodedSizeFor(originalLengths[i]);
+        }
+
+        final byte[][] slabs = new byte[n][offsets[data.size()]];
+        for (int i = 0; i < data.size(); i++) {
+            if (originalLengths[i] != 0) {
+                share(slabs, offsets[i], data.get(i));
+            }
+        }
+
+        return new ShareSlab(xValues.clone(), slabs, offsets, originalLengths);
+    }
+
+    /**
+     * Reconstructs all objects of a slab created by shareSlab. The slab may
+     * contain the slabs of any (at least k) participants, the objects are
+     * decoded directly from the slabs without copying them into shares.
+     *
+     * @param slab the shared objects
+     * @return the original objects (in the same order as they were shared)
+     * @throws ReconstructionException thrown if an object could not be reconstructed
+     */
+    public List<byte[]> reconstructSlab(ShareSlab slab) throws ReconstructionException {
+        if (!validateShareCount(slab.getParticipants(), k)) {
+            throw new ReconstructionException("Not enough shares to reconstruct");
+        }
+
+        final int[] xTmpValues = new int[decoderFactory.correctsErrors() ? slab.getParticipants() : k];
+        final byte[][] input = new byte[xTmpValues.length][];
+        for (int i = 0; i < xTmpValues.length; i++) {
+            xTmpValues[i] = slab.getX(i);
+            input[i] = slab.getSlab(i);
+        }
+
+        final List<byte[]> result = new ArrayList<>(slab.size());
+        for (int i = 0; i < slab.size(); i++) {
+            result.add(decode(input, slab.getOffset(i), xTmpValues, slab.getOriginalLength(i), null));
+        }
+        return result;
+    }
 
     /**
      * Creates <i>n</i> secret shares for the given data where <i>k</i> shares
@@ -121,27 +231,56 @@ public abstract class GeometricSecretSharing extends BaseSecretSharing {
      * @throws ReconstructionException thrown if the reconstruction failed
      */
     public byte[] reconstruct(byte[][] input, int[] xValues, int originalLength) throws ReconstructionException {
-        Decoder decoder = decoderFactory.createDecoder(xValues, k);
-        byte result[] = new byte[originalLength];
-        int yValues[] = new int[k];
-        int resultMatrix[] = new int[k];
+        return decode(input, 0, xValues, originalLength, null);
+    }
 
-        int posResult = 0;
-        int posInput = 0;
+    /**
+     * decode all columns (starting at inputOffset within the input buffers), if
+     * errorCounts is not null the error counts of all error-reporting decoders
+     * are added to it
+     */
+    private byte[] decode(byte[][] input, int inputOffset, int[] xValues, int originalLength, long[] errorCounts) throws ReconstructionException {
+        final byte result[] = new byte[originalLength];
+        final AtomicReference<String> error = new AtomicReference<>();
 
-        while (posResult < originalLength) {
-            for (int j = 0; j < k; j++) { // extract only k y-values (so we have k xy-pairs)
-                yValues[j] = input[j][posInput] & 0xff;
+        /* erasure decoders only need k xy-pairs, error-correcting decoders use all of them */
+        final int used = decoderFactory.correctsErrors() ? xValues.length : k;
+        final int errors = (used - k) / 2;
+
+        policy.run(1, encodedSizeFor(originalLength), (p, from, to) -> {
+            /* decoders are not necessarily thread-safe, so every range gets its own */
+            Decoder decoder = decoderFactory.createDecoder(xValues, k);
+            int yValues[] = new int[used];
+            int resultMatrix[] = new int[k];
+
+            int posResult = from * columnSize();
+            for (int posInput = from; posInput < to; posInput++) {
+                for (int j = 0; j < used; j++) {
+                    yValues[j] = input[j][inputOffset + posInput] & 0xff;
+                }
+
+                /* perform matrix-multiplication to compute the coefficients */
+                try {
+                    decoder.decodeUnsafe(resultMatrix, yValues, errors);
+                    posResult = decodeData(resultMatrix, originalLength, result, posResult);
+                } catch (UnsolvableException e) {
+                    error.compareAndSet(null, e.getMessage());
+                    return;
+                }
             }
-            posInput++;
-
-            /* perform matrix-multiplication to compute the coefficients */
-            try {
-                decoder.decodeUnsafe(resultMatrix, yValues, 0);
-                posResult = decodeData(resultMatrix, originalLength, result, posResult);
-            } catch (UnsolvableException e) {
-                throw new ReconstructionException(e.getMessage());
+
+            if (errorCounts != null && decoder instanceof ErrorReportingDecoder) {
+                final long[] counts = ((ErrorReportingDecoder) decoder).getErrorCounts();
+                synchronized (errorCounts) {
+                    for (int i = 0; i < counts.length; i++) {
+                        errorCounts[i] += counts[i];
+                    }
+                }
             }
+        });
+
+        if (error.get() != null) {
+            throw new ReconstructionException(error.get());
         }
         return result;
     }
@@ -156,6 +295,29 @@ public abstract class GeometricSecretSharing extends BaseSecretSharing {
      */
     @Override
     public byte[] reconstruct(Share[] shares) throws ReconstructionException {
+        return reconstructWithReport(shares, false).getData();
+    }
+
+    /**
+     * <p>Reconstructs the secret and reports which shares were corrupted.</p>
+     *
+     * <p>The report is computed during the decoding pass itself, no separate
+     * verification is needed. Shares are only checked if the configured
+     * decoder reports errors (see ErrorLocatingDecoderFactory), otherwise the
+     * report is empty.</p>
+     *
+     * @param shares the shares to reconstruct the secret from
+     * @return the reconstructed secret and the number of corrupted columns per share
+     * @throws ReconstructionException thrown if the reconstruction failed
+     */
+    public DecodingResult reconstructWithReport(Share[] shares) throws ReconstructionException {
+        return reconstructWithReport(shares, true);
+    }
+
+    private DecodingResult reconstructWithReport(Share[] shares, boolean report) throws ReconstructionException {
+        if (decoderFactory.correctsErrors()) {
+            shares = distinctShares(shares);
+        }
         if (!validateShareCount(shares.length, k)) {
             throw new ReconstructionException("Not enough shares to reconstruct");
         }
@@ -167,28 +329,300 @@ public abstract class GeometricSecretSharing extends BaseSecretSharing {
             }
         }
 
-        // we only need k x-values for reconstruction
-        int xTmpValues[] = extractXVals(shares, k);
+        // erasure decoding only needs k x-values, error-correcting decoders use all (distinct) shares
+        int xTmpValues[] = extractXVals(shares, decoderFactory.correctsErrors() ? shares.length : k);
 
         byte[][] tmp = new byte[shares.length][];
         for(int i = 0; i < shares.length; i++) {
             tmp[i] = shares[i].getYValues();
         }
 
-        return reconstruct(tmp, xTmpValues, originalLength);
+        if (!report) {
+            return new DecodingResult(decode(tmp, 0, xTmpValues, originalLength, null), null);
+        }
+
+        final long[] errorCounts = new long[xTmpValues.length];
+        final byte[] data = decode(tmp, 0, xTmpValues, originalLength, errorCounts);
+        final boolean checked = decoderFactory.createDecoder(xTmpValues, k) instanceof ErrorReportingDecoder;
+        return new DecodingResult(data, new ErrorReport(xTmpValues, errorCounts, checked));
     }
 
     /**
-     * For this kind of scheme, partial reconstruction is the same as full reconstruction
+     * <p>Decodes only the columns [from, to) of the given shares.</p>
      *
-     * @param shares the partial shares to reconstruct the secret from
-     * @param start the starting position relative to the original data (ignored here)
-     * @return the partially reconstructed secret
+     * <p>Columns are independent from each other, so decoding a range of
+     * columns costs the same as decoding an object of that size.</p>
+     *
+     * @param shares the shares (at least k)
+     * @param bodyOffset index of the column stored at the start of the shares' bodies
+     *                   (0 for complete shares, the slice's start otherwise)
+     * @param from the first column to decode
+     * @param to the column after the last one to decode
+     * @param length number of original bytes within the columns (less than
+     *               (to - from) * columnSize() for the last, padded column)
+     * @return the original data of the columns
+     * @throws ReconstructionException if the shares do not contain the columns or decoding fails
+     */
+    byte[] reconstructColumns(Share[] shares, int bodyOffset, int from, int to, int length) throws ReconstructionException {
+        if (decoderFactory.correctsErrors()) {
+            shares = distinctShares(shares);
+        }
+        if (!validateShareCount(shares.length, k)) {
+            throw new ReconstructionException("Not enough shares to reconstruct");
+        }
+        if (from < bodyOffset || to < from) {
+            throw new ReconstructionException("Shares do not contain the requested columns");
+        }
+
+        final byte[][] slices = new byte[shares.length][];
+        for (int i = 0; i < shares.length; i++) {
+            final byte[] body = shares[i].getYValues();
+            if (body.length < to - bodyOffset) {
+                throw new ReconstructionException("Share " + shares[i].getId() + " does not contain the requested columns");
+            }
+            slices[i] = Arrays.copyOfRange(body, from - bodyOffset, to - bodyOffset);
+        }
+
+        final int[] xs = extractXVals(shares, decoderFactory.correctsErrors() ? shares.length : k);
+        return decode(slices, 0, xs, length, null);
+    }
+
+    /**
+     * @return the given shares without duplicate x-values (first occurrence wins)
+     */
+    private static Share[] distinctShares(Share[] shares) {
+        final Map<Integer, Share> distinct = new LinkedHashMap<>();
+        for (Share s : shares) {
+            distinct.putIfAbsent(s.getX(), s);
+        }
+        return distinct.values().toArray(new Share[distinct.size()]);
+    }
+
+    /**
+     * <p>Computes the bodies of the missing shares directly from k of the given
+     * shares.</p>
+     *
+     * <p>Every share is an evaluation of the same polynomial of degree k-1, so
+     * the value at a missing x is a fixed linear combination of the values at
+     * the k present x-values (weighted with the Lagrange basis polynomials).
+     * The (missing x k) transfer matrix is computed once (and cached for the
+     * given set of present shares), afterwards a single multiply-accumulate pass
+     * over the present shares yields the missing ones. Neither the secret nor
+     * the coefficients are ever materialized.</p>
+     *
+     * @param shares the available shares (at least k)
+     * @param missing the ids (x-values) of the shares to regenerate
+     * @return the bodies of the missing shares (same order as missing)
+     * @throws ReconstructionException if there are too few (distinct) shares
+     */
+    byte[][] regenerate(Share[] shares, byte[] missing) throws ReconstructionException {
+        final int[] xs = new int[k];
+        final byte[][] ys = new byte[k][];
+        int found = 0;
+
+        for (int i = 0; i < shares.length && found < k; i++) {
+            boolean duplicate = false;
+            for (int j = 0; j < found; j++) {
+                duplicate |= xs[j] == shares[i].getX();
+            }
+            if (!duplicate) {
+                xs[found] = shares[i].getX();
+                ys[found++] = shares[i].getYValues();
+            }
+        }
+
+        if (found < k) {
+            throw new ReconstructionException("Not enough shares to recover");
+        }
+
+        for (Share s : shares) {
+            if (s.getOriginalLength() != shares[0].getOriginalLength()) {
+                throw new ReconstructionException("Shares have different original length");
+            }
+        }
+
+        return regenerate(xs, ys, missing);
+    }
+
+    /**
+     * Computes the bodies of the missing shares directly from the bodies of k
+     * present shares (see regenerate(Share[], byte[]).
+     *
+     * @param xs k distinct x-values of the present shares
+     * @param ys the bodies of the present shares (same order as xs)
+     * @param missing the ids (x-values) of the shares to regenerate
+     * @return the bodies of the missing shares (same order as missing)
+     * @throws ReconstructionException if the given bodies have different lengths
+     */
+    byte[][] regenerate(int[] xs, byte[][] ys, byte[] missing) throws ReconstructionException {
+        final int length = ys[0].length;
+        for (byte[] y : ys) {
+            if (y.length != length) {
+                throw new ReconstructionException("Shares have different lengths");
+            }
+        }
+
+        final int[][][] transfer = new int[missing.length][][];
+        for (int m = 0; m < missing.length; m++) {
+            transfer[m] = transferTables(xs, missing[m]);
+        }
+
+        final byte[][] result = new byte[missing.length][length];
+        policy.run(missing.length, length, (m, from, to) -> {
+            final byte[] out = result[m];
+            for (int a = 0; a < k; a++) {
+                final int[] mul = transfer[m][a];
+                final byte[] y = ys[a];
+                for (int c = from; c < to; c++) {
+                    out[c] ^= mul[y[c] & 0xff];
+                }
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * @param xs the present x-values
+     * @param x the missing x-value
+     * @return multiplication tables for all k Lagrange coefficients
+     */
+    private int[][] transferTables(int[] xs, int x) {
+        final String key = Arrays.toString(xs) + "->" + x;
+        return transferCache.computeIfAbsent(key, ignored -> {
+            final int[][] tables = new int[k][256];
+            for (int a = 0; a < k; a++) {
+                final int coefficient = lagrangeCoefficient(xs, a, x);
+                for (int v = 0; v < 256; v++) {
+                    tables[a][v] = GF256.mult(coefficient, v);
+                }
+            }
+            return tables;
+        });
+    }
+
+    /**
+     * evaluate the a-th Lagrange basis polynomial (for the given x-values) at x
+     */
+    static int lagrangeCoefficient(int[] xs, int a, int x) {
+        int numerator = 1;
+        int denominator = 1;
+
+        for (int b = 0; b < xs.length; b++) {
+            if (b != a) {
+                numerator = GF256.mult(numerator, GF256.sub(x, xs[b]));
+                denominator = GF256.mult(denominator, GF256.sub(xs[a], xs[b]));
+            }
+        }
+        return GF256.div(numerator, denominator);
+    }
+
+    /**
+     * <p>Reconstructs the secret from start onwards.</p>
+     *
+     * <p>The shares' bodies have to start at the first column, i.e. they are
+     * complete or truncated at their end; only the columns present in all of
+     * them are decoded. For shares starting at start's column use
+     * reconstructSlices.</p>
+     *
+     * @param shares the (complete or truncated) shares to reconstruct the secret from
+     * @param start the starting position relative to the original data
+     * @return the partially reconstructed secret (starting at start)
      * @throws ReconstructionException thrown if the reconstruction failed
      */
     @Override
     public byte[] reconstructPartial(Share[] shares, long start) throws ReconstructionException {
-        return reconstruct(shares);
+        return reconstructFrom(shares, false, start);
+    }
+
+    /**
+     * <p>Reconstructs a part of the secret from slices of the shares.</p>
+     *
+     * <p>The slices have to start at the column containing start (start /
+     * columnSize()), only the columns present in all of them are decoded. The
+     * bytes of the first column in front of start are dropped, the padding of
+     * the last column is dropped if the shares' original length refers to the
+     * whole secret (it has to cover all of the slices' columns).</p>
+     *
+     * @param slices the shares, their bodies starting at the column containing start
+     * @param start the starting position relative to the original data
+     * @return the partially reconstructed secret (starting at start)
+     * @throws ReconstructionException thrown if the reconstruction failed
+     */
+    public byte[] reconstructSlices(Share[] slices, long start) throws ReconstructionException {
+        return reconstructFrom(slices, true, start);
+    }
+
+    private byte[] reconstructFrom(Share[] shares, boolean sliced, long start) throws ReconstructionException {
+        if (start < 0 || start / columnSize() > Integer.MAX_VALUE) {
+            throw new ReconstructionException("invalid start position " + start);
+        }
+        if (shares.length == 0) {
+            throw new ReconstructionException("Not enough shares to reconstruct");
+        }
+
+        final int firstColumn = (int) (start / columnSize());
+        final int skip = (int) (start - (long) firstColumn * columnSize());
+        final int bodyOffset = sliced ? firstColumn : 0;
+        int columns = Integer.MAX_VALUE;
+        for (Share s : shares) {
+            columns = Math.min(columns, s.getYValues().length);
+        }
+        final long lastColumn = (long) bodyOffset + columns;
+        if (lastColumn <= firstColumn) {
+            return new byte[0];
+        }
+
+        long end = (lastColumn - firstColumn) * columnSize();
+        final int originalLength = shares[0].getOriginalLength();
+        if (encodedSizeFor(originalLength) >= lastColumn) {
+            end = Math.min(end, originalLength - (long) firstColumn * columnSize());
+        }
+        if (end <= skip) {
+            return new byte[0];
+        }
+        if (end > Integer.MAX_VALUE) {
+            throw new ReconstructionException("partial secret is too large");
+        }
+
+        final byte[] data = reconstructColumns(shares, bodyOffset, firstColumn, (int) lastColumn, (int) end);
+        return skip == 0 ? data : Arrays.copyOfRange(data, skip, data.length);
+    }
+
+    /**
+     * Computes which part of the shares is needed to reconstruct the original
+     * bytes [offset, offset + length). Only these slices have to be fetched from
+     * storage and decoded (see reconstructRange).
+     *
+     * @param originalLength the length of the whole original data
+     * @param offset the position of the range within the original data
+     * @param length the length of the range (limited to the end of the data)
+     * @return the needed part of the shares
+     */
+    public ShareRange shareRange(int originalLength, long offset, int length) {
+        if (offset < 0 || offset > originalLength || length < 0) {
+            throw new IllegalArgumentException("invalid range " + offset + "+" + length + " (length " + originalLength + ")");
+        }
+        final int actualLength = (int) Math.min(length, originalLength - offset);
+        final int first = (int) (offset / columnSize());
+        final int skip = (int) (offset - (long) first * columnSize());
+        return new ShareRange(offset, actualLength, first, encodedSizeFor(skip + actualLength), skip);
+    }
+
+    /**
+     * Reconstructs a range of the original data from slices of the shares.
+     *
+     * @param slices the shares, their bodies starting at range.getShareOffset()
+     *               and containing at least range.getShareLength() bytes
+     * @param range the range computed by shareRange
+     * @return the original bytes of the range
+     * @throws ReconstructionException thrown if the reconstruction failed
+     */
+    public byte[] reconstructRange(Share[] slices, ShareRange range) throws ReconstructionException {
+        final int from = range.getShareOffset();
+        final byte[] data = reconstructColumns(slices, from, from, from + range.getShareLength(),
+                range.getSkip() + range.getLength());
+        return range.getSkip() == 0 ? data : Arrays.copyOfRange(data, range.getSkip(), data.length);
     }
 
     /**
@@ -209,4 +643,9 @@ public abstract class GeometricSecretSharing extends BaseSecretSharing {
     protected abstract int decodeData(int[] encoded, int originalLength, byte[] result, int offset);
 
     protected abstract int encodedSizeFor(int length);
+
+    /**
+     * @return how many bytes of original data are encoded within one column
+     */
+    protected abstract int columnSize();
 }
@@ -1,7 +1,9 @@
 package at.archistar.crypto.secretsharing;
 
 import at.archistar.crypto.data.*;
+import at.archistar.crypto.data.KrawczykShare.DispersalType;
 import at.archistar.crypto.decode.DecoderFactory;
+import at.archistar.crypto.execution.ExecutionPolicy;
 import at.archistar.crypto.random.RandomSource;
 import at.archistar.crypto.symmetric.AESEncryptor;
 import at.archistar.crypto.symmetric.AESGCMEncryptor;
@@ -9,9 +11,12 @@ import at.archistar.crypto.symmetric.ChaCha20Encryptor;
 import at.archistar.crypto.symmetric.Encryptor;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import org.bouncycastle.crypto.InvalidCipherTextException;
+import org.bouncycastle.crypto.digests.Blake2bDigest;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.security.GeneralSecurityException;
+import java.util.Arrays;
 
 /**
  * <p>This class implements the Computational Secret Sharing scheme developed by Krawczyk.</p>
@@ -28,6 +33,25 @@ import java.security.GeneralSecurityException;
  * while the faster performing and more space-efficient rabin-ids algorithm is
  * used for the encrypted (larger) data.</p>
  *
+ * <p>Instead of RabinIDS the XOR-based CauchyRabinIDS can be selected for the
+ * encrypted data. The used algorithm is stored within the shares, so shares of
+ * both kinds can always be reconstructed.</p>
+ *
+ * <p>In convergent mode the encryption key is not drawn from the random source
+ * but derived from the content: a keyed BLAKE2b hash (keyed with the tenant
+ * secret passed as additionalKey) over the data yields the key and a content
+ * id. Identical objects of the same tenant thus produce identical content
+ * shares, which can be deduplicated by the storage layer (see ContentIndex).
+ * The key shares are still randomized. As with all convergent encryption,
+ * anybody holding the tenant secret can confirm guesses of the content.</p>
+ *
+ * <p>Objects encrypted with ChaCha20 and dispersed with RabinIDS can be updated
+ * in place (see update and append): the new bytes are encrypted at their
+ * position within the keystream and only the affected content columns are
+ * encoded again, the key shares stay the same. As the key (and IV) is reused,
+ * anybody holding k shares from both before and after an update learns the XOR
+ * of the old and the new bytes of the modified range.</p>
+ *
  * <p>For detailed information about this scheme, see:
  * http://courses.csail.mit.edu/6.857/2009/handouts/short-krawczyk.pdf</p>
  */
@@ -39,10 +63,24 @@ public class KrawczykCSS extends BaseSecretSharing {
 
     private final RabinIDS rs;
 
+    private final CauchyRabinIDS cauchy;
+
+    /** the dispersal algorithm used for newly created shares */
+    private final DispersalType dispersal;
+
     private final Encryptor cryptor;
 
     private final byte[] additionalKey;
 
+    /** derive the encryption key from the content? */
+    private final boolean convergent;
+
+    /** BLAKE2b personalization used for convergent keys */
+    private static final byte[] CONVERGENT_PERSONALIZATION = "archistar-conv-1".getBytes(StandardCharsets.US_ASCII);
+
+    /** length of the content id (convergent mode) */
+    private static final int CONTENT_ID_LENGTH = 32;
+
     /**
      * Krawczyk
      *
@@ -55,18 +93,91 @@ public class KrawczykCSS extends BaseSecretSharing {
      * @throws WeakSecurityException thrown if this scheme is not secure for the given parameters
      * @throws InvalidParametersException when the length of the additional key is wrong
      */
-    @SuppressFBWarnings("EI_EXPOSE_REP2")
     public KrawczykCSS(int n, int k, RandomSource rng, Encryptor cryptor,
                        DecoderFactory decFactory, byte[] additionalKey) throws WeakSecurityException, InvalidParametersException {
+        this(n, k, rng, cryptor, decFactory, additionalKey, ExecutionPolicy.defaultPolicy());
+    }
+
+    /**
+     * Krawczyk
+     *
+     * @param n the number of shares
+     * @param k the minimum number of shares required for reconstruction
+     * @param rng the RandomSource to be used for the underlying Shamir-scheme
+     * @param cryptor the to be used encryption algorithms
+     * @param decFactory the decoder
+     * @param additionalKey if present, generated keys will be encrypted with this key
+     * @param policy how the underlying Rabin/Shamir-schemes execute their work
+     * @throws WeakSecurityException thrown if this scheme is not secure for the given parameters
+     * @throws InvalidParametersException when the length of the additional key is wrong
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public KrawczykCSS(int n, int k, RandomSource rng, Encryptor cryptor,
+                       DecoderFactory decFactory, byte[] additionalKey,
+                       ExecutionPolicy policy) throws WeakSecurityException, InvalidParametersException {
+        this(n, k, rng, cryptor, decFactory, additionalKey, policy, DispersalType.RABIN);
+    }
+
+    /**
+     * Krawczyk
+     *
+     * @param n the number of shares
+     * @param k the minimum number of shares required for reconstruction
+     * @param rng the RandomSource to be used for the underlying Shamir-scheme
+     * @param cryptor the to be used encryption algorithms
+     * @param decFactory the decoder
+     * @param additionalKey if present, generated keys will be encrypted with this key
+     * @param policy how the underlying Rabin/Shamir-schemes execute their work
+     * @param dispersal the algorithm used for dispersing the encrypted data
+     * @throws WeakSecurityException thrown if this scheme is not secure for the given parameters
+     * @throws InvalidParametersException when the length of the additional key is wrong
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public KrawczykCSS(int n, int k, RandomSource rng, Encryptor cryptor,
+                       DecoderFactory decFactory, byte[] additionalKey,
+                       ExecutionPolicy policy, DispersalType dispersal) throws WeakSecurityException, InvalidParametersException {
+        this(n, k, rng, cryptor, decFactory, additionalKey, policy, dispersal, false);
+    }
+
+    /**
+     * Krawczyk
+     *
+     * @param n the number of shares
+     * @param k the minimum number of shares required for reconstruction
+     * @param rng the RandomSource to be used for the underlying Shamir-scheme
+     * @param cryptor the to be used encryption algorithms
+     * @param decFactory the decoder
+     * @param additionalKey if present, generated keys will be encrypted with this key; the
+     *                      tenant secret in convergent mode
+     * @param policy how the underlying Rabin/Shamir-schemes execute their work
+     * @param dispersal the algorithm used for dispersing the encrypted data
+     * @param convergent derive the encryption key from the content (instead of rng)
+     * @throws WeakSecurityException thrown if this scheme is not secure for the given parameters
+     * @throws InvalidParametersException when the length of the additional key is wrong or
+     *                                    convergent mode is used without additional key
+     */
+    @SuppressFBWarnings("EI_EXPOSE_REP2")
+    public KrawczykCSS(int n, int k, RandomSource rng, Encryptor cryptor,
+                       DecoderFactory decFactory, byte[] additionalKey,
+                       ExecutionPolicy policy, DispersalType dispersal, boolean convergent) throws WeakSecurityException, InvalidParametersException {
         super(n, k);
         if (additionalKey != null && additionalKey.length != cryptor.getKeyLength()) {
             throw new InvalidParametersException("Key has length " + additionalKey.length + " but needs to have length " + cryptor.getKeyLength());
         }
-        this.shamir = new ShamirPSS(n, k, rng, decFactory);
-        this.rs = new RabinIDS(n, k, decFactory);
+        if (convergent && additionalKey == null) {
+            throw new InvalidParametersException("convergent mode needs a tenant secret (additionalKey)");
+        }
+        if (convergent && cryptor.getKeyLength() + CONTENT_ID_LENGTH > 64) {
+            throw new InvalidParametersException("Key length " + cryptor.getKeyLength() + " is not supported");
+        }
+        this.convergent = convergent;
+        this.shamir = new ShamirPSS(n, k, rng, decFactory, policy);
+        this.rs = new RabinIDS(n, k, decFactory, policy);
+        this.cauchy = new CauchyRabinIDS(n, k, policy);
         this.cryptor = cryptor;
         this.rng = rng;
         this.additionalKey = additionalKey;
+        this.dispersal = dispersal;
     }
 
     public KrawczykCSS(int n, int k, RandomSource rng, Encryptor cryptor,
@@ -74,9 +185,23 @@ public class KrawczykCSS extends BaseSecretSharing {
         super(n, k);
         this.shamir = new ShamirPSS(n, k, rng, decFactory);
         this.rs = new RabinIDS(n, k, decFactory);
+        this.cauchy = new CauchyRabinIDS(n, k);
         this.cryptor = cryptor;
         this.rng = rng;
         this.additionalKey = null;
+        this.dispersal = DispersalType.RABIN;
+        this.convergent = false;
+    }
+
+    /**
+     * @return keyed BLAKE2b-512 hash of the data: the key (first bytes) and the content id (last 32 bytes)
+     */
+    private byte[] deriveConvergent(byte[] data) {
+        final Blake2bDigest digest = new Blake2bDigest(additionalKey, 64, null, CONVERGENT_PERSONALIZATION);
+        final byte[] result = new byte[64];
+        digest.update(data, 0, data.length);
+        digest.doFinal(result, 0);
+        return result;
     }
 
     @Override
@@ -86,8 +211,18 @@ public class KrawczykCSS extends BaseSecretSharing {
                 data = new byte[0];
             }
             /* encrypt the data */
-            byte[] encKey = new byte[cryptor.getKeyLength()];
-            this.rng.fillBytes(encKey);
+            byte[] encKey;
+            byte[] contentId = null;
+            if (convergent) {
+                final byte[] derived = deriveConvergent(data);
+                encKey = Arrays.copyOf(derived, cryptor.getKeyLength());
+                contentId = Arrays.copyOfRange(derived, derived.length - CONTENT_ID_LENGTH, derived.length);
+            } else {
+                encKey = new byte[cryptor.getKeyLength()];
+                synchronized (rng) {
+                    rng.fillBytes(encKey);
+                }
+            }
             byte[] encSource = cryptor.encrypt(data, encKey);
             if (additionalKey != null) {
                 encKey = cryptor.encrypt(encKey, additionalKey);
@@ -101,17 +236,26 @@ public class KrawczykCSS extends BaseSecretSharing {
             int newDataLength = baseDataLength % k == 0 ? baseDataLength / k : (baseDataLength / k) + 1;
 
             /* share key and content */
-            byte[][] outputContent = new byte[n][newDataLength];
+            byte[][] outputContent;
             byte[][] outputKey = new byte[n][encKey.length];
 
-            rs.share(outputContent, encSource);
+            if (dispersal == DispersalType.CAUCHY) {
+                outputContent = new byte[n][];
+                Share[] content = cauchy.share(encSource);
+                for (int i = 0; i < n; i++) {
+                    outputContent[i] = content[i].getYValues();
+                }
+            } else {
+                outputContent = new byte[n][newDataLength];
+                rs.share(outputContent, encSource);
+            }
             shamir.share(outputKey, encKey);
 
             //Generate a new array of encrypted shares
             KrawczykShare[] kshares = new KrawczykShare[n];
             for (int i = 0; i < kshares.length; i++) {
-                kshares[i] = new KrawczykShare((byte) (i + 1), outputContent[i], encSource.length, 1, outputKey[i]);
-
+                kshares[i] = new KrawczykShare((byte) (i + 1), outputContent[i], encSource.length, 1, outputKey[i], dispersal,
+                        0, 0, contentId);
             }
 
             return kshares;
@@ -139,6 +283,7 @@ public class KrawczykCSS extends BaseSecretSharing {
 
         int originalLengthContent = shares[0].getOriginalLength();
         int originalLengthKey = ((KrawczykShare) shares[0]).getKey().length;
+        DispersalType usedDispersal = ((KrawczykShare) shares[0]).getDispersal();
         for (Share s : shares) {
             if (s.getOriginalLength() != originalLengthContent) {
                 throw new ReconstructionException("Shares have different original length");
@@ -146,6 +291,12 @@ public class KrawczykCSS extends BaseSecretSharing {
             if (((KrawczykShare) s).getKey().length != originalLengthKey) {
                 throw new ReconstructionException("Shares have different key length");
             }
+            if (((KrawczykShare) s).getDispersal() != usedDispersal) {
+                throw new ReconstructionException("Shares use different dispersal algorithms");
+            }
+        }
+        if (partial && usedDispersal == DispersalType.CAUCHY) {
+            throw new ReconstructionException("Partial reconstruction not possible with Cauchy dispersal");
         }
 
         try {
@@ -163,15 +314,16 @@ public class KrawczykCSS extends BaseSecretSharing {
             if (additionalKey != null) {
                 key = cryptor.decrypt(key, additionalKey);
             }
-            if (partial) {
+            if (usedDispersal == DispersalType.CAUCHY) {
+                return cryptor.decrypt(cauchy.reconstruct(toCauchyShares(shares)), key);
+            } else if (partial) {
                 int actualLengthContent = shares[0].getYValues().length;
                 for (Share s : shares) {
                     if (s.getYValues().length != actualLengthContent) {
                         throw new ReconstructionException("Shares have different actual length");
                     }
                 }
-                int reconstructionLength = actualLengthContent * k;
-                return ((ChaCha20Encryptor) cryptor).decrypt(rs.reconstruct(ecContent, xValues, reconstructionLength), key, start);
+                return ((ChaCha20Encryptor) cryptor).decrypt(rs.reconstructSlices(shares, start), key, start);
             } else {
                 return cryptor.decrypt(rs.reconstruct(ecContent, xValues, originalLengthContent), key);
             }
@@ -181,6 +333,98 @@ public class KrawczykCSS extends BaseSecretSharing {
         }
     }
 
+    /**
+     * <p>Replaces the original bytes [offset, offset + newBytes.length) without
+     * re-sharing (or decrypting) the whole object: the new bytes are encrypted
+     * at their position within the keystream and RabinIDS.update encodes the
+     * affected content columns again. The key parts of the shares do not change.</p>
+     *
+     * <p>This is only possible for shares created with ChaCha20 and RabinIDS
+     * dispersal that are neither compressed nor convergently encrypted (their
+     * key would have to change with the content). CSS shares are rejected as
+     * their fingerprints would not match the patched bodies, CSSEngine.update
+     * fingerprints them again.</p>
+     *
+     * @param shares the current shares (at least k)
+     * @param offset the position of the first replaced byte within the original data
+     * @param newBytes the new bytes
+     * @return one patch of the content (body) per participant
+     * @throws ReconstructionException if the shares cannot be updated
+     */
+    public SharePatch[] update(Share[] shares, long offset, byte[] newBytes) throws ReconstructionException {
+        final byte[] key = reconstructSeekableKey(shares, true);
+        final int olen = shares[0].getOriginalLength();
+        if (offset < 0 || offset > olen) {
+            throw new IllegalArgumentException("offset " + offset + " is outside of the data (length " + olen + ")");
+        }
+        return rs.update(shares, offset, ((ChaCha20Encryptor) cryptor).encrypt(newBytes, key, offset));
+    }
+
+    /**
+     * Appends bytes to the original data (see update).
+     *
+     * @param shares the current shares (at least k)
+     * @param newBytes the appended bytes
+     * @return one patch of the content (body) per participant
+     * @throws ReconstructionException if the shares cannot be updated
+     */
+    public SharePatch[] append(Share[] shares, byte[] newBytes) throws ReconstructionException {
+        final byte[] key = reconstructSeekableKey(shares, true);
+        final int olen = shares[0].getOriginalLength();
+        return rs.append(shares, ((ChaCha20Encryptor) cryptor).encrypt(newBytes, key, olen));
+    }
+
+    /**
+     * check whether parts of the shares' content can be accessed (and updated)
+     * directly and reconstruct their encryption key
+     */
+    private byte[] reconstructSeekableKey(Share[] shares, boolean update) throws ReconstructionException {
+        if (!(cryptor instanceof ChaCha20Encryptor)) {
+            throw new ReconstructionException("Partial access is only possible with a seekable cypher");
+        }
+        if (shares.length < k) {
+            throw new ReconstructionException("too few shares");
+        }
+        for (Share s : shares) {
+            if (!(s instanceof KrawczykShare)) {
+                throw new ReconstructionException("Not all shares are Krawczyk shares");
+            }
+            final KrawczykShare ks = (KrawczykShare) s;
+            if (ks.getDispersal() != DispersalType.RABIN) {
+                throw new ReconstructionException("Partial access is only possible with Rabin dispersal");
+            }
+            if (ks.getCompression() != 0) {
+                throw new ReconstructionException("Compressed shares cannot be accessed partially");
+            }
+            if (update && s instanceof CSSShare) {
+                throw new ReconstructionException("CSS shares carry fingerprints of their bodies, update them with CSSEngine.update");
+            }
+            if (update && ks.getContentId() != null) {
+                throw new ReconstructionException("Convergently encrypted shares cannot be updated");
+            }
+            if (ks.getKey().length != ((KrawczykShare) shares[0]).getKey().length) {
+                throw new ReconstructionException("Shares have different key length");
+            }
+        }
+
+        final int[] xValues = GeometricSecretSharing.extractXVals(shares, k);
+        final byte[][] ecKey = new byte[n][];
+        for (int i = 0; i < k; i++) {
+            ecKey[i] = ((KrawczykShare) shares[i]).getKey();
+        }
+
+        try {
+            byte[] key = shamir.reconstruct(ecKey, xValues, ecKey[0].length);
+            if (additionalKey != null) {
+                key = cryptor.decrypt(key, additionalKey);
+            }
+            return key;
+        } catch (GeneralSecurityException | IOException | IllegalStateException | InvalidCipherTextException e) {
+            // decryption should actually never fail
+            throw new RuntimeException("impossible: key reconstruction failed (" + e.getMessage() + ")");
+        }
+    }
+
     @Override
     public byte[] reconstruct(Share[] shares) throws ReconstructionException {
         return reconstruct(shares, false, 0);
@@ -194,33 +438,106 @@ public class KrawczykCSS extends BaseSecretSharing {
         return reconstruct(shares, true, start);
     }
 
+    /**
+     * Computes which part of the shares' content is needed to reconstruct the
+     * original bytes [offset, offset + length), see RabinIDS.shareRange. This is
+     * only possible for shares created with ChaCha20 and RabinIDS dispersal.
+     *
+     * @param originalLength the length of the whole original data
+     * @param offset the position of the range within the original data
+     * @param length the length of the range (limited to the end of the data)
+     * @return the needed part of the shares' content
+     * @throws ReconstructionException if the used cypher does not allow partial reconstruction
+     */
+    public ShareRange shareRange(int originalLength, long offset, int length) throws ReconstructionException {
+        if (!(cryptor instanceof ChaCha20Encryptor)) {
+            throw new ReconstructionException("Partial reconstruction not possible with given cypher");
+        }
+        return rs.shareRange(originalLength, offset, length);
+    }
+
+    /**
+     * Reconstructs a range of the original data from slices of the shares'
+     * content (the key parts of the shares are needed as a whole).
+     *
+     * @param slices the shares, their content starting at range.getShareOffset()
+     * @param range the range computed by shareRange
+     * @return the original bytes of the range
+     * @throws ReconstructionException thrown if the reconstruction failed
+     */
+    public byte[] reconstructRange(Share[] slices, ShareRange range) throws ReconstructionException {
+        final byte[] key = reconstructSeekableKey(slices, false);
+        return ((ChaCha20Encryptor) cryptor).decrypt(rs.reconstructRange(slices, range), key, range.getOffset());
+    }
+
+    /**
+     * Recovers missing shares without reconstructing the plaintext: the
+     * encrypted content and the key parts of the missing shares are regenerated
+     * directly from k present shares (processed in parallel stripes, see
+     * GeometricSecretSharing.regenerate).
+     */
     @Override
     public KrawczykShare[] recover(Share[] shares) throws ReconstructionException {
-        byte[] missing = determineMissingShares(shares);
-        int olen = shares[0].getOriginalLength();
-        int algo = ((KrawczykShare) (shares[0])).getEncAlgorithm();
+        if (shares.length < k) {
+            throw new ReconstructionException("too few shares");
+        }
+        for (Share s : shares) {
+            if (!(s instanceof KrawczykShare)) {
+                throw new ReconstructionException("Not all shares are Krawczyk shares");
+            }
+        }
 
-        RabinShare[] rabinShares = new RabinShare[shares.length];
-        ShamirShare[] shamirShares = new ShamirShare[shares.length];
+        final KrawczykShare first = (KrawczykShare) shares[0];
+        final int olen = first.getOriginalLength();
+        final int algo = first.getEncAlgorithm();
+        final DispersalType usedDispersal = first.getDispersal();
+        final byte[] contentId = first.getContentId();
+        for (Share s : shares) {
+            if (s.getOriginalLength() != olen || ((KrawczykShare) s).getDispersal() != usedDispersal
+                    || !Arrays.equals(((KrawczykShare) s).getContentId(), contentId)) {
+                throw new ReconstructionException("Shares do not belong to the same object");
+            }
+        }
 
-        for (int i = 0; i < shares.length; i++) {
-            KrawczykShare s = (KrawczykShare) shares[i];
-            try {
-                rabinShares[i] = new RabinShare(s.getId(), s.getYValues(), s.getOriginalLength());
-                shamirShares[i] = new ShamirShare(s.getId(), s.getKey());
-            } catch (InvalidParametersException e) {
-                throw new ReconstructionException(e.toString());
+        /* select k distinct shares */
+        final int[] xs = new int[k];
+        final byte[][] content = new byte[k][];
+        final byte[][] keys = new byte[k][];
+        int found = 0;
+        for (int i = 0; i < shares.length && found < k; i++) {
+            boolean duplicate = false;
+            for (int j = 0; j < found; j++) {
+                duplicate |= xs[j] == shares[i].getX();
             }
+            if (!duplicate) {
+                xs[found] = shares[i].getX();
+                content[found] = shares[i].getYValues();
+                keys[found++] = ((KrawczykShare) shares[i]).getKey();
+            }
+        }
+        if (found < k) {
+            throw new ReconstructionException("too few shares");
         }
 
-        RabinShare[] recoveredRabin = rs.recover(rabinShares);
-        ShamirShare[] recoveredShamir = shamir.recover(shamirShares);
+        final byte[] missing = determineMissingShares(shares);
+        final byte[][] recoveredContent;
+        if (usedDispersal == DispersalType.CAUCHY) {
+            RabinShare[] recovered = cauchy.recover(toCauchyShares(shares));
+            recoveredContent = new byte[recovered.length][];
+            for (int i = 0; i < recovered.length; i++) {
+                recoveredContent[i] = recovered[i].getYValues();
+            }
+        } else {
+            recoveredContent = rs.regenerate(xs, content, missing);
+        }
+        final byte[][] recoveredKeys = shamir.regenerate(xs, keys, missing);
 
         KrawczykShare[] res = new KrawczykShare[missing.length];
 
         for (int i = 0; i < missing.length; i++) {
             try {
-                res[i] = new KrawczykShare(missing[i], recoveredRabin[i].getYValues(), olen, algo, recoveredShamir[i].getYValues());
+                res[i] = new KrawczykShare(missing[i], recoveredContent[i], olen, algo, recoveredKeys[i], usedDispersal,
+                        first.getCompression(), first.getUncompressedLength(), contentId);
             } catch (InvalidParametersException e) {
                 throw new ReconstructionException(e.toString());
             }
@@ -229,8 +546,20 @@ public class KrawczykCSS extends BaseSecretSharing {
         return res;
     }
 
+    private static CauchyRabinShare[] toCauchyShares(Share[] shares) throws ReconstructionException {
+        CauchyRabinShare[] res = new CauchyRabinShare[shares.length];
+        for (int i = 0; i < shares.length; i++) {
+            try {
+                res[i] = new CauchyRabinShare(shares[i].getId(), shares[i].getYValues(), shares[i].getOriginalLength());
+            } catch (InvalidParametersException e) {
+                throw new ReconstructionException(e.toString());
+            }
+        }
+        return res;
+    }
+
     @Override
     public String toString() {
-        return "KrawczykCSS(" + n + "/" + k + ", " + cryptor + ")";
+        return "KrawczykCSS(" + n + "/" + k + ", " + cryptor + ", " + dispersal + (convergent ? ", convergent" : "") + ")";
     }
 }
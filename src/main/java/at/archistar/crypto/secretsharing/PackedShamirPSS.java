@@ -0,0 +1,216 @@
+package at.archistar.crypto.secretsharing;
+
+import at.archistar.crypto.data.InvalidParametersException;
+import at.archistar.crypto.data.PackedShamirShare;
+import at.archistar.crypto.data.Share;
+import at.archistar.crypto.decode.DecoderFactory;
+import at.archistar.crypto.execution.ExecutionPolicy;
+import at.archistar.crypto.math.gf256.GF256;
+import at.archistar.crypto.random.RandomSource;
+
+/**
+ * <p>Packed (ramp) variant of Shamir's secret sharing.</p>
+ *
+ * <p>ShamirPSS embeds a single secret byte into every random polynomial of
+ * degree k-1. This scheme instead fixes the polynomial's values at k dedicated
+ * points which are never used as x-values of shares: k-t points hold secret
+ * bytes, the remaining t points hold random bytes. Any t shares are thus
+ * independent of the secret (t-privacy), k shares determine the polynomial and
+ * thereby all k-t secret bytes. Shares are k-t times smaller than Shamir
+ * shares while t = k-1 yields the same privacy as ShamirPSS (storing a single
+ * secret byte per polynomial).</p>
+ *
+ * <p>The dedicated points are 0, 255, 254, ... so the scheme needs n + k &lt;= 256.
+ * Encoding multiplies the k point values with the (precomputed) Lagrange basis
+ * polynomials evaluated at the shares' x-values, decoding evaluates the
+ * reconstructed polynomial at the k-t secret points.</p>
+ */
+public class PackedShamirPSS extends GeometricSecretSharing {
+
+    /** how many byte-columns share one call to the random source */
+    private static final int RANDOM_CHUNK_SIZE = 4096;
+
+    private final RandomSource rng;
+
+    /** privacy threshold: up to t shares do not reveal anything about the secret */
+    private final int t;
+
+    /** secret bytes per polynomial (k - t) */
+    private final int packed;
+
+    /** encoder[i][j][v]: v times the j-th Lagrange basis polynomial at x-value i+1 */
+    private final int[][][] encoder;
+
+    /** evaluator[j][c][v]: v times the j-th secret point to the power of c */
+    private final int[][][] evaluator;
+
+    /**
+     * Constructor
+     *
+     * @param n the number of shares to create
+     * @param k the minimum number of shares required for reconstruction
+     * @param t the privacy threshold (0 &lt; t &lt; k)
+     * @param rng the source of randomness to use for the random point values
+     * @param decoderFactory the solving algorithm to use for reconstructing the secret
+     * @throws WeakSecurityException thrown if this scheme is not secure enough for the given parameters
+     */
+    public PackedShamirPSS(int n, int k, int t, RandomSource rng, DecoderFactory decoderFactory) throws WeakSecurityException {
+        this(n, k, t, rng, decoderFactory, ExecutionPolicy.defaultPolicy());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param n the number of shares to create
+     * @param k the minimum number of shares required for reconstruction
+     * @param t the privacy threshold (0 &lt; t &lt; k)
+     * @param rng the source of randomness to use for the random point values
+     * @param decoderFactory the solving algorithm to use for reconstructing the secret
+     * @param policy how encoding/decoding work should be executed
+     * @throws WeakSecurityException thrown if this scheme is not secure enough for the given parameters
+     */
+    public PackedShamirPSS(int n, int k, int t, RandomSource rng, DecoderFactory decoderFactory, ExecutionPolicy policy) throws WeakSecurityException {
+        super(n, k, decoderFactory, policy);
+
+        if (t < 1 || t >= k) {
+            throw new WeakSecurityException("the privacy threshold must be within 1 and k-1");
+        }
+        if (n + k > 256) {
+            throw new WeakSecurityException("packed sharing needs n + k <= 256");
+        }
+
+        this.rng = rng;
+        this.t = t;
+        this.packed = k - t;
+
+        /* the first k-t points hold the secret, the others randomness */
+        final int[] points = new int[k];
+        for (int j = 1; j < k; j++) {
+            points[j] = 256 - j;
+        }
+
+        encoder = new int[n][k][];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < k; j++) {
+                encoder[i][j] = mulTable(lagrangeCoefficient(points, j, i + 1));
+            }
+        }
+
+        evaluator = new int[packed][k][];
+        for (int j = 0; j < packed; j++) {
+            int power = 1;
+            for (int c = 0; c < k; c++) {
+                evaluator[j][c] = mulTable(power);
+                power = GF256.mult(power, points[j]);
+            }
+        }
+    }
+
+    private static int[] mulTable(int factor) {
+        final int[] table = new int[256];
+        for (int v = 0; v < 256; v++) {
+            table[v] = GF256.mult(factor, v);
+        }
+        return table;
+    }
+
+    @Override
+    public String toString() {
+        return "PackedShamirPSS(" + n + "/" + k + ", t=" + t + ")";
+    }
+
+    @Override
+    protected int decodeData(int[] encoded, int originalLength, byte[] result, int offset) {
+        final int end = Math.min(originalLength, offset + packed);
+        for (int j = 0; offset < end; j++) {
+            final int[][] eval = evaluator[j];
+            int value = 0;
+            for (int c = 0; c < k; c++) {
+                value ^= eval[c][encoded[c]];
+            }
+            result[offset++] = (byte) value;
+        }
+        return offset;
+    }
+
+    @Override
+    protected PackedShamirShare[] createShares(int[] xValues, byte[][] results, int originalLength) throws InvalidParametersException {
+        PackedShamirShare shares[] = new PackedShamirShare[n];
+
+        for (int i = 0; i < n; i++) {
+            shares[i] = new PackedShamirShare((byte) xValues[i], results[i], originalLength);
+        }
+
+        return shares;
+    }
+
+    @Override
+    protected int encodedSizeFor(int length) {
+        return (length + packed - 1) / packed;
+    }
+
+    @Override
+    protected int columnSize() {
+        return packed;
+    }
+
+    /**
+     * Works like ShamirPSS.share: the random point values are fetched in chunks
+     * (with the random source locked) and work is only split over columns.
+     */
+    @Override
+    public void share(byte[][] output, int offset, byte[] data) {
+        policy.run(1, encodedSizeFor(data.length), (p, from, to) -> share(output, offset, data, from, to));
+    }
+
+    private void share(byte[][] output, int offset, byte[] data, int from, int to) {
+        final byte[] rand = new byte[Math.min(to - from, RANDOM_CHUNK_SIZE) * t];
+        final int[] values = new int[k];
+
+        for (int start = from; start < to; start += RANDOM_CHUNK_SIZE) {
+            final int end = Math.min(to, start + RANDOM_CHUNK_SIZE);
+            synchronized (rng) {
+                rng.fillBytes(rand);
+            }
+
+            for (int col = start, r = 0; col < end; col++, r += t) {
+                final int pos = col * packed;
+                for (int j = 0; j < packed; j++) {
+                    values[j] = pos + j < data.length ? data[pos + j] & 0xff : 0;
+                }
+                for (int j = 0; j < t; j++) {
+                    values[packed + j] = rand[r + j] & 0xff;
+                }
+
+                for (int i = 0; i < n; i++) {
+                    final int[][] enc = encoder[i];
+                    int res = 0;
+                    for (int j = 0; j < k; j++) {
+                        res ^= enc[j][values[j]];
+                    }
+                    output[i][offset + col] = (byte) res;
+                }
+            }
+        }
+    }
+
+    /**
+     * The missing y-values are computed as linear combinations of the present
+     * ones (see GeometricSecretSharing.regenerate).
+     */
+    @Override
+    public PackedShamirShare[] recover(Share[] shares) throws ReconstructionException {
+        byte[] missing = determineMissingShares(shares);
+        byte[][] recovered = regenerate(shares, missing);
+
+        PackedShamirShare[] res = new PackedShamirShare[missing.length];
+        for (int i = 0; i < missing.length; i++) {
+            try {
+                res[i] = new PackedShamirShare(missing[i], recovered[i], shares[0].getOriginalLength());
+            } catch (InvalidParametersException e) {
+                throw new ReconstructionException("This should not have happened");
+            }
+        }
+        return res;
+    }
+}
@@ -3,11 +3,11 @@ package at.archistar.crypto.secretsharing;
 import at.archistar.crypto.data.InvalidParametersException;
 import at.archistar.crypto.data.RabinShare;
 import at.archistar.crypto.data.Share;
+import at.archistar.crypto.data.SharePatch;
 import at.archistar.crypto.decode.DecoderFactory;
+import at.archistar.crypto.execution.ExecutionPolicy;
 import at.archistar.crypto.math.gf256.GF256;
 
-import java.util.stream.IntStream;
-
 /**
  * <p>This class implements Rabin IDS (aka Reed-Solomon Code).</p>
  *
@@ -37,6 +37,19 @@ public class RabinIDS extends GeometricSecretSharing {
         super(n, k, decoderFactory);
     }
 
+    /**
+     * Constructor
+     *
+     * @param n the number of shares to create
+     * @param k the minimum number of shares required for reconstruction
+     * @param decoderFactory the solving algorithm to use for reconstructing the secret
+     * @param policy how encoding/decoding work should be executed
+     * @throws WeakSecurityException thrown if this scheme is not secure enough for the given parameters
+     */
+    public RabinIDS(int n, int k, DecoderFactory decoderFactory, ExecutionPolicy policy) throws WeakSecurityException {
+        super(n, k, decoderFactory, policy);
+    }
+
     @Override
     public String toString() {
         return "RabinIDS(" + n + "/" + k + ")";
@@ -71,54 +84,138 @@ public class RabinIDS extends GeometricSecretSharing {
     }
 
     @Override
-    public void share(byte[][] output, byte[] data) {
-        share(output, data, IntStream.range(0, n));
+    protected int columnSize() {
+        return k;
     }
 
-    private void share(byte[][] output, byte[] data, IntStream range) {
-        range.parallel().forEach(
-                x -> {
-                    int[] mul = mulTables[x];
-                    byte[] out = output[x];
-                    for (int i = k - 1; i < data.length; i += k) {
-                        int res = data[i] & 0xff;
-                        for (int y = 1; y < k; y++) {
-                            res = GF256.add(data[i - y] & 0xff, mul[res]);
-                        }
-                        out[i / k] = (byte) res;
-                    }
-                    if (data.length % k != 0) {
-                        int res = data[data.length - 1] & 0xff;
-                        for (int y = data.length - 2; y >= data.length - data.length % k; y--) {
-                            res = GF256.add(data[y] & 0xff, mul[res]);
-                        }
-                        out[data.length / k] = (byte) res;
-                    }
-                }
-        );
+    @Override
+    public void share(byte[][] output, int offset, byte[] data) {
+        policy.run(n, encodedSizeFor(data.length),
+                (x, from, to) -> encode(output[x], offset, mulTables[x], data, from, to));
     }
 
-    @Override
-    public RabinShare[] recover(Share[] shares) throws ReconstructionException {
-        byte[] missing = determineMissingShares(shares);
-        int len = shares[0].getYValues().length;
-        int olen = shares[0].getOriginalLength();
-        byte[] reconstructed = reconstruct(shares);
-        byte[][] recovered = new byte[n][];
-        for (byte b : missing) {
-            recovered[b - 1] = new byte[len];
+    /**
+     * encode the columns [from, to) of data for a single participant
+     */
+    private void encode(byte[] out, int offset, int[] mul, byte[] data, int from, int to) {
+        final int full = data.length / k;
+
+        for (int c = from, end = Math.min(to, full); c < end; c++) {
+            final int i = c * k + k - 1;
+            int res = data[i] & 0xff;
+            for (int y = 1; y < k; y++) {
+                res = GF256.add(data[i - y] & 0xff, mul[res]);
+            }
+            out[offset + c] = (byte) res;
         }
 
-        IntStream stream = IntStream.range(0, missing.length)
-                .map(i -> missing[i] - 1);
+        if (to > full && data.length % k != 0) {
+            int res = data[data.length - 1] & 0xff;
+            for (int y = data.length - 2; y >= data.length - data.length % k; y--) {
+                res = GF256.add(data[y] & 0xff, mul[res]);
+            }
+            out[offset + full] = (byte) res;
+        }
+    }
 
-        share(recovered, reconstructed, stream);
+    /**
+     * <p>Replaces the original bytes [offset, offset + newBytes.length) without
+     * re-sharing the whole data.</p>
+     *
+     * <p>Every column encodes k consecutive bytes, so only the columns
+     * overlapping the range change. Their old content is decoded from the given
+     * shares (k are enough), the new bytes are overlaid and the columns are
+     * encoded again for all n participants. The range may extend beyond the
+     * current end of the data (which then grows), but must not start after it.</p>
+     *
+     * @param shares the current shares (at least k)
+     * @param offset the position of the first replaced byte within the original data
+     * @param newBytes the new bytes
+     * @return one patch per participant (ordered by x-value)
+     * @throws ReconstructionException if the affected columns cannot be decoded
+     */
+    public SharePatch[] update(Share[] shares, long offset, byte[] newBytes) throws ReconstructionException {
+        final int olen = originalLengthOf(shares);
+        if (offset < 0 || offset > olen) {
+            throw new IllegalArgumentException("offset " + offset + " is outside of the data (length " + olen + ")");
+        }
+        return write(shares, olen, (int) offset, newBytes);
+    }
+
+    /**
+     * Appends bytes to the original data, only the last (partial) column and the
+     * new columns are encoded (see update).
+     *
+     * @param shares the current shares (at least k)
+     * @param newBytes the appended bytes
+     * @return one patch per participant (ordered by x-value)
+     * @throws ReconstructionException if the last column cannot be decoded
+     */
+    public SharePatch[] append(Share[] shares, byte[] newBytes) throws ReconstructionException {
+        final int olen = originalLengthOf(shares);
+        return write(shares, olen, olen, newBytes);
+    }
+
+    private static int originalLengthOf(Share[] shares) throws ReconstructionException {
+        if (shares.length == 0) {
+            throw new ReconstructionException("Not enough shares to reconstruct");
+        }
+        final int olen = shares[0].getOriginalLength();
+        for (Share s : shares) {
+            if (s.getOriginalLength() != olen) {
+                throw new ReconstructionException("Shares have different original length");
+            }
+        }
+        return olen;
+    }
+
+    private SharePatch[] write(Share[] shares, int olen, int offset, byte[] newBytes) throws ReconstructionException {
+        if ((long) offset + newBytes.length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("data would exceed the maximum length");
+        }
+        final int newLength = Math.max(olen, offset + newBytes.length);
+
+        /* affected columns: [firstCol, endCol), of which [firstCol, oldEndCol) already exist */
+        final int firstCol = offset / k;
+        final int endCol = encodedSizeFor(offset + newBytes.length);
+        final int oldEndCol = Math.min(endCol, encodedSizeFor(olen));
+        final int segStart = firstCol * k;
+
+        final byte[] segment = new byte[Math.max(0, Math.min(endCol * k, newLength) - segStart)];
+        if (oldEndCol > firstCol) {
+            final int oldLength = Math.min(oldEndCol * k, olen) - segStart;
+            final byte[] old = reconstructColumns(shares, 0, firstCol, oldEndCol, oldLength);
+            System.arraycopy(old, 0, segment, 0, oldLength);
+        }
+        System.arraycopy(newBytes, 0, segment, offset - segStart, newBytes.length);
+
+        final int columns = encodedSizeFor(segment.length);
+        final byte[][] output = new byte[n][columns];
+        policy.run(n, columns, (x, from, to) -> encode(output[x], 0, mulTables[x], segment, from, to));
+
+        final SharePatch[] patches = new SharePatch[n];
+        for (int i = 0; i < n; i++) {
+            patches[i] = new SharePatch((byte) (i + 1), firstCol, output[i], newLength);
+        }
+        return patches;
+    }
+
+    /**
+     * The missing shares are computed directly from the available shares (see
+     * GeometricSecretSharing.regenerate) -- the original data is never
+     * reconstructed.
+     */
+    @Override
+    public RabinShare[] recover(Share[] shares) throws ReconstructionException {
+        byte[] missing = determineMissingShares(shares);
+        int olen = shares.length == 0 ? 0 : shares[0].getOriginalLength();
+        byte[][] recovered = regenerate(shares, missing);
 
         RabinShare[] res = new RabinShare[missing.length];
 
         for (int i = 0; i < missing.length; i++) {
             try {
-                res[i] = new RabinShare(missing[i], recovered[missing[i] - 1], olen);
+                res[i] = new RabinShare(missing[i], recovered[i], olen);
             } catch (InvalidParametersException e) {
                 throw new ReconstructionException(e.toString());
             }
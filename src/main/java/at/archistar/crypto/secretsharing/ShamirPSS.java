@@ -3,9 +3,8 @@ package at.archistar.crypto.secretsharing;
 import at.archistar.crypto.data.InvalidParametersException;
 import at.archistar.crypto.data.ShamirShare;
 import at.archistar.crypto.data.Share;
-import at.archistar.crypto.decode.Decoder;
 import at.archistar.crypto.decode.DecoderFactory;
-import at.archistar.crypto.decode.UnsolvableException;
+import at.archistar.crypto.execution.ExecutionPolicy;
 import at.archistar.crypto.math.gf256.GF256;
 import at.archistar.crypto.random.RandomSource;
 
@@ -24,8 +23,10 @@ import at.archistar.crypto.random.RandomSource;
  */
 public class ShamirPSS extends GeometricSecretSharing {
 
+    /** how many byte-columns share one call to the random source */
+    private static final int RANDOM_CHUNK_SIZE = 4096;
+
     private final RandomSource rng;
-    private final byte[] rand;
 
     /**
      * Constructor
@@ -37,9 +38,22 @@ public class ShamirPSS extends GeometricSecretSharing {
      * @throws WeakSecurityException thrown if this scheme is not secure enough for the given parameters
      */
     public ShamirPSS(int n, int k, RandomSource rng, DecoderFactory decoderFactory) throws WeakSecurityException {
-        super(n, k, decoderFactory);
+        this(n, k, rng, decoderFactory, ExecutionPolicy.defaultPolicy());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param n the number of shares to create
+     * @param k the minimum number of shares required for reconstruction
+     * @param rng the source of randomness to use for generating the coefficients
+     * @param decoderFactory the solving algorithm to use for reconstructing the secret
+     * @param policy how encoding/decoding work should be executed
+     * @throws WeakSecurityException thrown if this scheme is not secure enough for the given parameters
+     */
+    public ShamirPSS(int n, int k, RandomSource rng, DecoderFactory decoderFactory, ExecutionPolicy policy) throws WeakSecurityException {
+        super(n, k, decoderFactory, policy);
         this.rng = rng;
-        this.rand = new byte[k - 1];
     }
 
     @Override
@@ -70,49 +84,63 @@ public class ShamirPSS extends GeometricSecretSharing {
     }
 
     @Override
-    public void share(byte[][] output, byte[] data) {
-        for (int i = 0; i < data.length; i++) {
-            rng.fillBytes(rand);
-            for (int j = 0; j < n; j++) {
-                int res = rand[0] & 0xff;
-                for (int y = 1; y < k - 1; y++) {
-                    res = GF256.add(rand[y] & 0xff, mulTables[j][res]);
+    protected int columnSize() {
+        return 1;
+    }
+
+    /**
+     * The random coefficients are fetched in chunks (instead of once per secret
+     * byte) and the random source is locked while doing so, this allows the same
+     * ShamirPSS instance to be used by multiple threads. All participants' values
+     * of a column depend upon the same random coefficients, so work is only split
+     * over data ranges.
+     */
+    @Override
+    public void share(byte[][] output, int offset, byte[] data) {
+        policy.run(1, data.length, (p, from, to) -> share(output, offset, data, from, to));
+    }
+
+    private void share(byte[][] output, int offset, byte[] data, int from, int to) {
+        final int t = k - 1;
+        final byte[] rand = new byte[Math.min(to - from, RANDOM_CHUNK_SIZE) * t];
+
+        for (int start = from; start < to; start += RANDOM_CHUNK_SIZE) {
+            final int end = Math.min(to, start + RANDOM_CHUNK_SIZE);
+            synchronized (rng) {
+                rng.fillBytes(rand);
+            }
+
+            for (int i = start, r = 0; i < end; i++, r += t) {
+                for (int j = 0; j < n; j++) {
+                    final int[] mul = mulTables[j];
+                    int res = rand[r] & 0xff;
+                    for (int y = 1; y < t; y++) {
+                        res = GF256.add(rand[r + y] & 0xff, mul[res]);
+                    }
+                    output[j][offset + i] = (byte) GF256.add(data[i] & 0xff, mul[res]);
                 }
-                output[j][i] = (byte) GF256.add(data[i] & 0xff, mulTables[j][res]);
             }
         }
     }
 
+    /**
+     * The missing y-values are computed as linear combinations of the present
+     * ones (see GeometricSecretSharing.regenerate), no per-column decoding or
+     * polynomial evaluation is needed.
+     */
     @Override
     public ShamirShare[] recover(Share[] shares) throws ReconstructionException {
         byte[] missing = determineMissingShares(shares);
-        int len = shares[0].getYValues().length;
+        byte[][] recovered = regenerate(shares, missing);
+
         ShamirShare[] res = new ShamirShare[missing.length];
         for (int i = 0; i < missing.length; i++) {
             try {
-                res[i] = new ShamirShare(missing[i], new byte[len]);
+                res[i] = new ShamirShare(missing[i], recovered[i]);
             } catch (InvalidParametersException e) {
                 throw new ReconstructionException("This should not have happened");
             }
         }
-        Decoder decoder = decoderFactory.createDecoder(extractXVals(shares, k), k);
-        final int[] coeffs = new int[k];
-        final int[] temp = new int[k];
-
-        for (int i = 0; i < len; i++) {
-            for (int x = 0; x < k; x++) {
-                coeffs[x] = shares[x].getYValues()[i] & 0xff;
-            }
-            try {
-                decoder.decodeUnsafe(temp, coeffs, 0);
-            } catch (UnsolvableException e) {
-                throw new ReconstructionException(e.toString());
-            }
-            for (int j = 0; j < missing.length; j++) {
-                res[j].getYValues()[i] = (byte) GF256.evaluateAt(temp, missing[j]);
-            }
-        }
-
         return res;
     }
 }
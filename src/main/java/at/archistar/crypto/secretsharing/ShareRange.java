@@ -0,0 +1,77 @@
+package at.archistar.crypto.secretsharing;
+
+/**
+ * <p>The part of the shares' bodies that is needed to reconstruct a range of
+ * the original data (see GeometricSecretSharing.shareRange).</p>
+ *
+ * <p>Every share byte (column) encodes a fixed number of original bytes, so a
+ * range of the original data maps to a contiguous range of every share. As
+ * the original range does not need to be aligned to columns, the decoded
+ * columns contain some bytes before the range (see getSkip) and after it.</p>
+ */
+public final class ShareRange {
+
+    private final long offset;
+
+    private final int length;
+
+    private final int shareOffset;
+
+    private final int shareLength;
+
+    private final int skip;
+
+    ShareRange(long offset, int length, int shareOffset, int shareLength, int skip) {
+        this.offset = offset;
+        this.length = length;
+        this.shareOffset = shareOffset;
+        this.shareLength = shareLength;
+        this.skip = skip;
+    }
+
+    /**
+     * @return the position of the range within the original data
+     */
+    public long getOffset() {
+        return offset;
+    }
+
+    /**
+     * @return the length of the range (limited to the end of the original data)
+     */
+    public int getLength() {
+        return length;
+    }
+
+    /**
+     * @return the first byte of every share's body that is needed
+     */
+    public int getShareOffset() {
+        return shareOffset;
+    }
+
+    /**
+     * @return how many bytes of every share's body are needed
+     */
+    public int getShareLength() {
+        return shareLength;
+    }
+
+    /**
+     * @return number of decoded bytes in front of the range
+     */
+    public int getSkip() {
+        return skip;
+    }
+
+    @Override
+    public String toString() {
+        return "ShareRange{" +
+                "offset=" + offset +
+                ", length=" + length +
+                ", shareOffset=" + shareOffset +
+                ", shareLength=" + shareLength +
+                ", skip=" + skip +
+                '}';
+    }
+}
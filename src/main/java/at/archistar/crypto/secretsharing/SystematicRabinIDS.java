@@ -0,0 +1,387 @@
+package at.archistar.crypto.secretsharing;
+
+import at.archistar.crypto.data.InvalidParametersException;
+import at.archistar.crypto.data.RabinShare;
+import at.archistar.crypto.data.Share;
+import at.archistar.crypto.data.SystematicRabinShare;
+import at.archistar.crypto.execution.ExecutionPolicy;
+import at.archistar.crypto.math.gf256.GF256;
+import at.archistar.crypto.math.gf256.GF256ByteMatrix;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>This class implements a systematic variant of Rabin IDS (Reed-Solomon Code).</p>
+ *
+ * <p>The original data is split into k stripes of equal length. Shares 1..k
+ * contain those stripes as-is, only the n-k parity shares are computed. The
+ * generator matrix is [I; C] where C is a (n-k) x k Cauchy matrix. As every
+ * square sub-matrix of a Cauchy matrix is non-singular, any k shares can be
+ * used for reconstruction. C is normalized so that its first row and column
+ * only contain ones, thus the first parity share is the plain XOR of all
+ * stripes.</p>
+ *
+ * <p>Compared to RabinIDS encoding needs (n-k)*k instead of n*k multiplications
+ * per column. If all data shares are available, reconstruction is a plain copy
+ * of the stripes -- no decoding is needed at all.</p>
+ *
+ * <p>Note: as RabinIDS this scheme does not provide any security. Shares are
+ * not compatible with RabinIDS' shares.</p>
+ *
+ * <p>Sub-classes may replace the arithmetic backend by overriding
+ * stripeLength, encode and decode.</p>
+ */
+public class SystematicRabinIDS extends BaseSecretSharing {
+
+    /** parity part of the generator matrix, (n-k) x k */
+    protected final int[][] parity;
+
+    /** multiplication tables for all parity coefficients */
+    private final int[][][] parityTables;
+
+    protected final ExecutionPolicy policy;
+
+    /**
+     * Constructor
+     *
+     * @param n the number of shares to create
+     * @param k the minimum number of shares required for reconstruction
+     * @throws WeakSecurityException thrown if this scheme is not secure enough for the given parameters
+     */
+    public SystematicRabinIDS(int n, int k) throws WeakSecurityException {
+        this(n, k, ExecutionPolicy.defaultPolicy());
+    }
+
+    /**
+     * Constructor
+     *
+     * @param n the number of shares to create
+     * @param k the minimum number of shares required for reconstruction
+     * @param policy how encoding/decoding work should be executed
+     * @throws WeakSecurityException thrown if this scheme is not secure enough for the given parameters
+     */
+    public SystematicRabinIDS(int n, int k, ExecutionPolicy policy) throws WeakSecurityException {
+        super(n, k);
+        this.policy = policy;
+        this.parity = createCauchyMatrix(n - k, k);
+        this.parityTables = new int[n - k][k][];
+
+        for (int p = 0; p < n - k; p++) {
+            for (int j = 0; j < k; j++) {
+                parityTables[p][j] = createMulTable(parity[p][j]);
+            }
+        }
+    }
+
+    /**
+     * create a normalized Cauchy matrix: c[i][j] = 1/(x_i + y_j) with x_i = k + i
+     * and y_j = j. Columns and rows are scaled so that the first row and column
+     * only contain ones (this keeps the MDS property of [I; C]).
+     */
+    private static int[][] createCauchyMatrix(int rows, int cols) {
+        final int[][] c = new int[rows][cols];
+
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < cols; j++) {
+                c[i][j] = GF256.inverse(GF256.add(cols + i, j));
+            }
+        }
+
+        if (rows > 0) {
+            for (int j = 0; j < cols; j++) {
+                final int scale = GF256.inverse(c[0][j]);
+                for (int i = 0; i < rows; i++) {
+                    c[i][j] = GF256.mult(c[i][j], scale);
+                }
+            }
+            for (int i = 1; i < rows; i++) {
+                final int scale = GF256.inverse(c[i][0]);
+                for (int j = 0; j < cols; j++) {
+                    c[i][j] = GF256.mult(c[i][j], scale);
+                }
+            }
+        }
+        return c;
+    }
+
+    private static int[] createMulTable(int coefficient) {
+        final int[] table = new int[256];
+        for (int i = 0; i < 256; i++) {
+            table[i] = GF256.mult(coefficient, i);
+        }
+        return table;
+    }
+
+    /**
+     * @param originalLength length of the original data
+     * @return length of a single stripe (and thus of every share)
+     */
+    protected int stripeLength(int originalLength) {
+        return originalLength % k == 0 ? originalLength / k : originalLength / k + 1;
+    }
+
+    /**
+     * compute parity shares: out[i] = parity[rows[i]] * stripes
+     *
+     * @param rows which parity rows (0..n-k-1) to compute
+     * @param stripes the k data stripes
+     * @param out one output buffer per row
+     * @param length the stripe length
+     */
+    protected void encode(int[] rows, byte[][] stripes, byte[][] out, int length) {
+        policy.run(rows.length, length, (i, from, to) -> {
+            final int p = rows[i];
+            final byte[] target = out[i];
+
+            for (int j = 0; j < k; j++) {
+                final byte[] stripe = stripes[j];
+                if (j == 0) {
+                    /* the first column of the normalized matrix only contains ones */
+                    System.arraycopy(stripe, from, target, from, to - from);
+                } else if (p == 0) {
+                    for (int c = from; c < to; c++) {
+                        target[c] ^= stripe[c];
+                    }
+                } else {
+                    final int[] mul = parityTables[p][j];
+                    for (int c = from; c < to; c++) {
+                        target[c] ^= mul[stripe[c] & 0xff];
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * compute out[i] = coefficients[i] * sources
+     *
+     * @param coefficients the decoding matrix (out.length x k)
+     * @param sources k source buffers
+     * @param out the output buffers
+     * @param length the stripe length
+     */
+    protected void decode(int[][] coefficients, byte[][] sources, byte[][] out, int length) {
+        final int[][][] tables = new int[out.length][k][];
+        for (int i = 0; i < out.length; i++) {
+            for (int a = 0; a < k; a++) {
+                tables[i][a] = coefficients[i][a] == 0 ? null : createMulTable(coefficients[i][a]);
+            }
+        }
+
+        policy.run(out.length, length, (i, from, to) -> {
+            final byte[] target = out[i];
+            for (int a = 0; a < k; a++) {
+                final int[] mul = tables[i][a];
+                if (mul != null) {
+                    final byte[] y = sources[a];
+                    for (int c = from; c < to; c++) {
+                        target[c] ^= mul[y[c] & 0xff];
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * create a share of the type matching this scheme
+     *
+     * @param id the share's id
+     * @param body the share's content
+     * @param originalLength length of the original data
+     * @return the new share
+     * @throws InvalidParametersException if the share could not be created
+     */
+    protected RabinShare createShare(byte id, byte[] body, int originalLength) throws InvalidParametersException {
+        return new SystematicRabinShare(id, body, originalLength);
+    }
+
+    private int[] parityRows() {
+        final int[] rows = new int[n - k];
+        for (int p = 0; p < rows.length; p++) {
+            rows[p] = p;
+        }
+        return rows;
+    }
+
+    @Override
+    public RabinShare[] share(byte[] data) {
+        if (data == null) {
+            data = new byte[0];
+        }
+
+        final int length = stripeLength(data.length);
+        final byte[][] output = new byte[n][length];
+
+        for (int j = 0; j < k; j++) {
+            final int start = j * length;
+            if (start < data.length) {
+                System.arraycopy(data, start, output[j], 0, Math.min(length, data.length - start));
+            }
+        }
+
+        encode(parityRows(), output, Arrays.copyOfRange(output, k, n), length);
+
+        try {
+            RabinShare[] shares = new RabinShare[n];
+            for (int i = 0; i < n; i++) {
+                shares[i] = createShare((byte) (i + 1), output[i], data.length);
+            }
+            return shares;
+        } catch (InvalidParametersException ex) {
+            throw new RuntimeException("impossible: share failed: " + ex.getMessage());
+        }
+    }
+
+    /**
+     * Determine all k data stripes from the given shares. Available data shares
+     * are used as-is, missing stripes are decoded from the parity shares.
+     */
+    private byte[][] decodeStripes(Share[] shares) throws ReconstructionException {
+        if (!validateShareCount(shares.length, k)) {
+            throw new ReconstructionException("Not enough shares to reconstruct");
+        }
+
+        final int originalLength = shares[0].getOriginalLength();
+        final int length = stripeLength(originalLength);
+        final Map<Integer, byte[]> available = new HashMap<>();
+        for (Share s : shares) {
+            if (s.getOriginalLength() != originalLength) {
+                throw new ReconstructionException("Shares have different original length");
+            }
+            if (s.getX() < 1 || s.getX() > n || s.getYValues().length < length) {
+                throw new ReconstructionException("Invalid share: " + s);
+            }
+            available.putIfAbsent(s.getX() - 1, s.getYValues());
+        }
+        if (available.size() < k) {
+            throw new ReconstructionException("Not enough shares to reconstruct");
+        }
+
+        final byte[][] stripes = new byte[k][];
+        int missingCount = 0;
+        for (int j = 0; j < k; j++) {
+            stripes[j] = available.get(j);
+            if (stripes[j] == null) {
+                missingCount++;
+            }
+        }
+        if (missingCount == 0) {
+            return stripes;
+        }
+
+        /* select k rows of the generator matrix: all available data shares plus some parity shares */
+        final byte[][] ys = new byte[k][];
+        final int[][] matrix = new int[k][];
+        int pos = 0;
+        for (int j = 0; j < k; j++) {
+            if (stripes[j] != null) {
+                matrix[pos] = new int[k];
+                matrix[pos][j] = 1;
+                ys[pos++] = stripes[j];
+            }
+        }
+        for (int p = 0; p < n - k && pos < k; p++) {
+            if (available.containsKey(k + p)) {
+                matrix[pos] = parity[p].clone();
+                ys[pos++] = available.get(k + p);
+            }
+        }
+
+        final GF256ByteMatrix inverse = new GF256ByteMatrix(k, k);
+        if (!GF256ByteMatrix.of(matrix).invertInto(inverse, new GF256ByteMatrix(k, k))) {
+            throw new ReconstructionException("could not invert generator sub-matrix");
+        }
+
+        /* missing stripe j is (row j of the inverse) * ys */
+        final int[][] coefficients = new int[missingCount][k];
+        final byte[][] out = new byte[missingCount][];
+        for (int j = 0, m = 0; j < k; j++) {
+            if (stripes[j] == null) {
+                for (int a = 0; a < k; a++) {
+                    coefficients[m][a] = inverse.get(j, a);
+                }
+                stripes[j] = new byte[length];
+                out[m++] = stripes[j];
+            }
+        }
+
+        decode(coefficients, ys, out, length);
+        return stripes;
+    }
+
+    @Override
+    public byte[] reconstruct(Share[] shares) throws ReconstructionException {
+        final byte[][] stripes = decodeStripes(shares);
+        final int originalLength = shares[0].getOriginalLength();
+        final int length = stripeLength(originalLength);
+        final byte[] result = new byte[originalLength];
+
+        for (int j = 0; j < k; j++) {
+            final int start = j * length;
+            if (start < originalLength) {
+                System.arraycopy(stripes[j], 0, result, start, Math.min(length, originalLength - start));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * For this kind of scheme, partial reconstruction is the same as full reconstruction
+     *
+     * @param shares the partial shares to reconstruct the secret from
+     * @param start the starting position relative to the original data (ignored here)
+     * @return the partially reconstructed secret
+     * @throws ReconstructionException thrown if the reconstruction failed
+     */
+    @Override
+    public byte[] reconstructPartial(Share[] shares, long start) throws ReconstructionException {
+        return reconstruct(shares);
+    }
+
+    @Override
+    public RabinShare[] recover(Share[] shares) throws ReconstructionException {
+        final byte[] missing = determineMissingShares(shares);
+        final byte[][] stripes = decodeStripes(shares);
+        final int originalLength = shares[0].getOriginalLength();
+        final int length = stripeLength(originalLength);
+
+        final byte[][] bodies = new byte[missing.length][];
+        int parityCount = 0;
+        for (byte id : missing) {
+            if (id > k) {
+                parityCount++;
+            }
+        }
+
+        final int[] rows = new int[parityCount];
+        final byte[][] parityOut = new byte[parityCount][];
+        for (int i = 0, p = 0; i < missing.length; i++) {
+            final int idx = missing[i] - 1;
+            if (idx < k) {
+                bodies[i] = stripes[idx].clone();
+            } else {
+                bodies[i] = new byte[length];
+                rows[p] = idx - k;
+                parityOut[p++] = bodies[i];
+            }
+        }
+        encode(rows, stripes, parityOut, length);
+
+        final RabinShare[] res = new RabinShare[missing.length];
+        for (int i = 0; i < missing.length; i++) {
+            try {
+                res[i] = createShare(missing[i], bodies[i], originalLength);
+            } catch (InvalidParametersException e) {
+                throw new ReconstructionException(e.toString());
+            }
+        }
+        return res;
+    }
+
+    @Override
+    public String toString() {
+        return "SystematicRabinIDS(" + n + "/" + k + ")";
+    }
+}
@@ -0,0 +1,275 @@
+package at.archistar.crypto.source;
+
+import at.archistar.crypto.CryptoEngine;
+import at.archistar.crypto.data.BrokenShare;
+import at.archistar.crypto.data.ReconstructionResult;
+import at.archistar.crypto.data.Share;
+import at.archistar.crypto.secretsharing.ReconstructionException;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Fetches the shares of an object from n ShareSources in parallel and
+ * reconstructs the object as soon as possible.</p>
+ *
+ * <p>All n fetches are issued at once. As soon as k shares have arrived, the
+ * engine tries to reconstruct the object; if this fails (i.e. because some
+ * shares were detected as corrupted) it retries whenever additional shares
+ * arrive. After a successful reconstruction all outstanding fetches are
+ * cancelled, so the result does not depend upon the slowest providers.</p>
+ *
+ * <p>Optionally slow fetches are hedged: if a share has not arrived after the
+ * given percentile of recently observed fetch latencies, a second request is
+ * issued to the same source and the first response wins.</p>
+ */
+public class HedgedReconstructor {
+
+    /** number of latencies remembered */
+    private static final int LATENCY_WINDOW = 128;
+
+    /** hedging starts after this many latencies have been observed */
+    private static final int MIN_SAMPLES = 16;
+
+    private final CryptoEngine engine;
+
+    private final int k;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final double hedgePercentile;
+
+    /** ring buffer of recent fetch latencies (in nanoseconds) */
+    private final long[] latencies = new long[LATENCY_WINDOW];
+
+    private int latencyCount = 0;
+
+    /**
+     * create a new reconstructor without hedging
+     *
+     * @param engine the engine used for reconstruction
+     * @param k minimum count of shares needed to recreate the original data
+     * @param scheduler executor used for reconstruction (and hedging)
+     */
+    public HedgedReconstructor(CryptoEngine engine, int k, ScheduledExecutorService scheduler) {
+        this(engine, k, scheduler, 0);
+    }
+
+    /**
+     * create a new reconstructor
+     *
+     * @param engine the engine used for reconstruction
+     * @param k minimum count of shares needed to recreate the original data
+     * @param scheduler executor used for reconstruction and hedging
+     * @param hedgePercentile latency percentile (0 &lt; p &lt; 1, i.e. 0.95) after which
+     *                        fetches are hedged, 0 disables hedging
+     */
+    public HedgedReconstructor(CryptoEngine engine, int k, ScheduledExecutorService scheduler, double hedgePercentile) {
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be at least 1");
+        }
+        if (hedgePercentile < 0 || hedgePercentile >= 1) {
+            throw new IllegalArgumentException("hedgePercentile must be within [0, 1)");
+        }
+        this.engine = engine;
+        this.k = k;
+        this.scheduler = scheduler;
+        this.hedgePercentile = hedgePercentile;
+    }
+
+    private synchronized void recordLatency(long nanos) {
+        latencies[latencyCount % LATENCY_WINDOW] = nanos;
+        latencyCount++;
+    }
+
+    /**
+     * @return the current hedging delay in nanoseconds, -1 if no hedging should happen
+     */
+    synchronized long getHedgeDelay() {
+        if (hedgePercentile <= 0 || latencyCount < MIN_SAMPLES) {
+            return -1;
+        }
+        final long[] sorted = Arrays.copyOf(latencies, Math.min(latencyCount, LATENCY_WINDOW));
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.floor(hedgePercentile * sorted.length))];
+    }
+
+    /**
+     * fetch and reconstruct an object
+     *
+     * @param name the name of the shared object
+     * @param sources the sources storing the object's shares (one per participant)
+     * @return the future reconstruction result; cancelling it cancels all outstanding fetches
+     */
+    public CompletableFuture<ReconstructionResult> reconstruct(String name, List<ShareSource> sources) {
+        return new Operation(name, sources).start();
+    }
+
+    /** state of a single reconstruction */
+    private final class Operation {
+
+        private final String name;
+
+        private final List<ShareSource> sources;
+
+        private final CompletableFuture<ReconstructionResult> result = new CompletableFuture<>();
+
+        private final List<CompletableFuture<Share>> requests = new ArrayList<>();
+
+        private final List<Share> arrived = new ArrayList<>();
+
+        private final List<String> errors = new ArrayList<>();
+
+        /** per source: share arrived or all requests failed */
+        private final boolean[] finished;
+
+        /** per source: requests issued but not yet answered */
+        private final int[] pending;
+
+        private int finishedCount = 0;
+
+        /** number of shares used by the last (failed) reconstruction attempt */
+        private int attempted = 0;
+
+        private boolean decoding = false;
+
+        private Operation(String name, List<ShareSource> sources) {
+            this.name = name;
+            this.sources = sources;
+            this.finished = new boolean[sources.size()];
+            this.pending = new int[sources.size()];
+        }
+
+        private CompletableFuture<ReconstructionResult> start() {
+            result.whenComplete((r, e) -> cancelRequests());
+
+            final long hedgeDelay = getHedgeDelay();
+            synchronized (this) {
+                for (int i = 0; i < sources.size(); i++) {
+                    request(i);
+                    if (hedgeDelay >= 0) {
+                        final int source = i;
+                        scheduler.schedule(() -> hedge(source), hedgeDelay, TimeUnit.NANOSECONDS);
+                    }
+                }
+                checkExhausted();
+            }
+            return result;
+        }
+
+        private synchronized void hedge(int source) {
+            if (!finished[source] && !result.isDone()) {
+                request(source);
+            }
+        }
+
+        /** must be called while holding the lock */
+        private void request(int source) {
+            final long start = System.nanoTime();
+            final CompletableFuture<Share> request;
+            try {
+                request = sources.get(source).fetch(name);
+            } catch (RuntimeException e) {
+                pending[source]++;
+                onResponse(source, null, e, start);
+                return;
+            }
+            requests.add(request);
+            pending[source]++;
+            request.whenComplete((share, error) -> {
+                synchronized (this) {
+                    onResponse(source, share, error, start);
+                }
+            });
+        }
+
+        /** must be called while holding the lock */
+        private void onResponse(int source, Share share, Throwable error, long start) {
+            pending[source]--;
+            if (finished[source] || result.isDone()) {
+                return;
+            }
+
+            if (error != null) {
+                if (pending[source] == 0) {
+                    finished[source] = true;
+                    finishedCount++;
+                    errors.add("could not fetch share from " + sources.get(source) + ": " + error);
+                }
+            } else {
+                recordLatency(System.nanoTime() - start);
+                finished[source] = true;
+                finishedCount++;
+                if (share instanceof BrokenShare) {
+                    errors.add("broken share from " + sources.get(source) + ": " + share);
+                } else {
+                    arrived.add(share);
+                }
+            }
+
+            tryDecode();
+            checkExhausted();
+        }
+
+        /** must be called while holding the lock */
+        private void tryDecode() {
+            if (decoding || result.isDone() || arrived.size() < k || arrived.size() <= attempted) {
+                return;
+            }
+
+            decoding = true;
+            final Share[] shares = arrived.toArray(new Share[arrived.size()]);
+            CompletableFuture.supplyAsync(() -> engine.reconstruct(shares), scheduler).whenComplete((r, e) -> {
+                synchronized (this) {
+                    decoding = false;
+                    attempted = shares.length;
+                    if (e != null) {
+                        errors.add("reconstruction failed: " + e);
+                    } else if (r.isOkay()) {
+                        final List<String> all = new ArrayList<>(errors);
+                        all.addAll(r.getErrors());
+                        try {
+                            result.complete(new ReconstructionResult(r.getData(), all));
+                        } catch (ReconstructionException ex) {
+                            throw new RuntimeException("impossible: result was checked before", ex);
+                        }
+                        return;
+                    } else {
+                        errors.addAll(r.getErrors());
+                    }
+                    tryDecode();
+                    checkExhausted();
+                }
+            });
+        }
+
+        /** must be called while holding the lock */
+        private void checkExhausted() {
+            if (!result.isDone() && !decoding && finishedCount == sources.size()) {
+                if (arrived.size() < k) {
+                    errors.add("only " + arrived.size() + " of the needed " + k + " shares could be fetched");
+                }
+                result.complete(new ReconstructionResult(new ArrayList<>(errors)));
+            }
+        }
+
+        private void cancelRequests() {
+            final List<CompletableFuture<Share>> outstanding;
+            synchronized (this) {
+                outstanding = new ArrayList<>(requests);
+            }
+            for (CompletableFuture<Share> r : outstanding) {
+                r.cancel(true);
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "HedgedReconstructor(" + engine + ", k=" + k + ", hedge=" + hedgePercentile + ")";
+    }
+}
@@ -0,0 +1,92 @@
+package at.archistar.crypto.source;
+
+import at.archistar.crypto.data.Share;
+
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongSupplier;
+
+/**
+ * A ShareSource keeping its shares in memory. Every fetch is delayed by a
+ * configurable latency, which allows simulating (slow) remote providers.
+ */
+public class MemoryShareSource implements ShareSource {
+
+    private final Map<String, Share> shares = new ConcurrentHashMap<>();
+
+    private final ScheduledExecutorService scheduler;
+
+    private final LongSupplier latency;
+
+    private final AtomicInteger fetches = new AtomicInteger();
+
+    /**
+     * create a new source without latency
+     *
+     * @param scheduler the executor upon which fetches are completed
+     */
+    public MemoryShareSource(ScheduledExecutorService scheduler) {
+        this(scheduler, () -> 0);
+    }
+
+    /**
+     * create a new source
+     *
+     * @param scheduler the executor upon which fetches are completed
+     * @param latency supplies the latency (in milliseconds) of each fetch
+     */
+    public MemoryShareSource(ScheduledExecutorService scheduler, LongSupplier latency) {
+        this.scheduler = scheduler;
+        this.latency = latency;
+    }
+
+    /**
+     * store a share
+     *
+     * @param name the name of the shared object
+     * @param share the share to store
+     */
+    public void put(String name, Share share) {
+        shares.put(name, share);
+    }
+
+    @Override
+    public CompletableFuture<Share> fetch(String name) {
+        fetches.incrementAndGet();
+        final CompletableFuture<Share> result = new CompletableFuture<>();
+        final ScheduledFuture<?> task = scheduler.schedule(() -> {
+            Share share = shares.get(name);
+            if (share == null) {
+                result.completeExceptionally(new NoSuchElementException("no share for " + name));
+            } else {
+                result.complete(share);
+            }
+        }, latency.getAsLong(), TimeUnit.MILLISECONDS);
+
+        /* cancelling the fetch cancels the (simulated) transfer */
+        result.whenComplete((s, e) -> {
+            if (result.isCancelled()) {
+                task.cancel(false);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * @return the number of fetches issued so far
+     */
+    public int getFetchCount() {
+        return fetches.get();
+    }
+
+    @Override
+    public String toString() {
+        return "MemoryShareSource(" + shares.size() + " shares)";
+    }
+}
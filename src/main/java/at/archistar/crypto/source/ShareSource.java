@@ -0,0 +1,25 @@
+package at.archistar.crypto.source;
+
+import at.archistar.crypto.data.Share;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * <p>A location (i.e. a storage provider) that stores one participant's
+ * shares.</p>
+ *
+ * <p>Implementations should not block the calling thread but return a
+ * future that is completed once the share has been fetched. HedgedReconstructor
+ * cancels the futures of requests that are no longer needed, implementations
+ * are encouraged to abort the underlying (network) operation in this case.</p>
+ */
+public interface ShareSource {
+
+    /**
+     * fetch a share
+     *
+     * @param name the name of the shared object
+     * @return the future share, completes exceptionally if the share could not be fetched
+     */
+    CompletableFuture<Share> fetch(String name);
+}
@@ -49,6 +49,24 @@ public class ChaCha20Encryptor implements Encryptor {
         return result;
     }
 
+    /**
+     * Special method to encrypt partial data (i.e. to update a part of previously encrypted data)
+     *
+     * @param data to encrypt
+     * @param randomKeyBytes key to use
+     * @param startingByte the starting position within the (complete) data
+     * @return encrypted data
+     */
+    public byte[] encrypt(byte[] data, byte[] randomKeyBytes, long startingByte) {
+
+        ChaChaEngine cipher = new ChaChaEngine();
+        cipher.init(true, new ParametersWithIV(new KeyParameter(randomKeyBytes), randomIvBytes));
+        cipher.skip(startingByte);
+        byte[] result = new byte[data.length];
+        cipher.processBytes(data, 0, data.length, result, 0);
+        return result;
+    }
+
     /**
      * Special method to decrypt partial data
      *
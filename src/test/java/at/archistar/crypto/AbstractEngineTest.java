@@ -11,8 +11,10 @@ import at.archistar.crypto.secretsharing.WeakSecurityException;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 
@@ -144,4 +146,22 @@ public abstract class AbstractEngineTest {
         assertThat(result.isOkay()).isTrue();
         assertThat(result.getData()).isEqualTo(data);
     }
+
+    @Test
+    public void batchShareReconstructRound() throws ReconstructionException {
+        List<byte[]> batch = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            batch.add(Arrays.copyOf(data, i));
+        }
+
+        List<Share[]> shared = algorithm.shareBatch(batch);
+        assertThat(shared.size()).isEqualTo(batch.size());
+
+        List<ReconstructionResult> results = algorithm.reconstructBatch(shared);
+        assertThat(results.size()).isEqualTo(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertThat(shared.get(i).length).isEqualTo(n);
+            assertThat(results.get(i).getData()).isEqualTo(batch.get(i));
+        }
+    }
 }
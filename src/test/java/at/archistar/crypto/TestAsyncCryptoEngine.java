@@ -0,0 +1,234 @@
+package at.archistar.crypto;
+
+import at.archistar.crypto.data.ReconstructionResult;
+import at.archistar.crypto.data.Share;
+import at.archistar.crypto.random.FakeRandomSource;
+import at.archistar.crypto.secretsharing.ReconstructionException;
+import at.archistar.crypto.secretsharing.WeakSecurityException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+/**
+ * Tests for {@link AsyncCryptoEngine}
+ */
+public class TestAsyncCryptoEngine {
+
+    private final byte data[] = new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+    private final int n = 8;
+    private final int k = 5;
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shareReconstructRound() throws WeakSecurityException, ExecutionException, InterruptedException, ReconstructionException {
+        AsyncCryptoEngine async = CryptoEngineFactory.getAsyncEngine(new CSSEngine(n, k, new FakeRandomSource()), executor, 2);
+
+        ReconstructionResult result = async.share(data).thenCompose(async::reconstruct).get();
+        assertThat(result.getData()).isEqualTo(data);
+        assertThat(async.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void failedRecoveryCompletesExceptionally() throws WeakSecurityException, InterruptedException {
+        AsyncCryptoEngine async = new AsyncCryptoEngine(new CSSEngine(n, k, new FakeRandomSource()), executor, 2);
+        Share[] shares = async.getEngine().share(data);
+
+        try {
+            async.recover(Arrays.copyOf(shares, k - 1)).get();
+            fail("recovery with too few shares should not succeed");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isNotNull();
+        }
+        assertThat(async.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void inFlightOperationsAreBounded() throws WeakSecurityException, ExecutionException, InterruptedException, ReconstructionException {
+        final int limit = 2;
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger maxRunning = new AtomicInteger();
+        final CryptoEngine inner = new ShamirEngine(n, k, new FakeRandomSource());
+
+        CryptoEngine counting = new CryptoEngine() {
+            @Override
+            public Share[] share(byte[] data) {
+                maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                running.decrementAndGet();
+                return inner.share(data);
+            }
+
+            @Override
+            public ReconstructionResult reconstruct(Share[] shares) {
+                return inner.reconstruct(shares);
+            }
+
+            @Override
+            public ReconstructionResult reconstructPartial(Share[] shares, long start) {
+                return inner.reconstructPartial(shares, start);
+            }
+
+            @Override
+            public Share[] recover(Share[] shares) throws ReconstructionException {
+                return inner.recover(shares);
+            }
+        };
+
+        AsyncCryptoEngine async = new AsyncCryptoEngine(counting, executor, limit);
+        List<CompletableFuture<Share[]>> futures = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            futures.add(async.share(data));
+            assertThat(async.getInFlight()).isLessThanOrEqualTo(limit);
+        }
+
+        for (CompletableFuture<Share[]> f : futures) {
+            assertThat(inner.reconstruct(f.get()).getData()).isEqualTo(data);
+        }
+        assertThat(maxRunning.get()).isLessThanOrEqualTo(limit);
+    }
+
+    /**
+     * @return an engine whose share operation waits for the latch before
+     *         sharing with inner
+     */
+    private static CryptoEngine blockingEngine(final CountDownLatch blocked, final CryptoEngine inner) {
+        return new CryptoEngine() {
+            @Override
+            public Share[] share(byte[] data) {
+                try {
+                    blocked.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return inner.share(data);
+            }
+
+            @Override
+            public ReconstructionResult reconstruct(Share[] shares) {
+                return inner.reconstruct(shares);
+            }
+
+            @Override
+            public ReconstructionResult reconstructPartial(Share[] shares, long start) {
+                return inner.reconstructPartial(shares, start);
+            }
+
+            @Override
+            public Share[] recover(Share[] shares) throws ReconstructionException {
+                return inner.recover(shares);
+            }
+        };
+    }
+
+    @Test
+    public void submittingNeverBlocksTheCaller() throws WeakSecurityException, ExecutionException, InterruptedException, ReconstructionException {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CryptoEngine inner = new ShamirEngine(n, k, new FakeRandomSource());
+
+        AsyncCryptoEngine async = new AsyncCryptoEngine(blockingEngine(blocked, inner), executor, 1);
+        CompletableFuture<Share[]> first = async.share(data);
+
+        /* the only slot is taken by the blocked operation, so these are queued */
+        CompletableFuture<ReconstructionResult> second = async.reconstruct(inner.share(data));
+        CompletableFuture<Share[]> third = async.share(data);
+        assertThat(async.getQueued()).isEqualTo(2);
+        assertThat(second.isDone()).isFalse();
+
+        blocked.countDown();
+        assertThat(inner.reconstruct(first.get()).getData()).isEqualTo(data);
+        assertThat(second.get().getData()).isEqualTo(data);
+        assertThat(inner.reconstruct(third.get()).getData()).isEqualTo(data);
+        assertThat(async.getInFlight()).isEqualTo(0);
+        assertThat(async.getQueued()).isEqualTo(0);
+    }
+
+    @Test
+    public void submissionsBeyondTheQueueAreRejected() throws WeakSecurityException, ExecutionException, InterruptedException, ReconstructionException {
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CryptoEngine inner = new ShamirEngine(n, k, new FakeRandomSource());
+
+        AsyncCryptoEngine async = new AsyncCryptoEngine(blockingEngine(blocked, inner), executor, 1, 1);
+        CompletableFuture<Share[]> first = async.share(data);
+        CompletableFuture<Share[]> second = async.share(data);
+        CompletableFuture<Share[]> third = async.share(data);
+
+        assertThat(third.isCompletedExceptionally()).isTrue();
+        try {
+            third.get();
+            fail("the queue was full");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause() instanceof RejectedExecutionException).isTrue();
+        }
+
+        blocked.countDown();
+        assertThat(inner.reconstruct(first.get()).getData()).isEqualTo(data);
+        assertThat(inner.reconstruct(second.get()).getData()).isEqualTo(data);
+        assertThat(inner.reconstruct(async.share(data).get()).getData()).isEqualTo(data);
+        assertThat(async.getInFlight()).isEqualTo(0);
+    }
+
+    @Test
+    public void errorsCompleteTheFuture() throws WeakSecurityException, InterruptedException, TimeoutException {
+        final CryptoEngine inner = new ShamirEngine(n, k, new FakeRandomSource());
+        CryptoEngine failing = new CryptoEngine() {
+            @Override
+            public Share[] share(byte[] data) {
+                throw new OutOfMemoryError("expected");
+            }
+
+            @Override
+            public ReconstructionResult reconstruct(Share[] shares) {
+                return inner.reconstruct(shares);
+            }
+
+            @Override
+            public ReconstructionResult reconstructPartial(Share[] shares, long start) {
+                return inner.reconstructPartial(shares, start);
+            }
+
+            @Override
+            public Share[] recover(Share[] shares) throws ReconstructionException {
+                return inner.recover(shares);
+            }
+        };
+
+        AsyncCryptoEngine async = new AsyncCryptoEngine(failing, executor, 1);
+        try {
+            async.share(data).get(10, TimeUnit.SECONDS);
+            fail("error was swallowed");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause().getMessage()).isEqualTo("expected");
+        }
+        assertThat(async.getInFlight()).isEqualTo(0);
+    }
+}
@@ -2,8 +2,10 @@ package at.archistar.crypto;
 
 import at.archistar.crypto.data.CSSShare;
 import at.archistar.crypto.data.InvalidParametersException;
+import at.archistar.crypto.data.KrawczykShare;
 import at.archistar.crypto.data.ReconstructionResult;
 import at.archistar.crypto.data.Share;
+import at.archistar.crypto.execution.ExecutionPolicy;
 import at.archistar.crypto.informationchecking.RabinBenOrRSS;
 import at.archistar.crypto.secretsharing.ReconstructionException;
 import at.archistar.crypto.secretsharing.WeakSecurityException;
@@ -82,4 +84,78 @@ public class TestCSSEngine extends AbstractEngineTest {
             }
         }
     }
+
+    @Test
+    public void recovering_a_complete_large_set_yields_no_shares() throws WeakSecurityException, ReconstructionException {
+        final byte[] large = new byte[4 * 1024 * 1024];
+        Arrays.fill(large, (byte) 23);
+
+        assertThat(algorithm.recover(algorithm.share(large))).isEmpty();
+
+        CryptoEngine krawczyk = CryptoEngineFactory.getKrawczykEngine(4, 3);
+        assertThat(krawczyk.recover(krawczyk.share(large))).isEmpty();
+    }
+
+    @Test
+    public void it_detects_corrupted_large_shares_in_parallel() throws WeakSecurityException, InvalidParametersException, ReconstructionException {
+        algorithm = new CSSEngine(n, k, rng, null, ExecutionPolicy.fixedPool(3, 1024, 1024));
+
+        final byte[] large = new byte[200000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 7);
+        }
+
+        Share[] shares = algorithm.share(large);
+        shares[1].getYValues()[100] ^= 1;
+        shares[4].getYValues()[30000] ^= 1;
+
+        ReconstructionResult result = algorithm.reconstruct(shares);
+        assertThat(result.getData()).isEqualTo(large);
+        assertThat(result.getErrors()).hasSize(2);
+    }
+
+    @Test
+    public void it_uses_the_configured_fingerprint_algorithm() throws WeakSecurityException, InvalidParametersException, ReconstructionException {
+        for (CSSShare.FingerprintAlgorithm algorithm : CSSShare.FingerprintAlgorithm.values()) {
+            CryptoEngine engine = new CSSEngine(n, k, rng, null, ExecutionPolicy.defaultPolicy(),
+                    KrawczykShare.DispersalType.RABIN, algorithm);
+
+            Share[] shares = engine.share(data);
+            assertThat(((CSSShare) shares[0]).getFingerprintAlgorithm()).isEqualTo(algorithm);
+            assertThat(shares[0].getMetaData().get("archistar-css-fingerprint")).isEqualTo(Integer.toString(algorithm.ordinal()));
+
+            shares[2].getYValues()[0] ^= 1;
+            ReconstructionResult result = engine.reconstruct(shares);
+            assertThat(result.getData()).isEqualTo(data);
+            assertThat(result.getErrors()).hasSize(1);
+        }
+    }
+
+    @Test
+    public void updated_shares_are_fingerprinted_again() throws WeakSecurityException, InvalidParametersException, ReconstructionException {
+        final CSSEngine engine = new CSSEngine(n, k, rng, null, ExecutionPolicy.defaultPolicy(),
+                KrawczykShare.DispersalType.RABIN, CSSShare.FingerprintAlgorithm.BLAKE2B);
+        final byte[] replacement = new byte[]{42, 43, 44};
+
+        Share[] shares = engine.update(engine.share(data), 5, replacement);
+        final byte[] expected = data.clone();
+        System.arraycopy(replacement, 0, expected, 5, replacement.length);
+        ReconstructionResult result = engine.reconstruct(shares);
+        assertThat(result.getData()).isEqualTo(expected);
+        assertThat(result.getErrors()).isEmpty();
+
+        shares = engine.append(shares, replacement);
+        final byte[] appended = Arrays.copyOf(expected, expected.length + replacement.length);
+        System.arraycopy(replacement, 0, appended, expected.length, replacement.length);
+        result = engine.reconstruct(shares);
+        assertThat(result.getData()).isEqualTo(appended);
+        assertThat(result.getErrors()).isEmpty();
+    }
+
+    @Test(expected = ReconstructionException.class)
+    public void updating_needs_all_valid_shares() throws ReconstructionException {
+        Share[] shares = algorithm.share(data);
+        shares[1].getYValues()[0] ^= 1;
+        ((CSSEngine) algorithm).update(shares, 0, new byte[1]);
+    }
 }
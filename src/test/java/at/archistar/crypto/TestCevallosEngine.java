@@ -0,0 +1,154 @@
+package at.archistar.crypto;
+
+import at.archistar.crypto.data.BrokenShare;
+import at.archistar.crypto.data.InformationCheckingShare;
+import at.archistar.crypto.data.PSSShare;
+import at.archistar.crypto.data.ReconstructionResult;
+import at.archistar.crypto.data.Share;
+import at.archistar.crypto.data.ShareFactory;
+import at.archistar.crypto.informationchecking.CevallosUSRSS;
+import at.archistar.crypto.random.FakeRandomSource;
+import at.archistar.crypto.random.RandomSource;
+import at.archistar.crypto.secretsharing.ReconstructionException;
+import at.archistar.crypto.secretsharing.WeakSecurityException;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CevallosEngine}
+ */
+public class TestCevallosEngine {
+
+    private final static RandomSource rng = new FakeRandomSource();
+    private final byte data[] = new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+    private final int n = 7;
+    private final int k = 4;
+    private CryptoEngine algorithm;
+
+    @Before
+    public void setup() throws WeakSecurityException {
+        algorithm = CryptoEngineFactory.getCevallosEngine(n, k, rng);
+    }
+
+    @Test
+    public void simpleShareReconstructRound() throws ReconstructionException {
+        Share shares[] = algorithm.share(data);
+        assertThat(shares.length).isEqualTo(n);
+        for (Share s : shares) {
+            assertThat(((PSSShare) s).getICType()).isEqualTo(InformationCheckingShare.ICType.CEVALLOS);
+        }
+
+        Collections.shuffle(Arrays.asList(shares));
+        ReconstructionResult result = algorithm.reconstruct(shares);
+        assertThat(result.getData()).isEqualTo(data);
+        assertThat(result.getErrors()).isEmpty();
+    }
+
+    @Test
+    public void reconstructWithTCorruptedShares() throws ReconstructionException {
+        Share[] shares = algorithm.share(data);
+        for (int i = 0; i < k - 1; i++) {
+            shares[i].getYValues()[0] = (byte) (shares[i].getYValues()[0] + 1);
+        }
+
+        ReconstructionResult result = algorithm.reconstruct(shares);
+        assertThat(result.getData()).isEqualTo(data);
+        assertThat(result.getErrors().size()).isEqualTo(k - 1);
+    }
+
+    @Test
+    public void failWithTooManyCorruptedShares() {
+        Share[] shares = algorithm.share(data);
+        for (int i = 0; i <= n - k; i++) {
+            shares[i].getYValues()[0] = (byte) (shares[i].getYValues()[0] + 1);
+        }
+
+        ReconstructionResult result = algorithm.reconstruct(shares);
+        assertThat(result.isOkay()).isFalse();
+    }
+
+    @Test
+    public void notEnoughShares() throws ReconstructionException {
+        Share[] shares = algorithm.share(data);
+        assertThat(algorithm.reconstruct(Arrays.copyOf(shares, k - 1)).isOkay()).isFalse();
+        assertThat(algorithm.reconstruct(Arrays.copyOf(shares, k)).getData()).isEqualTo(data);
+    }
+
+    @Test
+    public void serialization() throws IOException, ReconstructionException {
+        Share[] shares = algorithm.share(data);
+        Share[] deserialized = new Share[n];
+        for (int i = 0; i < shares.length; i++) {
+            Share des = ShareFactory.deserialize(shares[i].getSerializedData(), shares[i].getMetaData());
+            assertThat(des instanceof BrokenShare).isFalse();
+            assertThat(((PSSShare) des).getICType()).isEqualTo(InformationCheckingShare.ICType.CEVALLOS);
+            deserialized[i] = des;
+        }
+        assertThat(algorithm.reconstruct(deserialized).getData()).isEqualTo(data);
+    }
+
+    @Test
+    public void tagsAreShorterThanWithPSS() throws IOException, WeakSecurityException, NoSuchAlgorithmException {
+        Share cevallos = algorithm.share(data)[0];
+        Share pss = CryptoEngineFactory.getPSSEngine(n, k, rng).share(data)[0];
+        assertThat(cevallos.getSerializedData().length).isLessThan(pss.getSerializedData().length);
+    }
+
+    @Test
+    public void rabinBenOrSharesAreRejected() throws WeakSecurityException, NoSuchAlgorithmException {
+        Share[] pss = CryptoEngineFactory.getPSSEngine(n, k, rng).share(data);
+        assertThat(algorithm.reconstruct(pss).isOkay()).isFalse();
+    }
+
+    /**
+     * t = 3, 16 bytes (128 bit) of data: 2 + 7 + 2 * 128 / 4 + 7 = 80 bit
+     */
+    @Test
+    public void tagsMeetTheSecurityBound() {
+        for (Share s : algorithm.share(data)) {
+            for (byte[] tag : ((PSSShare) s).getMacs().values()) {
+                assertThat(tag.length).isEqualTo(10);
+                assertThat(tag.length).isEqualTo(CevallosUSRSS.computeTagLength(8L * data.length, k - 1, CevallosUSRSS.E));
+            }
+        }
+    }
+
+    @Test
+    public void emptyDataGetsTheTagLengthOfASingleBit() throws ReconstructionException {
+        assertThat(CevallosUSRSS.computeTagLength(0, k - 1, CevallosUSRSS.E))
+                .isEqualTo(CevallosUSRSS.computeTagLength(1, k - 1, CevallosUSRSS.E));
+        assertThat(algorithm.reconstruct(algorithm.share(new byte[0])).getData()).isEqualTo(new byte[0]);
+    }
+
+    @Test
+    public void rabinBenOrSharesAreRejectedByPartialReconstruction() throws WeakSecurityException, NoSuchAlgorithmException, ReconstructionException {
+        Share[] pss = CryptoEngineFactory.getPSSEngine(n, k, rng).share(data);
+        assertThat(algorithm.reconstructPartial(pss, 0).isOkay()).isFalse();
+        assertThat(algorithm.reconstructPartial(algorithm.share(data), 0).getData()).isEqualTo(data);
+    }
+
+    @Test
+    public void recovery() throws ReconstructionException {
+        Share[] shared = algorithm.share(data);
+        shared[2].getYValues()[3] ^= 0x10;
+        Share[] recovered = algorithm.recover(shared);
+        assertThat(algorithm.reconstruct(recovered).getData()).isEqualTo(data);
+    }
+
+    @Test(expected = WeakSecurityException.class)
+    public void itRejectsTooManyShares() throws WeakSecurityException {
+        CryptoEngineFactory.getCevallosEngine(8, 3, rng);
+    }
+
+    @Test(expected = WeakSecurityException.class)
+    public void itRejectsTooFewShares() throws WeakSecurityException {
+        CryptoEngineFactory.getCevallosEngine(8, 5, rng);
+    }
+}
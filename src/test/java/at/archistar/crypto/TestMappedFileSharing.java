@@ -0,0 +1,155 @@
+package at.archistar.crypto;
+
+import at.archistar.crypto.data.ReconstructionResult;
+import at.archistar.crypto.random.FakeRandomSource;
+import at.archistar.crypto.secretsharing.WeakSecurityException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MappedFileSharing}
+ */
+public class TestMappedFileSharing {
+
+    private static final int SEGMENT_SIZE = 1000;
+    private final int n = 8;
+    private final int k = 5;
+
+    private Path folder;
+
+    @Before
+    public void setup() throws IOException {
+        folder = Files.createTempDirectory("archistar");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        Files.walk(folder).sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+    }
+
+    private Path newFile() throws IOException {
+        return Files.createTempFile(folder, "share", ".bin");
+    }
+
+    private Path createInput(int length) throws IOException {
+        byte[] data = new byte[length];
+        new Random(length).nextBytes(data);
+        return Files.write(newFile(), data);
+    }
+
+    private Path[] createOutputs() throws IOException {
+        Path[] outputs = new Path[n];
+        for (int i = 0; i < n; i++) {
+            outputs[i] = newFile();
+        }
+        return outputs;
+    }
+
+    private void shareReconstructRound(CryptoEngine engine, int length) throws IOException {
+        Path input = createInput(length);
+        Path[] shares = createOutputs();
+        MappedFileSharing.share(engine, input, shares, SEGMENT_SIZE);
+
+        Path output = newFile();
+        ReconstructionResult result = engine.reconstruct(shares, output);
+        assertThat(result.isOkay()).isTrue();
+        assertThat(result.getErrors()).isEmpty();
+        assertThat(Files.readAllBytes(output)).isEqualTo(Files.readAllBytes(input));
+    }
+
+    @Test
+    public void shamirFiles() throws IOException, WeakSecurityException {
+        CryptoEngine engine = new ShamirEngine(n, k, new FakeRandomSource());
+        for (int length : new int[]{0, 1, SEGMENT_SIZE, 10 * SEGMENT_SIZE + 500}) {
+            shareReconstructRound(engine, length);
+        }
+    }
+
+    @Test
+    public void krawczykAndCSSFiles() throws IOException, WeakSecurityException {
+        shareReconstructRound(new KrawczykEngine(n, k, new FakeRandomSource()), 20 * SEGMENT_SIZE + 17);
+        shareReconstructRound(new CSSEngine(n, k, new FakeRandomSource()), 9 * SEGMENT_SIZE + 1);
+    }
+
+    @Test
+    public void defaultSegmentSize() throws IOException, WeakSecurityException {
+        CryptoEngine engine = new KrawczykEngine(n, k, new FakeRandomSource());
+        Path input = createInput(MappedFileSharing.DEFAULT_SEGMENT_SIZE + 12345);
+        Path[] shares = createOutputs();
+        engine.share(input, shares);
+
+        Path output = newFile();
+        assertThat(engine.reconstruct(Arrays.copyOf(shares, k), output).isOkay()).isTrue();
+        assertThat(Files.readAllBytes(output)).isEqualTo(Files.readAllBytes(input));
+    }
+
+    @Test
+    public void missingAndTruncatedShareFiles() throws IOException, WeakSecurityException {
+        CryptoEngine engine = new KrawczykEngine(n, k, new FakeRandomSource());
+        Path input = createInput(12 * SEGMENT_SIZE + 3);
+        Path[] shares = createOutputs();
+        MappedFileSharing.share(engine, input, shares, SEGMENT_SIZE);
+
+        /* one share file is gone, one is truncated, one is garbage */
+        Files.delete(shares[0]);
+        byte[] truncated = Files.readAllBytes(shares[1]);
+        Files.write(shares[1], Arrays.copyOf(truncated, truncated.length / 2));
+        Files.write(shares[2], new byte[]{1, 2, 3});
+
+        Path output = newFile();
+        ReconstructionResult result = engine.reconstruct(shares, output);
+        assertThat(result.isOkay()).isTrue();
+        assertThat(result.getErrors()).isNotEmpty();
+        assertThat(Files.readAllBytes(output)).isEqualTo(Files.readAllBytes(input));
+
+        /* too few remaining shares: the output is left untouched */
+        Files.delete(shares[3]);
+        Path failed = Files.write(newFile(), new byte[]{42});
+        assertThat(engine.reconstruct(shares, failed).isOkay()).isFalse();
+        assertThat(Files.readAllBytes(failed)).isEqualTo(new byte[]{42});
+        try (Stream<Path> files = Files.list(folder)) {
+            assertThat(files.noneMatch(p -> p.toString().endsWith(".partial"))).isTrue();
+        }
+    }
+
+    @Test
+    public void shareFilesWithZeroSegmentSizeAreSkipped() throws IOException, WeakSecurityException {
+        CryptoEngine engine = new KrawczykEngine(n, k, new FakeRandomSource());
+        Path input = createInput(3 * SEGMENT_SIZE);
+        Path[] shares = createOutputs();
+        MappedFileSharing.share(engine, input, shares, SEGMENT_SIZE);
+
+        /* segment size is stored after magic, version and original length */
+        byte[] corrupted = Files.readAllBytes(shares[4]);
+        Arrays.fill(corrupted, 16, 20, (byte) 0);
+        Files.write(shares[4], corrupted);
+
+        Path output = newFile();
+        ReconstructionResult result = engine.reconstruct(shares, output);
+        assertThat(result.isOkay()).isTrue();
+        assertThat(result.getErrors().size()).isEqualTo(1);
+        assertThat(Files.readAllBytes(output)).isEqualTo(Files.readAllBytes(input));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void segmentSizeMustBePositive() throws IOException, WeakSecurityException {
+        MappedFileSharing.share(new ShamirEngine(n, k, new FakeRandomSource()), createInput(100), createOutputs(), 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void outputCountMustMatch() throws IOException, WeakSecurityException {
+        MappedFileSharing.share(new ShamirEngine(n, k, new FakeRandomSource()), createInput(100),
+                Arrays.copyOf(createOutputs(), n - 1), SEGMENT_SIZE);
+    }
+}
@@ -0,0 +1,172 @@
+package at.archistar.crypto.compression;
+
+import at.archistar.crypto.CryptoEngine;
+import at.archistar.crypto.CryptoEngineFactory;
+import at.archistar.crypto.data.BrokenShare;
+import at.archistar.crypto.data.KrawczykShare;
+import at.archistar.crypto.data.ReconstructionResult;
+import at.archistar.crypto.data.Share;
+import at.archistar.crypto.data.ShareFactory;
+import at.archistar.crypto.execution.ExecutionPolicy;
+import at.archistar.crypto.random.FakeRandomSource;
+import at.archistar.crypto.secretsharing.ReconstructionException;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+/**
+ * Tests for {@link CompressionStage} and the codecs
+ */
+public class TestCompressionStage {
+
+    private static final CompressionCodec[] CODECS = {new DeflateCodec(), new FastLZCodec()};
+
+    /** log-like (compressible) data */
+    private static byte[] text(int length) {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; sb.length() < length; i++) {
+            sb.append("2026-10-19 12:").append(i % 60).append(" INFO request ").append(i * 7919 % 1000)
+                    .append(" served in ").append(i % 13).append("ms\n");
+        }
+        return Arrays.copyOf(sb.toString().getBytes(StandardCharsets.US_ASCII), length);
+    }
+
+    private static byte[] random(int length) {
+        final byte[] result = new byte[length];
+        new Random(42).nextBytes(result);
+        return result;
+    }
+
+    @Test
+    public void codecsRoundTrip() throws IOException {
+        final byte[][] inputs = {
+                new byte[0], new byte[]{7}, text(300), text(FastLZCodec.BLOCK_SIZE), text(3 * FastLZCodec.BLOCK_SIZE + 17),
+                random(FastLZCodec.BLOCK_SIZE + 5), new byte[200000]
+        };
+        for (CompressionCodec codec : CODECS) {
+            for (byte[] input : inputs) {
+                final CompressionStage stage = new CompressionStage(codec, 1);
+                final CompressionStage.CompressedData compressed = stage.compress(input);
+                assertThat(CompressionStage.decompress(compressed.getCodecId(), compressed.getData(), input.length))
+                        .isEqualTo(input);
+            }
+        }
+    }
+
+    @Test
+    public void compressibleDataShrinks() {
+        final byte[] input = text(256 * 1024);
+        for (CompressionCodec codec : CODECS) {
+            final CompressionStage.CompressedData compressed = new CompressionStage(codec).compress(input);
+            assertThat(compressed.getCodecId()).isEqualTo(codec.getId());
+            assertThat(compressed.getData().length).isLessThan(input.length / 2);
+        }
+    }
+
+    @Test
+    public void incompressibleDataIsSkipped() {
+        final byte[] input = random(256 * 1024);
+        for (CompressionCodec codec : CODECS) {
+            final CompressionStage stage = new CompressionStage(codec);
+            assertThat(stage.isCompressible(input)).isFalse();
+            final CompressionStage.CompressedData compressed = stage.compress(input);
+            assertThat(compressed.getCodecId()).isEqualTo(CompressionStage.NONE);
+            assertThat(compressed.getData()).isSameAs(input);
+        }
+    }
+
+    @Test
+    public void corruptedDataIsDetected() {
+        for (CompressionCodec codec : CODECS) {
+            final byte[] compressed = new CompressionStage(codec).compress(text(100000)).getData();
+            try {
+                CompressionStage.decompress(codec.getId(), Arrays.copyOf(compressed, compressed.length / 2), 100000);
+                fail("truncated data was accepted by " + codec);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void inflationStopsAtTheStoredLength() {
+        final byte[] bomb = new CompressionStage(new DeflateCodec()).compress(new byte[1024 * 1024]).getData();
+        for (int length : new int[]{0, 1000, 1024 * 1024 - 1, 1024 * 1024 + 1}) {
+            try {
+                CompressionStage.decompress(DeflateCodec.ID, bomb, length);
+                fail("data was inflated to a different length than " + length);
+            } catch (IOException e) {
+                // expected
+            }
+        }
+    }
+
+    private static void roundTrip(CryptoEngine engine, byte[] data) throws IOException, ReconstructionException {
+        final Share[] shares = engine.share(data);
+        assertThat(shares[0].getYValues().length).isLessThan(data.length / 2);
+
+        final Share[] deserialized = new Share[shares.length];
+        for (int i = 0; i < shares.length; i++) {
+            deserialized[i] = ShareFactory.deserialize(shares[i].getSerializedData(), shares[i].getMetaData());
+            assertThat(deserialized[i] instanceof BrokenShare).isFalse();
+            assertThat(deserialized[i].getMetaData().get("archistar-compression")).isEqualTo(Integer.toString(FastLZCodec.ID));
+            assertThat(deserialized[i].getMetaData().get("archistar-uncompressed-length")).isEqualTo(Integer.toString(data.length));
+        }
+
+        final ReconstructionResult result = engine.reconstruct(deserialized);
+        assertThat(result.isOkay()).isTrue();
+        assertThat(result.getData()).isEqualTo(data);
+
+        assertThat(engine.reconstructPartial(deserialized, 0).isOkay()).isFalse();
+
+        /* shares claiming a smaller uncompressed length are not inflated beyond it */
+        final Share[] forged = new Share[shares.length];
+        for (int i = 0; i < shares.length; i++) {
+            final Map<String, String> metaData = shares[i].getMetaData();
+            metaData.put("archistar-uncompressed-length", Integer.toString(data.length / 4));
+            forged[i] = ShareFactory.deserialize(shares[i].getSerializedData(), metaData);
+        }
+        assertThat(engine.reconstruct(forged).isOkay()).isFalse();
+
+        final Map<String, String> missing = shares[0].getMetaData();
+        missing.remove("archistar-uncompressed-length");
+        assertThat(ShareFactory.deserialize(shares[0].getSerializedData(), missing) instanceof BrokenShare).isTrue();
+    }
+
+    @Test
+    public void enginesCompressBeforeSharing() throws Exception {
+        final CompressionStage stage = new CompressionStage(new FastLZCodec());
+        final byte[] data = text(64 * 1024);
+
+        roundTrip(CryptoEngineFactory.getPSSEngine(5, 3, new FakeRandomSource(), ExecutionPolicy.defaultPolicy(), stage), data);
+
+        final CryptoEngine krawczyk = CryptoEngineFactory.getKrawczykEngine(5, 3, new FakeRandomSource(), null,
+                ExecutionPolicy.defaultPolicy(), KrawczykShare.DispersalType.RABIN, stage);
+        roundTrip(krawczyk, data);
+
+        final Share[] shares = krawczyk.share(data);
+        final Share[] recovered = krawczyk.recover(Arrays.copyOf(shares, 3));
+        for (Share s : recovered) {
+            assertThat(s).isEqualTo(shares[s.getId() - 1]);
+        }
+    }
+
+    @Test
+    public void enginesShareNullAsEmptyData() throws Exception {
+        final CompressionStage stage = new CompressionStage(new FastLZCodec());
+
+        final CryptoEngine pss = CryptoEngineFactory.getPSSEngine(5, 3, new FakeRandomSource(), ExecutionPolicy.defaultPolicy(), stage);
+        assertThat(pss.reconstruct(pss.share(null)).getData()).isEqualTo(new byte[0]);
+
+        final CryptoEngine krawczyk = CryptoEngineFactory.getKrawczykEngine(5, 3, new FakeRandomSource(), null,
+                ExecutionPolicy.defaultPolicy(), KrawczykShare.DispersalType.RABIN, stage);
+        assertThat(krawczyk.reconstruct(krawczyk.share(null)).getData()).isEqualTo(new byte[0]);
+    }
+}
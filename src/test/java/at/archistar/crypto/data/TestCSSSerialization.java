@@ -0,0 +1,25 @@
+package at.archistar.crypto.data;
+
+import org.junit.Before;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Perform serialization tests upon CSS shares (with a non-default fingerprint algorithm)
+ */
+public class TestCSSSerialization extends AbstractSerializationTest {
+    @Before
+    public void setupData() throws InvalidParametersException, IOException {
+        final byte[] key = {1,2,3,4,5,6,7,8,9,10,11,12,13,14,15,16,17,18,19,20,
+                21,22,23,24,25,26,27,28,29,30,31,32};
+        final Map<Byte, byte[]> fingerprints = new HashMap<>();
+        fingerprints.put((byte) 7, new byte[]{4, 5, 6});
+        fingerprints.put((byte) 8, new byte[]{7, 8, 9});
+        share = new CSSShare((byte) 7, new byte[]{1,2,3}, fingerprints, 10, 1, key,
+                KrawczykShare.DispersalType.RABIN, CSSShare.FingerprintAlgorithm.BLAKE2B_TREE);
+        metaData = share.getMetaData();
+        serializedShare = share.getSerializedData();
+    }
+}
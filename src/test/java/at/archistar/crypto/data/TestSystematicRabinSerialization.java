@@ -0,0 +1,28 @@
+package at.archistar.crypto.data;
+
+import java.io.IOException;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Perform serialization tests upon systematic Reed-Solomon shares
+ */
+public class TestSystematicRabinSerialization extends AbstractSerializationTest {
+    @Before
+    public void setupData() throws InvalidParametersException, IOException {
+        share = new SystematicRabinShare((byte) 7, new byte[]{1,2,3}, 10);
+        metaData = share.getMetaData();
+        serializedShare = share.getSerializedData();
+    }
+
+    /**
+     * Systematic shares must not be mistaken for (non-systematic) Rabin shares
+     */
+    @Test
+    public void itKeepsTheShareType() {
+        Share s = ShareFactory.deserialize(serializedShare, metaData);
+        assertThat(s).isExactlyInstanceOf(SystematicRabinShare.class);
+    }
+}
@@ -51,6 +51,8 @@ public class PerformanceTest {
         Object[][] data = new Object[][]{
                 {"Rabin/Erasure mit GF256", secrets256, new RabinIDS(n, k, new ErasureDecoderFactory())},
                 {"Rabin/BW mit GF256", secrets256, new RabinIDS(n, k, new BerlekampWelchDecoderFactory())},
+                {"Rabin/Adaptive mit GF256", secrets256, new RabinIDS(n, k, new AdaptiveDecoderFactory())},
+                {"Rabin/ErrorLocating mit GF256", secrets256, new RabinIDS(n, k, new ErrorLocatingDecoderFactory())},
         };
         return Arrays.asList(data);
     }
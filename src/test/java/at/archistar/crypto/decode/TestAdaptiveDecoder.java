@@ -0,0 +1,73 @@
+package at.archistar.crypto.decode;
+
+import at.archistar.crypto.data.Share;
+import at.archistar.crypto.math.gf256.GF256;
+import at.archistar.crypto.secretsharing.ReconstructionException;
+import at.archistar.crypto.secretsharing.RabinIDS;
+import at.archistar.crypto.secretsharing.WeakSecurityException;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link AdaptiveDecoder}
+ */
+public class TestAdaptiveDecoder {
+
+    private static final int[] X = {1, 2, 3, 4, 5, 6, 7};
+
+    private static final int[] COEFFS = {17, 42, 99};
+
+    private static int[] evaluate() {
+        final int[] y = new int[X.length];
+        for (int i = 0; i < X.length; i++) {
+            for (int j = COEFFS.length - 1; j >= 0; j--) {
+                y[i] = GF256.add(GF256.mult(y[i], X[i]), COEFFS[j]);
+            }
+        }
+        return y;
+    }
+
+    @Test
+    public void itDecodesCorrectColumnsWithoutFallback() throws UnsolvableException {
+        AdaptiveDecoder decoder = new AdaptiveDecoder(X, COEFFS.length);
+        assertThat(decoder.decode(evaluate(), 0)).isEqualTo(COEFFS);
+        assertThat(decoder.getFallbackCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void itCorrectsErrorsInTheErasurePart() throws UnsolvableException {
+        AdaptiveDecoder decoder = new AdaptiveDecoder(X, COEFFS.length);
+        int[] y = evaluate();
+        y[0] ^= 0x33;
+        y[2] ^= 0x01;
+        assertThat(decoder.decode(y, 2)).isEqualTo(COEFFS);
+        assertThat(decoder.getFallbackCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void itCorrectsErrorsInTheCheckedPart() throws UnsolvableException {
+        AdaptiveDecoder decoder = new AdaptiveDecoder(X, COEFFS.length);
+        int[] y = evaluate();
+        y[6] ^= 0xff;
+        assertThat(decoder.decode(y, 1)).isEqualTo(COEFFS);
+        assertThat(decoder.getFallbackCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void rabinReconstructsDespiteCorruptedShare() throws WeakSecurityException, ReconstructionException {
+        RabinIDS rabin = new RabinIDS(8, 4, new AdaptiveDecoderFactory());
+        final byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 3);
+        }
+
+        Share[] shares = rabin.share(data);
+        for (int i = 0; i < shares[0].getYValues().length; i += 7) {
+            shares[0].getYValues()[i] ^= 0x5a;
+            shares[5].getYValues()[i] ^= 0x01;
+        }
+
+        assertThat(rabin.reconstruct(shares)).isEqualTo(data);
+    }
+}
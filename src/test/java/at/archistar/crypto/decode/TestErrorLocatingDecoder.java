@@ -0,0 +1,74 @@
+package at.archistar.crypto.decode;
+
+import at.archistar.crypto.data.Share;
+import at.archistar.crypto.math.gf256.GF256;
+import at.archistar.crypto.secretsharing.RabinIDS;
+import at.archistar.crypto.secretsharing.ReconstructionException;
+import at.archistar.crypto.secretsharing.WeakSecurityException;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ErrorLocatingDecoder}
+ */
+public class TestErrorLocatingDecoder {
+
+    private static final int[] X = {3, 9, 27, 81, 243, 5, 15};
+
+    private static final int K = 3;
+
+    @Test
+    public void itIdentifiesFaultySharesOnce() throws UnsolvableException {
+        final ErrorLocatingDecoder decoder = new ErrorLocatingDecoderFactory().createDecoder(X, K);
+
+        for (int column = 0; column < 1000; column++) {
+            final int[] coeffs = {column & 0xff, (column * 7) & 0xff, (column * 13) & 0xff};
+            final int[] y = new int[X.length];
+            for (int i = 0; i < X.length; i++) {
+                y[i] = GF256.evaluateAt(coeffs, X[i]);
+            }
+            /* share 1 is corrupted everywhere, share 4 only from column 500 onwards */
+            y[1] ^= 0x42;
+            if (column >= 500) {
+                y[4] ^= 0x17;
+            }
+
+            assertThat(decoder.decode(y, 0)).isEqualTo(coeffs);
+        }
+
+        assertThat(decoder.getFaultyShares()).isEqualTo(new int[]{9, 243});
+        assertThat(decoder.getLocatedColumns()).isEqualTo(2);
+    }
+
+    @Test
+    public void correctDataNeedsNoErrorLocation() throws UnsolvableException {
+        final ErrorLocatingDecoder decoder = new ErrorLocatingDecoder(X, K);
+        final int[] coeffs = {1, 2, 3};
+        final int[] y = new int[X.length];
+        for (int i = 0; i < X.length; i++) {
+            y[i] = GF256.evaluateAt(coeffs, X[i]);
+        }
+
+        assertThat(decoder.decode(y, 0)).isEqualTo(coeffs);
+        assertThat(decoder.getFaultyShares()).isEmpty();
+        assertThat(decoder.getLocatedColumns()).isEqualTo(0);
+    }
+
+    @Test
+    public void rabinReconstructsDespiteCorruptedShares() throws WeakSecurityException, ReconstructionException {
+        RabinIDS rabin = new RabinIDS(8, 4, new ErrorLocatingDecoderFactory());
+        final byte[] data = new byte[100000];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 5);
+        }
+
+        Share[] shares = rabin.share(data);
+        for (int i = 0; i < shares[0].getYValues().length; i++) {
+            shares[2].getYValues()[i] ^= 0x11;
+            shares[6].getYValues()[i] = 0;
+        }
+
+        assertThat(rabin.reconstruct(shares)).isEqualTo(data);
+    }
+}
@@ -0,0 +1,114 @@
+package at.archistar.crypto.decode;
+
+import at.archistar.crypto.math.gf256.GF256;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link GaoDecoder}
+ */
+public class TestGaoDecoder {
+
+    @Test
+    public void testErrorDecodeAll4Correct() throws UnsolvableException {
+        int[] x = {17, 114, 98, 213};
+        int[] y = {153, 174, 168, 62};
+        int[] expected = {117, 234};
+
+        GaoDecoder decoder = new GaoDecoder(x, 2);
+        assertThat(decoder.decode(y, 0)).isEqualTo(expected);
+        assertThat(decoder.locateErrors(new int[2], y)).isEmpty();
+    }
+
+    @Test
+    public void testErrorDecode41YWrong() throws UnsolvableException {
+        int[] x = {17, 114, 98, 213};
+        int[] y = {153, 174, 244, 62};
+        int[] expected = {117, 234};
+
+        GaoDecoder decoder = new GaoDecoder(x, 2);
+        int[] target = new int[2];
+        assertThat(decoder.locateErrors(target, y)).isEqualTo(new int[]{2});
+        assertThat(target).isEqualTo(expected);
+    }
+
+    @Test(expected = UnsolvableException.class)
+    public void tooManyErrorsAreDetected() throws UnsolvableException {
+        int[] x = {17, 114, 98, 213};
+        int[] y = {1, 174, 244, 62};
+
+        new GaoDecoder(x, 2).decode(y, 1);
+    }
+
+    @Test
+    public void itLocatesRandomErrors() throws UnsolvableException {
+        final Random rng = new Random(42);
+        final int n = 12;
+        final int k = 4;
+        final int[] x = new int[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = i + 1;
+        }
+        final GaoDecoder decoder = new GaoDecoder(x, k);
+
+        for (int round = 0; round < 200; round++) {
+            final int[] coeffs = new int[k];
+            for (int i = 0; i < k; i++) {
+                coeffs[i] = rng.nextInt(256);
+            }
+            final int[] y = new int[n];
+            for (int i = 0; i < n; i++) {
+                y[i] = GF256.evaluateAt(coeffs, x[i]);
+            }
+
+            final int errors = rng.nextInt((n - k) / 2 + 1);
+            final boolean[] wrong = new boolean[n];
+            for (int e = 0; e < errors; e++) {
+                int pos;
+                do {
+                    pos = rng.nextInt(n);
+                } while (wrong[pos]);
+                wrong[pos] = true;
+                y[pos] ^= 1 + rng.nextInt(255);
+            }
+
+            final int[] target = new int[k];
+            final int[] located = decoder.locateErrors(target, y);
+            assertThat(target).isEqualTo(coeffs);
+            assertThat(located.length).isEqualTo(errors);
+            for (int pos : located) {
+                assertThat(wrong[pos]).isTrue();
+            }
+        }
+    }
+
+    @Test
+    public void sharedInstancesCanBeUsedConcurrently() throws Exception {
+        final int[] x = {17, 114, 98, 213};
+        final int[] y = {153, 174, 244, 62};
+        final int[] expected = {117, 234};
+        final GaoDecoder decoder = new GaoDecoder(x, 2);
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<int[]>> results = new ArrayList<>();
+            for (int i = 0; i < 100; i++) {
+                final int[] input = i % 2 == 0 ? y : new int[]{153, 174, 168, 62};
+                results.add(executor.submit(() -> decoder.decode(input, 1)));
+            }
+            for (Future<int[]> result : results) {
+                assertThat(result.get()).isEqualTo(expected);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package at.archistar.crypto.digest;
+
+import at.archistar.crypto.execution.ExecutionPolicy;
+import org.bouncycastle.util.encoders.Hex;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for the fingerprint helpers
+ */
+public class TestFingerprintHelpers {
+
+    private static byte[] largeData() {
+        final byte[] data = new byte[5 * TreeFingerprintHelper.CHUNK_SIZE + 123];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 13);
+        }
+        return data;
+    }
+
+    @Test
+    public void sha256MatchesKnownAnswer() throws NoSuchAlgorithmException {
+        final byte[] fp = new JavaFingerprintHelper("SHA-256").fingerprint("abc".getBytes(StandardCharsets.US_ASCII));
+        assertThat(Hex.toHexString(fp)).isEqualTo("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad");
+    }
+
+    @Test
+    public void blake2bMatchesKnownAnswer() {
+        final byte[] fp = new BCBlake2bFingerprintHelper().fingerprint("abc".getBytes(StandardCharsets.US_ASCII));
+        assertThat(Hex.toHexString(fp)).isEqualTo("bddd813c634239723171ef3fee98579b94964e3bb1cb3e427262c8c068d52319");
+    }
+
+    @Test
+    public void treeHashDoesNotDependOnExecutionPolicy() {
+        final byte[] data = largeData();
+        final byte[] sequential = new TreeFingerprintHelper(ExecutionPolicy.sequential()).fingerprint(data);
+        final byte[] parallel = new TreeFingerprintHelper(ExecutionPolicy.fixedPool(3, 1024, 1024)).fingerprint(data);
+        assertThat(parallel).isEqualTo(sequential);
+        assertThat(sequential.length).isEqualTo(32);
+    }
+
+    @Test
+    public void treeHashDetectsModifications() {
+        final FingerprintHelper helper = new TreeFingerprintHelper(ExecutionPolicy.defaultPolicy());
+        final byte[] data = largeData();
+        final byte[] original = helper.fingerprint(data);
+
+        data[3 * TreeFingerprintHelper.CHUNK_SIZE + 7] ^= 1;
+        assertThat(helper.fingerprint(data)).isNotEqualTo(original);
+        data[3 * TreeFingerprintHelper.CHUNK_SIZE + 7] ^= 1;
+
+        assertThat(helper.fingerprint(Arrays.copyOf(data, data.length + 1))).isNotEqualTo(original);
+        assertThat(helper.fingerprint(new byte[0])).isNotEqualTo(helper.fingerprint(new byte[1]));
+    }
+
+    @Test
+    public void treeHashDiffersFromPlainBlake2b() {
+        final byte[] data = "abc".getBytes(StandardCharsets.US_ASCII);
+        assertThat(new TreeFingerprintHelper(ExecutionPolicy.sequential()).fingerprint(data))
+                .isNotEqualTo(new BCBlake2bFingerprintHelper().fingerprint(data));
+    }
+}
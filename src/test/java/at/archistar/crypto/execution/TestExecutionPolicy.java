@@ -0,0 +1,145 @@
+package at.archistar.crypto.execution;
+
+import at.archistar.crypto.decode.ErasureDecoderFactory;
+import at.archistar.crypto.random.FakeRandomSource;
+import at.archistar.crypto.secretsharing.RabinIDS;
+import at.archistar.crypto.secretsharing.ReconstructionException;
+import at.archistar.crypto.secretsharing.ShamirPSS;
+import at.archistar.crypto.secretsharing.WeakSecurityException;
+import at.archistar.crypto.data.Share;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+/**
+ * Tests all execution policies (with a tiny split size, so that work is split)
+ */
+@RunWith(value = Parameterized.class)
+public class TestExecutionPolicy {
+
+    private final ExecutionPolicy policy;
+
+    public TestExecutionPolicy(ExecutionPolicy policy) {
+        this.policy = policy;
+    }
+
+    @Parameterized.Parameters
+    public static Collection<Object[]> data() {
+        Object[][] data = new Object[][]{
+                {ExecutionPolicy.sequential()},
+                {ExecutionPolicy.forkJoin(new ForkJoinPool(3), 7, 0)},
+                {ExecutionPolicy.fixedPool(3, 7, 0)}
+        };
+        return Arrays.asList(data);
+    }
+
+    @Test
+    public void every_column_is_processed_exactly_once() {
+        final int participants = 5;
+        final int length = 100;
+        final AtomicIntegerArray count = new AtomicIntegerArray(participants * length);
+
+        policy.run(participants, length, (p, from, to) -> {
+            for (int i = from; i < to; i++) {
+                count.incrementAndGet(p * length + i);
+            }
+        });
+
+        for (int i = 0; i < count.length(); i++) {
+            assertThat(count.get(i)).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void empty_work_is_a_no_op() {
+        final AtomicIntegerArray count = new AtomicIntegerArray(1);
+
+        policy.run(0, 1 << 20, (p, from, to) -> count.incrementAndGet(0));
+        policy.run(3, 0, (p, from, to) -> count.addAndGet(0, to - from));
+
+        assertThat(count.get(0)).isEqualTo(0);
+    }
+
+    @Test
+    public void map_keeps_order() {
+        List<Integer> input = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+        assertThat(policy.map(input, i -> i * 2)).isEqualTo(Arrays.asList(2, 4, 6, 8, 10, 12, 14, 16, 18, 20));
+    }
+
+    @Test
+    public void small_inputs_are_mapped_within_the_calling_thread() {
+        final Thread caller = Thread.currentThread();
+        final ExecutionPolicy large = ExecutionPolicy.fixedPool(3, 7, 1000);
+        List<Integer> input = Arrays.asList(1, 2, 3, 4);
+
+        assertThat(large.map(input, 999, i -> Thread.currentThread() == caller)).isEqualTo(Arrays.asList(true, true, true, true));
+        assertThat(policy.map(input, 1000, i -> i * 2)).isEqualTo(Arrays.asList(2, 4, 6, 8));
+    }
+
+    @Test
+    public void exceptions_are_passed_to_the_caller() {
+        try {
+            policy.run(2, 100, (p, from, to) -> {
+                if (p == 1 && from == 0) {
+                    throw new IllegalStateException("expected");
+                }
+            });
+            fail("exception was swallowed");
+        } catch (IllegalStateException e) {
+            /* fork-join might re-create the exception within the calling thread */
+            assertThat(e.getMessage()).contains("expected");
+        }
+    }
+
+    @Test
+    public void errors_are_passed_to_the_caller() {
+        for (int round = 0; round < 20; round++) {
+            try {
+                policy.run(2, 100, (p, from, to) -> {
+                    if (p == 1 && from == 0) {
+                        throw new Error("expected");
+                    }
+                });
+                fail("error was swallowed");
+            } catch (Error e) {
+                assertThat(e.getMessage()).contains("expected");
+            }
+        }
+    }
+
+    @Test
+    public void rabin_output_does_not_depend_upon_policy() throws WeakSecurityException, ReconstructionException {
+        final byte[] data = new byte[1003];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 7);
+        }
+
+        Share[] expected = new RabinIDS(7, 3, new ErasureDecoderFactory(), ExecutionPolicy.sequential()).share(data);
+        RabinIDS rabin = new RabinIDS(7, 3, new ErasureDecoderFactory(), policy);
+        Share[] shares = rabin.share(data);
+
+        for (int i = 0; i < shares.length; i++) {
+            assertThat(shares[i].getYValues()).isEqualTo(expected[i].getYValues());
+        }
+        assertThat(rabin.reconstruct(Arrays.copyOfRange(shares, 2, 5))).isEqualTo(data);
+    }
+
+    @Test
+    public void shamir_round_trip() throws WeakSecurityException, ReconstructionException {
+        final byte[] data = new byte[1003];
+        Arrays.fill(data, (byte) 42);
+
+        ShamirPSS shamir = new ShamirPSS(7, 3, new FakeRandomSource(), new ErasureDecoderFactory(), policy);
+        Share[] shares = shamir.share(data);
+        assertThat(shamir.reconstruct(Arrays.copyOfRange(shares, 4, 7))).isEqualTo(data);
+    }
+}
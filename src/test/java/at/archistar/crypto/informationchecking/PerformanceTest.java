@@ -1,6 +1,7 @@
 package at.archistar.crypto.informationchecking;
 
 import at.archistar.TestHelper;
+import at.archistar.crypto.CevallosEngine;
 import at.archistar.crypto.CryptoEngineFactory;
 import at.archistar.crypto.PSSEngine;
 import at.archistar.crypto.data.InformationCheckingShare;
@@ -56,6 +57,7 @@ public class PerformanceTest {
         MacHelper mac = new JavaMacHelper("HMacSHA256");
         MacHelper macPoly1305 = new BCPoly1305MacHelper();
         PSSEngine secretSharing = CryptoEngineFactory.getPSSEngine(n, k, rng);
+        CevallosEngine cevallosSharing = CryptoEngineFactory.getCevallosEngine(n, k, rng);
 
         InformationCheckingShare[][] shares = new InformationCheckingShare[][]{
                 secretSharing.share(createData(4 * 1024)),
@@ -64,9 +66,17 @@ public class PerformanceTest {
                 secretSharing.share(createData(4096 * 1024)),
         };
 
+        /* CevallosUSRSS only accepts shares created for Cevallos information checking */
+        InformationCheckingShare[][] cevallosShares = new InformationCheckingShare[][]{
+                cevallosSharing.share(createData(4 * 1024)),
+                cevallosSharing.share(createData(128 * 1024)),
+                cevallosSharing.share(createData(512 * 1024)),
+                cevallosSharing.share(createData(4096 * 1024)),
+        };
+
         Object[][] data = new Object[][]{
-                {shares, new CevallosUSRSS(n, k, mac, rng)},
-                {shares, new CevallosUSRSS(n, k, macPoly1305, rng)},
+                {cevallosShares, new CevallosUSRSS(n, k, mac, rng)},
+                {cevallosShares, new CevallosUSRSS(n, k, macPoly1305, rng)},
                 {shares, new RabinBenOrRSS(k, mac, rng)},
                 {shares, new RabinBenOrRSS(k, macPoly1305, rng)}
         };
@@ -4,6 +4,7 @@ import at.archistar.crypto.informationchecking.CevallosUSRSS;
 
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 
@@ -22,4 +23,36 @@ public class BCShortenedMacTest {
 
         assertThat(mac.verifyMAC(data, hash, key)).isEqualTo(true);
     }
+
+    @Test
+    public void theKeyIsActuallyUsed() throws NoSuchAlgorithmException, InvalidKeyException {
+        byte[] data = new byte[1024];
+        byte[] key = new byte[128];
+
+        MacHelper mac = new BCShortenedMacHelper(new BCPoly1305MacHelper(), CevallosUSRSS.computeTagLength(data.length, 1, CevallosUSRSS.E));
+
+        byte[] hash = mac.computeMAC(data, key);
+        key[0] = 1;
+        assertThat(mac.verifyMAC(data, hash, key)).isEqualTo(false);
+    }
+
+    @Test
+    public void longTagsUseIndependentPoly1305Keys() throws NoSuchAlgorithmException, InvalidKeyException {
+        byte[] data = new byte[1024];
+        BCShortenedMacHelper mac = new BCShortenedMacHelper(new BCPoly1305MacHelper(), 20);
+        assertThat(mac.keySize()).isEqualTo(64);
+
+        byte[] key = new byte[64];
+        for (int i = 0; i < key.length; i++) {
+            key[i] = (byte) (i * 7 + 1);
+        }
+        byte[] tag = mac.computeMAC(data, key);
+        assertThat(tag.length).isEqualTo(20);
+
+        /* the 32 key bytes of the second tag are used for the tag's last 4 bytes */
+        key[48] ^= 1;
+        byte[] other = mac.computeMAC(data, key);
+        assertThat(Arrays.copyOf(other, 16)).isEqualTo(Arrays.copyOf(tag, 16));
+        assertThat(Arrays.copyOfRange(other, 16, 20)).isNotEqualTo(Arrays.copyOfRange(tag, 16, 20));
+    }
 }
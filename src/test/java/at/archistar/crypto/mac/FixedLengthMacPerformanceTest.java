@@ -53,6 +53,7 @@ public class FixedLengthMacPerformanceTest {
                 {key, data, new JavaMacHelper("HMacSHA256")},
                 {key, data, new BCMacHelper(new HMac(new SHA256Digest()), key.length)},
                 {key, data, new BCPoly1305MacHelper()},
+                {key, data, new PolyHash(key.length / 2)},
         };
 
         return Arrays.asList(params);
@@ -1,7 +1,10 @@
 package at.archistar.crypto.mac;
 
+import java.math.BigInteger;
 import java.security.InvalidKeyException;
 import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 
@@ -9,6 +12,46 @@ import org.junit.Test;
 
 public class PolyHashTest {
 
+    private static final BigInteger P64 = BigInteger.ONE.shiftLeft(64).or(BigInteger.valueOf(0x1B));
+
+    private static final BigInteger P128 = BigInteger.ONE.shiftLeft(128).or(BigInteger.valueOf(0x87));
+
+    /** bit-by-bit multiplication modulo p */
+    private static BigInteger multiply(BigInteger a, BigInteger b, BigInteger p) {
+        final int width = p.bitLength() - 1;
+        BigInteger result = BigInteger.ZERO;
+        for (int i = 0; i < width; i++) {
+            if (b.testBit(i)) {
+                result = result.xor(a);
+            }
+            a = a.shiftLeft(1);
+            if (a.testBit(width)) {
+                a = a.xor(p);
+            }
+        }
+        return result;
+    }
+
+    /** plain Horner's scheme as reference */
+    private static byte[] reference(byte[] data, byte[] key, int keylength) {
+        final BigInteger p = keylength == 8 ? P64 : P128;
+        final BigInteger h = new BigInteger(1, Arrays.copyOf(key, keylength));
+        final BigInteger pad = new BigInteger(1, Arrays.copyOfRange(key, keylength, key.length));
+
+        BigInteger acc = BigInteger.ZERO;
+        for (int off = 0; off < data.length; off += keylength) {
+            final byte[] word = Arrays.copyOf(Arrays.copyOfRange(data, off, Math.min(data.length, off + keylength)), keylength);
+            acc = multiply(acc.xor(new BigInteger(1, word)), h, p);
+        }
+        acc = multiply(acc.xor(BigInteger.valueOf(8L * data.length)), h, p).xor(pad);
+
+        final byte[] raw = acc.toByteArray();
+        final byte[] result = new byte[keylength];
+        final int len = Math.min(raw.length, keylength);
+        System.arraycopy(raw, raw.length - len, result, keylength - len, len);
+        return result;
+    }
+
     @Test
     public void testHashVerifyCycle() throws NoSuchAlgorithmException, InvalidKeyException {
         byte[] data = new byte[1024];
@@ -28,4 +71,48 @@ public class PolyHashTest {
         assertThat(hash.length).isEqualTo(8);
         assertThat(mac.verifyMAC(data, hash, key)).isEqualTo(true);
     }
+
+    @Test
+    public void itMatchesTheReferenceImplementation() throws InvalidKeyException {
+        final Random rng = new Random(42);
+        final int[] lengths = {0, 1, 7, 8, 9, 15, 16, 17, 100, 511, 512, 513, 1024, 1031, 4096 + 5};
+
+        for (int keylength : new int[]{8, 16}) {
+            final PolyHash mac = new PolyHash(keylength);
+            for (int length : lengths) {
+                final byte[] data = new byte[length];
+                final byte[] key = new byte[mac.keySize()];
+                rng.nextBytes(data);
+                rng.nextBytes(key);
+
+                assertThat(mac.computeMAC(data, key)).isEqualTo(reference(data, key, keylength));
+            }
+        }
+    }
+
+    @Test
+    public void itDetectsModifications() throws InvalidKeyException {
+        final Random rng = new Random(7);
+        for (int keylength : new int[]{8, 16}) {
+            final PolyHash mac = new PolyHash(keylength);
+            final byte[] data = new byte[3000];
+            final byte[] key = new byte[mac.keySize()];
+            rng.nextBytes(data);
+            rng.nextBytes(key);
+            final byte[] tag = mac.computeMAC(data, key);
+
+            data[1234] ^= 1;
+            assertThat(mac.verifyMAC(data, tag, key)).isFalse();
+            data[1234] ^= 1;
+
+            /* trailing zeros change the length word */
+            assertThat(mac.verifyMAC(Arrays.copyOf(data, data.length + 1), tag, key)).isFalse();
+            assertThat(mac.verifyMAC(data, tag, key)).isTrue();
+        }
+    }
+
+    @Test(expected = InvalidKeyException.class)
+    public void itRejectsWrongKeySizes() throws InvalidKeyException {
+        new PolyHash(16).computeMAC(new byte[10], new byte[16]);
+    }
 }
@@ -0,0 +1,158 @@
+package at.archistar.crypto.mac;
+
+import at.archistar.crypto.informationchecking.CevallosUSRSS;
+
+import java.security.InvalidKeyException;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+import org.junit.Test;
+
+public class ShortTagPolyHashTest {
+
+    private final Random rng = new Random(3);
+
+    @Test
+    public void itProducesTagsOfTheRequestedLength() throws InvalidKeyException {
+        final byte[] data = new byte[1000];
+        rng.nextBytes(data);
+
+        for (int tagLength = 1; tagLength <= ShortTagPolyHash.MAX_TAG_LENGTH; tagLength++) {
+            final ShortTagPolyHash mac = new ShortTagPolyHash(tagLength);
+            final byte[] key = new byte[mac.keySize()];
+            rng.nextBytes(key);
+
+            final byte[] tag = mac.computeMAC(data, key);
+            assertThat(tag.length).isEqualTo(tagLength);
+            assertThat(mac.verifyMAC(data, tag, key)).isTrue();
+
+            data[17] ^= 0x40;
+            assertThat(mac.verifyMAC(data, tag, key)).isFalse();
+            data[17] ^= 0x40;
+        }
+    }
+
+    @Test
+    public void itTruncatesTheFullPolyHash() throws InvalidKeyException {
+        final byte[] data = new byte[777];
+        rng.nextBytes(data);
+
+        final PolyHash full = new PolyHash(8);
+        final byte[] key = new byte[full.keySize()];
+        rng.nextBytes(key);
+        final byte[] expected = full.computeMAC(data, key);
+
+        assertThat(new ShortTagPolyHash(8).computeMAC(data, key)).isEqualTo(expected);
+
+        /* a 7 byte tag uses the same hash key and the first 7 bytes of the pad */
+        final byte[] shortKey = Arrays.copyOf(key, 8 + 7);
+        assertThat(new ShortTagPolyHash(7).computeMAC(data, shortKey)).isEqualTo(Arrays.copyOf(expected, 7));
+    }
+
+    @Test
+    public void keysAreTwiceTheFieldSize() {
+        final int[] expected = {0, 2, 4, 7, 8, 13, 14, 15, 16};
+        for (int tagLength = 1; tagLength <= ShortTagPolyHash.MAX_TAG_LENGTH; tagLength++) {
+            assertThat(new ShortTagPolyHash(tagLength).keySize()).isEqualTo(expected[tagLength]);
+        }
+    }
+
+    /** bitwise multiplication in GF(2^w) */
+    private static long slowMul(long a, long b, int w, long poly) {
+        long r = 0;
+        for (int i = w - 1; i >= 0; i--) {
+            final boolean overflow = ((r >>> (w - 1)) & 1) != 0;
+            r = (r << 1) & ((1L << w) - 1);
+            if (overflow) {
+                r ^= poly;
+            }
+            if (((b >>> i) & 1) != 0) {
+                r ^= a;
+            }
+        }
+        return r;
+    }
+
+    @Test
+    public void itEvaluatesThePolynomialOverSmallFields() throws InvalidKeyException {
+        final int[] widths = {1, 2, 4};
+        final long[] polys = {0x1B, 0x2B, 0x8D};
+        final byte[] data = new byte[37];
+        rng.nextBytes(data);
+
+        for (int i = 0; i < widths.length; i++) {
+            final int w = widths[i];
+            final ShortTagPolyHash mac = new ShortTagPolyHash(w);
+            final byte[] key = new byte[mac.keySize()];
+            rng.nextBytes(key);
+
+            long h = 0;
+            for (int j = 0; j < w; j++) {
+                h = h << 8 | (key[j] & 0xff);
+            }
+
+            /* data words (zero-padded) followed by the 64 bit length */
+            final byte[] words = Arrays.copyOf(data, (data.length + w - 1) / w * w + 8);
+            final long bits = 8L * data.length;
+            for (int j = 0; j < 8; j++) {
+                words[words.length - 1 - j] = (byte) (bits >>> (8 * j));
+            }
+            long acc = 0;
+            for (int off = 0; off < words.length; off += w) {
+                long m = 0;
+                for (int j = 0; j < w; j++) {
+                    m = m << 8 | (words[off + j] & 0xff);
+                }
+                acc = slowMul(acc ^ m, h, 8 * w, polys[i]);
+            }
+
+            final byte[] expected = new byte[w];
+            for (int j = 0; j < w; j++) {
+                expected[j] = (byte) ((acc >>> (8 * (w - 1 - j))) ^ key[w + j]);
+            }
+            assertThat(mac.computeMAC(data, key)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void lengthsArePartOfTheHash() throws InvalidKeyException {
+        /* 32 zero bytes in front do not change a GF(2^8) polynomial without the length */
+        final ShortTagPolyHash mac = new ShortTagPolyHash(1);
+        final byte[] key = {0x35, 0x11};
+        final byte[] padded = new byte[33];
+        padded[32] = 7;
+        assertThat(mac.computeMAC(padded, key)).isNotEqualTo(mac.computeMAC(new byte[]{7}, key));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void longTagsAreRejected() {
+        new ShortTagPolyHash(ShortTagPolyHash.MAX_TAG_LENGTH + 1);
+    }
+
+    @Test
+    public void factoryCreatesCevallosTagLengths() throws InvalidKeyException, NoSuchAlgorithmException {
+        final byte[] data = new byte[1024];
+        for (int t = 1; t <= 6; t++) {
+            final MacHelper mac = BCShortenedMacHelperFactory.createShortTag(t, 8L * data.length);
+            final byte[] key = new byte[mac.keySize()];
+            rng.nextBytes(key);
+
+            final byte[] tag = mac.computeMAC(data, key);
+            assertThat(tag.length).isEqualTo(CevallosUSRSS.computeTagLength(8L * data.length, t, CevallosUSRSS.E));
+            assertThat(mac.verifyMAC(data, tag, key)).isTrue();
+            assertThat(mac instanceof ShortTagPolyHash).isEqualTo(tag.length <= ShortTagPolyHash.MAX_TAG_LENGTH);
+            if (mac instanceof BCShortenedMacHelper) {
+                /* every Poly1305 tag gets a complete key */
+                assertThat(mac.keySize()).isEqualTo(32 * ((tag.length + 15) / 16));
+            }
+        }
+    }
+
+    @Test(expected = InvalidKeyException.class)
+    public void itRejectsWrongKeySizes() throws InvalidKeyException {
+        new ShortTagPolyHash(4).computeMAC(new byte[10], new byte[4]);
+    }
+}
@@ -38,7 +38,7 @@ public class VariableLengthMacPerformanceTest {
 
         RandomSource rng = new FakeRandomSource();
 
-        byte[] key = new byte[32];
+        byte[] key = new byte[64];
         byte[] data = new byte[1024 * 1024];
 
         rng.fillBytes(data);
@@ -69,4 +69,20 @@ public class VariableLengthMacPerformanceTest {
 
         System.err.format("%50s t:%1d %6dms\n", mac, t, end - start);
     }
+
+    @Test
+    public void testPerformanceShortTagPolyHash() throws InvalidKeyException, NoSuchAlgorithmException {
+
+        MacHelper mac = BCShortenedMacHelperFactory.createShortTag(t, 8L * data.length);
+        byte[] macKey = new byte[mac.keySize()];
+        System.arraycopy(key, 0, macKey, 0, Math.min(key.length, macKey.length));
+
+        long start = System.currentTimeMillis();
+        for (int i = 0; i < 500; i++) {
+            mac.computeMAC(data, macKey);
+        }
+        long end = System.currentTimeMillis();
+
+        System.err.format("%50s t:%1d %6dms\n", mac, t, end - start);
+    }
 }
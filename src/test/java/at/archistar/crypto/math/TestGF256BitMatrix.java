@@ -0,0 +1,90 @@
+package at.archistar.crypto.math;
+
+import at.archistar.crypto.math.gf256.GF256;
+import at.archistar.crypto.math.gf256.GF256BitMatrix;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link GF256BitMatrix}
+ */
+public class TestGF256BitMatrix {
+
+    private static final int PACKET_SIZE = 4;
+
+    /**
+     * multiplying a region with e and afterwards with e^-1 must yield the original region
+     */
+    @Test
+    public void inverse_elements_cancel_out() {
+        final byte[] input = new byte[2 * 8 * PACKET_SIZE];
+        for (int i = 0; i < input.length; i++) {
+            input[i] = (byte) (i * 13 + 5);
+        }
+
+        for (int e = 1; e < 256; e++) {
+            final byte[] tmp = new byte[input.length];
+            final byte[] output = new byte[input.length];
+
+            new GF256BitMatrix(new int[][]{{e}}, PACKET_SIZE).multiply(new byte[][]{input}, new byte[][]{tmp}, 0, 2);
+            new GF256BitMatrix(new int[][]{{GF256.inverse(e)}}, PACKET_SIZE).multiply(new byte[][]{tmp}, new byte[][]{output}, 0, 2);
+
+            assertThat(output).isEqualTo(input);
+        }
+    }
+
+    /**
+     * the multiplication must be linear: (a + b) * x = a * x + b * x
+     */
+    @Test
+    public void it_is_distributive() {
+        final int[][] matrix = new int[][]{{1, 2, 3}, {4, 5, 6}};
+        final int[][] sum = new int[][]{{1 ^ 7, 2 ^ 8, 3 ^ 9}, {4 ^ 10, 5 ^ 11, 6 ^ 12}};
+        final int[][] other = new int[][]{{7, 8, 9}, {10, 11, 12}};
+
+        final byte[][] input = new byte[3][8 * PACKET_SIZE];
+        for (int j = 0; j < 3; j++) {
+            for (int i = 0; i < input[j].length; i++) {
+                input[j][i] = (byte) (i * 7 + j * 3);
+            }
+        }
+
+        final byte[][] a = new byte[2][8 * PACKET_SIZE];
+        final byte[][] b = new byte[2][8 * PACKET_SIZE];
+        final byte[][] c = new byte[2][8 * PACKET_SIZE];
+        new GF256BitMatrix(matrix, PACKET_SIZE).multiply(input, a, 0, 1);
+        new GF256BitMatrix(other, PACKET_SIZE).multiply(input, b, 0, 1);
+        new GF256BitMatrix(sum, PACKET_SIZE).multiply(input, c, 0, 1);
+
+        for (int r = 0; r < 2; r++) {
+            for (int i = 0; i < c[r].length; i++) {
+                assertThat(c[r][i]).isEqualTo((byte) (a[r][i] ^ b[r][i]));
+            }
+        }
+    }
+
+    /**
+     * scheduling must never need more XORs than computing every packet from scratch
+     */
+    @Test
+    public void scheduling_reduces_xors() {
+        final int[][] matrix = new int[][]{{1, 1, 1, 1}, {1, 0x8e, 0x47, 0xad}, {1, 0x53, 0xca, 0x65}};
+        final GF256BitMatrix bm = new GF256BitMatrix(matrix, PACKET_SIZE);
+
+        int naive = 0;
+        for (int[] row : matrix) {
+            for (int r = 0; r < 8; r++) {
+                int ones = 0;
+                for (int e : row) {
+                    for (int c = 0; c < 8; c++) {
+                        ones += (GF256.mult(e, 1 << c) >> r) & 1;
+                    }
+                }
+                naive += Math.max(0, ones - 1);
+            }
+        }
+
+        assertThat(bm.getXorCount()).isLessThanOrEqualTo(naive);
+    }
+}
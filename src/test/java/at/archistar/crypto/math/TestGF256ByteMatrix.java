@@ -0,0 +1,95 @@
+package at.archistar.crypto.math;
+
+import at.archistar.crypto.math.gf256.GF256;
+import at.archistar.crypto.math.gf256.GF256ByteMatrix;
+import org.junit.Test;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link GF256ByteMatrix}
+ */
+public class TestGF256ByteMatrix {
+
+    private static GF256ByteMatrix vandermonde(int[] x) {
+        final GF256ByteMatrix m = new GF256ByteMatrix(x.length, x.length);
+        for (int i = 0; i < x.length; i++) {
+            for (int j = 0; j < x.length; j++) {
+                m.set(i, j, GF256.pow(x[i], j));
+            }
+        }
+        return m;
+    }
+
+    private static void assertIdentity(GF256ByteMatrix m) {
+        for (int i = 0; i < m.getRows(); i++) {
+            for (int j = 0; j < m.getCols(); j++) {
+                assertThat(m.get(i, j)).isEqualTo(i == j ? 1 : 0);
+            }
+        }
+    }
+
+    @Test
+    public void inverseTimesMatrixIsIdentity() {
+        final GF256ByteMatrix m = vandermonde(new int[]{3, 7, 11, 200, 1});
+        final GF256ByteMatrix inverse = new GF256ByteMatrix(5, 5);
+        final GF256ByteMatrix product = new GF256ByteMatrix(5, 5);
+
+        assertThat(m.invertInto(inverse, new GF256ByteMatrix(5, 5))).isTrue();
+        assertIdentity(inverse.multiplyInto(m, product));
+        assertIdentity(m.multiplyInto(inverse, product));
+    }
+
+    @Test
+    public void inPlaceInversionMatchesInvertInto() {
+        final GF256ByteMatrix m = vandermonde(new int[]{9, 8, 7, 6});
+        final GF256ByteMatrix inverse = new GF256ByteMatrix(4, 4);
+        final GF256ByteMatrix scratch = new GF256ByteMatrix(4, 4);
+        assertThat(m.invertInto(inverse, scratch)).isTrue();
+
+        assertThat(m.invertInPlace(scratch)).isTrue();
+        assertThat(m.toString()).isEqualTo(inverse.toString());
+    }
+
+    @Test
+    public void singularMatricesAreReported() {
+        final GF256ByteMatrix m = vandermonde(new int[]{3, 7, 3});
+        assertThat(m.invertInto(new GF256ByteMatrix(3, 3), new GF256ByteMatrix(3, 3))).isFalse();
+        assertThat(m.factorize().isSingular()).isTrue();
+        assertThat(m.invertInPlace(new GF256ByteMatrix(3, 3))).isFalse();
+    }
+
+    @Test
+    public void luSolvesRepeatedly() {
+        final GF256ByteMatrix m = vandermonde(new int[]{0, 5, 17, 99, 250, 4});
+        final GF256ByteMatrix.LU lu = m.factorize();
+        assertThat(lu.isSingular()).isFalse();
+
+        final int[] x = new int[6];
+        final int[] b = new int[6];
+        final int[] check = new int[6];
+        for (int round = 0; round < 50; round++) {
+            for (int i = 0; i < b.length; i++) {
+                b[i] = (round * 31 + i * 7) & 0xff;
+            }
+            lu.solve(b, x);
+            assertThat(m.rightMultiplyInto(check, x)).isEqualTo(b);
+        }
+    }
+
+    @Test
+    public void solveHandlesDependentRows() {
+        /* second row is a multiple of the first one */
+        final int[][] elements = {{1, 2, 3}, {2, 4, 6}, {0, 1, 1}};
+        final int[] expected = {5, 6, 7};
+        final int[] b = GF256ByteMatrix.of(elements).rightMultiplyInto(new int[3], expected);
+
+        final int[] solution = new int[3];
+        assertThat(GF256ByteMatrix.of(elements).solveInPlace(b.clone(), solution)).isEqualTo(2);
+        assertThat(GF256ByteMatrix.of(elements).rightMultiplyInto(new int[3], solution)).isEqualTo(b);
+
+        final int[] inconsistent = b.clone();
+        inconsistent[1] ^= 1;
+        assertThat(GF256ByteMatrix.of(elements).solveInPlace(inconsistent, solution)).isEqualTo(-1);
+    }
+}
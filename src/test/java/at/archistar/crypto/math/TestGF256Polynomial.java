@@ -0,0 +1,103 @@
+package at.archistar.crypto.math;
+
+import at.archistar.crypto.math.gf256.GF256;
+import at.archistar.crypto.math.gf256.GF256PolyHelper;
+import at.archistar.crypto.math.gf256.GF256Polynomial;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link GF256Polynomial}
+ */
+public class TestGF256Polynomial {
+
+    private static GF256Polynomial random(Random rng, int degree, int capacity) {
+        final int[] c = new int[degree + 1];
+        for (int i = 0; i < c.length; i++) {
+            c[i] = rng.nextInt(256);
+        }
+        c[degree] = 1 + rng.nextInt(255);
+        return new GF256Polynomial(capacity).set(c, 0, c.length);
+    }
+
+    @Test
+    public void divisionInvertsMultiplication() {
+        final Random rng = new Random(1);
+        final GF256Polynomial product = new GF256Polynomial(32);
+        final GF256Polynomial quotient = new GF256Polynomial(32);
+        final GF256Polynomial remainder = new GF256Polynomial(32);
+
+        for (int round = 0; round < 200; round++) {
+            final GF256Polynomial a = random(rng, rng.nextInt(10), 32);
+            final GF256Polynomial b = random(rng, rng.nextInt(6), 32);
+            final GF256Polynomial r = random(rng, rng.nextInt(Math.max(1, b.degree())), 32);
+            if (b.degree() == 0) {
+                r.clear();
+            }
+
+            product.multiply(a, b).add(r);
+            product.divide(b, quotient, remainder);
+
+            assertThat(quotient.toString()).isEqualTo(a.toString());
+            assertThat(remainder.toString()).isEqualTo(r.toString());
+        }
+    }
+
+    @Test
+    public void inPlaceDivisionKeepsRemainder() {
+        final Random rng = new Random(2);
+        final GF256Polynomial a = random(rng, 12, 16);
+        final GF256Polynomial b = random(rng, 4, 16);
+        final GF256Polynomial expectedQ = new GF256Polynomial(16);
+        final GF256Polynomial expectedR = new GF256Polynomial(16);
+        a.divide(b, expectedQ, expectedR);
+
+        final GF256Polynomial quotient = new GF256Polynomial(16);
+        a.divide(b, quotient, a);
+        assertThat(quotient.toString()).isEqualTo(expectedQ.toString());
+        assertThat(a.toString()).isEqualTo(expectedR.toString());
+    }
+
+    @Test
+    public void syntheticDivisionYieldsValueAtRoot() {
+        final Random rng = new Random(3);
+        final GF256Polynomial p = random(rng, 9, 16);
+        final GF256Polynomial quotient = new GF256Polynomial(16);
+        final GF256Polynomial check = new GF256Polynomial(16);
+
+        for (int root = 0; root < 256; root++) {
+            final int remainder = p.divideByLinear(root, quotient);
+            assertThat(remainder).isEqualTo(p.evaluate(root));
+
+            check.set(quotient).multiplyByLinear(root).add(new GF256Polynomial(1).setConstant(remainder));
+            assertThat(check.toString()).isEqualTo(p.toString());
+        }
+    }
+
+    @Test
+    public void evaluationMatchesHelper() {
+        final int[] c = {3, 0, 17, 200, 1};
+        final GF256Polynomial p = new GF256Polynomial(5).set(c, 0, c.length);
+        for (int x = 0; x < 256; x++) {
+            assertThat(p.evaluate(x)).isEqualTo(GF256.evaluateAt(c, x));
+        }
+    }
+
+    @Test
+    public void polyDivKeepsItsResultFormat() {
+        final int[][] res = GF256PolyHelper.polyDiv(new int[]{1, 2, 3, 4, 0}, new int[]{5, 1});
+        assertThat(res[0].length).isEqualTo(3);
+        assertThat(res[1].length).isEqualTo(4);
+
+        final int[] back = GF256PolyHelper.add(GF256PolyHelper.multiply(res[0], new int[]{5, 1}), res[1]);
+        assertThat(new GF256Polynomial(8).set(back, 0, back.length).toString()).isEqualTo("GF256Polynomial[1, 2, 3, 4]");
+    }
+
+    @Test(expected = ArithmeticException.class)
+    public void divisionByZeroFails() {
+        new GF256Polynomial(4).setConstant(3).divide(new GF256Polynomial(4), new GF256Polynomial(4), new GF256Polynomial(4));
+    }
+}
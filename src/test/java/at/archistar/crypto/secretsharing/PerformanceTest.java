@@ -54,7 +54,10 @@ public class PerformanceTest {
 
         Object[][] data = new Object[][]{
                 {secrets, new ShamirPSS(n, k, rng, df)},
+                {secrets, new PackedShamirPSS(n, k, 1, rng, df)},
                 {secrets, new RabinIDS(n, k, df)},
+                {secrets, new SystematicRabinIDS(n, k)},
+                {secrets, new CauchyRabinIDS(n, k)},
                 {secrets, new KrawczykCSS(n, k, rng, new AESEncryptor(), df)},
                 {secrets, new KrawczykCSS(n, k, rng, new AESGCMEncryptor(), df)},
                 {secrets, new KrawczykCSS(n, k, rng, new ChaCha20Encryptor(), df)}
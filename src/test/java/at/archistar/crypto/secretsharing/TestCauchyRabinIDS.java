@@ -0,0 +1,49 @@
+package at.archistar.crypto.secretsharing;
+
+import at.archistar.crypto.data.CauchyRabinShare;
+import at.archistar.crypto.data.Share;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link CauchyRabinIDS}
+ */
+public class TestCauchyRabinIDS extends BasicSecretSharingTest {
+
+    public TestCauchyRabinIDS() {
+        super(8, 3);
+    }
+
+    @Before
+    public void setup() throws WeakSecurityException {
+        algorithm = new CauchyRabinIDS(n, k);
+    }
+
+    @Test
+    public void stripes_are_padded_to_full_blocks() {
+        final Share[] shares = algorithm.share(data);
+
+        for (Share s : shares) {
+            assertThat(s).isInstanceOf(CauchyRabinShare.class);
+            assertThat(s.getYValues().length).isEqualTo(256);
+        }
+        assertThat(Arrays.copyOf(shares[0].getYValues(), data.length)).isEqualTo(data);
+    }
+
+    @Test
+    public void it_reconstructs_large_data_from_parity_shares() throws ReconstructionException {
+        final byte[] large = new byte[10000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 31 + 7);
+        }
+
+        final Share[] shares = algorithm.share(large);
+        for (int i = 0; i <= n - k; i++) {
+            assertThat(algorithm.reconstruct(Arrays.copyOfRange(shares, i, i + k))).isEqualTo(large);
+        }
+    }
+}
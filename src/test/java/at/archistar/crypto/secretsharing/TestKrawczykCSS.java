@@ -1,9 +1,15 @@
 package at.archistar.crypto.secretsharing;
 
+import at.archistar.crypto.data.CSSShare;
 import at.archistar.crypto.data.InvalidParametersException;
+import at.archistar.crypto.data.KrawczykShare;
 import at.archistar.crypto.data.Share;
+import at.archistar.crypto.data.SharePatch;
+import at.archistar.crypto.data.ShareFactory;
 import at.archistar.crypto.decode.DecoderFactory;
 import at.archistar.crypto.decode.ErasureDecoderFactory;
+import at.archistar.crypto.execution.ExecutionPolicy;
+import at.archistar.crypto.random.BCDigestRandomSource;
 import at.archistar.crypto.random.FakeRandomSource;
 import at.archistar.crypto.random.RandomSource;
 import at.archistar.crypto.symmetric.AESEncryptor;
@@ -13,6 +19,10 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 
@@ -77,4 +87,179 @@ public class TestKrawczykCSS extends BasicSecretSharingTest {
         rng.fillBytes(key);
         algorithm = new KrawczykCSS(n, k, rng, enc, new ErasureDecoderFactory(), key);
     }
+
+    @Test
+    public void it_recovers_large_objects_in_parallel_stripes() throws WeakSecurityException, ReconstructionException, InvalidParametersException {
+        algorithm = new KrawczykCSS(n, k, new FakeRandomSource(), new ChaCha20Encryptor(), new ErasureDecoderFactory(),
+                null, ExecutionPolicy.fixedPool(3, 1024, 1024));
+
+        final byte[] large = new byte[100000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 31);
+        }
+
+        final Share[] shares = algorithm.share(large);
+        final Share[] recovered = algorithm.recover(Arrays.copyOfRange(shares, 1, 1 + k));
+        assertThat(recovered.length).isEqualTo(n - k);
+        for (Share s : recovered) {
+            assertThat(s.getYValues()).isEqualTo(shares[s.getId() - 1].getYValues());
+            assertThat(s).usingComparator(Share::compareTo).isEqualTo(shares[s.getId() - 1]);
+        }
+    }
+
+    private KrawczykCSS convergent(byte[] tenantKey, KrawczykShare.DispersalType dispersal) throws WeakSecurityException, InvalidParametersException {
+        return new KrawczykCSS(n, k, new BCDigestRandomSource(), new ChaCha20Encryptor(), new ErasureDecoderFactory(),
+                tenantKey, ExecutionPolicy.defaultPolicy(), dispersal, true);
+    }
+
+    private static String bodies(Share[] shares) {
+        final StringBuilder sb = new StringBuilder();
+        for (Share s : shares) {
+            sb.append(Arrays.toString(s.getYValues()));
+        }
+        return sb.toString();
+    }
+
+    @Test
+    public void convergent_mode_produces_identical_content_shares() throws Exception {
+        final byte[] tenant = new byte[32];
+        Arrays.fill(tenant, (byte) 3);
+        final byte[] other = Arrays.copyOf(data, data.length);
+        other[0]++;
+
+        for (KrawczykShare.DispersalType dispersal : KrawczykShare.DispersalType.values()) {
+            final KrawczykCSS css = convergent(tenant, dispersal);
+            final KrawczykShare[] a = css.share(data);
+            final KrawczykShare[] b = css.share(data);
+            final KrawczykShare[] c = css.share(other);
+            final KrawczykShare[] d = convergent(new byte[32], dispersal).share(data);
+
+            for (int i = 0; i < n; i++) {
+                assertThat(a[i].getYValues()).isEqualTo(b[i].getYValues());
+                assertThat(a[i].getContentId()).isEqualTo(b[i].getContentId());
+            }
+            assertThat(bodies(a)).isNotEqualTo(bodies(c));
+            assertThat(bodies(a)).isNotEqualTo(bodies(d));
+            assertThat(a[0].getContentId()).isNotEqualTo(c[0].getContentId());
+            assertThat(a[0].getContentId()).isNotEqualTo(d[0].getContentId());
+
+            final Share[] deserialized = new Share[n];
+            for (int i = 0; i < n; i++) {
+                deserialized[i] = ShareFactory.deserialize(b[i].getSerializedData(), b[i].getMetaData());
+            }
+            assertThat(css.reconstruct(Arrays.copyOfRange(deserialized, 2, 2 + k))).isEqualTo(data);
+            assertThat(((KrawczykShare) deserialized[0]).getContentId()).isEqualTo(a[0].getContentId());
+
+            final KrawczykShare[] recovered = css.recover(Arrays.copyOf(a, k));
+            assertThat(recovered[0].getContentId()).isEqualTo(a[0].getContentId());
+        }
+
+        /* randomly keyed shares differ */
+        final KrawczykCSS random = new KrawczykCSS(n, k, new BCDigestRandomSource(), new ChaCha20Encryptor(), new ErasureDecoderFactory());
+        assertThat(bodies(random.share(data))).isNotEqualTo(bodies(random.share(data)));
+    }
+
+    @Test
+    public void content_index_reports_stored_bodies() throws Exception {
+        final Set<String> stored = new HashSet<>();
+        final ContentIndex index = (id, x) -> stored.contains(Arrays.toString(id) + "/" + x);
+        final KrawczykCSS css = convergent(new byte[32], KrawczykShare.DispersalType.RABIN);
+
+        for (Share s : css.share(data)) {
+            assertThat(index.containsBody(s)).isFalse();
+            stored.add(Arrays.toString(((KrawczykShare) s).getContentId()) + "/" + s.getX());
+        }
+        for (Share s : css.share(data)) {
+            assertThat(index.containsBody(s)).isTrue();
+        }
+        for (Share s : algorithm.share(data)) {
+            assertThat(index.containsBody(s)).isFalse();
+        }
+    }
+
+    @Test(expected = InvalidParametersException.class)
+    public void convergent_mode_needs_a_tenant_secret() throws InvalidParametersException, WeakSecurityException {
+        convergent(null, KrawczykShare.DispersalType.RABIN);
+    }
+
+    private static Share[] applyPatches(Share[] shares, SharePatch[] patches) throws InvalidParametersException {
+        final Share[] result = new Share[patches.length];
+        for (SharePatch p : patches) {
+            final KrawczykShare old = (KrawczykShare) shares[p.getId() - 1];
+            result[p.getId() - 1] = new KrawczykShare(p.getId(), p.apply(old.getYValues()), p.getOriginalLength(),
+                    old.getEncAlgorithm(), old.getKey(), old.getDispersal());
+        }
+        return result;
+    }
+
+    @Test
+    public void it_updates_and_appends_without_resharing() throws Exception {
+        final KrawczykCSS css = new KrawczykCSS(n, k, new FakeRandomSource(), new ChaCha20Encryptor(),
+                new ErasureDecoderFactory(), new byte[32]);
+        final byte[] large = new byte[4000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 7);
+        }
+        Share[] shares = css.share(large);
+
+        final byte[] replacement = "updated".getBytes("US-ASCII");
+        final SharePatch[] patches = css.update(Arrays.copyOf(shares, k), 1234, replacement);
+        assertThat(patches[0].getData().length).isLessThanOrEqualTo(3);
+        shares = applyPatches(shares, patches);
+        System.arraycopy(replacement, 0, large, 1234, replacement.length);
+        assertThat(css.reconstruct(Arrays.copyOfRange(shares, n - k, n))).isEqualTo(large);
+
+        shares = applyPatches(shares, css.append(shares, replacement));
+        final byte[] expected = Arrays.copyOf(large, large.length + replacement.length);
+        System.arraycopy(replacement, 0, expected, large.length, replacement.length);
+        assertThat(shares[0].getOriginalLength()).isEqualTo(expected.length);
+        assertThat(css.reconstruct(shares)).isEqualTo(expected);
+    }
+
+    @Test(expected = ReconstructionException.class)
+    public void block_ciphers_cannot_be_updated() throws ReconstructionException {
+        ((KrawczykCSS) algorithm).update(algorithm.share(data), 0, new byte[1]);
+    }
+
+    @Test(expected = ReconstructionException.class)
+    public void css_shares_cannot_be_updated_without_their_fingerprints() throws Exception {
+        final KrawczykCSS css = new KrawczykCSS(n, k, new FakeRandomSource(), new ChaCha20Encryptor(),
+                new ErasureDecoderFactory());
+        final Share[] shares = css.share(data);
+        final Share[] withFingerprints = new Share[shares.length];
+        for (int i = 0; i < shares.length; i++) {
+            withFingerprints[i] = new CSSShare((KrawczykShare) shares[i], new HashMap<>());
+        }
+        css.update(withFingerprints, 0, new byte[1]);
+    }
+
+    @Test
+    public void it_reconstructs_ranges_from_content_slices() throws Exception {
+        final KrawczykCSS css = new KrawczykCSS(n, k, new FakeRandomSource(), new ChaCha20Encryptor(),
+                new ErasureDecoderFactory());
+        final byte[] large = new byte[3000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 5 + 1);
+        }
+        final Share[] shares = css.share(large);
+
+        for (int[] r : new int[][]{{0, 10}, {1234, 100}, {2997, 50}}) {
+            final ShareRange range = css.shareRange(large.length, r[0], r[1]);
+            final Share[] sliced = new Share[k];
+            for (int i = 0; i < k; i++) {
+                final KrawczykShare s = (KrawczykShare) shares[i + 1];
+                sliced[i] = new KrawczykShare(s.getId(), Arrays.copyOfRange(s.getYValues(), range.getShareOffset(),
+                        range.getShareOffset() + range.getShareLength()), s.getOriginalLength(), 1, s.getKey());
+            }
+            final byte[] expected = Arrays.copyOfRange(large, r[0], Math.min(large.length, r[0] + r[1]));
+            assertThat(css.reconstructRange(sliced, range)).isEqualTo(expected);
+            /* partial reconstruction returns all bytes of the slices' columns */
+            assertThat(Arrays.copyOf(css.reconstructPartial(sliced, r[0]), expected.length)).isEqualTo(expected);
+        }
+    }
+
+    @Test(expected = ReconstructionException.class)
+    public void block_ciphers_have_no_share_ranges() throws ReconstructionException {
+        ((KrawczykCSS) algorithm).shareRange(data.length, 0, 1);
+    }
 }
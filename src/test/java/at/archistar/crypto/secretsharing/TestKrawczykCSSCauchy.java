@@ -0,0 +1,56 @@
+package at.archistar.crypto.secretsharing;
+
+import at.archistar.crypto.data.InvalidParametersException;
+import at.archistar.crypto.data.KrawczykShare;
+import at.archistar.crypto.data.Share;
+import at.archistar.crypto.data.ShareFactory;
+import at.archistar.crypto.decode.ErasureDecoderFactory;
+import at.archistar.crypto.execution.ExecutionPolicy;
+import at.archistar.crypto.random.FakeRandomSource;
+import at.archistar.crypto.symmetric.ChaCha20Encryptor;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Test for {@link KrawczykCSS} using Cauchy Reed-Solomon for the encrypted data
+ */
+public class TestKrawczykCSSCauchy extends BasicSecretSharingTest {
+
+    public TestKrawczykCSSCauchy() {
+        super(8, 5);
+    }
+
+    @Before
+    public void setup() throws WeakSecurityException, InvalidParametersException {
+        algorithm = new KrawczykCSS(n, k, new FakeRandomSource(), new ChaCha20Encryptor(), new ErasureDecoderFactory(),
+                null, ExecutionPolicy.sequential(), KrawczykShare.DispersalType.CAUCHY);
+    }
+
+    @Test
+    public void dispersal_type_survives_serialization() throws IOException, ReconstructionException {
+        final Share[] shares = algorithm.share(data);
+        final Share[] deserialized = new Share[n];
+
+        for (int i = 0; i < n; i++) {
+            deserialized[i] = ShareFactory.deserialize(shares[i].getSerializedData(), shares[i].getMetaData());
+            assertThat(((KrawczykShare) deserialized[i]).getDispersal()).isEqualTo(KrawczykShare.DispersalType.CAUCHY);
+        }
+        assertThat(algorithm.reconstruct(deserialized)).isEqualTo(data);
+    }
+
+    @Test
+    public void rabin_instance_reads_cauchy_shares() throws ReconstructionException, WeakSecurityException {
+        final Share[] shares = algorithm.share(data);
+        final KrawczykCSS rabin = new KrawczykCSS(n, k, new FakeRandomSource(), new ChaCha20Encryptor(), new ErasureDecoderFactory());
+        assertThat(rabin.reconstruct(shares)).isEqualTo(data);
+    }
+
+    @Test(expected = ReconstructionException.class)
+    public void partial_reconstruction_is_not_supported() throws ReconstructionException {
+        algorithm.reconstructPartial(algorithm.share(data), 0);
+    }
+}
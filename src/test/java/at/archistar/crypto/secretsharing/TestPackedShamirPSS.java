@@ -0,0 +1,112 @@
+package at.archistar.crypto.secretsharing;
+
+import at.archistar.crypto.data.Share;
+import at.archistar.crypto.decode.ErasureDecoderFactory;
+import at.archistar.crypto.random.FakeRandomSource;
+import at.archistar.crypto.random.RandomSource;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+import static org.fest.assertions.api.Assertions.fail;
+
+/**
+ * Tests for {@link PackedShamirPSS}.
+ */
+public class TestPackedShamirPSS extends BasicSecretSharingTest {
+
+    private static final int T = 2;
+
+    public TestPackedShamirPSS() {
+        super(8, 5);
+    }
+
+    @Before
+    public void setup() throws WeakSecurityException {
+        algorithm = new PackedShamirPSS(n, k, T, new FakeRandomSource(), new ErasureDecoderFactory());
+    }
+
+    @Test
+    public void it_packs_k_minus_t_bytes_into_every_share_byte() throws ReconstructionException {
+        for (int length = 0; length < 20; length++) {
+            final byte[] secret = new byte[length];
+            for (int i = 0; i < length; i++) {
+                secret[i] = (byte) (i * 31 + 7);
+            }
+
+            final Share[] shares = algorithm.share(secret);
+            assertThat(shares[0].getYValues().length).isEqualTo((length + k - T - 1) / (k - T));
+            assertThat(algorithm.reconstruct(Arrays.copyOfRange(shares, n - k, n))).isEqualTo(secret);
+        }
+    }
+
+    @Test
+    public void it_recovers_missing_shares() throws ReconstructionException {
+        final byte[] large = new byte[5000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 17);
+        }
+
+        final Share[] shares = algorithm.share(large);
+        final Share[] recovered = algorithm.recover(Arrays.copyOfRange(shares, 1, 1 + k));
+        assertThat(recovered.length).isEqualTo(n - k);
+        for (Share s : recovered) {
+            assertThat(s.getYValues()).isEqualTo(shares[s.getId() - 1].getYValues());
+            assertThat(s.getOriginalLength()).isEqualTo(large.length);
+        }
+    }
+
+    /**
+     * for every secret, the values of t shares run through all combinations
+     * exactly once while the random values do
+     */
+    @Test
+    public void t_shares_do_not_reveal_the_secret() throws WeakSecurityException {
+        final CountingRandomSource rng = new CountingRandomSource();
+        final PackedShamirPSS packed = new PackedShamirPSS(4, 3, 2, rng, new ErasureDecoderFactory());
+
+        for (int secret : new int[]{0, 0x5a, 0xff}) {
+            final Set<Integer> seen = new HashSet<>();
+            rng.counter = 0;
+            for (int r = 0; r < 65536; r++) {
+                final Share[] shares = packed.share(new byte[]{(byte) secret});
+                seen.add((shares[1].getYValues()[0] & 0xff) << 8 | (shares[3].getYValues()[0] & 0xff));
+            }
+            assertThat(seen.size()).isEqualTo(65536);
+        }
+    }
+
+    @Test
+    public void it_rejects_invalid_privacy_thresholds() {
+        for (int t : new int[]{0, k, k + 1}) {
+            try {
+                new PackedShamirPSS(n, k, t, new FakeRandomSource(), new ErasureDecoderFactory());
+                fail("privacy threshold " + t + " was accepted");
+            } catch (WeakSecurityException e) {
+                // expected
+            }
+        }
+    }
+
+    /** yields the 16-bit values 0, 1, 2, ... (two bytes per call) */
+    private static class CountingRandomSource implements RandomSource {
+
+        private int counter = 0;
+
+        @Override
+        public void fillBytes(byte[] toBeFilled) {
+            toBeFilled[0] = (byte) (counter >> 8);
+            toBeFilled[1] = (byte) counter;
+            counter++;
+        }
+
+        @Override
+        public void fillBytesAsInts(int[] toBeFilled) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
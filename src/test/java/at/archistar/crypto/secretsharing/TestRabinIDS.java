@@ -1,13 +1,26 @@
 package at.archistar.crypto.secretsharing;
 
+import at.archistar.crypto.data.InvalidParametersException;
+import at.archistar.crypto.data.RabinShare;
 import at.archistar.crypto.data.Share;
+import at.archistar.crypto.data.SharePatch;
+import at.archistar.crypto.data.ShareSlab;
+import at.archistar.crypto.decode.AdaptiveDecoderFactory;
+import at.archistar.crypto.decode.BerlekampWelchDecoderFactory;
+import at.archistar.crypto.decode.Decoder;
 import at.archistar.crypto.decode.DecoderFactory;
+import at.archistar.crypto.decode.DecodingResult;
 import at.archistar.crypto.decode.ErasureDecoderFactory;
+import at.archistar.crypto.decode.ErrorLocatingDecoderFactory;
+import at.archistar.crypto.decode.UnsolvableException;
 import org.junit.Before;
 
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import static org.fest.assertions.api.Assertions.assertThat;
 
@@ -37,4 +50,280 @@ public class TestRabinIDS extends BasicSecretSharingTest {
             assertThat(len1).isEqualTo(new_length);
         }
     }
+
+    @Test
+    public void it_packs_multiple_objects_into_slabs() throws ReconstructionException, InvalidParametersException {
+        List<byte[]> batch = new ArrayList<>();
+        for (int i = 0; i <= data.length; i++) {
+            batch.add(Arrays.copyOf(data, i));
+        }
+
+        RabinIDS rabin = (RabinIDS) algorithm;
+        ShareSlab slab = rabin.shareSlab(batch);
+        assertThat(slab.size()).isEqualTo(batch.size());
+
+        for (int i = 0; i < batch.size(); i++) {
+            Share[] expected = rabin.share(batch.get(i));
+            Share[] shares = new Share[n];
+            for (int x = 0; x < n; x++) {
+                byte[] body = Arrays.copyOfRange(slab.getSlab(x), slab.getOffset(i), slab.getOffset(i) + slab.getLength(i));
+                assertThat(body).isEqualTo(expected[x].getYValues());
+                shares[x] = new RabinShare((byte) slab.getX(x), body, slab.getOriginalLength(i));
+            }
+            assertThat(rabin.reconstruct(shares)).isEqualTo(batch.get(i));
+        }
+    }
+
+    @Test
+    public void it_reconstructs_slabs_of_any_k_participants() throws ReconstructionException {
+        List<byte[]> batch = new ArrayList<>();
+        for (int i = 0; i <= data.length; i++) {
+            batch.add(Arrays.copyOf(data, i));
+        }
+
+        RabinIDS rabin = (RabinIDS) algorithm;
+        ShareSlab slab = rabin.shareSlab(batch);
+
+        final int[] participants = {6, 1, 3};
+        final int[] xValues = new int[participants.length];
+        final byte[][] slabs = new byte[participants.length][];
+        for (int i = 0; i < participants.length; i++) {
+            xValues[i] = slab.getX(participants[i]);
+            slabs[i] = slab.getSlab(participants[i]);
+        }
+        final int[] offsets = new int[batch.size() + 1];
+        final int[] originalLengths = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            offsets[i + 1] = slab.getOffset(i) + slab.getLength(i);
+            originalLengths[i] = slab.getOriginalLength(i);
+        }
+
+        List<byte[]> reconstructed = rabin.reconstructSlab(new ShareSlab(xValues, slabs, offsets, originalLengths));
+        assertThat(reconstructed).hasSize(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            assertThat(reconstructed.get(i)).isEqualTo(batch.get(i));
+        }
+    }
+
+    @Test(expected = ReconstructionException.class)
+    public void slabs_need_k_participants() throws ReconstructionException {
+        ShareSlab slab = ((RabinIDS) algorithm).shareSlab(Arrays.asList(data));
+        ShareSlab partial = new ShareSlab(new int[]{slab.getX(0), slab.getX(1)},
+                new byte[][]{slab.getSlab(0), slab.getSlab(1)}, new int[]{0, slab.getLength(0)}, new int[]{data.length});
+        ((RabinIDS) algorithm).reconstructSlab(partial);
+    }
+
+    @Test(expected = ReconstructionException.class)
+    public void recovery_needs_k_distinct_shares() throws ReconstructionException {
+        final Share[] shares = algorithm.share(data);
+        algorithm.recover(new Share[]{shares[0], shares[1], shares[1]});
+    }
+
+    @Test
+    public void it_reports_corrupted_columns_per_share() throws WeakSecurityException, ReconstructionException {
+        RabinIDS rabin = new RabinIDS(n, k, new ErrorLocatingDecoderFactory());
+        final byte[] large = new byte[30000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 11);
+        }
+
+        Share[] shares = rabin.share(large);
+        final int columns = shares[0].getYValues().length;
+        for (int i = 0; i < columns; i++) {
+            shares[6].getYValues()[i] ^= 0x3c;
+        }
+        for (int i = 100; i < 110; i++) {
+            shares[2].getYValues()[i] ^= 0x01;
+        }
+
+        DecodingResult result = rabin.reconstructWithReport(shares);
+        assertThat(result.getData()).isEqualTo(large);
+        assertThat(result.getErrorReport().isChecked()).isTrue();
+        assertThat(result.getErrorReport().getFaultyShares()).isEqualTo(new int[]{3, 7});
+        assertThat(result.getErrorReport().getCorruptedColumns(7)).isEqualTo(columns);
+        assertThat(result.getErrorReport().getCorruptedColumns(3)).isEqualTo(10);
+        assertThat(result.getErrorReport().getCorruptedColumns(1)).isEqualTo(0);
+    }
+
+    @Test
+    public void erasure_decoding_reports_unchecked_shares() throws ReconstructionException {
+        DecodingResult result = ((RabinIDS) algorithm).reconstructWithReport(algorithm.share(data));
+        assertThat(result.getData()).isEqualTo(data);
+        assertThat(result.getErrorReport().isChecked()).isFalse();
+        assertThat(result.getErrorReport().getFaultyShares()).isEmpty();
+    }
+
+    private Share[] applyPatches(Share[] shares, SharePatch[] patches) throws InvalidParametersException {
+        final Share[] result = new Share[n];
+        for (SharePatch p : patches) {
+            final Share old = shares[p.getId() - 1];
+            result[p.getId() - 1] = new RabinShare(p.getId(), p.apply(old.getYValues()), p.getOriginalLength());
+        }
+        return result;
+    }
+
+    /**
+     * records the number of points and the error count passed to the decoders
+     */
+    private static DecoderFactory recording(DecoderFactory inner, int[] points, int[] errors) {
+        return new DecoderFactory() {
+            @Override
+            public Decoder createDecoder(int[] xValues, int k) {
+                final Decoder decoder = inner.createDecoder(xValues, k);
+                return new Decoder() {
+                    @Override
+                    public int[] decode(int[] y, int e) throws UnsolvableException {
+                        return decoder.decode(y, e);
+                    }
+
+                    @Override
+                    public int[] decodeUnsafe(int[] target, int[] y, int e) throws UnsolvableException {
+                        points[0] = y.length;
+                        errors[0] = e;
+                        return decoder.decodeUnsafe(target, y, e);
+                    }
+                };
+            }
+
+            @Override
+            public boolean correctsErrors() {
+                return inner.correctsErrors();
+            }
+        };
+    }
+
+    @Test
+    public void berlekamp_welch_decodes_from_k_shares() throws WeakSecurityException, ReconstructionException {
+        final int[] points = new int[1];
+        final int[] errors = new int[1];
+        RabinIDS rabin = new RabinIDS(n, k, recording(new BerlekampWelchDecoderFactory(), points, errors));
+        assertThat(rabin.reconstruct(rabin.share(data))).isEqualTo(data);
+        assertThat(points[0]).isEqualTo(k);
+        assertThat(errors[0]).isEqualTo(0);
+    }
+
+    @Test
+    public void error_correcting_decoders_get_all_shares_and_the_error_budget() throws WeakSecurityException, ReconstructionException {
+        final int[] points = new int[1];
+        final int[] errors = new int[1];
+        RabinIDS rabin = new RabinIDS(n, k, recording(new AdaptiveDecoderFactory(), points, errors));
+        Share[] shares = rabin.share(data);
+        shares[0].getYValues()[0] ^= 1;
+        shares[5].getYValues()[1] ^= 1;
+        assertThat(rabin.reconstruct(shares)).isEqualTo(data);
+        assertThat(points[0]).isEqualTo(n);
+        assertThat(errors[0]).isEqualTo((n - k) / 2);
+    }
+
+    @Test
+    public void it_updates_ranges_in_place() throws ReconstructionException, InvalidParametersException {
+        final RabinIDS rabin = (RabinIDS) algorithm;
+        final byte[] large = new byte[1000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 13);
+        }
+        final Share[] shares = rabin.share(large);
+
+        final int[][] ranges = {{0, 1}, {1, 5}, {500, 100}, {997, 3}, {998, 10}, {1000, 7}, {0, 1000}};
+        for (int[] range : ranges) {
+            final byte[] replacement = new byte[range[1]];
+            Arrays.fill(replacement, (byte) 0x5a);
+            final byte[] expected = Arrays.copyOf(large, Math.max(large.length, range[0] + range[1]));
+            System.arraycopy(replacement, 0, expected, range[0], replacement.length);
+
+            /* only k (arbitrary) shares are needed */
+            final SharePatch[] patches = rabin.update(Arrays.copyOfRange(shares, n - k, n), range[0], replacement);
+            assertThat(patches.length).isEqualTo(n);
+            assertThat(patches[0].getOffset()).isEqualTo(range[0] / k);
+            assertThat(patches[0].getData().length).isLessThanOrEqualTo(range[1] / k + 2);
+
+            final Share[] updated = applyPatches(shares, patches);
+            final Share[] fresh = rabin.share(expected);
+            for (int i = 0; i < n; i++) {
+                assertThat(updated[i]).isEqualTo(fresh[i]);
+            }
+            assertThat(rabin.reconstruct(updated)).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    public void it_appends_to_partial_columns() throws ReconstructionException, InvalidParametersException {
+        final RabinIDS rabin = (RabinIDS) algorithm;
+        byte[] expected = new byte[0];
+        Share[] shares = rabin.share(expected);
+
+        for (int i = 1; i < 12; i++) {
+            final byte[] chunk = Arrays.copyOfRange(data, 0, i % data.length);
+            shares = applyPatches(shares, rabin.append(shares, chunk));
+
+            final byte[] grown = Arrays.copyOf(expected, expected.length + chunk.length);
+            System.arraycopy(chunk, 0, grown, expected.length, chunk.length);
+            expected = grown;
+
+            final Share[] fresh = rabin.share(expected);
+            for (int x = 0; x < n; x++) {
+                assertThat(shares[x]).isEqualTo(fresh[x]);
+            }
+        }
+        assertThat(rabin.reconstruct(shares)).isEqualTo(expected);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void updates_must_not_leave_gaps() throws ReconstructionException {
+        final Share[] shares = algorithm.share(data);
+        ((RabinIDS) algorithm).update(shares, data.length + 1, new byte[1]);
+    }
+
+    private static Share[] slices(Share[] shares, int from, int length) throws InvalidParametersException {
+        final Share[] result = new Share[shares.length];
+        for (int i = 0; i < shares.length; i++) {
+            result[i] = new RabinShare(shares[i].getId(), Arrays.copyOfRange(shares[i].getYValues(), from, from + length),
+                    shares[i].getOriginalLength());
+        }
+        return result;
+    }
+
+    @Test
+    public void it_reconstructs_ranges_from_share_slices() throws ReconstructionException, InvalidParametersException {
+        final RabinIDS rabin = (RabinIDS) algorithm;
+        final byte[] large = new byte[100];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 29 + 3);
+        }
+        final Share[] shares = rabin.share(large);
+
+        for (int offset = 0; offset <= large.length; offset++) {
+            for (int length = 0; length <= 12; length++) {
+                final ShareRange range = rabin.shareRange(large.length, offset, length);
+                assertThat(range.getShareOffset()).isEqualTo(offset / k);
+                assertThat(range.getShareLength()).isLessThanOrEqualTo(length / k + 2);
+
+                final Share[] sliced = slices(shares, range.getShareOffset(), range.getShareLength());
+                final byte[] expected = Arrays.copyOfRange(large, offset, Math.min(large.length, offset + length));
+                assertThat(rabin.reconstructRange(Arrays.copyOfRange(sliced, 2, 2 + k), range)).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void it_reconstructs_partial_shares_at_unaligned_starts() throws ReconstructionException, InvalidParametersException {
+        final RabinIDS rabin = (RabinIDS) algorithm;
+        final Share[] shares = rabin.share(data);
+        final int columns = shares[0].getYValues().length;
+        for (int start = 0; start < data.length; start++) {
+            final int first = start / k;
+            for (int end = first + 1; end <= columns; end++) {
+                final byte[] expected = Arrays.copyOfRange(data, start, Math.min(data.length, end * k));
+                assertThat(rabin.reconstructSlices(slices(shares, first, end - first), start)).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void it_reconstructs_complete_shares_from_start() throws ReconstructionException {
+        final Share[] shares = algorithm.share(data);
+        for (int start = 0; start <= data.length; start++) {
+            assertThat(algorithm.reconstructPartial(shares, start)).isEqualTo(Arrays.copyOfRange(data, start, data.length));
+        }
+    }
 }
@@ -1,9 +1,17 @@
 package at.archistar.crypto.secretsharing;
 
+import at.archistar.crypto.data.InvalidParametersException;
+import at.archistar.crypto.data.ShamirShare;
+import at.archistar.crypto.data.Share;
 import at.archistar.crypto.decode.DecoderFactory;
 import at.archistar.crypto.decode.ErasureDecoderFactory;
 import org.junit.Before;
 import at.archistar.crypto.random.FakeRandomSource;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.fest.assertions.api.Assertions.assertThat;
 
 /**
  * Tests for {@link ShamirPSS}.
@@ -19,4 +27,39 @@ public class TestShamirPSS extends BasicSecretSharingTest {
         DecoderFactory df = new ErasureDecoderFactory();
         algorithm = new ShamirPSS(n, k, new FakeRandomSource(), df);
     }
+
+    @Test
+    public void it_recovers_large_objects_repeatedly() throws ReconstructionException {
+        final byte[] large = new byte[5000];
+        for (int i = 0; i < large.length; i++) {
+            large[i] = (byte) (i * 17);
+        }
+
+        for (int round = 0; round < 3; round++) {
+            final Share[] shares = algorithm.share(large);
+            final Share[] recovered = algorithm.recover(Arrays.copyOfRange(shares, 2, 2 + k));
+            assertThat(recovered.length).isEqualTo(n - k);
+            for (Share s : recovered) {
+                assertThat(s.getYValues()).isEqualTo(shares[s.getId() - 1].getYValues());
+            }
+        }
+    }
+
+    @Test
+    public void it_reconstructs_ranges_from_share_slices() throws ReconstructionException, InvalidParametersException {
+        final ShamirPSS shamir = (ShamirPSS) algorithm;
+        final Share[] shares = shamir.share(data);
+
+        final ShareRange range = shamir.shareRange(data.length, 5, 7);
+        assertThat(range.getShareOffset()).isEqualTo(5);
+        assertThat(range.getShareLength()).isEqualTo(7);
+
+        final Share[] sliced = new Share[k];
+        for (int i = 0; i < k; i++) {
+            sliced[i] = new ShamirShare(shares[i].getId(), Arrays.copyOfRange(shares[i].getYValues(), 5, 12));
+        }
+        assertThat(shamir.reconstructRange(sliced, range)).isEqualTo(Arrays.copyOfRange(data, 5, 12));
+        assertThat(shamir.reconstructSlices(sliced, 5)).isEqualTo(Arrays.copyOfRange(data, 5, 12));
+        assertThat(shamir.reconstructPartial(shares, 5)).isEqualTo(Arrays.copyOfRange(data, 5, data.length));
+    }
 }
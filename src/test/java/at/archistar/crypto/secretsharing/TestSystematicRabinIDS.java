@@ -0,0 +1,58 @@
+package at.archistar.crypto.secretsharing;
+
+import at.archistar.crypto.data.Share;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link SystematicRabinIDS}
+ */
+public class TestSystematicRabinIDS extends BasicSecretSharingTest {
+
+    public TestSystematicRabinIDS() {
+        super(8, 3);
+    }
+
+    @Before
+    public void setup() throws WeakSecurityException {
+        algorithm = new SystematicRabinIDS(n, k);
+    }
+
+    @Test
+    public void data_shares_contain_plain_stripes() {
+        final Share[] shares = algorithm.share(data);
+        final int length = 6; /* ceil(16 / 3) */
+
+        assertThat(shares[0].getYValues()).isEqualTo(Arrays.copyOfRange(data, 0, length));
+        assertThat(shares[1].getYValues()).isEqualTo(Arrays.copyOfRange(data, length, 2 * length));
+        assertThat(shares[2].getYValues()).isEqualTo(Arrays.copyOfRange(data, 2 * length, 3 * length));
+    }
+
+    @Test
+    public void first_parity_share_is_xor_of_stripes() {
+        final Share[] shares = algorithm.share(data);
+
+        for (int i = 0; i < shares[k].getYValues().length; i++) {
+            int expected = shares[0].getYValues()[i] ^ shares[1].getYValues()[i] ^ shares[2].getYValues()[i];
+            assertThat(shares[k].getYValues()[i]).isEqualTo((byte) expected);
+        }
+    }
+
+    @Test
+    public void it_reconstructs_from_every_k_subset() throws ReconstructionException {
+        final Share[] shares = algorithm.share(data);
+
+        for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+                for (int c = b + 1; c < n; c++) {
+                    Share[] subset = new Share[]{shares[c], shares[a], shares[b]};
+                    assertThat(algorithm.reconstruct(subset)).isEqualTo(data);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package at.archistar.crypto.source;
+
+import at.archistar.crypto.CryptoEngine;
+import at.archistar.crypto.CryptoEngineFactory;
+import at.archistar.crypto.data.ReconstructionResult;
+import at.archistar.crypto.data.Share;
+import at.archistar.crypto.random.FakeRandomSource;
+import at.archistar.crypto.secretsharing.ReconstructionException;
+import at.archistar.crypto.secretsharing.WeakSecurityException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.fest.assertions.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link HedgedReconstructor}
+ */
+public class TestHedgedReconstructor {
+
+    private static final long SLOW = 60 * 1000;
+
+    private final byte data[] = new byte[]{1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16};
+    private final int n = 8;
+    private final int k = 5;
+    private ScheduledExecutorService scheduler;
+
+    @Before
+    public void setup() {
+        scheduler = Executors.newScheduledThreadPool(4);
+    }
+
+    @After
+    public void tearDown() {
+        scheduler.shutdownNow();
+    }
+
+    private List<ShareSource> store(Share[] shares, List<MemoryShareSource> sources) {
+        for (int i = 0; i < shares.length; i++) {
+            sources.get(i).put("object", shares[i]);
+        }
+        return new ArrayList<>(sources);
+    }
+
+    private List<MemoryShareSource> createSources(int slow) {
+        List<MemoryShareSource> sources = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            final long latency = i < slow ? SLOW : 1;
+            sources.add(new MemoryShareSource(scheduler, () -> latency));
+        }
+        return sources;
+    }
+
+    @Test
+    public void reconstructFromAllSources() throws WeakSecurityException, InterruptedException, ExecutionException, TimeoutException, ReconstructionException {
+        CryptoEngine engine = CryptoEngineFactory.getShamirEngine(n, k, new FakeRandomSource());
+        HedgedReconstructor reconstructor = new HedgedReconstructor(engine, k, scheduler);
+
+        ReconstructionResult result = reconstructor.reconstruct("object", store(engine.share(data), createSources(0)))
+                .get(10, TimeUnit.SECONDS);
+        assertThat(result.getData()).isEqualTo(data);
+    }
+
+    @Test
+    public void stragglersAreNotAwaited() throws WeakSecurityException, InterruptedException, ExecutionException, TimeoutException, ReconstructionException {
+        CryptoEngine engine = CryptoEngineFactory.getKrawczykEngine(n, k, new FakeRandomSource());
+        HedgedReconstructor reconstructor = new HedgedReconstructor(engine, k, scheduler);
+
+        ReconstructionResult result = reconstructor.reconstruct("object", store(engine.share(data), createSources(n - k)))
+                .get(10, TimeUnit.SECONDS);
+        assertThat(result.getData()).isEqualTo(data);
+    }
+
+    @Test
+    public void corruptedSharesAreReplacedByLaterOnes() throws WeakSecurityException, InterruptedException, ExecutionException, TimeoutException, ReconstructionException {
+        CryptoEngine engine = CryptoEngineFactory.getCSSEngine(n, k, new FakeRandomSource());
+        HedgedReconstructor reconstructor = new HedgedReconstructor(engine, k, scheduler);
+
+        Share[] shares = engine.share(data);
+        shares[n - 1].getYValues()[0] ^= 1;
+
+        List<MemoryShareSource> sources = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            final long latency = i < 2 ? 200 : 1;
+            sources.add(new MemoryShareSource(scheduler, () -> latency));
+        }
+
+        ReconstructionResult result = reconstructor.reconstruct("object", store(shares, sources)).get(10, TimeUnit.SECONDS);
+        assertThat(result.getData()).isEqualTo(data);
+    }
+
+    @Test
+    public void failsIfTooFewSharesExist() throws WeakSecurityException, InterruptedException, ExecutionException, TimeoutException {
+        CryptoEngine engine = CryptoEngineFactory.getShamirEngine(n, k, new FakeRandomSource());
+        HedgedReconstructor reconstructor = new HedgedReconstructor(engine, k, scheduler);
+
+        List<MemoryShareSource> sources = createSources(0);
+        Share[] shares = engine.share(data);
+        for (int i = 0; i < k - 1; i++) {
+            sources.get(i).put("object", shares[i]);
+        }
+
+        ReconstructionResult result = reconstructor.reconstruct("object", new ArrayList<>(sources)).get(10, TimeUnit.SECONDS);
+        assertThat(result.isOkay()).isFalse();
+        assertThat(result.getErrors().size()).isGreaterThan(n - k);
+    }
+
+    @Test
+    public void slowFetchesAreHedged() throws WeakSecurityException, InterruptedException, ExecutionException, TimeoutException, ReconstructionException {
+        CryptoEngine engine = CryptoEngineFactory.getShamirEngine(n, k, new FakeRandomSource());
+        HedgedReconstructor reconstructor = new HedgedReconstructor(engine, k, scheduler, 0.5);
+
+        /* the first request to half of the sources hangs, a repeated request succeeds */
+        final AtomicBoolean stall = new AtomicBoolean(false);
+        List<MemoryShareSource> sources = new ArrayList<>();
+        List<AtomicBoolean> stalled = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            final boolean flaky = i < n / 2;
+            final AtomicBoolean once = new AtomicBoolean(false);
+            stalled.add(once);
+            sources.add(new MemoryShareSource(scheduler, () -> flaky && stall.get() && once.compareAndSet(false, true) ? SLOW : 1));
+        }
+        List<ShareSource> stored = store(engine.share(data), sources);
+
+        /* warm up the latency statistics */
+        for (int i = 0; i < 4; i++) {
+            assertThat(reconstructor.reconstruct("object", stored).get(10, TimeUnit.SECONDS).getData()).isEqualTo(data);
+        }
+        assertThat(reconstructor.getHedgeDelay()).isGreaterThanOrEqualTo(0);
+
+        stall.set(true);
+        ReconstructionResult result = reconstructor.reconstruct("object", stored).get(10, TimeUnit.SECONDS);
+        assertThat(result.getData()).isEqualTo(data);
+    }
+
+    @Test
+    public void noHedgingByDefault() {
+        HedgedReconstructor reconstructor = new HedgedReconstructor(null, k, scheduler);
+        assertThat(reconstructor.getHedgeDelay()).isEqualTo(-1);
+    }
+}